@@ -0,0 +1,79 @@
+package dk.via.sep3.DTOs.loan;
+
+/**
+ * One item of a batch checkout. On success {@code loan} is set; on failure
+ * {@code errorCode} and {@code message} are, with the same codes the error
+ * response of a single checkout uses.
+ */
+public class LoanResultDTO
+{
+  private String bookISBN;
+  private boolean success;
+  private LoanDTO loan;
+  private String errorCode;
+  private String message;
+
+  public LoanResultDTO()
+  {
+  }
+
+  public LoanResultDTO(String bookISBN, boolean success, LoanDTO loan,
+                       String errorCode, String message)
+  {
+    this.bookISBN = bookISBN;
+    this.success = success;
+    this.loan = loan;
+    this.errorCode = errorCode;
+    this.message = message;
+  }
+
+  public String getBookISBN()
+  {
+    return bookISBN;
+  }
+
+  public void setBookISBN(String bookISBN)
+  {
+    this.bookISBN = bookISBN;
+  }
+
+  public boolean isSuccess()
+  {
+    return success;
+  }
+
+  public void setSuccess(boolean success)
+  {
+    this.success = success;
+  }
+
+  public LoanDTO getLoan()
+  {
+    return loan;
+  }
+
+  public void setLoan(LoanDTO loan)
+  {
+    this.loan = loan;
+  }
+
+  public String getErrorCode()
+  {
+    return errorCode;
+  }
+
+  public void setErrorCode(String errorCode)
+  {
+    this.errorCode = errorCode;
+  }
+
+  public String getMessage()
+  {
+    return message;
+  }
+
+  public void setMessage(String message)
+  {
+    this.message = message;
+  }
+}
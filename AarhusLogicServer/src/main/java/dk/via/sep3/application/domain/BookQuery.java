@@ -0,0 +1,75 @@
+package dk.via.sep3.application.domain;
+
+import java.util.Objects;
+
+/**
+ * Paging and filter options for a catalog lookup. Null filters are ignored.
+ * The limit counts unique ISBNs and the cursor is the last ISBN of the
+ * previous page.
+ */
+public class BookQuery
+{
+  /** Page size used when a lookup is filtered or paged without a limit. */
+  public static final int DEFAULT_LIMIT = 100;
+
+  private final int limit;
+  private final String cursor;
+  private final String author;
+  private final String genre;
+  private final State state;
+
+  public BookQuery(int limit, String cursor, String author, String genre,
+      State state)
+  {
+    this.limit = limit;
+    this.cursor = cursor;
+    this.author = author;
+    this.genre = genre;
+    this.state = state;
+  }
+
+  public int getLimit()
+  {
+    return limit;
+  }
+
+  public String getCursor()
+  {
+    return cursor;
+  }
+
+  public String getAuthor()
+  {
+    return author;
+  }
+
+  public String getGenre()
+  {
+    return genre;
+  }
+
+  public State getState()
+  {
+    return state;
+  }
+
+  @Override public boolean equals(Object o)
+  {
+    if (this == o)
+    {
+      return true;
+    }
+    if (!(o instanceof BookQuery other))
+    {
+      return false;
+    }
+    return limit == other.limit && Objects.equals(cursor, other.cursor)
+        && Objects.equals(author, other.author) && Objects.equals(genre,
+        other.genre) && state == other.state;
+  }
+
+  @Override public int hashCode()
+  {
+    return Objects.hash(limit, cursor, author, genre, state);
+  }
+}
@@ -3,6 +3,8 @@ package dk.via.sep3.application.services.books;
 import dk.via.sep3.exceptionHandler.ResourceNotFoundException;
 import dk.via.sep3.grpcConnection.bookGrpcService.BookGrpcService;
 import dk.via.sep3.application.domain.Book;
+import dk.via.sep3.application.domain.BookPage;
+import dk.via.sep3.application.domain.BookQuery;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
@@ -11,12 +13,15 @@ import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
 
 @Service
 public class BookServiceImpl implements BookService
 {
   private static final Logger logger = LoggerFactory.getLogger(
       BookServiceImpl.class);
+  private static final int MAX_PAGE_SIZE = 100;
   private final BookGrpcService bookGrpcService;
 
   public BookServiceImpl(BookGrpcService bookGrpcService)
@@ -32,6 +37,37 @@ public class BookServiceImpl implements BookService
     return createUniqueBooks(allBooks);
   }
 
+  @Override public BookPage getBooks(BookQuery query)
+  {
+    logger.info("getBooks called");
+    if (query.getLimit() < 1 || query.getLimit() > MAX_PAGE_SIZE)
+    {
+      throw new IllegalArgumentException(
+          "Limit must be between 1 and " + MAX_PAGE_SIZE);
+    }
+    BookPage page = bookGrpcService.getBooks(query);
+    logger.info("Retrieved {} books from gRPC service", page.getBooks().size());
+    return new BookPage(createUniqueBooks(page.getBooks()),
+        page.getNextCursor());
+  }
+
+  @Override public void streamAllBooks(Consumer<Book> consumer)
+  {
+    logger.info("streamAllBooks called");
+    String[] previousIsbn = new String[1];
+    int[] streamed = new int[1];
+    bookGrpcService.streamAllBooks(book -> {
+      if (streamed[0] > 0 && Objects.equals(previousIsbn[0], book.getIsbn()))
+      {
+        return;
+      }
+      previousIsbn[0] = book.getIsbn();
+      streamed[0]++;
+      consumer.accept(book);
+    });
+    logger.info("Streamed {} unique books", streamed[0]);
+  }
+
   @Override public Book getBookByIsbn(String isbn)
   {
     logger.info("getBookByIsbn called");
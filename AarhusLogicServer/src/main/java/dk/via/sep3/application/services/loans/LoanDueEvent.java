@@ -0,0 +1,41 @@
+package dk.via.sep3.application.services.loans;
+
+import dk.via.sep3.application.domain.Loan;
+
+/**
+ * Published by {@link OverdueLoanMonitor} on the day a loan becomes due soon
+ * or overdue. Listeners, such as {@code @EventListener} methods, run on the
+ * monitor's thread.
+ */
+public class LoanDueEvent
+{
+    public enum Kind
+    {
+        /** The due date is {@code loans.due-monitor.due-soon-days} away. */
+        DUE_SOON,
+        /** The due date has passed. */
+        OVERDUE
+    }
+
+    private final Kind kind;
+    private final Loan loan;
+
+    public LoanDueEvent(Kind kind, Loan loan)
+    {
+        this.kind = kind;
+        this.loan = loan;
+    }
+
+    public Kind getKind()
+    {
+        return kind;
+    }
+
+    /**
+     * @return the loan as stored by persistence when the event fired
+     */
+    public Loan getLoan()
+    {
+        return loan;
+    }
+}
@@ -1,11 +1,15 @@
 package dk.via.sep3.application.services.loans;
 
+import dk.via.sep3.application.domain.ExtensionResult;
 import dk.via.sep3.application.domain.Loan;
+import dk.via.sep3.application.domain.LoanResult;
 import java.util.List;
 
 public interface LoanService
 {
   Loan createLoan(Loan loan);
+  List<LoanResult> createLoans(String username, List<String> isbns);
   void extendLoan(Loan loan);
+  List<ExtensionResult> extendLoans(String username, List<Integer> loanIds);
   List<Loan> getActiveLoansByUsername(String username);
 }
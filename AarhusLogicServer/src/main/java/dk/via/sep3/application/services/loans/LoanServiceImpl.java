@@ -4,16 +4,27 @@ import dk.via.sep3.exceptionHandler.BusinessRuleViolationException;
 import dk.via.sep3.exceptionHandler.GrpcCommunicationException;
 import dk.via.sep3.exceptionHandler.ResourceNotFoundException;
 import dk.via.sep3.grpcConnection.bookGrpcService.BookGrpcService;
+import dk.via.sep3.grpcConnection.deadline.RequestBudget;
+import dk.via.sep3.grpcConnection.fanOut.GrpcFanOut;
 import dk.via.sep3.grpcConnection.loanGrpcService.LoanGrpcService;
+import dk.via.sep3.application.domain.AvailabilitySummary;
 import dk.via.sep3.application.domain.Book;
+import dk.via.sep3.application.domain.ExtensionResult;
 import dk.via.sep3.application.domain.Loan;
+import dk.via.sep3.application.domain.LoanResult;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
 
 import java.sql.Date;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 @Service public class LoanServiceImpl implements LoanService
 {
@@ -21,32 +32,179 @@ import java.util.List;
             LoanServiceImpl.class);
     private final BookGrpcService bookGrpcService;
     private final LoanGrpcService loanGrpcService;
+    private final GrpcFanOut grpcFanOut;
+    private final OverdueLoanMonitor overdueLoanMonitor;
+    // Cleared when the persistence server answers BorrowBook with
+    // UNIMPLEMENTED, e.g. mid rolling upgrade; loans are then made step by
+    // step until this node restarts
+    private volatile boolean borrowBookSupported = true;
+    // Likewise for BorrowBooks; batches are then lent one item at a time
+    private volatile boolean borrowBooksSupported = true;
+    // Likewise for GetLoansByIds and ExtendLoans, which ship together
+    private volatile boolean extendLoansSupported = true;
+
+    static final int MAX_BATCH_SIZE = 20;
 
     public LoanServiceImpl(BookGrpcService bookGrpcService,
-                           LoanGrpcService loanGrpcService)
+                           LoanGrpcService loanGrpcService,
+                           GrpcFanOut grpcFanOut,
+                           OverdueLoanMonitor overdueLoanMonitor)
     {
         this.bookGrpcService = bookGrpcService;
         this.loanGrpcService = loanGrpcService;
+        this.grpcFanOut = grpcFanOut;
+        this.overdueLoanMonitor = overdueLoanMonitor;
     }
 
     @Override public Loan createLoan(Loan loan)
     {
         logger.info("Creating loan for user {} and ISBN {}", loan.getUsername(), loan.getBookISBN());
 
-        // Step 1: Validate no duplicate active loan
-        validateNoDuplicateActiveLoan(loan.getUsername(), loan.getBookISBN());
+        if (borrowBookSupported)
+        {
+            try
+            {
+                return borrowBook(loan);
+            }
+            catch (UnsupportedOperationException ex)
+            {
+                borrowBookSupported = false;
+                logger.warn("Persistence server does not implement BorrowBook; creating loans step by step");
+            }
+        }
+        return createLoanStepwise(loan);
+    }
+
+    /**
+     * Borrows several ISBNs for one user in one {@code BorrowBooks} call, each
+     * item checked and lent as by {@link #createLoan(Loan)} and failing on its
+     * own. Without {@code BorrowBooks} the items are lent one at a time.
+     */
+    @Override public List<LoanResult> createLoans(String username, List<String> isbns)
+    {
+        if (isbns == null || isbns.isEmpty() || isbns.size() > MAX_BATCH_SIZE)
+        {
+            throw new IllegalArgumentException(
+                    "Between 1 and " + MAX_BATCH_SIZE + " books can be borrowed at once");
+        }
+        logger.info("Creating {} loans for user {}", isbns.size(), username);
+
+        if (borrowBooksSupported)
+        {
+            try
+            {
+                return borrowBooks(username, isbns);
+            }
+            catch (UnsupportedOperationException ex)
+            {
+                borrowBooksSupported = false;
+                logger.warn("Persistence server does not implement BorrowBooks; creating batched loans one at a time");
+            }
+        }
+        return createLoansOneByOne(username, isbns);
+    }
+
+    private List<LoanResult> borrowBooks(String username, List<String> isbns)
+    {
+        List<Loan> requests = new ArrayList<>();
+        for (String isbn : isbns)
+        {
+            Loan request = createLoanObject(username);
+            request.setBookISBN(isbn);
+            requests.add(request);
+        }
+
+        List<LoanResult> results = loanGrpcService.borrowBooks(requests);
+        for (LoanResult result : results)
+        {
+            if (result.isSuccess())
+            {
+                bookGrpcService.bookStateChanged(result.getLoan().getBookId());
+                overdueLoanMonitor.track(result.getLoan());
+            }
+        }
+        logger.info("Created {} of {} loans for user {}",
+                results.stream().filter(LoanResult::isSuccess).count(), isbns.size(), username);
+        return results;
+    }
+
+    private List<LoanResult> createLoansOneByOne(String username, List<String> isbns)
+    {
+        List<LoanResult> results = new ArrayList<>();
+        for (String isbn : isbns)
+        {
+            Loan loan = new Loan();
+            loan.setUsername(username);
+            loan.setBookISBN(isbn);
+            try
+            {
+                results.add(LoanResult.success(isbn, createLoan(loan)));
+            }
+            catch (RuntimeException ex)
+            {
+                results.add(LoanResult.failure(isbn, ex));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Borrows an available copy in one round trip: the persistence server
+     * checks for a duplicate loan and takes the copy in one transaction, so
+     * concurrent borrowers never get the same copy.
+     */
+    private Loan borrowBook(Loan loan)
+    {
+        Loan request = createLoanObject(loan.getUsername());
+        request.setBookISBN(loan.getBookISBN());
+
+        Loan createdLoan = loanGrpcService.borrowBook(request);
+        if (createdLoan == null || createdLoan.getLoanId() <= 0)
+        {
+            logger.error("Failed to borrow ISBN {} via gRPC for user: {}", loan.getBookISBN(), loan.getUsername());
+            throw new RuntimeException("Failed to create loan - invalid response from server");
+        }
+        bookGrpcService.bookStateChanged(createdLoan.getBookId());
+        overdueLoanMonitor.track(createdLoan);
+
+        logger.info("Loan created successfully with ID {} for book {}",
+                createdLoan.getLoanId(), createdLoan.getBookId());
+        return createdLoan;
+    }
+
+    /**
+     * Creates a loan with separate lookups, loan creation and state update,
+     * for persistence servers without {@code BorrowBook}.
+     */
+    private Loan createLoanStepwise(Loan loan)
+    {
+        // Steps 1 and 2 are independent lookups, so they run concurrently and
+        // the first validation failure cancels the other
+        AvailabilitySummary availability;
+        try (GrpcFanOut.Scope scope = grpcFanOut.open())
+        {
+            // Step 1: Validate no duplicate active loan
+            scope.fork(() -> validateNoDuplicateActiveLoan(loan.getUsername(), loan.getBookISBN()));
 
-        // Step 2: Find available book
-        Book availableBook = findAndValidateAvailableBook(loan.getBookISBN());
+            // Step 2: Check that a copy is available
+            CompletableFuture<AvailabilitySummary> summary = scope.fork(
+                    () -> findAndValidateAvailability(loan.getBookISBN()));
 
-        // Step 3: Create and persist loan
-        Loan createdLoan = createAndPersistLoan(loan.getUsername(), availableBook);
+            scope.join();
+            availability = summary.join();
+        }
+
+        // Step 3: Claim a copy, unless the lookups used up the budget
+        RequestBudget.ensureRemaining("creating the loan");
+        int claimedBookId = claimAvailableBook(loan.getBookISBN(), availability);
 
-        // Step 4: Update book status
-        updateBookStatusToBorrowed(availableBook.getId());
+        // Step 4: Create and persist loan; the copy is taken now, so this must finish
+        Loan createdLoan = RequestBudget.finishOutsideBudget(
+                () -> createLoanForClaimedBook(loan.getUsername(), claimedBookId));
+        overdueLoanMonitor.track(createdLoan);
 
         logger.info("Loan created successfully with ID {} for book {}",
-                createdLoan.getLoanId(), availableBook.getId());
+                createdLoan.getLoanId(), claimedBookId);
 
         return createdLoan;
     }
@@ -58,26 +216,126 @@ import java.util.List;
         // Step 1: Retrieve and validate loan exists
         Loan existingLoan = retrieveAndValidateLoanExists(loan.getLoanId());
 
-        // Defensive check: ensure the stored loan has a due date
-        if (existingLoan.getDueDate() == null)
+        // Steps 2-4: Validate the borrower, timing and limit, then move the
+        // due date on
+        prepareExtension(existingLoan, loan.getUsername());
+
+        // Step 5: Persist the extension (send the updated existing loan)
+        loanGrpcService.extendLoan(existingLoan);
+        overdueLoanMonitor.track(existingLoan);
+
+        logger.info("Loan {} successfully extended to {}", existingLoan.getLoanId(), existingLoan.getDueDate());
+    }
+
+    /**
+     * Extends several loans of one user in two round trips: one
+     * {@code GetLoansByIds} call, checks as by {@link #extendLoan(Loan)}, and
+     * one {@code ExtendLoans} call for the eligible loans. Without those calls
+     * the loans are extended one at a time.
+     */
+    @Override public List<ExtensionResult> extendLoans(String username,
+            List<Integer> loanIds)
+    {
+        if (loanIds == null || loanIds.isEmpty() || loanIds.size() > MAX_BATCH_SIZE)
         {
-            logger.error("Loan {} has a missing dueDate in storage", existingLoan.getLoanId());
-            throw new IllegalStateException("Loan due date is missing; cannot extend this loan");
+            throw new IllegalArgumentException(
+                    "Between 1 and " + MAX_BATCH_SIZE + " loans can be extended at once");
+        }
+        logger.info("Extending {} loans for user {}", loanIds.size(), username);
+
+        if (extendLoansSupported)
+        {
+            try
+            {
+                return extendLoansBatched(username, loanIds);
+            }
+            catch (UnsupportedOperationException ex)
+            {
+                extendLoansSupported = false;
+                logger.warn("Persistence server does not implement GetLoansByIds "
+                        + "or ExtendLoans; extending batched loans one at a time");
+            }
         }
+        return extendLoansOneByOne(username, loanIds);
+    }
 
-        // Step 2: Validate user is the borrower
-        validateUserIsBorrower(existingLoan, loan.getUsername());
+    private List<ExtensionResult> extendLoansBatched(String username,
+            List<Integer> loanIds)
+    {
+        Map<Integer, Loan> found = new HashMap<>();
+        for (Loan loan : loanGrpcService.getLoansByIds(loanIds))
+        {
+            found.put(loan.getLoanId(), loan);
+        }
 
-        // Step 3: Validate extension timing and limit using the retrieved loan (which has dates)
-        validateExtensionEligibility(existingLoan);
+        List<ExtensionResult> results = new ArrayList<>();
+        List<Loan> eligible = new ArrayList<>();
+        Set<Integer> seen = new HashSet<>();
+        for (int loanId : loanIds)
+        {
+            try
+            {
+                requireFirstMention(seen, loanId);
+                Loan loan = found.get(loanId);
+                if (loan == null)
+                {
+                    logger.error("Loan not found with ID: {}", loanId);
+                    throw new IllegalArgumentException("Loan not found with ID: " + loanId);
+                }
+                prepareExtension(loan, username);
+                eligible.add(loan);
+                results.add(ExtensionResult.success(loanId, loan));
+            }
+            catch (RuntimeException ex)
+            {
+                results.add(ExtensionResult.failure(loanId, ex));
+            }
+        }
 
-        // Step 4: Calculate new due date and update the retrieved loan
-        applyExtensionToLoan(existingLoan);
+        if (!eligible.isEmpty())
+        {
+            loanGrpcService.extendLoans(eligible);
+            eligible.forEach(overdueLoanMonitor::track);
+        }
+        logger.info("Extended {} of {} loans for user {}", eligible.size(),
+                loanIds.size(), username);
+        return results;
+    }
 
-        // Step 5: Persist the extension (send the updated existing loan)
-        loanGrpcService.extendLoan(existingLoan);
+    private List<ExtensionResult> extendLoansOneByOne(String username,
+            List<Integer> loanIds)
+    {
+        List<ExtensionResult> results = new ArrayList<>();
+        Set<Integer> seen = new HashSet<>();
+        for (int loanId : loanIds)
+        {
+            try
+            {
+                requireFirstMention(seen, loanId);
+                Loan loan = retrieveAndValidateLoanExists(loanId);
+                prepareExtension(loan, username);
+                loanGrpcService.extendLoan(loan);
+                overdueLoanMonitor.track(loan);
+                results.add(ExtensionResult.success(loanId, loan));
+            }
+            catch (RuntimeException ex)
+            {
+                results.add(ExtensionResult.failure(loanId, ex));
+            }
+        }
+        return results;
+    }
 
-        logger.info("Loan {} successfully extended to {}", existingLoan.getLoanId(), existingLoan.getDueDate());
+    /**
+     * A loan listed twice must not be extended twice.
+     */
+    private static void requireFirstMention(Set<Integer> seen, int loanId)
+    {
+        if (!seen.add(loanId))
+        {
+            throw new IllegalArgumentException(
+                    "Loan " + loanId + " is listed more than once");
+        }
     }
 
   @Override public List<Loan> getActiveLoansByUsername(String username)
@@ -121,49 +379,115 @@ import java.util.List;
     }
 
     /**
-     * Finds and validates that an available book exists for the given ISBN.
+     * Validates from the copy counts that an available copy exists for the given ISBN.
+     * The counts come from the persistence server, not the book cache, since a copy is claimed on them.
      */
-    private Book findAndValidateAvailableBook(String isbn)
+    private AvailabilitySummary findAndValidateAvailability(String isbn)
     {
-        List<Book> books = bookGrpcService.getBooksByIsbn(isbn);
-        logger.debug("Found {} books with ISBN {}", books.size(), isbn);
+        AvailabilitySummary availability = bookGrpcService.getCurrentAvailabilitySummary(isbn);
+        logger.debug("Found {} books with ISBN {}, {} available",
+                availability.getTotal(), isbn, availability.getAvailable());
 
-        if (books.isEmpty())
+        if (!availability.exists())
         {
             logger.error("No books found with ISBN {}", isbn);
             throw new IllegalArgumentException("No books found with the specified ISBN");
         }
+        if (!availability.isAvailable())
+        {
+            logger.error("No available books found from {} total books", availability.getTotal());
+            throw new IllegalArgumentException("No available copies of this book");
+        }
+        return availability;
+    }
 
-        return findAvailableBook(books);
+    /**
+     * Finds the available books in a list, in list order.
+     */
+    private List<Book> findAvailableBooks(List<Book> books)
+    {
+        List<Book> available = books.stream()
+                .filter(book -> book.getState().toString().equalsIgnoreCase("AVAILABLE"))
+                .toList();
+        if (available.isEmpty())
+        {
+            logger.error("No available books found from {} total books", books.size());
+            throw new IllegalArgumentException("No available copies of this book");
+        }
+        logger.debug("Found {} available books", available.size());
+        return available;
     }
 
     /**
-     * Finds the first available book from a list.
+     * Marks the copy named by the summary as "Borrowed". If another logic server
+     * claimed it first, lists the copies and moves on to the next available one.
      */
-    private Book findAvailableBook(List<Book> books)
+    private int claimAvailableBook(String isbn, AvailabilitySummary availability)
     {
+        int bookId = availability.getAvailableBookId();
+        if (bookGrpcService.updateBookStatus(bookId, "Available", "Borrowed"))
+        {
+            logger.debug("Book {} status updated to Borrowed", bookId);
+            return bookId;
+        }
+        logger.info("Book {} was claimed by another request, listing the other copies", bookId);
+
+        List<Book> books = findAvailableBooks(bookGrpcService.getCurrentBooksByIsbn(isbn));
         for (Book book : books)
         {
-            if (book.getState().toString().equalsIgnoreCase("AVAILABLE"))
+            if (book.getId() == bookId)
+            {
+                continue;
+            }
+            if (bookGrpcService.updateBookStatus(book.getId(), "Available", "Borrowed"))
             {
-                logger.debug("Available book found with ID: {}", book.getId());
-                return book;
+                logger.debug("Book {} status updated to Borrowed", book.getId());
+                return book.getId();
             }
+            logger.info("Book {} was claimed by another request, trying the next copy", book.getId());
         }
-
-        logger.error("No available books found from {} total books", books.size());
+        logger.error("All {} available books were claimed by other requests", books.size());
         throw new IllegalArgumentException("No available copies of this book");
     }
 
+    /**
+     * Persists the loan for a claimed copy and hands the copy back if that fails.
+     */
+    private Loan createLoanForClaimedBook(String username, int bookId)
+    {
+        try
+        {
+            return createAndPersistLoan(username, bookId);
+        }
+        catch (RuntimeException ex)
+        {
+            releaseClaimedBook(bookId);
+            throw ex;
+        }
+    }
+
+    private void releaseClaimedBook(long bookId)
+    {
+        try
+        {
+            bookGrpcService.updateBookStatus((int) bookId, "Borrowed", "Available");
+        }
+        catch (RuntimeException ex)
+        {
+            logger.error("Could not hand book {} back after the loan failed", bookId, ex);
+        }
+    }
+
     /**
      * Creates a loan object and persists it via gRPC.
      */
-    private Loan createAndPersistLoan(String username, Book book)
+    private Loan createAndPersistLoan(String username, int bookId)
     {
-        Loan loan = createLoanObject(username, book);
+        Loan loan = createLoanObject(username);
+        loan.setBookId(bookId);
         Loan persistedLoan = loanGrpcService.createLoan(loan);
 
-        validateLoanPersistence(persistedLoan, username, book.getId());
+        validateLoanPersistence(persistedLoan, username, bookId);
 
         return persistedLoan;
     }
@@ -171,7 +495,7 @@ import java.util.List;
     /**
      * Creates a new loan domain object with proper dates.
      */
-    private Loan createLoanObject(String username, Book book)
+    private Loan createLoanObject(String username)
     {
         Date today = new Date(System.currentTimeMillis());
         Date borrowDate = Date.valueOf(today.toLocalDate());
@@ -179,7 +503,6 @@ import java.util.List;
 
         Loan loan = new Loan();
         loan.setUsername(username);
-        loan.setBookId(book.getId());
         loan.setBorrowDate(borrowDate);
         loan.setDueDate(dueDate);
         loan.setNumberOfExtensions(0);
@@ -200,15 +523,6 @@ import java.util.List;
         }
     }
 
-    /**
-     * Updates the book status to "Borrowed".
-     */
-    private void updateBookStatusToBorrowed(long bookId)
-    {
-        bookGrpcService.updateBookStatus((int) bookId, "Borrowed");
-        logger.debug("Book {} status updated to Borrowed", bookId);
-    }
-
     // ==================== Extend Loan Helper Methods ====================
 
     /**
@@ -227,6 +541,24 @@ import java.util.List;
         return loan;
     }
 
+    /**
+     * Checks a stored loan can be extended by {@code username} and moves its
+     * due date on.
+     */
+    private void prepareExtension(Loan loan, String username)
+    {
+        // Defensive check: ensure the stored loan has a due date
+        if (loan.getDueDate() == null)
+        {
+            logger.error("Loan {} has a missing dueDate in storage", loan.getLoanId());
+            throw new IllegalStateException("Loan due date is missing; cannot extend this loan");
+        }
+
+        validateUserIsBorrower(loan, username);
+        validateExtensionEligibility(loan);
+        applyExtensionToLoan(loan);
+    }
+
     /**
      * Validates that the requesting user is the borrower of the loan.
      */
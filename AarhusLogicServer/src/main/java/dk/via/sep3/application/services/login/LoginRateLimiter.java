@@ -0,0 +1,99 @@
+package dk.via.sep3.application.services.login;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import dk.via.sep3.exceptionHandler.RateLimitExceededException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * Limits login attempts per username and per client address with token
+ * buckets, so that guessing attacks are turned away before any gRPC lookup or
+ * BCrypt work is done. The username allowance is shared by every address, so
+ * spreading guesses over many addresses does not get around it. Its burst is
+ * kept generous so that a few bad attempts from elsewhere do not lock the
+ * owner out.
+ * <p>
+ * Buckets are created on first use and dropped after sitting idle for
+ * {@code login.throttle.idle-timeout}. At that point they would be full
+ * again anyway.
+ */
+@Component
+public class LoginRateLimiter
+{
+  private static final Logger logger = LoggerFactory.getLogger(LoginRateLimiter.class);
+
+  private final Ticker ticker;
+  private final int usernameCapacity;
+  private final long usernameRefillNanos;
+  private final int addressCapacity;
+  private final long addressRefillNanos;
+  private final Cache<String, TokenBucket> usernameBuckets;
+  private final Cache<String, TokenBucket> addressBuckets;
+
+  @Autowired
+  public LoginRateLimiter(
+      @Value("${login.throttle.username.capacity:20}") int usernameCapacity,
+      @Value("${login.throttle.username.refill:30s}") Duration usernameRefill,
+      @Value("${login.throttle.address.capacity:20}") int addressCapacity,
+      @Value("${login.throttle.address.refill:1s}") Duration addressRefill,
+      @Value("${login.throttle.max-keys:100000}") long maxKeys,
+      @Value("${login.throttle.idle-timeout:15m}") Duration idleTimeout)
+  {
+    this(usernameCapacity, usernameRefill, addressCapacity, addressRefill,
+        maxKeys, idleTimeout, Ticker.systemTicker());
+  }
+
+  LoginRateLimiter(int usernameCapacity, Duration usernameRefill,
+      int addressCapacity, Duration addressRefill, long maxKeys,
+      Duration idleTimeout, Ticker ticker)
+  {
+    this.ticker = ticker;
+    this.usernameCapacity = usernameCapacity;
+    this.usernameRefillNanos = usernameRefill.toNanos();
+    this.addressCapacity = addressCapacity;
+    this.addressRefillNanos = addressRefill.toNanos();
+    this.usernameBuckets = Caffeine.newBuilder().maximumSize(maxKeys)
+        .expireAfterAccess(idleTimeout).ticker(ticker).build();
+    this.addressBuckets = Caffeine.newBuilder().maximumSize(maxKeys)
+        .expireAfterAccess(idleTimeout).ticker(ticker).build();
+  }
+
+  /**
+   * Takes one attempt from the client address and then from the username.
+   *
+   * @param clientAddress may be {@code null} when unknown, in which case only
+   *                      the username is limited
+   * @throws RateLimitExceededException if either allowance is used up
+   */
+  public void acquire(String username, String clientAddress)
+  {
+    long now = ticker.read();
+    if (clientAddress != null)
+    {
+      long wait = addressBuckets.get(clientAddress,
+          key -> new TokenBucket(addressCapacity, addressRefillNanos, now)).tryAcquire(now);
+      if (wait > 0)
+      {
+        logger.warn("Login attempts throttled for address: {}", clientAddress);
+        throw new RateLimitExceededException("Too many login attempts from this address",
+            Duration.ofNanos(wait));
+      }
+    }
+    long wait = usernameBuckets.get(username.toLowerCase(Locale.ROOT),
+        key -> new TokenBucket(usernameCapacity, usernameRefillNanos, now)).tryAcquire(now);
+    if (wait > 0)
+    {
+      logger.warn("Login attempts throttled for user: {}", username);
+      throw new RateLimitExceededException("Too many login attempts for this user",
+          Duration.ofNanos(wait));
+    }
+  }
+}
@@ -10,15 +10,20 @@ import org.springframework.stereotype.Service;
 {
   private final UserGrpcService userGrpcService;
   private final PasswordService passwordService;
+  private final LoginRateLimiter rateLimiter;
+  private final UnknownUsernameCache unknownUsernames;
 
   public LoginServiceImpl(UserGrpcService userGrpcService,
-      PasswordService passwordService)
+      PasswordService passwordService, LoginRateLimiter rateLimiter,
+      UnknownUsernameCache unknownUsernames)
   {
     this.userGrpcService = userGrpcService;
     this.passwordService = passwordService;
+    this.rateLimiter = rateLimiter;
+    this.unknownUsernames = unknownUsernames;
   }
 
-  @Override public User login(User request)
+  @Override public User login(User request, String clientAddress)
   {
 
     if (request == null || request.getUsername() == null
@@ -29,10 +34,19 @@ import org.springframework.stereotype.Service;
           "Username and Password must be provided");
     }
 
+    // Reject abusive clients before any gRPC or BCrypt work
+    rateLimiter.acquire(request.getUsername(), clientAddress);
+
+    if (unknownUsernames.isUnknown(request.getUsername()))
+    {
+      throw new BusinessRuleViolationException("User not found");
+    }
+
     User user = userGrpcService.getUserByUsername(request.getUsername());
 
     if (user == null)
     {
+      unknownUsernames.remember(request.getUsername());
       throw new BusinessRuleViolationException("User not found");
     }
 
@@ -0,0 +1,61 @@
+package dk.via.sep3.application.services.login;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * Remembers usernames that persistence reported as not existing, so repeated
+ * logins for them skip the gRPC lookup. Registration on this node forgets the
+ * name right away; a user registered through another logic server becomes
+ * visible once the entry expires. Names are compared ignoring case, like the
+ * login throttle does.
+ */
+@Component
+public class UnknownUsernameCache
+{
+  private final Cache<String, Boolean> unknownUsernames;
+
+  @Autowired
+  public UnknownUsernameCache(
+      @Value("${login.unknown-usernames.max-size:100000}") long maxSize,
+      @Value("${login.unknown-usernames.ttl:60s}") Duration ttl)
+  {
+    this(maxSize, ttl, Ticker.systemTicker());
+  }
+
+  UnknownUsernameCache(long maxSize, Duration ttl, Ticker ticker)
+  {
+    this.unknownUsernames = Caffeine.newBuilder().maximumSize(maxSize)
+        .expireAfterWrite(ttl).ticker(ticker).build();
+  }
+
+  public boolean isUnknown(String username)
+  {
+    return unknownUsernames.getIfPresent(key(username)) != null;
+  }
+
+  public void remember(String username)
+  {
+    unknownUsernames.put(key(username), Boolean.TRUE);
+  }
+
+  public void forget(String username)
+  {
+    if (username != null)
+    {
+      unknownUsernames.invalidate(key(username));
+    }
+  }
+
+  private static String key(String username)
+  {
+    return username.toLowerCase(Locale.ROOT);
+  }
+}
@@ -4,7 +4,9 @@ import dk.via.sep3.exceptionHandler.BusinessRuleViolationException;
 import dk.via.sep3.exceptionHandler.GrpcCommunicationException;
 import dk.via.sep3.grpcConnection.userGrpcService.UserGrpcService;
 import dk.via.sep3.application.domain.User;
+import dk.via.sep3.application.services.login.UnknownUsernameCache;
 import dk.via.sep3.application.services.validation.RegistrationValidator;
+import dk.via.sep3.application.services.validation.UsernameFilter;
 import dk.via.sep3.security.PasswordService;
 import org.springframework.stereotype.Service;
 
@@ -13,14 +15,19 @@ import org.springframework.stereotype.Service;
   private final UserGrpcService userGrpcService;
   private final PasswordService passwordService;
   private final RegistrationValidator registrationValidator;
+  private final UnknownUsernameCache unknownUsernames;
+  private final UsernameFilter usernameFilter;
 
   public RegisterServiceImpl(UserGrpcService userGrpcService,
       PasswordService passwordService,
-      RegistrationValidator registrationValidator)
+      RegistrationValidator registrationValidator,
+      UnknownUsernameCache unknownUsernames, UsernameFilter usernameFilter)
   {
     this.userGrpcService = userGrpcService;
     this.passwordService = passwordService;
     this.registrationValidator = registrationValidator;
+    this.unknownUsernames = unknownUsernames;
+    this.usernameFilter = usernameFilter;
   }
 
   @Override public User register(User user)
@@ -45,9 +52,20 @@ import org.springframework.stereotype.Service;
             "Internal Server Error. Please try again later.");
       }
 
+      // The name may have been looked up (and cached as unknown) before it
+      // existed
+      unknownUsernames.forget(user.getUsername());
+      usernameFilter.add(user.getUsername());
       return created;
 
     }
+    catch (BusinessRuleViolationException e)
+    {
+      // Taken on another logic server; remember it so the next try is
+      // checked against persistence instead of skipped by the filter
+      usernameFilter.add(user.getUsername());
+      throw e;
+    }
     catch (Exception e)
     {
       throw new GrpcCommunicationException("Failed to create user", e);
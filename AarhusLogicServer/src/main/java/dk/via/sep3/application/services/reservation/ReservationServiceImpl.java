@@ -1,16 +1,19 @@
 package dk.via.sep3.application.services.reservation;
 
+import dk.via.sep3.application.services.loans.LoanSnapshot;
 import dk.via.sep3.exceptionHandler.ResourceNotFoundException;
 import dk.via.sep3.grpcConnection.bookGrpcService.BookGrpcService;
+import dk.via.sep3.grpcConnection.deadline.RequestBudget;
+import dk.via.sep3.grpcConnection.fanOut.GrpcFanOut;
 import dk.via.sep3.grpcConnection.loanGrpcService.LoanGrpcService;
 import dk.via.sep3.grpcConnection.reservationGrpcService.ReservationGrpcService;
-import dk.via.sep3.application.domain.Book;
-import dk.via.sep3.application.domain.Loan;
+import dk.via.sep3.application.domain.AvailabilitySummary;
 import dk.via.sep3.application.domain.Reservation;
 import org.springframework.stereotype.Service;
 
 import java.sql.Date;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.time.LocalDate;
 
 @Service
@@ -18,12 +21,14 @@ public class ReservationServiceImpl implements ReservationService {
     private final LoanGrpcService loanGrpcService;
     private final BookGrpcService bookGrpcService;
     private final ReservationGrpcService reservationGrpcService;
+    private final GrpcFanOut grpcFanOut;
 
     public ReservationServiceImpl(LoanGrpcService loanGrpcService, BookGrpcService bookGrpcService,
-                                  ReservationGrpcService reservationGrpcService) {
+                                  ReservationGrpcService reservationGrpcService, GrpcFanOut grpcFanOut) {
         this.loanGrpcService = loanGrpcService;
         this.bookGrpcService = bookGrpcService;
         this.reservationGrpcService = reservationGrpcService;
+        this.grpcFanOut = grpcFanOut;
     }
 
     @Override
@@ -31,42 +36,65 @@ public class ReservationServiceImpl implements ReservationService {
         String username = reservation.getUsername();
         String isbn = reservation.getBookISBN();
 
-        // Step 1: Retrieve and validate books exist
-        List<Book> books = retrieveAndValidateBooksExist(isbn);
-
-        // Step 2: Validate no duplicate reservation
-        validateNoDuplicateReservation(username, isbn);
+        // The book, reservation and loan lookups are independent and run concurrently.
+        // Copies are never listed: availability counts answer steps 1 and 3
+        AvailabilitySummary availability;
+        LoanSnapshot loans;
+        try (GrpcFanOut.Scope scope = grpcFanOut.open()) {
+            // Step 1: Retrieve availability and validate books exist
+            CompletableFuture<AvailabilitySummary> availabilityLookup = scope.fork(
+                    () -> retrieveAndValidateBooksExist(isbn));
+
+            // Step 2: Validate no duplicate reservation
+            scope.fork(() -> validateNoDuplicateReservation(username, isbn));
+
+            // Load the loans for the ISBN once, for steps 4 and 5
+            CompletableFuture<LoanSnapshot> loansLookup = scope.fork(
+                    () -> LoanSnapshot.of(loanGrpcService.getLoansByISBN(isbn)));
+
+            scope.join();
+            availability = availabilityLookup.join();
+            loans = loansLookup.join();
+        }
 
         // Step 3: Validate no available copies (must be borrowed to reserve)
-        validateNoAvailableCopies(books);
+        validateNoAvailableCopies(availability);
 
-        // Step 4: Validate user doesn't have unreturned loan
-        validateNoUnreturnedLoan(username, isbn);
+        // Step 4: Validate user doesn't have an unreturned loan
+        validateNoUnreturnedLoan(username, loans);
 
         // Step 5: Find best book to reserve (earliest due date)
-        Book targetBook = findBookWithEarliestDueDate(books, isbn);
-
-        // Step 6: Create and persist reservation
-        Reservation createdReservation = createAndPersistReservation(username, targetBook);
-
-        // Step 7: Update book status to reserved
-        updateBookStatusToReserved(targetBook.getId());
-
-        // Step 8: Get reservation count and return complete reservation
-        return buildCompleteReservation(createdReservation, isbn);
+        int targetBookId = findBookWithEarliestDueDate(loans, isbn);
+
+        // Step 6: Create and persist reservation, unless the lookups used up the budget
+        RequestBudget.ensureRemaining("creating the reservation");
+        Reservation createdReservation = createAndPersistReservation(username, targetBookId);
+
+        // Steps 7 and 8: Update book status to reserved while fetching the reservation count.
+        // The reservation exists now, so these must finish
+        return RequestBudget.finishOutsideBudget(() -> {
+            try (GrpcFanOut.Scope scope = grpcFanOut.open()) {
+                scope.fork(() -> updateBookStatusToReserved(targetBookId));
+                CompletableFuture<Reservation> complete = scope.fork(
+                        () -> buildCompleteReservation(createdReservation, isbn));
+                scope.join();
+                return complete.join();
+            }
+        });
     }
 
     // ==================== Validation Methods ====================
 
     /**
-     * Retrieves books by ISBN and validates that at least one exists.
+     * Retrieves the availability of an ISBN from the persistence server, bypassing the book cache
+     * since it decides whether a reservation is allowed, and validates that at least one copy exists.
      */
-    private List<Book> retrieveAndValidateBooksExist(String isbn) {
-        List<Book> books = bookGrpcService.getBooksByIsbn(isbn);
-        if (books.isEmpty()) {
+    private AvailabilitySummary retrieveAndValidateBooksExist(String isbn) {
+        AvailabilitySummary availability = bookGrpcService.getCurrentAvailabilitySummary(isbn);
+        if (!availability.exists()) {
             throw new IllegalArgumentException("No books found with ISBN: " + isbn);
         }
-        return books;
+        return availability;
     }
 
     /**
@@ -86,11 +114,8 @@ public class ReservationServiceImpl implements ReservationService {
     /**
      * Validates that no copies are available. Users must borrow available books, not reserve them.
      */
-    private void validateNoAvailableCopies(List<Book> books) {
-        boolean anyAvailable = books.stream()
-                .anyMatch(book -> book.getState().toString().equalsIgnoreCase("AVAILABLE"));
-
-        if (anyAvailable) {
+    private void validateNoAvailableCopies(AvailabilitySummary availability) {
+        if (availability.isAvailable()) {
             throw new IllegalArgumentException(
                     "Book is currently available. Cannot reserve, but borrow instead.");
         }
@@ -99,14 +124,10 @@ public class ReservationServiceImpl implements ReservationService {
     /**
      * Validates that the user doesn't have an unreturned loan for this book.
      */
-    private void validateNoUnreturnedLoan(String username, String isbn) {
-        List<Loan> userLoans = loanGrpcService.getLoansByISBN(isbn);
-
-        for (Loan loan : userLoans) {
-            if (loan.getUsername().equalsIgnoreCase(username) && !loan.isReturned()) {
-                throw new IllegalArgumentException(
-                        "User already has an unreturned loan for this book.");
-            }
+    private void validateNoUnreturnedLoan(String username, LoanSnapshot loans) {
+        if (loans.hasUnreturnedLoan(username)) {
+            throw new IllegalArgumentException(
+                    "User already has an unreturned loan for this book.");
         }
     }
 
@@ -115,45 +136,16 @@ public class ReservationServiceImpl implements ReservationService {
     /**
      * Finds the book with the earliest due date that is not already reserved.
      * This ensures the user gets notified as soon as possible when a copy becomes available.
+     * Every lent copy has an unreturned loan, so the loan snapshot alone names the copy.
      */
-    private Book findBookWithEarliestDueDate(List<Book> books, String isbn) {
-        Book targetBook = null;
-        Date earliestDueDate = null;
-
-        for (Book book : books) {
-            Date bookEarliestDueDate = findEarliestDueDateForBook(book);
-
-            if (bookEarliestDueDate != null &&
-                    (earliestDueDate == null || bookEarliestDueDate.before(earliestDueDate))) {
-                earliestDueDate = bookEarliestDueDate;
-                targetBook = book;
-            }
-        }
-
-        if (targetBook == null) {
+    private int findBookWithEarliestDueDate(LoanSnapshot loans, String isbn) {
+        int targetBookId = loans.bookWithEarliestDueDate();
+        if (targetBookId <= 0) {
             throw new ResourceNotFoundException(
                     "No suitable book found for reservation with ISBN: " + isbn);
         }
 
-        return targetBook;
-    }
-
-    /**
-     * Finds the earliest due date among all unreturned loans for a specific book.
-     */
-    private Date findEarliestDueDateForBook(Book book) {
-        List<Loan> loansForBook = loanGrpcService.getLoansByISBN(book.getIsbn());
-        Date earliestDueDate = null;
-
-        for (Loan loan : loansForBook) {
-            if (!loan.isReturned()) {
-                if (earliestDueDate == null || loan.getDueDate().before(earliestDueDate)) {
-                    earliestDueDate = loan.getDueDate();
-                }
-            }
-        }
-
-        return earliestDueDate;
+        return targetBookId;
     }
 
     // ==================== Reservation Creation Methods ====================
@@ -161,8 +153,8 @@ public class ReservationServiceImpl implements ReservationService {
     /**
      * Creates a reservation object and persists it via gRPC.
      */
-    private Reservation createAndPersistReservation(String username, Book targetBook) {
-        Reservation reservation = createReservationObject(username, targetBook);
+    private Reservation createAndPersistReservation(String username, int targetBookId) {
+        Reservation reservation = createReservationObject(username, targetBookId);
         Reservation persistedReservation = reservationGrpcService.createReservation(reservation);
 
         validateReservationPersistence(persistedReservation);
@@ -173,12 +165,12 @@ public class ReservationServiceImpl implements ReservationService {
     /**
      * Creates a new reservation domain object.
      */
-    private Reservation createReservationObject(String username, Book targetBook) {
+    private Reservation createReservationObject(String username, int targetBookId) {
         Date reservationDate = Date.valueOf(LocalDate.now());
 
         Reservation reservation = new Reservation();
         reservation.setUsername(username);
-        reservation.setBookId(targetBook.getId());
+        reservation.setBookId(targetBookId);
         reservation.setReservationDate(reservationDate);
 
         return reservation;
@@ -0,0 +1,149 @@
+package dk.via.sep3.application.services.validation;
+
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import dk.via.sep3.grpcConnection.userGrpcService.UserGrpcService;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bloom filter over every registered username.
+ * <p>
+ * A negative answer from {@link #mightExist(String)} means the name is not
+ * registered, so the caller can skip the gRPC lookup. A positive answer may be
+ * a false positive and must still be confirmed with persistence.
+ * <p>
+ * The filter is built from the {@code ListUsernames} stream once the
+ * application is ready and rebuilt every {@code users.username-filter.rebuild-interval},
+ * which also picks up names registered through other logic servers. Names
+ * registered on this node are added straight away. Until the first build
+ * succeeds every name is reported as possibly existing.
+ */
+@Component
+public class UsernameFilter
+{
+  private static final Logger logger = LoggerFactory.getLogger(
+      UsernameFilter.class);
+
+  private final UserGrpcService userGrpcService;
+  private final long expectedUsernames;
+  private final double falsePositiveRate;
+  private final Duration rebuildInterval;
+  private final ScheduledExecutorService scheduler;
+
+  // null until the first build completes
+  private volatile BloomFilter<CharSequence> filter;
+  // the filter being built, so names added meanwhile are not lost
+  private volatile BloomFilter<CharSequence> building;
+
+  public UsernameFilter(UserGrpcService userGrpcService,
+      @Value("${users.username-filter.expected-usernames:100000}") long expectedUsernames,
+      @Value("${users.username-filter.false-positive-rate:0.01}") double falsePositiveRate,
+      @Value("${users.username-filter.rebuild-interval:10m}") Duration rebuildInterval)
+  {
+    this.userGrpcService = userGrpcService;
+    this.expectedUsernames = expectedUsernames;
+    this.falsePositiveRate = falsePositiveRate;
+    this.rebuildInterval = rebuildInterval;
+    CustomizableThreadFactory factory = new CustomizableThreadFactory(
+        "username-filter-");
+    factory.setDaemon(true);
+    this.scheduler = Executors.newSingleThreadScheduledExecutor(factory);
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void start()
+  {
+    if (rebuildInterval.isZero() || rebuildInterval.isNegative())
+    {
+      scheduler.execute(this::rebuild);
+      return;
+    }
+    scheduler.scheduleWithFixedDelay(this::rebuild, 0,
+        rebuildInterval.toMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * @return {@code false} only if the username is definitely not registered
+   */
+  public boolean mightExist(String username)
+  {
+    BloomFilter<CharSequence> current = filter;
+    return current == null || current.mightContain(username);
+  }
+
+  /**
+   * Records a username registered through this node.
+   */
+  public void add(String username)
+  {
+    // Read building before filter: a rebuild publishes filter before it
+    // clears building, so the name always lands in the filter that stays
+    BloomFilter<CharSequence> next = building;
+    if (next != null)
+    {
+      next.put(username);
+    }
+    BloomFilter<CharSequence> current = filter;
+    if (current != null)
+    {
+      current.put(username);
+    }
+  }
+
+  /**
+   * Streams every username into a fresh filter and swaps it in. On failure
+   * the previous filter, if any, stays in use.
+   */
+  public synchronized void rebuild()
+  {
+    BloomFilter<CharSequence> next = BloomFilter.create(
+        Funnels.stringFunnel(StandardCharsets.UTF_8), expectedUsernames,
+        falsePositiveRate);
+    building = next;
+    AtomicLong count = new AtomicLong();
+    try
+    {
+      userGrpcService.streamUsernames(username -> {
+        next.put(username);
+        count.incrementAndGet();
+      });
+      filter = next;
+      logger.info("Username filter built from {} usernames", count.get());
+      if (count.get() > expectedUsernames)
+      {
+        logger.warn("Username filter holds {} names but is sized for {}; "
+                + "raise users.username-filter.expected-usernames",
+            count.get(), expectedUsernames);
+      }
+    }
+    catch (RuntimeException ex)
+    {
+      logger.warn("Could not build username filter, lookups go to persistence: {}",
+          ex.getMessage());
+    }
+    finally
+    {
+      building = null;
+    }
+  }
+
+  @PreDestroy
+  public void shutdown()
+  {
+    scheduler.shutdownNow();
+  }
+}
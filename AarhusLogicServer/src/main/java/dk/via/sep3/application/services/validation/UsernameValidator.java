@@ -8,12 +8,18 @@ import org.springframework.stereotype.Component;
 @Component("usernameValidator")
 public class UsernameValidator implements Validator<String>{
     private final UserGrpcService userGrpcService;
-    public UsernameValidator(UserGrpcService userGrpcService) {
+    private final UsernameFilter usernameFilter;
+    public UsernameValidator(UserGrpcService userGrpcService, UsernameFilter usernameFilter) {
         this.userGrpcService = userGrpcService;
+        this.usernameFilter = usernameFilter;
     }
 
     @Override
     public void validate(String username) {
+        //a name the filter has never seen is free, so skip the lookup
+        if (!usernameFilter.mightExist(username)) {
+            return;
+        }
         //check whether the username already exists in the system
        User user = userGrpcService.getUserByUsername(username);
          if(user != null) {
@@ -9,6 +9,7 @@ import dk.via.sep3.security.JwtUtil;
 import dk.via.sep3.DTOs.auth.RegisterResponseDTO;
 import dk.via.sep3.DTOs.registration.RegistrationDTO;
 import dk.via.sep3.application.services.register.RegisterService;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -44,11 +45,12 @@ import org.springframework.web.bind.annotation.*;
 
   @PostMapping(value = "/login")
   public ResponseEntity<LoginResponseDTO> login(
-      @RequestBody LoginRequestDTO request)
+      @RequestBody LoginRequestDTO request, HttpServletRequest httpRequest)
   {
     User user = userMapper.mapLoginRequestToDomain(request);
 
-    User authenticatedUser = loginService.login(user);
+    User authenticatedUser = loginService.login(user,
+        httpRequest.getRemoteAddr());
     String token = jwtUtil.generateToken(authenticatedUser.getUsername(),
         authenticatedUser.getRole());
 
@@ -2,39 +2,101 @@ package dk.via.sep3.controller;
 
 import dk.via.sep3.application.services.books.BookService;
 import dk.via.sep3.application.domain.Book;
+import dk.via.sep3.application.domain.BookPage;
+import dk.via.sep3.application.domain.BookQuery;
+import dk.via.sep3.application.domain.State;
 import dk.via.sep3.DTOs.book.BookDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import dk.via.sep3.mapper.bookMapper.BookMapper;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.List;
 
 @RestController @RequestMapping("/books") public class BooksController
 {
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
     private final BookService books;
     private final BookMapper bookMapper;
+    private final ObjectMapper objectMapper;
 
-    public BooksController(BookService books, BookMapper bookMapper)
+    public BooksController(BookService books, BookMapper bookMapper,
+            ObjectMapper objectMapper)
     {
         this.books = books;
         this.bookMapper = bookMapper;
+        this.objectMapper = objectMapper;
     }
     @PreAuthorize("hasRole('Reader')")
-    @GetMapping public ResponseEntity<List<BookDTO>> getAllBooks()
+    @GetMapping public ResponseEntity<List<BookDTO>> getAllBooks(
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) String author,
+            @RequestParam(required = false) String genre,
+            @RequestParam(required = false) String state)
     {
-        List<Book> uniqueBooks = books.getAllBooks();
+        State stateFilter = state == null ? null : State.valueOf(state.toUpperCase());
+        List<Book> uniqueBooks;
+        String nextCursor = null;
+        if (limit == null && cursor == null && author == null && genre == null
+                && stateFilter == null)
+        {
+            uniqueBooks = books.getAllBooks();
+        }
+        else
+        {
+            BookPage page = books.getBooks(new BookQuery(
+                    limit == null ? BookQuery.DEFAULT_LIMIT : limit, cursor, author, genre,
+                    stateFilter));
+            uniqueBooks = page.getBooks();
+            nextCursor = page.getNextCursor();
+        }
         List<BookDTO> bookDTOs = new ArrayList<>();
         for(Book book : uniqueBooks)
         {
             bookDTOs.add(bookMapper.toDto(book));
         }
-        return new ResponseEntity<>(bookDTOs, HttpStatus.OK);
+        // The body stays a plain list; the next page is announced in a header
+        HttpHeaders headers = new HttpHeaders();
+        if (nextCursor != null)
+        {
+            headers.set(NEXT_CURSOR_HEADER, nextCursor);
+        }
+        return new ResponseEntity<>(bookDTOs, headers, HttpStatus.OK);
+    }
+
+    @PreAuthorize("hasRole('Reader')")
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllBooks()
+    {
+        // Each book is written as one JSON line as soon as it arrives over gRPC
+        ObjectWriter writer = objectMapper.writerFor(BookDTO.class);
+        StreamingResponseBody body = out -> books.streamAllBooks(book -> {
+            try
+            {
+                out.write(writer.writeValueAsBytes(bookMapper.toDto(book)));
+                out.write('\n');
+            }
+            catch (IOException ex)
+            {
+                throw new UncheckedIOException(ex);
+            }
+        });
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
     }
 
     @PreAuthorize("hasRole('Reader')")
@@ -1,11 +1,17 @@
 package dk.via.sep3.controller;
 
 import dk.via.sep3.mapper.loanMapper.LoanMapper;
+import dk.via.sep3.application.domain.ExtensionResult;
 import dk.via.sep3.application.domain.Loan;
+import dk.via.sep3.application.domain.LoanResult;
 import dk.via.sep3.application.services.loans.LoanService;
 import dk.via.sep3.DTOs.extension.CreateExtensionDTO;
+import dk.via.sep3.DTOs.extension.CreateExtensionsDTO;
+import dk.via.sep3.DTOs.extension.ExtensionResultDTO;
 import dk.via.sep3.DTOs.loan.CreateLoanDTO;
+import dk.via.sep3.DTOs.loan.CreateLoansDTO;
 import dk.via.sep3.DTOs.loan.LoanDTO;
+import dk.via.sep3.DTOs.loan.LoanResultDTO;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
@@ -45,6 +51,29 @@ import java.util.List;
     return new ResponseEntity<>(loanDTO, HttpStatus.CREATED);
   }
 
+  /**
+   * Borrows several books for one user in a single request. Every item
+   * succeeds or fails on its own, so the response is 200 with one result per
+   * ISBN, in request order.
+   */
+  @PreAuthorize("hasRole('READER')")
+  @PostMapping("/batch")
+  public ResponseEntity<List<LoanResultDTO>> createLoans(
+      @RequestBody CreateLoansDTO request)
+  {
+    logger.info("Creating loans for user: {} and book ISBNs: {}",
+        request.getUsername(), request.getBookISBNs());
+
+    List<LoanResult> results = loanService.createLoans(request.getUsername(),
+        request.getBookISBNs());
+    List<LoanResultDTO> resultDTOs = new ArrayList<>();
+    for (LoanResult result : results)
+    {
+      resultDTOs.add(loanMapper.mapLoanResultToDTO(result));
+    }
+    return new ResponseEntity<>(resultDTOs, HttpStatus.OK);
+  }
+
   @PreAuthorize("hasRole('READER')")
   @PatchMapping("/extensions") public ResponseEntity<Void> extendLoan(
           @RequestBody CreateExtensionDTO request)
@@ -54,6 +83,28 @@ import java.util.List;
     return new ResponseEntity<>(HttpStatus.OK);
   }
 
+  /**
+   * Extends several loans at once. Responds 200 with one result per loan id,
+   * in request order, even if some could not be extended.
+   */
+  @PreAuthorize("hasRole('READER')")
+  @PatchMapping("/extensions/batch")
+  public ResponseEntity<List<ExtensionResultDTO>> extendLoans(
+      @RequestBody CreateExtensionsDTO request)
+  {
+    logger.info("Extending loans {} for user: {}", request.getLoanIds(),
+        request.getUsername());
+
+    List<ExtensionResult> results = loanService.extendLoans(
+        request.getUsername(), request.getLoanIds());
+    List<ExtensionResultDTO> resultDTOs = new ArrayList<>();
+    for (ExtensionResult result : results)
+    {
+      resultDTOs.add(loanMapper.mapExtensionResultToDTO(result));
+    }
+    return new ResponseEntity<>(resultDTOs, HttpStatus.OK);
+  }
+
   @PreAuthorize("hasRole('READER')")
   @GetMapping("/active")
   public ResponseEntity<List<LoanDTO>> getActiveLoansByUsername(@RequestParam String username)
@@ -0,0 +1,23 @@
+package dk.via.sep3.exceptionHandler;
+
+import java.time.Duration;
+
+/**
+ * Thrown when a bounded resource is full and the request should be retried
+ * later rather than queued.
+ */
+public class ServiceOverloadedException extends RuntimeException
+{
+  private final Duration retryAfter;
+
+  public ServiceOverloadedException(String message, Duration retryAfter)
+  {
+    super(message);
+    this.retryAfter = retryAfter;
+  }
+
+  public Duration getRetryAfter()
+  {
+    return retryAfter;
+  }
+}
@@ -1,69 +1,46 @@
 package dk.via.sep3.grpcConnection.config;
 
 
+import com.google.common.net.HostAndPort;
+import dk.via.sep3.grpcConnection.deadline.GrpcDeadlineInterceptor;
+import dk.via.sep3.grpcConnection.resilience.GrpcResilienceInterceptor;
+import io.grpc.Codec;
+import io.grpc.DecompressorRegistry;
 import io.grpc.ManagedChannel;
 import io.grpc.netty.shaded.io.grpc.netty.GrpcSslContexts;
 import io.grpc.netty.shaded.io.grpc.netty.NettyChannelBuilder;
-import io.grpc.netty.shaded.io.netty.handler.ssl.SslContext;
+import io.grpc.netty.shaded.io.netty.handler.ssl.SslContextBuilder;
 import io.grpc.netty.shaded.io.netty.handler.ssl.SslProvider;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 import javax.annotation.PreDestroy;
+import javax.net.ssl.SSLException;
 import java.io.File;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 @Configuration
+@EnableConfigurationProperties(GrpcChannelProperties.class)
 public class GrpcConfig {
-  @Value("${grpc.server.host:localhost}")
-  private String host;
-
-  @Value("${grpc.server.port:5020}")
-  private int port;
-
-  // TLS configuration
-  @Value("${grpc.tls.enabled:false}")
-  private boolean tlsEnabled;
-
-  @Value("${grpc.tls.trustCert:}")
-  private String trustCertPath;
-
-  @Value("${grpc.tls.clientCert:}")
-  private String clientCertPath;
-
-  @Value("${grpc.tls.clientKey:}")
-  private String clientKeyPath;
-
   private ManagedChannel channel;
 
   @Bean
-  public ManagedChannel managedChannel() {
-    if (tlsEnabled) {
-      try {
-        NettyChannelBuilder builder = NettyChannelBuilder.forAddress(host, port);
-        if (trustCertPath != null && !trustCertPath.isBlank()) {
-          // Build an SslContext with the provided trust certificate (and optional client cert/key for mTLS)
-          io.grpc.netty.shaded.io.netty.handler.ssl.SslContextBuilder sslBuilder = GrpcSslContexts.forClient();
-          sslBuilder.sslProvider(SslProvider.JDK);
-          sslBuilder.trustManager(new File(trustCertPath));
-          if (clientCertPath != null && !clientCertPath.isBlank() && clientKeyPath != null && !clientKeyPath.isBlank()) {
-            sslBuilder.keyManager(new File(clientCertPath), new File(clientKeyPath));
-          }
-          SslContext sslContext = sslBuilder.build();
-          builder.sslContext(sslContext);
-        } else {
-          // Use default JVM trust store / system TLS settings
-          builder.useTransportSecurity();
-        }
-        this.channel = builder.build();
-        return this.channel;
-      } catch (Exception e) {
-        throw new RuntimeException("Failed to create TLS gRPC channel", e);
-      }
-    }
-
-    // Default: plaintext (dev only)
-    this.channel = io.grpc.ManagedChannelBuilder.forAddress(host, port).usePlaintext().build();
+  public ManagedChannel managedChannel(GrpcChannelProperties properties, GrpcThreads grpcThreads,
+      GrpcMetricsInterceptor metricsInterceptor, GrpcDeadlineInterceptor deadlineInterceptor,
+      GrpcResilienceInterceptor resilienceInterceptor) {
+    GrpcChannelProperties.Server server = properties.getServer();
+    NettyChannelBuilder builder = grpcThreads.configure(NettyChannelBuilder.forTarget(target(server)))
+        .defaultServiceConfig(GrpcServiceConfig.build(properties))
+        // Applies the retry and hedging policies of the service config to reads
+        .enableRetry()
+        // Interceptors run last to first: deadlines, metrics, then the breaker and bulkhead,
+        // so calls they reject still show up in the metrics
+        .intercept(resilienceInterceptor, metricsInterceptor, deadlineInterceptor);
+    configureTransport(builder, properties.getTls());
+    configureChannel(builder, properties.getChannel());
+    this.channel = builder.build();
     return this.channel;
   }
 
@@ -78,4 +55,73 @@ public class GrpcConfig {
       channel.shutdownNow();
     }
   }
+
+  /**
+   * The explicit target if set, else the static replica list, else the single host and port.
+   * Round-robin only spreads load when the target resolves to several addresses.
+   */
+  static String target(GrpcChannelProperties.Server server) {
+    if (hasText(server.getTarget())) {
+      return server.getTarget();
+    }
+    if (server.getAddresses() != null && !server.getAddresses().isEmpty()) {
+      List<String> addresses = server.getAddresses().stream()
+          .map(address -> HostAndPort.fromString(address.trim()).withDefaultPort(server.getPort()).toString())
+          .toList();
+      return StaticAddressNameResolverProvider.target(addresses);
+    }
+    return HostAndPort.fromParts(server.getHost(), server.getPort()).toString();
+  }
+
+  static void configureTransport(NettyChannelBuilder builder, GrpcChannelProperties.Tls tls) {
+    if (!tls.isEnabled()) {
+      // Plaintext (dev only)
+      builder.usePlaintext();
+      return;
+    }
+    if (!hasText(tls.getTrustCert())) {
+      // Use default JVM trust store / system TLS settings
+      builder.useTransportSecurity();
+      return;
+    }
+    try {
+      // Trust the given certificate, and present a client cert/key for mTLS when both are set
+      SslContextBuilder sslBuilder = GrpcSslContexts.forClient()
+          .sslProvider(SslProvider.JDK)
+          .trustManager(new File(tls.getTrustCert()));
+      if (hasText(tls.getClientCert()) && hasText(tls.getClientKey())) {
+        sslBuilder.keyManager(new File(tls.getClientCert()), new File(tls.getClientKey()));
+      }
+      builder.sslContext(sslBuilder.build());
+    } catch (SSLException e) {
+      throw new IllegalStateException("Failed to create TLS gRPC channel", e);
+    }
+  }
+
+  static void configureChannel(NettyChannelBuilder builder, GrpcChannelProperties.Channel channel) {
+    if (channel.getKeepAliveTime() != null) {
+      builder.keepAliveTime(channel.getKeepAliveTime().toMillis(), TimeUnit.MILLISECONDS);
+    }
+    if (channel.getKeepAliveTimeout() != null) {
+      builder.keepAliveTimeout(channel.getKeepAliveTimeout().toMillis(), TimeUnit.MILLISECONDS);
+    }
+    builder.keepAliveWithoutCalls(channel.isKeepAliveWithoutCalls());
+    if (channel.getIdleTimeout() != null) {
+      builder.idleTimeout(channel.getIdleTimeout().toMillis(), TimeUnit.MILLISECONDS);
+    }
+    if (channel.getMaxInboundMessageSize() != null) {
+      builder.maxInboundMessageSize(Math.toIntExact(channel.getMaxInboundMessageSize().toBytes()));
+    }
+    if (channel.getInitialFlowControlWindow() != null) {
+      builder.initialFlowControlWindow(Math.toIntExact(channel.getInitialFlowControlWindow().toBytes()));
+    }
+    if (!channel.isAcceptCompressedResponses()) {
+      // Advertise identity only, so the server never compresses
+      builder.decompressorRegistry(DecompressorRegistry.emptyInstance().with(Codec.Identity.NONE, false));
+    }
+  }
+
+  private static boolean hasText(String value) {
+    return value != null && !value.isBlank();
+  }
 }
@@ -0,0 +1,81 @@
+package dk.via.sep3.grpcConnection.config;
+
+import io.grpc.ManagedChannelBuilder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chooses the threads used for gRPC work.
+ * <p>
+ * Follows {@code spring.threads.virtual.enabled}, the same switch that moves
+ * Tomcat onto virtual threads. Spring only honours it on Java 21 or later, so
+ * a Java 17 build keeps the platform-thread pools whatever the property says.
+ * Deliberately not an {@link Executor} bean, which would replace Boot's own
+ * task executor.
+ */
+@Component
+public class GrpcThreads
+{
+  private final boolean virtual;
+
+  @Autowired
+  public GrpcThreads(Environment environment)
+  {
+    this(Threading.VIRTUAL.isActive(environment));
+  }
+
+  public GrpcThreads(boolean virtual)
+  {
+    this.virtual = virtual;
+  }
+
+  public boolean isVirtual()
+  {
+    return virtual;
+  }
+
+  /**
+   * Creates an executor that starts a virtual thread per task, or a pool of
+   * at most {@code platformThreads} daemon platform threads when virtual
+   * threads are off. The pool has no queue: when every thread is busy the
+   * task runs on the submitting thread, so under load work degrades to
+   * running in line instead of waiting behind other requests' tasks.
+   */
+  public Executor newExecutor(String threadNamePrefix, int platformThreads)
+  {
+    if (virtual)
+    {
+      return new VirtualThreadTaskExecutor(threadNamePrefix);
+    }
+    CustomizableThreadFactory factory = new CustomizableThreadFactory(
+        threadNamePrefix);
+    factory.setDaemon(true);
+    return new ThreadPoolExecutor(platformThreads, platformThreads, 0L,
+        TimeUnit.MILLISECONDS, new SynchronousQueue<>(), factory,
+        new ThreadPoolExecutor.CallerRunsPolicy());
+  }
+
+  /**
+   * Runs the channel's call callbacks on virtual threads when enabled.
+   * Blocking stubs already run on the calling thread, so this mainly affects
+   * streaming and asynchronous calls. Otherwise gRPC keeps its default
+   * cached pool.
+   */
+  public <B extends ManagedChannelBuilder<?>> B configure(B builder)
+  {
+    if (virtual)
+    {
+      builder.executor(new VirtualThreadTaskExecutor("grpc-channel-"));
+    }
+    return builder;
+  }
+}
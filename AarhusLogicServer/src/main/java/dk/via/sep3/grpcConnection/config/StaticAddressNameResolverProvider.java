@@ -0,0 +1,154 @@
+package dk.via.sep3.grpcConnection.config;
+
+import com.google.common.net.HostAndPort;
+import io.grpc.EquivalentAddressGroup;
+import io.grpc.NameResolver;
+import io.grpc.NameResolverProvider;
+import io.grpc.Status;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Resolves {@code static:///host1:5020,host2:5020} to a fixed list of
+ * replicas, one address group each, so the load balancer treats every
+ * replica as its own backend.
+ * <p>
+ * Host names are looked up again on every refresh, which gRPC asks for when
+ * connections fail, so a replica that moves to a new IP is picked up.
+ * Registered through {@code META-INF/services}.
+ */
+public class StaticAddressNameResolverProvider extends NameResolverProvider
+{
+  static final String SCHEME = "static";
+
+  /**
+   * @return the target resolving to the given {@code host:port} addresses
+   */
+  public static String target(List<String> addresses)
+  {
+    return SCHEME + ":///" + String.join(",", addresses);
+  }
+
+  @Override protected boolean isAvailable()
+  {
+    return true;
+  }
+
+  @Override protected int priority()
+  {
+    return 5;
+  }
+
+  @Override public String getDefaultScheme()
+  {
+    return SCHEME;
+  }
+
+  @Override public Collection<Class<? extends SocketAddress>> getProducedSocketAddressTypes()
+  {
+    return List.of(InetSocketAddress.class);
+  }
+
+  @Override public NameResolver newNameResolver(URI targetUri,
+      NameResolver.Args args)
+  {
+    if (!SCHEME.equals(targetUri.getScheme()))
+    {
+      return null;
+    }
+    String path = targetUri.getPath() == null ? "" : targetUri.getPath();
+    List<HostAndPort> addresses = new ArrayList<>();
+    for (String address : path.replaceFirst("^/", "").split(","))
+    {
+      if (!address.isBlank())
+      {
+        addresses.add(HostAndPort.fromString(address.trim())
+            .withDefaultPort(args.getDefaultPort()));
+      }
+    }
+    if (addresses.isEmpty())
+    {
+      throw new IllegalArgumentException(
+          "No addresses in target " + targetUri);
+    }
+    // The first replica names the service, e.g. for TLS host verification
+    String authority = targetUri.getAuthority() != null
+        ? targetUri.getAuthority() : addresses.get(0).toString();
+    return new StaticAddressNameResolver(authority, addresses,
+        args.getOffloadExecutor());
+  }
+
+  static class StaticAddressNameResolver extends NameResolver
+  {
+    private final String authority;
+    private final List<HostAndPort> addresses;
+    private final Executor executor;
+    private Listener2 listener;
+    private volatile boolean shutdown;
+
+    StaticAddressNameResolver(String authority, List<HostAndPort> addresses,
+        Executor executor)
+    {
+      this.authority = authority;
+      this.addresses = List.copyOf(addresses);
+      // Host name lookups block, so they stay off the channel's own thread
+      this.executor = executor != null ? executor : Runnable::run;
+    }
+
+    @Override public String getServiceAuthority()
+    {
+      return authority;
+    }
+
+    @Override public void start(Listener2 listener)
+    {
+      this.listener = listener;
+      resolve();
+    }
+
+    @Override public void refresh()
+    {
+      resolve();
+    }
+
+    @Override public void shutdown()
+    {
+      shutdown = true;
+    }
+
+    private void resolve()
+    {
+      executor.execute(() -> {
+        if (shutdown)
+        {
+          return;
+        }
+        List<EquivalentAddressGroup> groups = new ArrayList<>();
+        for (HostAndPort address : addresses)
+        {
+          InetSocketAddress socketAddress = new InetSocketAddress(
+              address.getHost(), address.getPort());
+          // A replica whose name does not resolve is left out for now
+          if (!socketAddress.isUnresolved())
+          {
+            groups.add(new EquivalentAddressGroup(socketAddress));
+          }
+        }
+        if (groups.isEmpty())
+        {
+          listener.onError(Status.UNAVAILABLE.withDescription(
+              "None of " + addresses + " could be resolved"));
+          return;
+        }
+        listener.onResult(
+            ResolutionResult.newBuilder().setAddresses(groups).build());
+      });
+    }
+  }
+}
@@ -0,0 +1,178 @@
+package dk.via.sep3.grpcConnection.resilience;
+
+import dk.via.sep3.grpcConnection.config.GrpcChannelProperties;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Count-based circuit breaker over the last {@code sliding-window-size}
+ * calls.
+ * <p>
+ * Closed, it lets every call through and opens once at least
+ * {@code minimum-calls} have been recorded and the failure rate reaches the
+ * threshold. Open, it rejects calls for {@code wait-in-open-state}, then
+ * half-opens and lets a few trial calls through: one failure opens it again,
+ * all of them succeeding closes it with an empty window.
+ */
+class CircuitBreaker
+{
+  enum State
+  {
+    CLOSED, OPEN, HALF_OPEN
+  }
+
+  private final int failureRateThreshold;
+  private final int minimumCalls;
+  private final long waitInOpenStateNanos;
+  private final int permittedCallsInHalfOpenState;
+  private final LongSupplier nanoTime;
+
+  // Ring buffer of recent outcomes, true for a failure
+  private final boolean[] window;
+  private int next;
+  private int recorded;
+  private int failures;
+
+  private State state = State.CLOSED;
+  private long openedAt;
+  private int halfOpenStarted;
+  private int halfOpenSucceeded;
+
+  CircuitBreaker(GrpcChannelProperties.Policy policy, LongSupplier nanoTime)
+  {
+    this.failureRateThreshold = policy.getFailureRateThreshold();
+    this.minimumCalls = Math.max(1, policy.getMinimumCalls());
+    this.waitInOpenStateNanos = policy.getWaitInOpenState().toNanos();
+    this.permittedCallsInHalfOpenState = Math.max(1,
+        policy.getPermittedCallsInHalfOpenState());
+    this.nanoTime = nanoTime;
+    this.window = new boolean[Math.max(1, policy.getSlidingWindowSize())];
+  }
+
+  /**
+   * @return whether a call may start; every permitted call must be followed
+   * by exactly one of {@link #onSuccess()}, {@link #onFailure()} or
+   * {@link #onIgnored()}
+   */
+  synchronized boolean tryAcquire()
+  {
+    if (state == State.OPEN)
+    {
+      if (nanoTime.getAsLong() - openedAt < waitInOpenStateNanos)
+      {
+        return false;
+      }
+      state = State.HALF_OPEN;
+      halfOpenStarted = 0;
+      halfOpenSucceeded = 0;
+    }
+    if (state == State.HALF_OPEN)
+    {
+      if (halfOpenStarted >= permittedCallsInHalfOpenState)
+      {
+        return false;
+      }
+      halfOpenStarted++;
+    }
+    return true;
+  }
+
+  synchronized void onSuccess()
+  {
+    if (state == State.HALF_OPEN)
+    {
+      if (++halfOpenSucceeded >= permittedCallsInHalfOpenState)
+      {
+        close();
+      }
+    }
+    else if (state == State.CLOSED)
+    {
+      record(false);
+    }
+  }
+
+  synchronized void onFailure()
+  {
+    if (state == State.HALF_OPEN)
+    {
+      open();
+    }
+    else if (state == State.CLOSED)
+    {
+      record(true);
+      if (recorded >= minimumCalls
+          && failures * 100 >= failureRateThreshold * recorded)
+      {
+        open();
+      }
+    }
+  }
+
+  /**
+   * For calls whose outcome says nothing about the service, such as calls
+   * cancelled by the caller. Frees the trial slot when half-open.
+   */
+  synchronized void onIgnored()
+  {
+    if (state == State.HALF_OPEN && halfOpenStarted > 0)
+    {
+      halfOpenStarted--;
+    }
+  }
+
+  synchronized State getState()
+  {
+    // Report half-open as soon as the wait is over, not only on the next call
+    if (state == State.OPEN
+        && nanoTime.getAsLong() - openedAt >= waitInOpenStateNanos)
+    {
+      return State.HALF_OPEN;
+    }
+    return state;
+  }
+
+  /**
+   * @return failed calls in the window in percent, or -1 while fewer than
+   * {@code minimum-calls} have been recorded
+   */
+  synchronized double getFailureRate()
+  {
+    return recorded < minimumCalls ? -1 : failures * 100.0 / recorded;
+  }
+
+  private void record(boolean failure)
+  {
+    if (recorded == window.length)
+    {
+      if (window[next])
+      {
+        failures--;
+      }
+    }
+    else
+    {
+      recorded++;
+    }
+    window[next] = failure;
+    if (failure)
+    {
+      failures++;
+    }
+    next = (next + 1) % window.length;
+  }
+
+  private void open()
+  {
+    state = State.OPEN;
+    openedAt = nanoTime.getAsLong();
+  }
+
+  private void close()
+  {
+    state = State.CLOSED;
+    next = 0;
+    recorded = 0;
+    failures = 0;
+  }
+}
@@ -0,0 +1,316 @@
+package dk.via.sep3.grpcConnection.resilience;
+
+import dk.via.sep3.grpcConnection.config.GrpcChannelProperties;
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.Context;
+import io.grpc.Deadline;
+import io.grpc.ForwardingClientCall;
+import io.grpc.ForwardingClientCallListener;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Guards each gRPC service of the persistence server with its own circuit
+ * breaker and bulkhead, so one degraded service, say a slow
+ * {@code LoanService}, cannot tie up the threads that book browsing needs.
+ * <p>
+ * The bulkhead caps the calls in flight per service and rejects the rest with
+ * {@code RESOURCE_EXHAUSTED}. The {@link CircuitBreaker} counts
+ * {@code UNAVAILABLE}, {@code DEADLINE_EXCEEDED} and other server-side
+ * failures; while it is open calls fail at once with {@code UNAVAILABLE}
+ * instead of waiting for their deadline. {@code DEADLINE_EXCEEDED} only counts
+ * when the call's own per-method deadline ran out: when the request budget
+ * inherited through the gRPC {@link Context} ended first, the time went to
+ * earlier calls of the request, not to this service. Either way the service
+ * wrappers turn
+ * the status into a {@code GrpcCommunicationException} as for any other
+ * failure.
+ * <p>
+ * Publishes, tagged with {@code service}:
+ * <ul>
+ *   <li>{@code grpc.client.circuit.state}: 1 for the current {@code state}
+ *   tag, 0 for the others</li>
+ *   <li>{@code grpc.client.circuit.failure.rate}: percent of failed calls in
+ *   the window, -1 until enough calls were made</li>
+ *   <li>{@code grpc.client.bulkhead.available}: free call slots</li>
+ *   <li>{@code grpc.client.calls.rejected}: calls not sent, by
+ *   {@code reason}</li>
+ * </ul>
+ */
+@Component
+public class GrpcResilienceInterceptor implements ClientInterceptor
+{
+  private static final Logger logger = LoggerFactory.getLogger(
+      GrpcResilienceInterceptor.class);
+
+  // Statuses that say the service, not the request, is in trouble
+  private static final Set<Status.Code> FAILURES = EnumSet.of(
+      Status.Code.UNAVAILABLE, Status.Code.DEADLINE_EXCEEDED,
+      Status.Code.INTERNAL, Status.Code.UNKNOWN,
+      Status.Code.RESOURCE_EXHAUSTED, Status.Code.DATA_LOSS);
+
+  private final GrpcChannelProperties.Resilience properties;
+  private final MeterRegistry meterRegistry;
+  private final LongSupplier nanoTime;
+  private final Map<String, ServiceGuard> guards = new ConcurrentHashMap<>();
+
+  @Autowired
+  public GrpcResilienceInterceptor(GrpcChannelProperties properties,
+      MeterRegistry meterRegistry)
+  {
+    this(properties, meterRegistry, System::nanoTime);
+  }
+
+  GrpcResilienceInterceptor(GrpcChannelProperties properties,
+      MeterRegistry meterRegistry, LongSupplier nanoTime)
+  {
+    this.properties = properties.getResilience();
+    this.meterRegistry = meterRegistry;
+    this.nanoTime = nanoTime;
+  }
+
+  @Override public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(
+      MethodDescriptor<ReqT, RespT> method, CallOptions callOptions,
+      Channel next)
+  {
+    ServiceGuard guard = guards.computeIfAbsent(
+        String.valueOf(method.getServiceName()), this::newGuard);
+    ClientCall<ReqT, RespT> call = next.newCall(method, callOptions);
+    return guard.enabled
+        ? new GuardedCall<>(call, guard, hasOwnDeadline(callOptions))
+        : call;
+  }
+
+  /**
+   * @return whether the deadline of the call, set by
+   * {@code GrpcDeadlineInterceptor}, ends before the request budget
+   */
+  private static boolean hasOwnDeadline(CallOptions callOptions)
+  {
+    Deadline budget = Context.current().getDeadline();
+    Deadline own = callOptions.getDeadline();
+    return budget == null || (own != null && own.isBefore(budget));
+  }
+
+  CircuitBreaker.State getState(String serviceName)
+  {
+    ServiceGuard guard = guards.get(serviceName);
+    return guard == null ? CircuitBreaker.State.CLOSED : guard.breaker.getState();
+  }
+
+  private ServiceGuard newGuard(String service)
+  {
+    return new ServiceGuard(service, properties.policyFor(service));
+  }
+
+  private final class ServiceGuard
+  {
+    private final String service;
+    private final boolean enabled;
+    private final CircuitBreaker breaker;
+    private final Semaphore bulkhead;
+    private final Duration maxWait;
+    private final Counter circuitOpenRejections;
+    private final Counter bulkheadFullRejections;
+
+    ServiceGuard(String service, GrpcChannelProperties.Policy policy)
+    {
+      this.service = service;
+      this.enabled = policy.isEnabled();
+      this.breaker = new CircuitBreaker(policy, nanoTime);
+      this.bulkhead = new Semaphore(policy.getMaxConcurrentCalls());
+      this.maxWait = policy.getMaxWait();
+      for (CircuitBreaker.State state : CircuitBreaker.State.values())
+      {
+        Gauge.builder("grpc.client.circuit.state", breaker,
+                b -> b.getState() == state ? 1 : 0)
+            .description("Circuit breaker state per persistence service")
+            .tags("service", service, "state", state.name().toLowerCase(Locale.ROOT))
+            .register(meterRegistry);
+      }
+      Gauge.builder("grpc.client.circuit.failure.rate", breaker,
+              CircuitBreaker::getFailureRate)
+          .description("Failed calls in the circuit breaker window")
+          .baseUnit("percent")
+          .tags("service", service)
+          .register(meterRegistry);
+      Gauge.builder("grpc.client.bulkhead.available", bulkhead,
+              Semaphore::availablePermits)
+          .description("Free call slots per persistence service")
+          .tags("service", service)
+          .register(meterRegistry);
+      this.circuitOpenRejections = rejections("circuit_open");
+      this.bulkheadFullRejections = rejections("bulkhead_full");
+    }
+
+    private Counter rejections(String reason)
+    {
+      return Counter.builder("grpc.client.calls.rejected")
+          .description("gRPC calls to persistence rejected before being sent")
+          .tags("service", service, "reason", reason)
+          .register(meterRegistry);
+    }
+
+    /**
+     * @return {@code null} if the call may start, else the status to fail it with
+     */
+    Status tryAcquire()
+    {
+      if (!acquireSlot())
+      {
+        bulkheadFullRejections.increment();
+        return Status.RESOURCE_EXHAUSTED.withDescription(
+            "Too many concurrent calls to " + service);
+      }
+      if (!breaker.tryAcquire())
+      {
+        bulkhead.release();
+        circuitOpenRejections.increment();
+        return Status.UNAVAILABLE.withDescription(
+            "Circuit breaker for " + service + " is open");
+      }
+      return null;
+    }
+
+    private boolean acquireSlot()
+    {
+      if (maxWait == null || maxWait.isZero() || maxWait.isNegative())
+      {
+        return bulkhead.tryAcquire();
+      }
+      try
+      {
+        return bulkhead.tryAcquire(maxWait.toNanos(), TimeUnit.NANOSECONDS);
+      }
+      catch (InterruptedException e)
+      {
+        Thread.currentThread().interrupt();
+        return false;
+      }
+    }
+
+    void release(Status status, boolean ownDeadline)
+    {
+      bulkhead.release();
+      CircuitBreaker.State before = breaker.getState();
+      if (status.getCode() == Status.Code.CANCELLED
+          || (status.getCode() == Status.Code.DEADLINE_EXCEEDED && !ownDeadline))
+      {
+        // Cancelled by the caller, or out of the time earlier calls left over
+        breaker.onIgnored();
+      }
+      else if (FAILURES.contains(status.getCode()))
+      {
+        breaker.onFailure();
+      }
+      else
+      {
+        // Includes NOT_FOUND and the like: the service answered
+        breaker.onSuccess();
+      }
+      CircuitBreaker.State after = breaker.getState();
+      if (before != after)
+      {
+        logger.warn("Circuit breaker for {} went from {} to {}", service,
+            before, after);
+      }
+    }
+  }
+
+  private static final class GuardedCall<ReqT, RespT>
+      extends ForwardingClientCall.SimpleForwardingClientCall<ReqT, RespT>
+  {
+    private final ServiceGuard guard;
+    private final boolean ownDeadline;
+    // Set when the call was failed locally and never started on the channel
+    private boolean rejected;
+
+    GuardedCall(ClientCall<ReqT, RespT> delegate, ServiceGuard guard,
+        boolean ownDeadline)
+    {
+      super(delegate);
+      this.guard = guard;
+      this.ownDeadline = ownDeadline;
+    }
+
+    @Override public void start(Listener<RespT> responseListener,
+        Metadata headers)
+    {
+      Status rejection = guard.tryAcquire();
+      if (rejection != null)
+      {
+        rejected = true;
+        responseListener.onClose(rejection, new Metadata());
+        return;
+      }
+      super.start(
+          new ForwardingClientCallListener.SimpleForwardingClientCallListener<>(
+              responseListener)
+          {
+            @Override public void onClose(Status status, Metadata trailers)
+            {
+              guard.release(status, ownDeadline);
+              super.onClose(status, trailers);
+            }
+          }, headers);
+    }
+
+    @Override public void request(int numMessages)
+    {
+      if (!rejected)
+      {
+        super.request(numMessages);
+      }
+    }
+
+    @Override public void sendMessage(ReqT message)
+    {
+      if (!rejected)
+      {
+        super.sendMessage(message);
+      }
+    }
+
+    @Override public void halfClose()
+    {
+      if (!rejected)
+      {
+        super.halfClose();
+      }
+    }
+
+    @Override public void cancel(String message, Throwable cause)
+    {
+      if (!rejected)
+      {
+        super.cancel(message, cause);
+      }
+    }
+
+    @Override public boolean isReady()
+    {
+      return !rejected && super.isReady();
+    }
+  }
+}
@@ -2,9 +2,14 @@ package dk.via.sep3.grpcConnection.userGrpcService;
 
 import dk.via.sep3.application.domain.User;
 
+import java.util.function.Consumer;
+
 public interface UserGrpcService
 {
     User createUser(User user);
 
     User getUserByUsername(String username);
+
+    // Streams every registered username without loading them all at once
+    void streamUsernames(Consumer<String> consumer);
 }
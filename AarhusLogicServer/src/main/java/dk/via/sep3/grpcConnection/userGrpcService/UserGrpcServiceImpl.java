@@ -1,13 +1,19 @@
 package dk.via.sep3.grpcConnection.userGrpcService;
 
 import dk.via.sep3.*;
+import dk.via.sep3.exceptionHandler.BusinessRuleViolationException;
 import dk.via.sep3.exceptionHandler.GrpcCommunicationException;
 import dk.via.sep3.mapper.userMapper.UserMapper;
 import dk.via.sep3.application.domain.User;
+import io.grpc.Context;
+import io.grpc.StatusRuntimeException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
+import java.util.Iterator;
+import java.util.function.Consumer;
+
 @Service public class UserGrpcServiceImpl implements UserGrpcService
 {
   private static final Logger logger = LoggerFactory.getLogger(
@@ -26,21 +32,31 @@ import org.springframework.stereotype.Service;
   {
     DTOUser dtoUser = userMapper.mapDomainToDTOUser(user);
     logger.info("Creating user via gRPC: {}", dtoUser);
+    CreateUserResponse response;
     try
     {
       CreateUserRequest request = CreateUserRequest.newBuilder()
           .setUser(dtoUser).build();
-      CreateUserResponse response = userStub.createUser(request);
-      if (response.getSuccess())
-      {
-        logger.info(response.getMessage());
-      }
-      return userMapper.mapDTOUserToDomain(response.getUser());
+      response = userStub.createUser(request);
     }
     catch (Exception ex)
     {
       throw new GrpcCommunicationException(ex.getMessage());
     }
+    // Registered through another logic server after the name was validated
+    if (response.getConflict())
+    {
+      logger.info("Username {} is already registered: {}",
+          dtoUser.getUsername(), response.getMessage());
+      throw new BusinessRuleViolationException("Username already exists");
+    }
+    if (!response.getSuccess())
+    {
+      throw new GrpcCommunicationException(
+          "Failed to create user: " + response.getMessage());
+    }
+    logger.info(response.getMessage());
+    return userMapper.mapDTOUserToDomain(response.getUser());
   }
 
   @Override public User getUserByUsername(String username)
@@ -70,4 +86,32 @@ import org.springframework.stereotype.Service;
       throw new GrpcCommunicationException(ex.getMessage());
     }
   }
+
+  @Override public void streamUsernames(Consumer<String> consumer)
+  {
+    ListUsernamesRequest request = ListUsernamesRequest.newBuilder().build();
+    // Cancelling this context ends the server stream if the consumer fails
+    Context.CancellableContext context = Context.current().withCancellation();
+    try
+    {
+      logger.info("Opening gRPC stream for all usernames...");
+      context.run(() -> {
+        Iterator<DTOUsername> usernames = userStub.listUsernames(request);
+        while (usernames.hasNext())
+        {
+          consumer.accept(usernames.next().getUsername());
+        }
+      });
+      logger.info("gRPC stream for all usernames completed.");
+    }
+    catch (StatusRuntimeException ex)
+    {
+      logger.error("gRPC error streaming usernames", ex);
+      throw new GrpcCommunicationException("Failed to stream usernames", ex);
+    }
+    finally
+    {
+      context.cancel(null);
+    }
+  }
 }
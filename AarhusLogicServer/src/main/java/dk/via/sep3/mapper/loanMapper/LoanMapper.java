@@ -1,10 +1,14 @@
 package dk.via.sep3.mapper.loanMapper;
 
 import dk.via.sep3.DTOLoan;
+import dk.via.sep3.application.domain.ExtensionResult;
 import dk.via.sep3.application.domain.Loan;
+import dk.via.sep3.application.domain.LoanResult;
 import dk.via.sep3.DTOs.extension.CreateExtensionDTO;
+import dk.via.sep3.DTOs.extension.ExtensionResultDTO;
 import dk.via.sep3.DTOs.loan.CreateLoanDTO;
 import dk.via.sep3.DTOs.loan.LoanDTO;
+import dk.via.sep3.DTOs.loan.LoanResultDTO;
 
 public interface LoanMapper
 {
@@ -16,5 +20,9 @@ public interface LoanMapper
 
   LoanDTO mapDomainToLoanDTO(Loan loan);
 
+  LoanResultDTO mapLoanResultToDTO(LoanResult result);
+
+  ExtensionResultDTO mapExtensionResultToDTO(ExtensionResult result);
+
     Loan mapCreateExtensionDTOToDomain(CreateExtensionDTO request);
 }
@@ -1,10 +1,18 @@
 package dk.via.sep3.mapper.loanMapper;
 
 import dk.via.sep3.DTOLoan;
+import dk.via.sep3.application.domain.ExtensionResult;
 import dk.via.sep3.application.domain.Loan;
+import dk.via.sep3.application.domain.LoanResult;
+import dk.via.sep3.exceptionHandler.BusinessRuleViolationException;
+import dk.via.sep3.exceptionHandler.GrpcCommunicationException;
+import dk.via.sep3.exceptionHandler.RequestTimeoutException;
+import dk.via.sep3.exceptionHandler.ResourceNotFoundException;
 import dk.via.sep3.DTOs.extension.CreateExtensionDTO;
+import dk.via.sep3.DTOs.extension.ExtensionResultDTO;
 import dk.via.sep3.DTOs.loan.CreateLoanDTO;
 import dk.via.sep3.DTOs.loan.LoanDTO;
+import dk.via.sep3.DTOs.loan.LoanResultDTO;
 import org.springframework.stereotype.Component;
 
 import java.sql.Date;
@@ -53,6 +61,64 @@ public class LoanMapperImpl implements LoanMapper
     return loan;
   }
 
+  @Override public LoanResultDTO mapLoanResultToDTO(LoanResult result)
+  {
+    if (result.isSuccess())
+    {
+      return new LoanResultDTO(result.getBookISBN(), true,
+          mapDomainToLoanDTO(result.getLoan()), null, null);
+    }
+    RuntimeException error = result.getError();
+    return new LoanResultDTO(result.getBookISBN(), false, null,
+        errorCode(error), error.getMessage());
+  }
+
+  @Override public ExtensionResultDTO mapExtensionResultToDTO(
+      ExtensionResult result)
+  {
+    if (result.isSuccess())
+    {
+      return new ExtensionResultDTO(result.getLoanId(), true,
+          mapDomainToLoanDTO(result.getLoan()), null, null);
+    }
+    RuntimeException error = result.getError();
+    return new ExtensionResultDTO(result.getLoanId(), false, null,
+        errorCode(error), error.getMessage());
+  }
+
+  /**
+   * The code {@code GlobalExceptionHandler} would answer a single checkout or
+   * extension failing with the same exception.
+   */
+  private static String errorCode(RuntimeException error)
+  {
+    if (error instanceof ResourceNotFoundException)
+    {
+      return "RESOURCE_NOT_FOUND";
+    }
+    if (error instanceof BusinessRuleViolationException)
+    {
+      return "BUSINESS_RULE_VIOLATION";
+    }
+    if (error instanceof IllegalArgumentException)
+    {
+      return "INVALID_INPUT";
+    }
+    if (error instanceof IllegalStateException)
+    {
+      return "BUSINESS_CONSTRAINT";
+    }
+    if (error instanceof GrpcCommunicationException)
+    {
+      return "SERVICE_UNAVAILABLE";
+    }
+    if (error instanceof RequestTimeoutException)
+    {
+      return "GATEWAY_TIMEOUT";
+    }
+    return "INTERNAL_ERROR";
+  }
+
   @Override public LoanDTO mapDomainToLoanDTO(Loan loan)
   {
     String borrowDateStr = loan.getBorrowDate() != null ? loan.getBorrowDate().toString() : null;
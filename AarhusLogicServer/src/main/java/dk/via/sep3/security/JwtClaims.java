@@ -0,0 +1,33 @@
+package dk.via.sep3.security;
+
+import java.time.Instant;
+
+/**
+  * The claims of a token whose signature and expiry have been verified.
+  */
+public final class JwtClaims {
+    private final String username;
+    private final String role;
+    private final Instant expiresAt;
+
+    public JwtClaims(String username, String role, Instant expiresAt) {
+        this.username = username;
+        this.role = role;
+        this.expiresAt = expiresAt;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    /**
+     * @return the {@code exp} claim, or {@code null} when the token has none
+     */
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+}
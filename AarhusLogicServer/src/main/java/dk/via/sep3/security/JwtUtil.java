@@ -72,4 +72,16 @@ public class JwtUtil implements IJwtTokenProvider {
             return false;
         }
     }
+
+    @Override
+    public JwtClaims verifyAndExtract(String token) {
+        try {
+            DecodedJWT decoded = verifier.verify(token);
+            Date expiresAt = decoded.getExpiresAt();
+            return new JwtClaims(decoded.getSubject(), decoded.getClaim("role").asString(),
+                    expiresAt == null ? null : expiresAt.toInstant());
+        } catch (Exception ex) {
+            return null;
+        }
+    }
 }
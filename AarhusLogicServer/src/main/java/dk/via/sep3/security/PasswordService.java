@@ -6,17 +6,18 @@ import org.springframework.stereotype.Service;
 @Service
 public class PasswordService {
     private final BCryptPasswordEncoder encoder;
+    private final PasswordHashingExecutor hashingExecutor;
 
-    public PasswordService(BCryptPasswordEncoder encoder) {
+    public PasswordService(BCryptPasswordEncoder encoder, PasswordHashingExecutor hashingExecutor) {
         this.encoder = encoder;
+        this.hashingExecutor = hashingExecutor;
     }
 
     public String hash(String raw) {
-        return encoder.encode(raw);
+        return hashingExecutor.run("hash", () -> encoder.encode(raw));
     }
 
     public boolean matches(String raw, String hash) {
-        return encoder.matches(raw, hash);
+        return hashingExecutor.run("matches", () -> encoder.matches(raw, hash));
     }
 }
-
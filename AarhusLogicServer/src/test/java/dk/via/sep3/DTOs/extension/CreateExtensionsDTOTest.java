@@ -0,0 +1,41 @@
+package dk.via.sep3.DTOs.extension;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for CreateExtensionsDTO
+ * Tests DTO construction and field access
+ */
+class CreateExtensionsDTOTest {
+
+    @Test
+    @DisplayName("Should create CreateExtensionsDTO with constructor")
+    void testConstructor() {
+        // Act
+        CreateExtensionsDTO dto = new CreateExtensionsDTO("johndoe", List.of(123, 124));
+
+        // Assert
+        assertEquals("johndoe", dto.getUsername());
+        assertEquals(List.of(123, 124), dto.getLoanIds());
+    }
+
+    @Test
+    @DisplayName("Should set and get fields after no-arg construction")
+    void testSetters() {
+        // Arrange
+        CreateExtensionsDTO dto = new CreateExtensionsDTO();
+
+        // Act
+        dto.setUsername("user");
+        dto.setLoanIds(List.of(1));
+
+        // Assert
+        assertEquals("user", dto.getUsername());
+        assertEquals(List.of(1), dto.getLoanIds());
+    }
+}
@@ -0,0 +1,53 @@
+package dk.via.sep3.DTOs.extension;
+
+import dk.via.sep3.DTOs.loan.LoanDTO;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ExtensionResultDTO
+ * Tests DTO construction and field access
+ */
+class ExtensionResultDTOTest {
+
+    @Test
+    @DisplayName("Should create a successful ExtensionResultDTO with constructor")
+    void testConstructor_Success() {
+        // Arrange
+        LoanDTO loan = new LoanDTO();
+        loan.setId("1");
+
+        // Act
+        ExtensionResultDTO dto = new ExtensionResultDTO(123, true, loan, null, null);
+
+        // Assert
+        assertEquals(123, dto.getLoanId());
+        assertTrue(dto.isSuccess());
+        assertSame(loan, dto.getLoan());
+        assertNull(dto.getErrorCode());
+        assertNull(dto.getMessage());
+    }
+
+    @Test
+    @DisplayName("Should set and get failure fields")
+    void testSetters_Failure() {
+        // Arrange
+        ExtensionResultDTO dto = new ExtensionResultDTO();
+
+        // Act
+        dto.setLoanId(124);
+        dto.setSuccess(false);
+        dto.setErrorCode("INVALID_INPUT");
+        dto.setMessage("Loan not found with ID: 124");
+
+        // Assert
+        assertEquals(124, dto.getLoanId());
+        assertFalse(dto.isSuccess());
+        assertNull(dto.getLoan());
+        assertEquals("INVALID_INPUT", dto.getErrorCode());
+        assertEquals("Loan not found with ID: 124", dto.getMessage());
+    }
+}
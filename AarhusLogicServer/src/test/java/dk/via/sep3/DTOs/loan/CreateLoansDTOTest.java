@@ -0,0 +1,41 @@
+package dk.via.sep3.DTOs.loan;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for CreateLoansDTO
+ * Tests DTO construction and field access
+ */
+class CreateLoansDTOTest {
+
+    @Test
+    @DisplayName("Should create CreateLoansDTO with constructor")
+    void testConstructor() {
+        // Act
+        CreateLoansDTO dto = new CreateLoansDTO("johndoe", List.of("978-0-123456-47-2", "0-123456-47-2"));
+
+        // Assert
+        assertEquals("johndoe", dto.getUsername());
+        assertEquals(List.of("978-0-123456-47-2", "0-123456-47-2"), dto.getBookISBNs());
+    }
+
+    @Test
+    @DisplayName("Should set and get fields after no-arg construction")
+    void testSetters() {
+        // Arrange
+        CreateLoansDTO dto = new CreateLoansDTO();
+
+        // Act
+        dto.setUsername("user");
+        dto.setBookISBNs(List.of("ISBN-123"));
+
+        // Assert
+        assertEquals("user", dto.getUsername());
+        assertEquals(List.of("ISBN-123"), dto.getBookISBNs());
+    }
+}
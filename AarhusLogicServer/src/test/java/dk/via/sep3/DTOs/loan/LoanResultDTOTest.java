@@ -0,0 +1,51 @@
+package dk.via.sep3.DTOs.loan;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for LoanResultDTO
+ * Tests DTO construction and field access
+ */
+class LoanResultDTOTest {
+
+    @Test
+    @DisplayName("Should create a successful LoanResultDTO with constructor")
+    void testConstructor_Success() {
+        // Arrange
+        LoanDTO loan = new LoanDTO();
+        loan.setId("1");
+
+        // Act
+        LoanResultDTO dto = new LoanResultDTO("978-0-123456-47-2", true, loan, null, null);
+
+        // Assert
+        assertEquals("978-0-123456-47-2", dto.getBookISBN());
+        assertTrue(dto.isSuccess());
+        assertSame(loan, dto.getLoan());
+        assertNull(dto.getErrorCode());
+        assertNull(dto.getMessage());
+    }
+
+    @Test
+    @DisplayName("Should set and get failure fields")
+    void testSetters_Failure() {
+        // Arrange
+        LoanResultDTO dto = new LoanResultDTO();
+
+        // Act
+        dto.setBookISBN("ISBN-123");
+        dto.setSuccess(false);
+        dto.setErrorCode("INVALID_INPUT");
+        dto.setMessage("No available copies of this book");
+
+        // Assert
+        assertEquals("ISBN-123", dto.getBookISBN());
+        assertFalse(dto.isSuccess());
+        assertNull(dto.getLoan());
+        assertEquals("INVALID_INPUT", dto.getErrorCode());
+        assertEquals("No available copies of this book", dto.getMessage());
+    }
+}
@@ -0,0 +1,69 @@
+package dk.via.sep3.application.domain;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for AvailabilitySummary domain class
+ * Tests counting copies and applying state changes
+ */
+class AvailabilitySummaryTest {
+
+    @Test
+    @DisplayName("Should count copies per state and pick the lowest available id")
+    void testFromCopies() {
+        // Arrange
+        List<Book> copies = List.of(
+                new Book(5, "123456", "Test Book", "Test Author", State.AVAILABLE, new ArrayList<>()),
+                new Book(2, "123456", "Test Book", "Test Author", State.AVAILABLE, new ArrayList<>()),
+                new Book(3, "123456", "Test Book", "Test Author", State.BORROWED, new ArrayList<>()),
+                new Book(4, "123456", "Test Book", "Test Author", State.RESERVED, new ArrayList<>()));
+
+        // Act
+        AvailabilitySummary summary = AvailabilitySummary.fromCopies(copies);
+
+        // Assert
+        assertEquals(4, summary.getTotal());
+        assertEquals(2, summary.getAvailable());
+        assertEquals(1, summary.getBorrowed());
+        assertEquals(1, summary.getReserved());
+        assertEquals(2, summary.getAvailableBookId());
+    }
+
+    @Test
+    @DisplayName("Should not exist when there are no copies")
+    void testFromCopies_NoCopies() {
+        // Act
+        AvailabilitySummary summary = AvailabilitySummary.fromCopies(new ArrayList<>());
+
+        // Assert
+        assertFalse(summary.exists());
+        assertFalse(summary.isAvailable());
+    }
+
+    @Test
+    @DisplayName("Should clear the available id when the last available copy is lent")
+    void testWithStateChange_LastAvailableCopyLent() {
+        // Act
+        AvailabilitySummary summary = AvailabilitySummary.of(2, 1, 1, 0, 7)
+                .withStateChange(7, State.AVAILABLE, State.BORROWED);
+
+        // Assert
+        assertEquals(0, summary.getAvailable());
+        assertEquals(2, summary.getBorrowed());
+        assertEquals(0, summary.getAvailableBookId());
+    }
+
+    @Test
+    @DisplayName("Should give up when the next available copy is unknown")
+    void testWithStateChange_NextAvailableCopyUnknown() {
+        // Act & Assert
+        assertNull(AvailabilitySummary.of(3, 2, 1, 0, 7)
+                .withStateChange(7, State.AVAILABLE, State.BORROWED));
+    }
+}
@@ -3,6 +3,8 @@ package dk.via.sep3.application.services.books;
 import dk.via.sep3.exceptionHandler.ResourceNotFoundException;
 import dk.via.sep3.grpcConnection.bookGrpcService.BookGrpcService;
 import dk.via.sep3.application.domain.Book;
+import dk.via.sep3.application.domain.BookPage;
+import dk.via.sep3.application.domain.BookQuery;
 import dk.via.sep3.application.domain.Genre;
 import dk.via.sep3.application.domain.State;
 import org.junit.jupiter.api.BeforeEach;
@@ -16,6 +18,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -137,6 +140,7 @@ class BookServiceImplTest {
         assertEquals(State.AVAILABLE, result.getState());
         assertEquals(isbn, result.getIsbn());
         verify(bookGrpcService, times(1)).getBooksByIsbn(isbn);
+        verifyNoMoreInteractions(bookGrpcService);
     }
 
     @Test
@@ -302,5 +306,67 @@ class BookServiceImplTest {
         assertEquals(1, result.size());
         assertTrue(result.get(0).getGenres().isEmpty());
     }
-}
 
+    // ========== streamAllBooks Tests ==========
+
+    @Test
+    @DisplayName("Should stream one book per ISBN from an ISBN ordered stream")
+    void testStreamAllBooks_SkipsDuplicateIsbn() {
+        // Arrange
+        doAnswer(invocation -> {
+            Consumer<Book> consumer = invocation.getArgument(0);
+            consumer.accept(availableBook1);
+            consumer.accept(borrowedBook);
+            consumer.accept(availableBook2);
+            return null;
+        }).when(bookGrpcService).streamAllBooks(any());
+
+        // Act
+        List<Book> result = new ArrayList<>();
+        bookService.streamAllBooks(result::add);
+
+        // Assert
+        assertEquals(List.of(availableBook1, availableBook2), result);
+        verify(bookGrpcService, times(1)).streamAllBooks(any());
+    }
+
+    // ========== getBooks Tests ==========
+
+    @Test
+    @DisplayName("Should de-duplicate a page by ISBN and keep its cursor")
+    void testGetBooks_ReturnsUniqueBooksAndCursor() {
+        // Arrange
+        BookQuery query = new BookQuery(2, null, null, "Programming", null);
+        when(bookGrpcService.getBooks(query))
+            .thenReturn(new BookPage(List.of(availableBook1, borrowedBook, availableBook2), "978-0-987654-32-1"));
+
+        // Act
+        BookPage page = bookService.getBooks(query);
+
+        // Assert
+        assertEquals(List.of(availableBook1, availableBook2), page.getBooks());
+        assertEquals("978-0-987654-32-1", page.getNextCursor());
+    }
+
+    @Test
+    @DisplayName("Should reject a negative page limit")
+    void testGetBooks_NegativeLimit() {
+        // Arrange
+        BookQuery query = new BookQuery(-1, null, null, null, null);
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> bookService.getBooks(query));
+        verify(bookGrpcService, never()).getBooks(any());
+    }
+
+    @Test
+    @DisplayName("Should reject a page limit of zero")
+    void testGetBooks_ZeroLimit() {
+        // Arrange
+        BookQuery query = new BookQuery(0, null, null, "Programming", null);
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> bookService.getBooks(query));
+        verify(bookGrpcService, never()).getBooks(any());
+    }
+}
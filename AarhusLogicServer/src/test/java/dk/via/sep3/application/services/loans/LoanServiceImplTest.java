@@ -1,16 +1,20 @@
 package dk.via.sep3.application.services.loans;
 
+import dk.via.sep3.exceptionHandler.BusinessRuleViolationException;
 import dk.via.sep3.grpcConnection.bookGrpcService.BookGrpcService;
+import dk.via.sep3.grpcConnection.fanOut.GrpcFanOut;
 import dk.via.sep3.grpcConnection.loanGrpcService.LoanGrpcService;
+import dk.via.sep3.application.domain.AvailabilitySummary;
 import dk.via.sep3.application.domain.Book;
+import dk.via.sep3.application.domain.ExtensionResult;
 import dk.via.sep3.application.domain.Genre;
 import dk.via.sep3.application.domain.Loan;
+import dk.via.sep3.application.domain.LoanResult;
 import dk.via.sep3.application.domain.State;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
@@ -18,6 +22,8 @@ import java.sql.Date;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -36,7 +42,9 @@ class LoanServiceImplTest {
     @Mock
     private LoanGrpcService loanGrpcService;
 
-    @InjectMocks
+    @Mock
+    private OverdueLoanMonitor overdueLoanMonitor;
+
     private LoanServiceImpl loanService;
 
     private Loan loanRequest;
@@ -46,6 +54,10 @@ class LoanServiceImplTest {
 
     @BeforeEach
     void setUp() {
+        // Fan-out runs on the calling thread so the call order stays deterministic
+        loanService = new LoanServiceImpl(bookGrpcService, loanGrpcService, new GrpcFanOut(Runnable::run),
+                overdueLoanMonitor);
+
         // Setup loan request
         loanRequest = new Loan();
         loanRequest.setUsername("johndoe");
@@ -73,13 +85,80 @@ class LoanServiceImplTest {
 
     // ========== createLoan Tests ==========
 
+    @Test
+    @DisplayName("Should borrow through a single BorrowBook call and evict the lent copy")
+    void testCreateLoan_BorrowBook() {
+        // Arrange
+        Loan createdLoan = new Loan();
+        createdLoan.setLoanId(1);
+        createdLoan.setUsername("johndoe");
+        createdLoan.setBookId(3);
+        when(loanGrpcService.borrowBook(any(Loan.class))).thenReturn(createdLoan);
+
+        // Act
+        Loan result = loanService.createLoan(loanRequest);
+
+        // Assert
+        assertEquals(1, result.getLoanId());
+        verify(loanGrpcService).borrowBook(argThat(loan -> loan.getUsername().equals("johndoe")
+                && loan.getBookISBN().equals("978-0-123456-47-2")
+                && loan.getDueDate().toLocalDate().equals(LocalDate.now().plusDays(30))));
+        verify(bookGrpcService).bookStateChanged(3);
+        verify(overdueLoanMonitor).track(createdLoan);
+        verify(loanGrpcService, never()).getLoansByISBN(anyString());
+        verify(bookGrpcService, never()).getCurrentBooksByIsbn(anyString());
+        verify(bookGrpcService, never()).updateBookStatus(anyInt(), anyString());
+    }
+
+    @Test
+    @DisplayName("Should pass on the persistence server's refusal to lend")
+    void testCreateLoan_BorrowBookRejected() {
+        // Arrange
+        when(loanGrpcService.borrowBook(any(Loan.class)))
+                .thenThrow(new IllegalArgumentException("No available copies of this book"));
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> loanService.createLoan(loanRequest));
+        verify(loanGrpcService, never()).createLoan(any());
+    }
+
+    @Test
+    @DisplayName("Should fall back to separate steps once BorrowBook is unimplemented, and stop trying it")
+    void testCreateLoan_BorrowBookUnimplemented() {
+        // Arrange
+        persistenceWithoutBorrowBook();
+        when(loanGrpcService.getLoansByISBN("978-0-123456-47-2")).thenReturn(new ArrayList<>());
+        when(bookGrpcService.getCurrentAvailabilitySummary("978-0-123456-47-2")).thenReturn(AvailabilitySummary.of(1, 1, 0, 0, 1));
+        when(bookGrpcService.updateBookStatus(1, "Available", "Borrowed")).thenReturn(true);
+        Loan createdLoan = new Loan();
+        createdLoan.setLoanId(1);
+        when(loanGrpcService.createLoan(any(Loan.class))).thenReturn(createdLoan);
+
+        // Act
+        loanService.createLoan(loanRequest);
+        loanService.createLoan(loanRequest);
+
+        // Assert
+        verify(loanGrpcService, times(1)).borrowBook(any());
+        verify(loanGrpcService, times(2)).createLoan(any(Loan.class));
+    }
+
+    // ========== createLoan Tests against a persistence server without BorrowBook ==========
+
+    private void persistenceWithoutBorrowBook() {
+        when(loanGrpcService.borrowBook(any(Loan.class)))
+                .thenThrow(new UnsupportedOperationException("BorrowBook"));
+    }
+
     @Test
     @DisplayName("Should successfully create loan with available book")
     void testCreateLoan_Success() {
         // Arrange
+        persistenceWithoutBorrowBook();
         when(loanGrpcService.getLoansByISBN("978-0-123456-47-2")).thenReturn(new ArrayList<>());
-        when(bookGrpcService.getBooksByIsbn("978-0-123456-47-2"))
-            .thenReturn(Arrays.asList(availableBook));
+        when(bookGrpcService.getCurrentAvailabilitySummary("978-0-123456-47-2"))
+            .thenReturn(AvailabilitySummary.of(1, 1, 0, 0, 1));
+        when(bookGrpcService.updateBookStatus(1, "Available", "Borrowed")).thenReturn(true);
 
         Loan createdLoan = new Loan();
         createdLoan.setLoanId(1);
@@ -96,15 +175,17 @@ class LoanServiceImplTest {
         assertEquals("johndoe", result.getUsername());
 
         verify(loanGrpcService, times(1)).getLoansByISBN("978-0-123456-47-2");
-        verify(bookGrpcService, times(1)).getBooksByIsbn("978-0-123456-47-2");
+        verify(bookGrpcService, times(1)).getCurrentAvailabilitySummary("978-0-123456-47-2");
+        verify(bookGrpcService, never()).getCurrentBooksByIsbn(anyString());
         verify(loanGrpcService, times(1)).createLoan(any(Loan.class));
-        verify(bookGrpcService, times(1)).updateBookStatus(1, "Borrowed");
+        verify(bookGrpcService, times(1)).updateBookStatus(1, "Available", "Borrowed");
     }
 
     @Test
     @DisplayName("Should throw exception when user already has active loan for same ISBN")
     void testCreateLoan_DuplicateActiveLoan() {
         // Arrange
+        persistenceWithoutBorrowBook();
         Loan activeLoan = new Loan();
         activeLoan.setUsername("johndoe");
         activeLoan.setReturned(false);
@@ -119,20 +200,22 @@ class LoanServiceImplTest {
 
         assertEquals("User already has an active loan for this book", exception.getMessage());
         verify(loanGrpcService, times(1)).getLoansByISBN("978-0-123456-47-2");
-        verify(bookGrpcService, never()).getBooksByIsbn(anyString());
+        verify(bookGrpcService, never()).getCurrentAvailabilitySummary(anyString());
     }
 
     @Test
     @DisplayName("Should allow loan when previous loan is returned")
     void testCreateLoan_PreviousLoanReturned() {
         // Arrange
+        persistenceWithoutBorrowBook();
         Loan returnedLoan = new Loan();
         returnedLoan.setUsername("johndoe");
         returnedLoan.setReturned(true); // Already returned
         when(loanGrpcService.getLoansByISBN("978-0-123456-47-2"))
             .thenReturn(Arrays.asList(returnedLoan));
-        when(bookGrpcService.getBooksByIsbn("978-0-123456-47-2"))
-            .thenReturn(Arrays.asList(availableBook));
+        when(bookGrpcService.getCurrentAvailabilitySummary("978-0-123456-47-2"))
+            .thenReturn(AvailabilitySummary.of(1, 1, 0, 0, 1));
+        when(bookGrpcService.updateBookStatus(1, "Available", "Borrowed")).thenReturn(true);
 
         Loan createdLoan = new Loan();
         createdLoan.setLoanId(2);
@@ -144,16 +227,17 @@ class LoanServiceImplTest {
         // Assert
         assertNotNull(result);
         assertEquals(2, result.getLoanId());
-        verify(bookGrpcService, times(1)).getBooksByIsbn("978-0-123456-47-2");
+        verify(bookGrpcService, times(1)).getCurrentAvailabilitySummary("978-0-123456-47-2");
     }
 
     @Test
     @DisplayName("Should throw exception when no books found with ISBN")
     void testCreateLoan_NoBooks() {
         // Arrange
+        persistenceWithoutBorrowBook();
         when(loanGrpcService.getLoansByISBN("978-0-123456-47-2")).thenReturn(new ArrayList<>());
-        when(bookGrpcService.getBooksByIsbn("978-0-123456-47-2"))
-            .thenReturn(new ArrayList<>());
+        when(bookGrpcService.getCurrentAvailabilitySummary("978-0-123456-47-2"))
+            .thenReturn(AvailabilitySummary.of(0, 0, 0, 0, 0));
 
         // Act & Assert
         IllegalArgumentException exception = assertThrows(
@@ -169,9 +253,10 @@ class LoanServiceImplTest {
     @DisplayName("Should throw exception when no available copies exist")
     void testCreateLoan_NoAvailableCopies() {
         // Arrange
+        persistenceWithoutBorrowBook();
         when(loanGrpcService.getLoansByISBN("978-0-123456-47-2")).thenReturn(new ArrayList<>());
-        when(bookGrpcService.getBooksByIsbn("978-0-123456-47-2"))
-            .thenReturn(Arrays.asList(borrowedBook)); // Only borrowed copy
+        when(bookGrpcService.getCurrentAvailabilitySummary("978-0-123456-47-2"))
+            .thenReturn(AvailabilitySummary.of(1, 0, 1, 0, 0)); // Only borrowed copy
 
         // Act & Assert
         IllegalArgumentException exception = assertThrows(
@@ -187,11 +272,11 @@ class LoanServiceImplTest {
     @DisplayName("Should select first available book when multiple copies available")
     void testCreateLoan_MultipleAvailableCopies() {
         // Arrange
-        Book availableBook2 = new Book(3, "978-0-123456-47-2", "Clean Code", "Robert Martin",
-                                       State.AVAILABLE, new ArrayList<>());
+        persistenceWithoutBorrowBook();
         when(loanGrpcService.getLoansByISBN("978-0-123456-47-2")).thenReturn(new ArrayList<>());
-        when(bookGrpcService.getBooksByIsbn("978-0-123456-47-2"))
-            .thenReturn(Arrays.asList(borrowedBook, availableBook, availableBook2));
+        when(bookGrpcService.getCurrentAvailabilitySummary("978-0-123456-47-2"))
+            .thenReturn(AvailabilitySummary.of(3, 2, 1, 0, 1));
+        when(bookGrpcService.updateBookStatus(1, "Available", "Borrowed")).thenReturn(true);
 
         Loan createdLoan = new Loan();
         createdLoan.setLoanId(1);
@@ -203,16 +288,70 @@ class LoanServiceImplTest {
 
         // Assert
         assertEquals(1, result.getBookId()); // First available book selected
-        verify(bookGrpcService, times(1)).updateBookStatus(1, "Borrowed");
+        verify(bookGrpcService, times(1)).updateBookStatus(1, "Available", "Borrowed");
+        verify(bookGrpcService, never()).getCurrentBooksByIsbn(anyString());
+    }
+
+    @Test
+    @DisplayName("Should take the next available copy when another server claimed the first")
+    void testCreateLoan_CopyClaimedElsewhere() {
+        // Arrange
+        persistenceWithoutBorrowBook();
+        Book availableBook2 = new Book(3, "978-0-123456-47-2", "Clean Code", "Robert Martin",
+                                       State.AVAILABLE, new ArrayList<>());
+        when(loanGrpcService.getLoansByISBN("978-0-123456-47-2")).thenReturn(new ArrayList<>());
+        when(bookGrpcService.getCurrentAvailabilitySummary("978-0-123456-47-2"))
+            .thenReturn(AvailabilitySummary.of(2, 2, 0, 0, 1));
+        when(bookGrpcService.getCurrentBooksByIsbn("978-0-123456-47-2"))
+            .thenReturn(Arrays.asList(availableBook, availableBook2));
+        when(bookGrpcService.updateBookStatus(1, "Available", "Borrowed")).thenReturn(false);
+        when(bookGrpcService.updateBookStatus(3, "Available", "Borrowed")).thenReturn(true);
+
+        Loan createdLoan = new Loan();
+        createdLoan.setLoanId(1);
+        createdLoan.setBookId(3);
+        when(loanGrpcService.createLoan(any(Loan.class))).thenReturn(createdLoan);
+
+        // Act
+        Loan result = loanService.createLoan(loanRequest);
+
+        // Assert
+        assertEquals(3, result.getBookId());
+        verify(loanGrpcService).createLoan(argThat(loan -> loan.getBookId() == 3));
+    }
+
+    @Test
+    @DisplayName("Should report no available copies when other servers claimed every copy")
+    void testCreateLoan_EveryCopyClaimedElsewhere() {
+        // Arrange
+        persistenceWithoutBorrowBook();
+        when(loanGrpcService.getLoansByISBN("978-0-123456-47-2")).thenReturn(new ArrayList<>());
+        when(bookGrpcService.getCurrentAvailabilitySummary("978-0-123456-47-2"))
+            .thenReturn(AvailabilitySummary.of(1, 1, 0, 0, 1));
+        when(bookGrpcService.getCurrentBooksByIsbn("978-0-123456-47-2"))
+            .thenReturn(Arrays.asList(availableBook));
+        when(bookGrpcService.updateBookStatus(1, "Available", "Borrowed")).thenReturn(false);
+
+        // Act & Assert
+        IllegalArgumentException exception = assertThrows(
+            IllegalArgumentException.class,
+            () -> loanService.createLoan(loanRequest)
+        );
+
+        assertEquals("No available copies of this book", exception.getMessage());
+        verify(loanGrpcService, never()).createLoan(any());
+        verify(bookGrpcService, times(1)).updateBookStatus(1, "Available", "Borrowed");
     }
 
     @Test
     @DisplayName("Should set loan dates correctly (30 days from today)")
     void testCreateLoan_CorrectDates() {
         // Arrange
+        persistenceWithoutBorrowBook();
         when(loanGrpcService.getLoansByISBN("978-0-123456-47-2")).thenReturn(new ArrayList<>());
-        when(bookGrpcService.getBooksByIsbn("978-0-123456-47-2"))
-            .thenReturn(Arrays.asList(availableBook));
+        when(bookGrpcService.getCurrentAvailabilitySummary("978-0-123456-47-2"))
+            .thenReturn(AvailabilitySummary.of(1, 1, 0, 0, 1));
+        when(bookGrpcService.updateBookStatus(1, "Available", "Borrowed")).thenReturn(true);
 
         Loan createdLoan = new Loan();
         createdLoan.setLoanId(1);
@@ -236,9 +375,11 @@ class LoanServiceImplTest {
     @DisplayName("Should throw exception when loan persistence fails")
     void testCreateLoan_PersistenceFails() {
         // Arrange
+        persistenceWithoutBorrowBook();
         when(loanGrpcService.getLoansByISBN("978-0-123456-47-2")).thenReturn(new ArrayList<>());
-        when(bookGrpcService.getBooksByIsbn("978-0-123456-47-2"))
-            .thenReturn(Arrays.asList(availableBook));
+        when(bookGrpcService.getCurrentAvailabilitySummary("978-0-123456-47-2"))
+            .thenReturn(AvailabilitySummary.of(1, 1, 0, 0, 1));
+        when(bookGrpcService.updateBookStatus(1, "Available", "Borrowed")).thenReturn(true);
         when(loanGrpcService.createLoan(any(Loan.class))).thenReturn(null);
 
         // Act & Assert
@@ -249,10 +390,150 @@ class LoanServiceImplTest {
 
         assertTrue(exception.getMessage().contains("Failed to create loan"));
         verify(bookGrpcService, never()).updateBookStatus(anyInt(), anyString());
+        verify(bookGrpcService).updateBookStatus(1, "Borrowed", "Available");
+    }
+
+    // ========== createLoans Tests ==========
+
+    @Test
+    @DisplayName("Should send the whole checkout in one BorrowBooks call and evict each lent copy")
+    void testCreateLoans_BorrowBooks() {
+        // Arrange
+        when(loanGrpcService.borrowBooks(anyList())).thenReturn(List.of(
+                LoanResult.success("978-0-123456-47-2", existingLoan),
+                LoanResult.failure("978-0-000000-00-0",
+                        new IllegalArgumentException("No available copies of this book"))));
+
+        // Act
+        List<LoanResult> results = loanService.createLoans("johndoe",
+                List.of("978-0-123456-47-2", "978-0-000000-00-0"));
+
+        // Assert
+        assertTrue(results.get(0).isSuccess());
+        assertFalse(results.get(1).isSuccess());
+        verify(loanGrpcService).borrowBooks(argThat(loans -> loans.size() == 2
+                && loans.get(1).getBookISBN().equals("978-0-000000-00-0")
+                && loans.stream().allMatch(loan -> loan.getUsername().equals("johndoe"))));
+        verify(bookGrpcService).bookStateChanged(1);
+        verify(loanGrpcService, never()).borrowBook(any());
+    }
+
+    @Test
+    @DisplayName("Should reject an empty checkout or one over the batch limit")
+    void testCreateLoans_InvalidSize() {
+        // Arrange
+        List<String> tooMany = Collections.nCopies(LoanServiceImpl.MAX_BATCH_SIZE + 1, "978-0-123456-47-2");
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> loanService.createLoans("johndoe", List.of()));
+        assertThrows(IllegalArgumentException.class, () -> loanService.createLoans("johndoe", tooMany));
+        verifyNoInteractions(loanGrpcService);
+    }
+
+    @Test
+    @DisplayName("Should lend one book at a time once BorrowBooks is unimplemented, and stop trying it")
+    void testCreateLoans_BorrowBooksUnimplemented() {
+        // Arrange
+        when(loanGrpcService.borrowBooks(anyList()))
+                .thenThrow(new UnsupportedOperationException("BorrowBooks"));
+        when(loanGrpcService.borrowBook(any(Loan.class)))
+                .thenReturn(existingLoan)
+                .thenThrow(new IllegalStateException("User already has an active loan for this book"))
+                .thenReturn(existingLoan);
+
+        // Act
+        List<LoanResult> results = loanService.createLoans("johndoe",
+                List.of("978-0-123456-47-2", "978-0-123456-47-2"));
+        loanService.createLoans("johndoe", List.of("978-0-123456-47-2"));
+
+        // Assert
+        assertSame(existingLoan, results.get(0).getLoan());
+        assertInstanceOf(IllegalStateException.class, results.get(1).getError());
+        verify(loanGrpcService, times(1)).borrowBooks(anyList());
+        verify(loanGrpcService, times(3)).borrowBook(any(Loan.class));
     }
 
     // ========== extendLoan Tests ==========
 
+    @Test
+    @DisplayName("Should fetch all loans in one call and save the eligible ones in one call")
+    void testExtendLoans_Batched() {
+        // Arrange
+        existingLoan.setDueDate(Date.valueOf(LocalDate.now().plusDays(1)));
+        Loan othersLoan = new Loan();
+        othersLoan.setLoanId(101);
+        othersLoan.setUsername("janedoe");
+        othersLoan.setDueDate(Date.valueOf(LocalDate.now()));
+        when(loanGrpcService.getLoansByIds(List.of(100, 101, 102, 100)))
+                .thenReturn(List.of(existingLoan, othersLoan));
+
+        // Act
+        List<ExtensionResult> results = loanService.extendLoans("johndoe", List.of(100, 101, 102, 100));
+
+        // Assert
+        assertTrue(results.get(0).isSuccess());
+        assertEquals(Date.valueOf(LocalDate.now().plusDays(31)), results.get(0).getLoan().getDueDate());
+        assertInstanceOf(IllegalStateException.class, results.get(1).getError());
+        assertEquals("Loan not found with ID: 102", results.get(2).getError().getMessage());
+        assertInstanceOf(IllegalArgumentException.class, results.get(3).getError());
+        verify(loanGrpcService).extendLoans(List.of(existingLoan));
+        verify(overdueLoanMonitor).track(existingLoan);
+        verify(overdueLoanMonitor, never()).track(othersLoan);
+        verify(loanGrpcService, never()).getLoanById(anyInt());
+    }
+
+    @Test
+    @DisplayName("Should not call ExtendLoans when no loan is eligible")
+    void testExtendLoans_NoneEligible() {
+        // Arrange
+        when(loanGrpcService.getLoansByIds(List.of(100))).thenReturn(List.of(existingLoan));
+
+        // Act
+        List<ExtensionResult> results = loanService.extendLoans("johndoe", List.of(100));
+
+        // Assert
+        assertInstanceOf(BusinessRuleViolationException.class, results.get(0).getError());
+        verify(loanGrpcService, never()).extendLoans(anyList());
+    }
+
+    @Test
+    @DisplayName("Should reject an empty batch of extensions or one over the batch limit")
+    void testExtendLoans_InvalidSize() {
+        // Arrange
+        List<Integer> tooMany = Collections.nCopies(LoanServiceImpl.MAX_BATCH_SIZE + 1, 100);
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> loanService.extendLoans("johndoe", List.of()));
+        assertThrows(IllegalArgumentException.class, () -> loanService.extendLoans("johndoe", tooMany));
+        verifyNoInteractions(loanGrpcService);
+    }
+
+    @Test
+    @DisplayName("Should extend one loan at a time once ExtendLoans is unimplemented, and stop trying it")
+    void testExtendLoans_Unimplemented() {
+        // Arrange
+        existingLoan.setDueDate(Date.valueOf(LocalDate.now()));
+        when(loanGrpcService.getLoansByIds(anyList())).thenReturn(List.of(existingLoan));
+        when(loanGrpcService.extendLoans(anyList()))
+                .thenThrow(new UnsupportedOperationException("ExtendLoans"));
+        when(loanGrpcService.getLoanById(100)).thenAnswer(invocation -> {
+            Loan stored = new Loan();
+            stored.setLoanId(100);
+            stored.setUsername("johndoe");
+            stored.setDueDate(Date.valueOf(LocalDate.now()));
+            return stored;
+        });
+
+        // Act
+        List<ExtensionResult> results = loanService.extendLoans("johndoe", List.of(100));
+        loanService.extendLoans("johndoe", List.of(100));
+
+        // Assert
+        assertEquals(1, results.get(0).getLoan().getNumberOfExtensions());
+        verify(loanGrpcService, times(1)).getLoansByIds(anyList());
+        verify(loanGrpcService, times(2)).extendLoan(any(Loan.class));
+    }
+
     @Test
     @DisplayName("Should successfully extend loan")
     void testExtendLoan_Success() {
@@ -269,6 +550,7 @@ class LoanServiceImplTest {
         assertEquals(Date.valueOf(LocalDate.now().plusDays(31)), existingLoan.getDueDate());
         verify(loanGrpcService, times(1)).getLoanById(100);
         verify(loanGrpcService, times(1)).extendLoan(existingLoan);
+        verify(overdueLoanMonitor).track(existingLoan);
     }
 
     @Test
@@ -0,0 +1,226 @@
+package dk.via.sep3.application.services.loans;
+
+import dk.via.sep3.application.domain.Loan;
+import dk.via.sep3.exceptionHandler.GrpcCommunicationException;
+import dk.via.sep3.grpcConnection.loanGrpcService.LoanGrpcService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.sql.Date;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for OverdueLoanMonitor
+ * Tests loading the due date index and publishing due soon and overdue events
+ */
+@ExtendWith(MockitoExtension.class)
+class OverdueLoanMonitorTest {
+
+    private static final LocalDate START = LocalDate.of(2025, 3, 10);
+
+    @Mock
+    private LoanGrpcService loanGrpcService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private SimpleMeterRegistry meterRegistry;
+    private LocalDate today;
+    private OverdueLoanMonitor monitor;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        today = START;
+        monitor = new OverdueLoanMonitor(loanGrpcService, eventPublisher, meterRegistry,
+                3, Duration.ZERO, Duration.ZERO, 100, () -> today);
+    }
+
+    @AfterEach
+    void tearDown() {
+        monitor.shutdown();
+    }
+
+    private static Loan loan(int loanId, LocalDate dueDate, boolean returned) {
+        return new Loan(loanId, 1, "johndoe", Date.valueOf(START.minusDays(20)),
+                Date.valueOf(dueDate), returned, 0);
+    }
+
+    private double tracked() {
+        return meterRegistry.get("loans.due.tracked").gauge().value();
+    }
+
+    @Test
+    @DisplayName("Should index streamed loans and catch up an overdue missed before the first load")
+    void testReload_IndexesActiveLoans() {
+        // Arrange
+        doAnswer(invocation -> {
+            Consumer<Loan> consumer = invocation.getArgument(0);
+            consumer.accept(loan(1, START.plusDays(10), false));
+            consumer.accept(loan(2, START.plusDays(1), false));
+            consumer.accept(loan(3, START.minusDays(10), false));
+            return null;
+        }).when(loanGrpcService).streamActiveLoans(any());
+
+        // Act
+        monitor.reload();
+
+        // Assert
+        assertEquals(3, tracked());
+    }
+
+    @Test
+    @DisplayName("Should announce a loan that went overdue before a restart once")
+    void testReload_RestartAfterOverdueDay() {
+        // Arrange
+        Loan loan = loan(1, START.minusDays(10), false);
+        doAnswer(invocation -> {
+            Consumer<Loan> consumer = invocation.getArgument(0);
+            consumer.accept(loan);
+            return null;
+        }).when(loanGrpcService).streamActiveLoans(any());
+        when(loanGrpcService.getLoansByIds(List.of(1))).thenReturn(List.of(loan));
+
+        // Act
+        monitor.reload();
+        monitor.check();
+        monitor.reload();
+        monitor.check();
+
+        // Assert
+        ArgumentCaptor<LoanDueEvent> captor = ArgumentCaptor.forClass(LoanDueEvent.class);
+        verify(eventPublisher, times(1)).publishEvent(captor.capture());
+        assertEquals(LoanDueEvent.Kind.OVERDUE, captor.getValue().getKind());
+        assertEquals(0, tracked());
+    }
+
+    @Test
+    @DisplayName("Should stop streaming when the persistence server lacks StreamActiveLoans")
+    void testReload_Unimplemented() {
+        // Arrange
+        doThrow(new UnsupportedOperationException("old server"))
+                .when(loanGrpcService).streamActiveLoans(any());
+
+        // Act
+        monitor.reload();
+        monitor.reload();
+
+        // Assert
+        verify(loanGrpcService, times(1)).streamActiveLoans(any());
+    }
+
+    @Test
+    @DisplayName("Should publish due soon and then overdue once each")
+    void testCheck_DueSoonThenOverdue() {
+        // Arrange
+        Loan loan = loan(1, START.plusDays(10), false);
+        monitor.track(loan);
+        when(loanGrpcService.getLoansByIds(List.of(1))).thenReturn(List.of(loan));
+
+        // Act
+        today = START.plusDays(7);
+        monitor.check();
+        monitor.check();
+        today = START.plusDays(11);
+        monitor.check();
+
+        // Assert
+        ArgumentCaptor<LoanDueEvent> captor = ArgumentCaptor.forClass(LoanDueEvent.class);
+        verify(eventPublisher, times(2)).publishEvent(captor.capture());
+        assertEquals(LoanDueEvent.Kind.DUE_SOON, captor.getAllValues().get(0).getKind());
+        assertEquals(LoanDueEvent.Kind.OVERDUE, captor.getAllValues().get(1).getKind());
+        assertEquals(0, tracked());
+    }
+
+    @Test
+    @DisplayName("Should drop a returned loan without an event")
+    void testCheck_ReturnedLoan() {
+        // Arrange
+        monitor.track(loan(1, START.plusDays(10), false));
+        when(loanGrpcService.getLoansByIds(List.of(1)))
+                .thenReturn(List.of(loan(1, START.plusDays(10), true)));
+
+        // Act
+        today = START.plusDays(7);
+        monitor.check();
+
+        // Assert
+        verifyNoInteractions(eventPublisher);
+        assertEquals(0, tracked());
+    }
+
+    @Test
+    @DisplayName("Should reschedule a loan extended through another server")
+    void testCheck_ExtendedElsewhere() {
+        // Arrange
+        monitor.track(loan(1, START.plusDays(10), false));
+        when(loanGrpcService.getLoansByIds(List.of(1)))
+                .thenReturn(List.of(loan(1, START.plusDays(24), false)));
+
+        // Act
+        today = START.plusDays(7);
+        monitor.check();
+        today = START.plusDays(21);
+        monitor.check();
+
+        // Assert
+        ArgumentCaptor<LoanDueEvent> captor = ArgumentCaptor.forClass(LoanDueEvent.class);
+        verify(eventPublisher, times(1)).publishEvent(captor.capture());
+        assertEquals(LoanDueEvent.Kind.DUE_SOON, captor.getValue().getKind());
+    }
+
+    @Test
+    @DisplayName("Should keep a loan due when it could not be fetched")
+    void testCheck_FetchFails() {
+        // Arrange
+        Loan loan = loan(1, START.plusDays(10), false);
+        monitor.track(loan);
+        when(loanGrpcService.getLoansByIds(List.of(1)))
+                .thenThrow(new GrpcCommunicationException("down"))
+                .thenReturn(List.of(loan));
+
+        // Act
+        today = START.plusDays(7);
+        monitor.check();
+        monitor.check();
+
+        // Assert
+        verify(eventPublisher, times(1)).publishEvent(any(LoanDueEvent.class));
+    }
+
+    @Test
+    @DisplayName("Should fetch due loans one at a time when GetLoansByIds is unimplemented")
+    void testCheck_GetLoansByIdsUnimplemented() {
+        // Arrange
+        Loan loan = loan(1, START.plusDays(10), false);
+        monitor.track(loan);
+        when(loanGrpcService.getLoansByIds(any()))
+                .thenThrow(new UnsupportedOperationException("old server"));
+        when(loanGrpcService.getLoanById(1)).thenReturn(loan);
+
+        // Act
+        today = START.plusDays(7);
+        monitor.check();
+        today = START.plusDays(11);
+        monitor.check();
+
+        // Assert
+        verify(eventPublisher, times(2)).publishEvent(any(LoanDueEvent.class));
+        verify(loanGrpcService, times(1)).getLoansByIds(any());
+    }
+}
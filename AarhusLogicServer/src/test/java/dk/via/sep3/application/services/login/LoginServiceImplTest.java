@@ -0,0 +1,149 @@
+package dk.via.sep3.application.services.login;
+
+import dk.via.sep3.application.domain.User;
+import dk.via.sep3.exceptionHandler.BusinessRuleViolationException;
+import dk.via.sep3.exceptionHandler.RateLimitExceededException;
+import dk.via.sep3.grpcConnection.userGrpcService.UserGrpcService;
+import dk.via.sep3.security.PasswordService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LoginServiceImplTest {
+
+    @Mock
+    private UserGrpcService userGrpcService;
+
+    @Mock
+    private PasswordService passwordService;
+
+    private AtomicLong nanos;
+    private UnknownUsernameCache unknownUsernames;
+    private LoginServiceImpl loginService;
+
+    private User storedUser;
+
+    @BeforeEach
+    void setUp() {
+        nanos = new AtomicLong();
+        LoginRateLimiter rateLimiter = new LoginRateLimiter(2, Duration.ofSeconds(30),
+                10, Duration.ofSeconds(1), 100, Duration.ofMinutes(15), nanos::get);
+        unknownUsernames = new UnknownUsernameCache(100, Duration.ofSeconds(60), nanos::get);
+        loginService = new LoginServiceImpl(userGrpcService, passwordService, rateLimiter,
+                unknownUsernames);
+
+        storedUser = new User();
+        storedUser.setUsername("johndoe");
+        storedUser.setPassword("$2a$10$hashedPassword");
+    }
+
+    private static User credentials(String username, String password) {
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword(password);
+        return user;
+    }
+
+    @Test
+    @DisplayName("Should return the stored user when the password matches")
+    void testLogin_Success() {
+        // Arrange
+        when(userGrpcService.getUserByUsername("johndoe")).thenReturn(storedUser);
+        when(passwordService.matches("secret", "$2a$10$hashedPassword")).thenReturn(true);
+
+        // Act
+        User result = loginService.login(credentials("johndoe", "secret"), "10.0.0.1");
+
+        // Assert
+        assertSame(storedUser, result);
+    }
+
+    @Test
+    @DisplayName("Should reject missing credentials without touching the limiter or gRPC")
+    void testLogin_MissingCredentials() {
+        // Act & Assert
+        assertThrows(BusinessRuleViolationException.class,
+                () -> loginService.login(credentials("johndoe", ""), "10.0.0.1"));
+        verifyNoInteractions(userGrpcService, passwordService);
+    }
+
+    @Test
+    @DisplayName("Should answer repeated logins for an unknown username from the cache")
+    void testLogin_UnknownUsernameCached() {
+        // Arrange
+        when(userGrpcService.getUserByUsername("ghost")).thenReturn(null);
+
+        // Act & Assert
+        assertThrows(BusinessRuleViolationException.class,
+                () -> loginService.login(credentials("ghost", "secret"), "10.0.0.1"));
+        assertThrows(BusinessRuleViolationException.class,
+                () -> loginService.login(credentials("ghost", "secret"), "10.0.0.1"));
+        verify(userGrpcService, times(1)).getUserByUsername("ghost");
+    }
+
+    @Test
+    @DisplayName("Should look an unknown username up again once the entry expires")
+    void testLogin_UnknownUsernameExpires() {
+        // Arrange
+        when(userGrpcService.getUserByUsername("ghost")).thenReturn(null);
+        assertThrows(BusinessRuleViolationException.class,
+                () -> loginService.login(credentials("ghost", "secret"), "10.0.0.1"));
+
+        // Act
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(61));
+        assertThrows(BusinessRuleViolationException.class,
+                () -> loginService.login(credentials("ghost", "secret"), "10.0.0.1"));
+
+        // Assert
+        verify(userGrpcService, times(2)).getUserByUsername("ghost");
+    }
+
+    @Test
+    @DisplayName("Should throttle a username before any lookup or hashing work")
+    void testLogin_ThrottledPerUsername() {
+        // Arrange
+        when(userGrpcService.getUserByUsername("johndoe")).thenReturn(storedUser);
+        when(passwordService.matches("guess", "$2a$10$hashedPassword")).thenReturn(false);
+
+        // Act
+        assertThrows(BusinessRuleViolationException.class,
+                () -> loginService.login(credentials("johndoe", "guess"), "10.0.0.1"));
+        assertThrows(BusinessRuleViolationException.class,
+                () -> loginService.login(credentials("johndoe", "guess"), "10.0.0.2"));
+        RateLimitExceededException ex = assertThrows(RateLimitExceededException.class,
+                () -> loginService.login(credentials("johndoe", "guess"), "10.0.0.3"));
+
+        // Assert
+        assertEquals(Duration.ofSeconds(30), ex.getRetryAfter());
+        verify(userGrpcService, times(2)).getUserByUsername("johndoe");
+        verify(passwordService, times(2)).matches("guess", "$2a$10$hashedPassword");
+    }
+
+    @Test
+    @DisplayName("Should throttle an address spraying many usernames")
+    void testLogin_ThrottledPerAddress() {
+        // Arrange
+        when(userGrpcService.getUserByUsername(anyString())).thenReturn(null);
+        for (int i = 0; i < 10; i++) {
+            String username = "user" + i;
+            assertThrows(BusinessRuleViolationException.class,
+                    () -> loginService.login(credentials(username, "secret"), "10.0.0.1"));
+        }
+
+        // Act & Assert
+        assertThrows(RateLimitExceededException.class,
+                () -> loginService.login(credentials("user10", "secret"), "10.0.0.1"));
+        verify(userGrpcService, never()).getUserByUsername("user10");
+    }
+}
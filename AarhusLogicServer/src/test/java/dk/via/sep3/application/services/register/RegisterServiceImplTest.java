@@ -4,7 +4,9 @@ import dk.via.sep3.exceptionHandler.BusinessRuleViolationException;
 import dk.via.sep3.exceptionHandler.GrpcCommunicationException;
 import dk.via.sep3.grpcConnection.userGrpcService.UserGrpcService;
 import dk.via.sep3.application.domain.User;
+import dk.via.sep3.application.services.login.UnknownUsernameCache;
 import dk.via.sep3.application.services.validation.RegistrationValidator;
+import dk.via.sep3.application.services.validation.UsernameFilter;
 import dk.via.sep3.security.PasswordService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -34,6 +36,12 @@ class RegisterServiceImplTest {
     @Mock
     private RegistrationValidator registrationValidator;
 
+    @Mock
+    private UnknownUsernameCache unknownUsernames;
+
+    @Mock
+    private UsernameFilter usernameFilter;
+
     @InjectMocks
     private RegisterServiceImpl registerService;
 
@@ -85,6 +93,8 @@ class RegisterServiceImplTest {
         verify(registrationValidator, times(1)).validate(validUser);
         verify(passwordService, times(1)).hash("PlainPassword123");
         verify(userGrpcService, times(1)).createUser(any(User.class));
+        verify(unknownUsernames, times(1)).forget("johndoe");
+        verify(usernameFilter, times(1)).add("johndoe");
     }
 
     @Test
@@ -165,6 +175,26 @@ class RegisterServiceImplTest {
         verify(userGrpcService, times(1)).createUser(any(User.class));
     }
 
+    @Test
+    @DisplayName("Should report a username registered meanwhile on another server as taken")
+    void testRegister_UsernameTakenOnOtherServer() {
+        // Arrange
+        doNothing().when(registrationValidator).validate(validUser);
+        when(passwordService.hash(anyString())).thenReturn("$2a$10$hashedPassword");
+        when(userGrpcService.createUser(any(User.class)))
+                .thenThrow(new BusinessRuleViolationException("Username already exists"));
+
+        // Act & Assert
+        BusinessRuleViolationException exception = assertThrows(
+                BusinessRuleViolationException.class,
+                () -> registerService.register(validUser)
+        );
+
+        assertEquals("Username already exists", exception.getMessage());
+        verify(usernameFilter, times(1)).add("johndoe");
+        verify(unknownUsernames, never()).forget(anyString());
+    }
+
     @Test
     @DisplayName("Should throw GrpcCommunicationException when userGrpcService throws exception")
     void testRegister_GrpcThrowsException() {
@@ -2,12 +2,12 @@ package dk.via.sep3.application.services.reservation;
 
 import dk.via.sep3.exceptionHandler.ResourceNotFoundException;
 import dk.via.sep3.grpcConnection.bookGrpcService.BookGrpcService;
+import dk.via.sep3.grpcConnection.fanOut.GrpcFanOut;
 import dk.via.sep3.grpcConnection.loanGrpcService.LoanGrpcService;
 import dk.via.sep3.grpcConnection.reservationGrpcService.ReservationGrpcService;
-import dk.via.sep3.application.domain.Book;
+import dk.via.sep3.application.domain.AvailabilitySummary;
 import dk.via.sep3.application.domain.Loan;
 import dk.via.sep3.application.domain.Reservation;
-import dk.via.sep3.application.domain.State;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -39,7 +39,8 @@ class ReservationServiceImplTest {
 
     @BeforeEach
     void setUp() {
-        reservationService = new ReservationServiceImpl(loanGrpcService, bookGrpcService, reservationGrpcService);
+        reservationService = new ReservationServiceImpl(loanGrpcService, bookGrpcService, reservationGrpcService,
+                new GrpcFanOut(Runnable::run));
     }
 
     @Test
@@ -49,7 +50,7 @@ class ReservationServiceImplTest {
         Reservation reservation = new Reservation();
         reservation.setBookISBN("999999");
 
-        when(bookGrpcService.getBooksByIsbn("999999")).thenReturn(new ArrayList<>());
+        when(bookGrpcService.getCurrentAvailabilitySummary("999999")).thenReturn(AvailabilitySummary.of(0, 0, 0, 0, 0));
 
         // Act & Assert
         IllegalArgumentException exception = assertThrows(
@@ -67,14 +68,10 @@ class ReservationServiceImplTest {
         reservation.setUsername("testuser");
         reservation.setBookISBN("123456");
 
-        Book book = new Book();
-        book.setIsbn("123456");
-        book.setState(State.BORROWED);
-
         Reservation existingReservation = new Reservation();
         existingReservation.setUsername("testuser");
 
-        when(bookGrpcService.getBooksByIsbn("123456")).thenReturn(List.of(book));
+        when(bookGrpcService.getCurrentAvailabilitySummary("123456")).thenReturn(AvailabilitySummary.of(1, 0, 1, 0, 0));
         when(reservationGrpcService.getReservationsByIsbn("123456")).thenReturn(List.of(existingReservation));
 
         // Act & Assert
@@ -93,11 +90,7 @@ class ReservationServiceImplTest {
         reservation.setUsername("testuser");
         reservation.setBookISBN("123456");
 
-        Book book = new Book();
-        book.setIsbn("123456");
-        book.setState(State.AVAILABLE);
-
-        when(bookGrpcService.getBooksByIsbn("123456")).thenReturn(List.of(book));
+        when(bookGrpcService.getCurrentAvailabilitySummary("123456")).thenReturn(AvailabilitySummary.of(1, 1, 0, 0, 1));
         when(reservationGrpcService.getReservationsByIsbn("123456")).thenReturn(new ArrayList<>());
 
         // Act & Assert
@@ -116,15 +109,11 @@ class ReservationServiceImplTest {
         reservation.setUsername("testuser");
         reservation.setBookISBN("123456");
 
-        Book book = new Book();
-        book.setIsbn("123456");
-        book.setState(State.BORROWED);
-
         Loan unreturnedLoan = new Loan();
         unreturnedLoan.setUsername("testuser");
         unreturnedLoan.setReturned(false);
 
-        when(bookGrpcService.getBooksByIsbn("123456")).thenReturn(List.of(book));
+        when(bookGrpcService.getCurrentAvailabilitySummary("123456")).thenReturn(AvailabilitySummary.of(1, 0, 1, 0, 0));
         when(reservationGrpcService.getReservationsByIsbn("123456")).thenReturn(new ArrayList<>());
         when(loanGrpcService.getLoansByISBN("123456")).thenReturn(List.of(unreturnedLoan));
 
@@ -144,14 +133,10 @@ class ReservationServiceImplTest {
         reservation.setUsername("TestUser");
         reservation.setBookISBN("123456");
 
-        Book book = new Book();
-        book.setIsbn("123456");
-        book.setState(State.BORROWED);
-
         Reservation existingReservation = new Reservation();
         existingReservation.setUsername("testuser"); // Different case
 
-        when(bookGrpcService.getBooksByIsbn("123456")).thenReturn(List.of(book));
+        when(bookGrpcService.getCurrentAvailabilitySummary("123456")).thenReturn(AvailabilitySummary.of(1, 0, 1, 0, 0));
         when(reservationGrpcService.getReservationsByIsbn("123456")).thenReturn(List.of(existingReservation));
 
         // Act & Assert
@@ -166,18 +151,43 @@ class ReservationServiceImplTest {
         reservation.setUsername("testuser");
         reservation.setBookISBN("123456");
 
-        Book book = new Book();
-        book.setId(1);
-        book.setIsbn("123456");
-        book.setState(State.BORROWED);
-
         // All loans are returned, so no active loan exists
-        when(bookGrpcService.getBooksByIsbn("123456")).thenReturn(List.of(book));
+        when(bookGrpcService.getCurrentAvailabilitySummary("123456")).thenReturn(AvailabilitySummary.of(1, 0, 1, 0, 0));
         when(reservationGrpcService.getReservationsByIsbn("123456")).thenReturn(new ArrayList<>());
         when(loanGrpcService.getLoansByISBN("123456")).thenReturn(new ArrayList<>());
 
         // Act & Assert
         assertThrows(ResourceNotFoundException.class, () -> reservationService.createReservation(reservation));
     }
-}
 
+    @Test
+    @DisplayName("Should load loans once and reserve the copy with the earliest due date")
+    void testCreateReservation_PicksEarliestDueCopyWithSingleLoanLookup() {
+        // Arrange
+        Reservation reservation = new Reservation();
+        reservation.setUsername("testuser");
+        reservation.setBookISBN("123456");
+
+        Loan late = new Loan(1, 1, "anna", Date.valueOf("2024-01-01"), Date.valueOf("2024-02-01"), false, 0);
+        Loan early = new Loan(2, 3, "bob", Date.valueOf("2024-01-01"), Date.valueOf("2024-01-15"), false, 0);
+
+        Reservation persisted = new Reservation();
+        persisted.setId(5);
+        persisted.setUsername("testuser");
+        persisted.setBookId(3);
+
+        when(bookGrpcService.getCurrentAvailabilitySummary("123456")).thenReturn(AvailabilitySummary.of(3, 0, 3, 0, 0));
+        when(reservationGrpcService.getReservationsByIsbn("123456")).thenReturn(new ArrayList<>());
+        when(loanGrpcService.getLoansByISBN("123456")).thenReturn(List.of(late, early));
+        when(reservationGrpcService.createReservation(any(Reservation.class))).thenReturn(persisted);
+        when(reservationGrpcService.getReservationCountByISBN("123456")).thenReturn(1);
+
+        // Act
+        Reservation result = reservationService.createReservation(reservation);
+
+        // Assert
+        assertEquals(3, result.getBookId());
+        verify(loanGrpcService, times(1)).getLoansByISBN("123456");
+        verify(bookGrpcService).updateBookStatus(3, "Reserved");
+    }
+}
@@ -0,0 +1,105 @@
+package dk.via.sep3.application.services.validation;
+
+import dk.via.sep3.application.domain.User;
+import dk.via.sep3.exceptionHandler.BusinessRuleViolationException;
+import dk.via.sep3.exceptionHandler.GrpcCommunicationException;
+import dk.via.sep3.grpcConnection.userGrpcService.UserGrpcService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UsernameValidatorTest {
+
+    @Mock
+    private UserGrpcService userGrpcService;
+
+    private UsernameFilter usernameFilter;
+    private UsernameValidator validator;
+
+    @BeforeEach
+    void setUp() {
+        usernameFilter = new UsernameFilter(userGrpcService, 1000, 0.01, Duration.ZERO);
+        validator = new UsernameValidator(userGrpcService, usernameFilter);
+    }
+
+    private void buildFilter(String... usernames) {
+        doAnswer(invocation -> {
+            Consumer<String> consumer = invocation.getArgument(0);
+            for (String username : usernames) {
+                consumer.accept(username);
+            }
+            return null;
+        }).when(userGrpcService).streamUsernames(any());
+        usernameFilter.rebuild();
+    }
+
+    @Test
+    @DisplayName("Should ask persistence while the filter has not been built")
+    void testValidate_ColdFilter_LooksUp() {
+        // Arrange
+        when(userGrpcService.getUserByUsername("johndoe")).thenReturn(null);
+
+        // Act & Assert
+        assertDoesNotThrow(() -> validator.validate("johndoe"));
+        verify(userGrpcService, times(1)).getUserByUsername("johndoe");
+    }
+
+    @Test
+    @DisplayName("Should skip the lookup for a name the filter has never seen")
+    void testValidate_NotInFilter_SkipsLookup() {
+        // Arrange
+        buildFilter("janedoe");
+
+        // Act & Assert
+        assertDoesNotThrow(() -> validator.validate("johndoe"));
+        verify(userGrpcService, never()).getUserByUsername(anyString());
+    }
+
+    @Test
+    @DisplayName("Should confirm a possible match with persistence")
+    void testValidate_InFilter_ConfirmsTaken() {
+        // Arrange
+        buildFilter("johndoe");
+        when(userGrpcService.getUserByUsername("johndoe")).thenReturn(new User());
+
+        // Act & Assert
+        assertThrows(BusinessRuleViolationException.class, () -> validator.validate("johndoe"));
+    }
+
+    @Test
+    @DisplayName("Should see names registered on this node without a rebuild")
+    void testValidate_AddedAfterBuild_ConfirmsTaken() {
+        // Arrange
+        buildFilter("janedoe");
+        usernameFilter.add("johndoe");
+        when(userGrpcService.getUserByUsername("johndoe")).thenReturn(new User());
+
+        // Act & Assert
+        assertThrows(BusinessRuleViolationException.class, () -> validator.validate("johndoe"));
+    }
+
+    @Test
+    @DisplayName("Should keep asking persistence when the filter cannot be built")
+    void testValidate_BuildFailed_LooksUp() {
+        // Arrange
+        doThrow(new GrpcCommunicationException("down")).when(userGrpcService).streamUsernames(any());
+        usernameFilter.rebuild();
+        when(userGrpcService.getUserByUsername("johndoe")).thenReturn(null);
+
+        // Act & Assert
+        assertDoesNotThrow(() -> validator.validate("johndoe"));
+        verify(userGrpcService, times(1)).getUserByUsername("johndoe");
+    }
+}
@@ -1,7 +1,10 @@
 package dk.via.sep3.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import dk.via.sep3.application.services.books.BookService;
 import dk.via.sep3.application.domain.Book;
+import dk.via.sep3.application.domain.BookPage;
+import dk.via.sep3.application.domain.BookQuery;
 import dk.via.sep3.application.domain.Genre;
 import dk.via.sep3.application.domain.State;
 import dk.via.sep3.DTOs.book.BookDTO;
@@ -13,13 +16,19 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -38,6 +47,9 @@ class BooksControllerTest {
     @Mock
     private BookMapper bookMapper;
 
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
     @InjectMocks
     private BooksController booksController;
 
@@ -104,7 +116,7 @@ class BooksControllerTest {
         when(bookMapper.toDto(book2)).thenReturn(bookDTO2);
 
         // Act
-        ResponseEntity<List<BookDTO>> response = booksController.getAllBooks();
+        ResponseEntity<List<BookDTO>> response = booksController.getAllBooks(null, null, null, null, null);
 
         // Assert
         assertNotNull(response);
@@ -127,7 +139,7 @@ class BooksControllerTest {
         when(bookService.getAllBooks()).thenReturn(new ArrayList<>());
 
         // Act
-        ResponseEntity<List<BookDTO>> response = booksController.getAllBooks();
+        ResponseEntity<List<BookDTO>> response = booksController.getAllBooks(null, null, null, null, null);
 
         // Assert
         assertNotNull(response);
@@ -232,5 +244,75 @@ class BooksControllerTest {
         verify(bookService, times(1)).getBookByIsbn(emptyIsbn);
         verify(bookMapper, never()).toDto(any(Book.class));
     }
-}
 
+    @Test
+    @DisplayName("Should write one JSON line per streamed book")
+    void testStreamAllBooks_WritesNdjson() throws Exception {
+        // Arrange
+        doAnswer(invocation -> {
+            Consumer<Book> consumer = invocation.getArgument(0);
+            consumer.accept(book1);
+            consumer.accept(book2);
+            return null;
+        }).when(bookService).streamAllBooks(any());
+        when(bookMapper.toDto(book1)).thenReturn(bookDTO1);
+        when(bookMapper.toDto(book2)).thenReturn(bookDTO2);
+
+        // Act
+        ResponseEntity<StreamingResponseBody> response = booksController.streamAllBooks();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(MediaType.APPLICATION_NDJSON, response.getHeaders().getContentType());
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertEquals("1234567890", objectMapper.readTree(lines[0]).get("isbn").asText());
+        assertEquals("0987654321", objectMapper.readTree(lines[1]).get("isbn").asText());
+    }
+
+    @Test
+    @DisplayName("Should return a filtered page and announce the next cursor in a header")
+    void testGetAllBooks_WithPaging() {
+        // Arrange
+        BookQuery query = new BookQuery(2, null, "Author", null, null);
+        when(bookService.getBooks(query)).thenReturn(new BookPage(List.of(book1, book2), "0987654321"));
+        when(bookMapper.toDto(book1)).thenReturn(bookDTO1);
+        when(bookMapper.toDto(book2)).thenReturn(bookDTO2);
+
+        // Act
+        ResponseEntity<List<BookDTO>> response = booksController.getAllBooks(2, null, "Author", null, null);
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(2, response.getBody().size());
+        assertEquals("0987654321", response.getHeaders().getFirst("X-Next-Cursor"));
+        verify(bookService, never()).getAllBooks();
+    }
+
+    @Test
+    @DisplayName("Should page a filtered lookup with the default limit when none is given")
+    void testGetAllBooks_FilterWithoutLimit() {
+        // Arrange
+        BookQuery query = new BookQuery(BookQuery.DEFAULT_LIMIT, null, "Author", null, null);
+        when(bookService.getBooks(query)).thenReturn(new BookPage(List.of(), null));
+
+        // Act
+        ResponseEntity<List<BookDTO>> response = booksController.getAllBooks(null, null, "Author", null, null);
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        verify(bookService, times(1)).getBooks(query);
+        verify(bookService, never()).getAllBooks();
+    }
+
+    @Test
+    @DisplayName("Should reject an unknown state filter")
+    void testGetAllBooks_UnknownState() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class,
+            () -> booksController.getAllBooks(null, null, null, null, "lost"));
+        verify(bookService, never()).getBooks(any());
+    }
+}
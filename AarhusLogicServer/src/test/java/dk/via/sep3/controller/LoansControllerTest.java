@@ -1,11 +1,17 @@
 package dk.via.sep3.controller;
 
 import dk.via.sep3.mapper.loanMapper.LoanMapper;
+import dk.via.sep3.application.domain.ExtensionResult;
 import dk.via.sep3.application.domain.Loan;
+import dk.via.sep3.application.domain.LoanResult;
 import dk.via.sep3.application.services.loans.LoanService;
 import dk.via.sep3.DTOs.extension.CreateExtensionDTO;
+import dk.via.sep3.DTOs.extension.CreateExtensionsDTO;
+import dk.via.sep3.DTOs.extension.ExtensionResultDTO;
 import dk.via.sep3.DTOs.loan.CreateLoanDTO;
+import dk.via.sep3.DTOs.loan.CreateLoansDTO;
 import dk.via.sep3.DTOs.loan.LoanDTO;
+import dk.via.sep3.DTOs.loan.LoanResultDTO;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -177,6 +183,29 @@ class LoansControllerTest {
         verify(loanMapper, never()).mapDomainToLoanDTO(any(Loan.class));
     }
 
+    @Test
+    @DisplayName("Should return one result per ISBN when borrowing several books")
+    void testCreateLoans_ResultPerIsbn() {
+        // Arrange
+        CreateLoansDTO request = new CreateLoansDTO("testuser", List.of("1234567890", "0987654321"));
+        LoanResult lent = LoanResult.success("1234567890", createdLoan);
+        LoanResult refused = LoanResult.failure("0987654321", new IllegalStateException("Book is not available"));
+        LoanResultDTO lentDTO = new LoanResultDTO("1234567890", true, loanDTO, null, null);
+        LoanResultDTO refusedDTO = new LoanResultDTO("0987654321", false, null,
+                "BUSINESS_CONSTRAINT", "Book is not available");
+        when(loanService.createLoans("testuser", List.of("1234567890", "0987654321")))
+                .thenReturn(List.of(lent, refused));
+        when(loanMapper.mapLoanResultToDTO(lent)).thenReturn(lentDTO);
+        when(loanMapper.mapLoanResultToDTO(refused)).thenReturn(refusedDTO);
+
+        // Act
+        ResponseEntity<List<LoanResultDTO>> response = loansController.createLoans(request);
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(List.of(lentDTO, refusedDTO), response.getBody());
+    }
+
     @Test
     @DisplayName("Should successfully extend loan when valid request is provided")
     void testExtendLoan_Success() {
@@ -257,6 +286,29 @@ class LoansControllerTest {
         verify(loanService, times(1)).extendLoan(extensionDomainLoan);
     }
 
+    @Test
+    @DisplayName("Should return one result per loan id when extending several loans")
+    void testExtendLoans_ResultPerLoan() {
+        // Arrange
+        CreateExtensionsDTO request = new CreateExtensionsDTO("testuser", List.of(1, 2));
+        ExtensionResult extended = ExtensionResult.success(1, createdLoan);
+        ExtensionResult refused = ExtensionResult.failure(2,
+                new IllegalArgumentException("Loan not found with ID: 2"));
+        ExtensionResultDTO extendedDTO = new ExtensionResultDTO(1, true, loanDTO, null, null);
+        ExtensionResultDTO refusedDTO = new ExtensionResultDTO(2, false, null,
+                "INVALID_INPUT", "Loan not found with ID: 2");
+        when(loanService.extendLoans("testuser", List.of(1, 2))).thenReturn(List.of(extended, refused));
+        when(loanMapper.mapExtensionResultToDTO(extended)).thenReturn(extendedDTO);
+        when(loanMapper.mapExtensionResultToDTO(refused)).thenReturn(refusedDTO);
+
+        // Act
+        ResponseEntity<List<ExtensionResultDTO>> response = loansController.extendLoans(request);
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(List.of(extendedDTO, refusedDTO), response.getBody());
+    }
+
     @Test
     @DisplayName("Should return active loans for user when username is valid")
     void testGetActiveLoansByUsername_Success() {
@@ -3,7 +3,10 @@ package dk.via.sep3.grpcConnection.bookGrpcService;
 import dk.via.sep3.*;
 import dk.via.sep3.exceptionHandler.GrpcCommunicationException;
 import dk.via.sep3.mapper.bookMapper.BookMapper;
+import dk.via.sep3.application.domain.AvailabilitySummary;
 import dk.via.sep3.application.domain.Book;
+import dk.via.sep3.application.domain.BookPage;
+import dk.via.sep3.application.domain.BookQuery;
 import dk.via.sep3.application.domain.State;
 import io.grpc.ManagedChannel;
 import io.grpc.StatusRuntimeException;
@@ -226,6 +229,37 @@ class BookGrpcServiceImplTest {
         assertDoesNotThrow(() -> bookGrpcService.updateBookStatus(bookId, status));
     }
 
+    @Test
+    @DisplayName("Should send the expected state and report a conflict as false")
+    void testUpdateBookStatus_ExpectedStateConflict() {
+        // Arrange
+        when(bookStub.updateBookState(any(UpdateBookStateRequest.class)))
+            .thenReturn(UpdateBookStateResponse.newBuilder().setSuccess(true).build())
+            .thenReturn(UpdateBookStateResponse.newBuilder().setConflict(true).build());
+
+        // Act
+        boolean first = bookGrpcService.updateBookStatus(1, "Available", "Borrowed");
+        boolean second = bookGrpcService.updateBookStatus(1, "Available", "Borrowed");
+
+        // Assert
+        assertTrue(first);
+        assertFalse(second);
+        verify(bookStub, times(2)).updateBookState(UpdateBookStateRequest.newBuilder()
+            .setId(1).setExpectedState("Available").setState("Borrowed").build());
+    }
+
+    @Test
+    @DisplayName("Should throw when a conditional update fails for another reason")
+    void testUpdateBookStatus_ExpectedStateFailure() {
+        // Arrange
+        when(bookStub.updateBookState(any(UpdateBookStateRequest.class)))
+            .thenReturn(UpdateBookStateResponse.newBuilder().setMessage("Book not found").build());
+
+        // Act & Assert
+        assertThrows(GrpcCommunicationException.class,
+            () -> bookGrpcService.updateBookStatus(1, "Available", "Borrowed"));
+    }
+
     @Test
     @DisplayName("Should return empty list when no books found")
     void testGetAllBooks_EmptyList() {
@@ -268,5 +302,86 @@ class BookGrpcServiceImplTest {
         // Assert
         assertEquals(2, result.size());
     }
-}
 
+    @Test
+    @DisplayName("Should pass each streamed book to the consumer")
+    void testStreamAllBooks_Success() {
+        // Arrange
+        DTOBook first = DTOBook.newBuilder().setId(1).setIsbn("123456").build();
+        DTOBook second = DTOBook.newBuilder().setId(2).setIsbn("654321").build();
+        Book book1 = new Book(1, "123456", "Test Book", "Test Author", State.AVAILABLE, new ArrayList<>());
+        Book book2 = new Book(2, "654321", "Other Book", "Other Author", State.AVAILABLE, new ArrayList<>());
+        when(bookStub.streamAllBooks(any(GetAllBooksRequest.class)))
+            .thenReturn(List.of(first, second).iterator());
+        when(bookMapper.toDomain(first)).thenReturn(book1);
+        when(bookMapper.toDomain(second)).thenReturn(book2);
+
+        // Act
+        List<Book> received = new ArrayList<>();
+        bookGrpcService.streamAllBooks(received::add);
+
+        // Assert
+        assertEquals(List.of(book1, book2), received);
+    }
+
+    @Test
+    @DisplayName("Should wrap gRPC errors while streaming books")
+    void testStreamAllBooks_GrpcError() {
+        // Arrange
+        when(bookStub.streamAllBooks(any(GetAllBooksRequest.class)))
+            .thenThrow(new StatusRuntimeException(io.grpc.Status.UNAVAILABLE));
+
+        // Act & Assert
+        assertThrows(GrpcCommunicationException.class,
+            () -> bookGrpcService.streamAllBooks(book -> { }));
+    }
+
+    @Test
+    @DisplayName("Should send paging and filter fields and map the next cursor")
+    void testGetBooks_Success() {
+        // Arrange
+        DTOBook dtoBook = DTOBook.newBuilder().setId(1).setIsbn("123456").build();
+        Book book = new Book(1, "123456", "Test Book", "Test Author", State.AVAILABLE, new ArrayList<>());
+        when(bookStub.getAllBooks(any(GetAllBooksRequest.class))).thenReturn(
+            GetAllBooksResponse.newBuilder().addBooks(dtoBook).setNextCursor("123456").build());
+        when(bookMapper.toDomain(dtoBook)).thenReturn(book);
+
+        // Act
+        BookPage page = bookGrpcService.getBooks(new BookQuery(1, null, "Test Author", null, null));
+
+        // Assert
+        assertEquals(List.of(book), page.getBooks());
+        assertEquals("123456", page.getNextCursor());
+        verify(bookStub).getAllBooks(GetAllBooksRequest.newBuilder().setLimit(1).setAuthor("Test Author").build());
+    }
+
+    @Test
+    @DisplayName("Should map the copy counts of an ISBN")
+    void testGetAvailabilitySummary_Success() {
+        // Arrange
+        when(bookStub.getAvailabilitySummary(any(GetAvailabilitySummaryRequest.class))).thenReturn(
+            GetAvailabilitySummaryResponse.newBuilder().setTotal(3).setAvailable(1).setBorrowed(1)
+                .setReserved(1).setAvailableBookId(7).setSuccess(true).build());
+
+        // Act
+        AvailabilitySummary result = bookGrpcService.getAvailabilitySummary("123456");
+
+        // Assert
+        assertEquals(3, result.getTotal());
+        assertEquals(1, result.getAvailable());
+        assertEquals(7, result.getAvailableBookId());
+        verify(bookStub).getAvailabilitySummary(GetAvailabilitySummaryRequest.newBuilder().setIsbn("123456").build());
+    }
+
+    @Test
+    @DisplayName("Should report an older persistence server without GetAvailabilitySummary as unsupported")
+    void testGetAvailabilitySummary_Unimplemented() {
+        // Arrange
+        when(bookStub.getAvailabilitySummary(any(GetAvailabilitySummaryRequest.class)))
+            .thenThrow(new StatusRuntimeException(io.grpc.Status.UNIMPLEMENTED));
+
+        // Act & Assert
+        assertThrows(UnsupportedOperationException.class,
+            () -> bookGrpcService.getAvailabilitySummary("123456"));
+    }
+}
@@ -0,0 +1,343 @@
+package dk.via.sep3.grpcConnection.bookGrpcService;
+
+import dk.via.sep3.application.domain.AvailabilitySummary;
+import dk.via.sep3.application.domain.Book;
+import dk.via.sep3.application.domain.BookPage;
+import dk.via.sep3.application.domain.BookQuery;
+import dk.via.sep3.application.domain.State;
+import dk.via.sep3.exceptionHandler.GrpcCommunicationException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CachingBookGrpcServiceTest {
+
+    @Mock
+    private BookGrpcService delegate;
+
+    private AtomicLong nanos;
+    private CachingBookGrpcService cachingService;
+
+    private Book copy1;
+    private Book copy2;
+    private Book other;
+
+    @BeforeEach
+    void setUp() {
+        nanos = new AtomicLong();
+        cachingService = new CachingBookGrpcService(delegate, 100, Duration.ofSeconds(30), Duration.ofMinutes(10), nanos::get);
+
+        copy1 = new Book(1, "123456", "Test Book", "Test Author", State.AVAILABLE, new ArrayList<>());
+        copy2 = new Book(2, "123456", "Test Book", "Test Author", State.BORROWED, new ArrayList<>());
+        other = new Book(3, "654321", "Other Book", "Other Author", State.AVAILABLE, new ArrayList<>());
+    }
+
+    @Test
+    @DisplayName("Should serve repeated getAllBooks calls from the cache")
+    void testGetAllBooks_CachedAfterFirstCall() {
+        // Arrange
+        when(delegate.getAllBooks()).thenReturn(List.of(copy1, copy2, other));
+
+        // Act
+        cachingService.getAllBooks();
+        List<Book> result = cachingService.getAllBooks();
+
+        // Assert
+        assertEquals(3, result.size());
+        verify(delegate, times(1)).getAllBooks();
+    }
+
+    @Test
+    @DisplayName("Should seed id and ISBN caches from the catalog snapshot")
+    void testGetAllBooks_SeedsIdAndIsbnCaches() {
+        // Arrange
+        when(delegate.getAllBooks()).thenReturn(List.of(copy1, copy2, other));
+
+        // Act
+        cachingService.getAllBooks();
+
+        // Assert
+        assertSame(copy2, cachingService.getBookById(2));
+        assertEquals(2, cachingService.getBooksByIsbn("123456").size());
+        verify(delegate, never()).getBookById(anyInt());
+        verify(delegate, never()).getBooksByIsbn(anyString());
+    }
+
+    @Test
+    @DisplayName("Should not cache a failed getBookById lookup")
+    void testGetBookById_NullNotCached() {
+        // Arrange
+        when(delegate.getBookById(9)).thenReturn(null);
+
+        // Act & Assert
+        assertNull(cachingService.getBookById(9));
+        assertNull(cachingService.getBookById(9));
+        verify(delegate, times(2)).getBookById(9);
+    }
+
+    @Test
+    @DisplayName("Should reload entries once the TTL has passed")
+    void testGetBooksByIsbn_ExpiresAfterTtl() {
+        // Arrange
+        when(delegate.getBooksByIsbn("123456")).thenReturn(List.of(copy1, copy2));
+
+        // Act
+        cachingService.getBooksByIsbn("123456");
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(31));
+        cachingService.getBooksByIsbn("123456");
+
+        // Assert
+        verify(delegate, times(2)).getBooksByIsbn("123456");
+    }
+
+    @Test
+    @DisplayName("Should serve the last known catalog while persistence fails")
+    void testGetAllBooks_ServesStaleWhilePersistenceFails() {
+        // Arrange
+        when(delegate.getAllBooks()).thenReturn(List.of(copy1, copy2, other))
+                .thenThrow(new GrpcCommunicationException("Circuit breaker open"));
+        cachingService.getAllBooks();
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(31));
+
+        // Act
+        List<Book> result = cachingService.getAllBooks();
+
+        // Assert
+        assertEquals(3, result.size());
+        verify(delegate, times(2)).getAllBooks();
+    }
+
+    @Test
+    @DisplayName("Should rethrow once the last known answer has expired too")
+    void testGetBooksByIsbn_StaleExpired() {
+        // Arrange
+        when(delegate.getBooksByIsbn("123456")).thenReturn(List.of(copy1))
+                .thenThrow(new GrpcCommunicationException("down"));
+        cachingService.getBooksByIsbn("123456");
+        nanos.addAndGet(TimeUnit.MINUTES.toNanos(11));
+
+        // Act & Assert
+        assertThrows(GrpcCommunicationException.class, () -> cachingService.getBooksByIsbn("123456"));
+    }
+
+    @Test
+    @DisplayName("Should evict the copy, its ISBN and the catalog on updateBookStatus")
+    void testUpdateBookStatus_EvictsAffectedEntries() {
+        // Arrange
+        when(delegate.getAllBooks()).thenReturn(List.of(copy1, copy2, other));
+        cachingService.getAllBooks();
+
+        // Act
+        cachingService.updateBookStatus(1, "Borrowed");
+        cachingService.getAllBooks();
+        cachingService.getBooksByIsbn("123456");
+        cachingService.getBooksByIsbn("654321");
+
+        // Assert: the catalog is reloaded once and re-seeds the ISBN entries
+        verify(delegate).updateBookStatus(1, "Borrowed");
+        verify(delegate, times(2)).getAllBooks();
+        verify(delegate, never()).getBooksByIsbn(anyString());
+    }
+
+    @Test
+    @DisplayName("Should evict the copy when a conditional updateBookStatus loses to another server")
+    void testUpdateBookStatus_ConflictEvicts() {
+        // Arrange
+        when(delegate.getAllBooks()).thenReturn(List.of(copy1, copy2, other));
+        when(delegate.updateBookStatus(1, "Available", "Borrowed")).thenReturn(false);
+        cachingService.getAllBooks();
+
+        // Act
+        boolean updated = cachingService.updateBookStatus(1, "Available", "Borrowed");
+        cachingService.getAllBooks();
+
+        // Assert
+        assertFalse(updated);
+        verify(delegate, times(2)).getAllBooks();
+    }
+
+    @Test
+    @DisplayName("Should evict the copy on bookStateChanged without calling persistence")
+    void testBookStateChanged_EvictsAffectedEntries() {
+        // Arrange
+        when(delegate.getAllBooks()).thenReturn(List.of(copy1, copy2, other));
+        cachingService.getAllBooks();
+
+        // Act
+        cachingService.bookStateChanged(1);
+        cachingService.getAllBooks();
+
+        // Assert
+        verify(delegate, times(2)).getAllBooks();
+        verify(delegate, never()).updateBookStatus(anyInt(), anyString());
+    }
+
+    @Test
+    @DisplayName("Should replay a warm catalog snapshot in ISBN order when streaming")
+    void testStreamAllBooks_ReplaysWarmSnapshot() {
+        // Arrange
+        when(delegate.getAllBooks()).thenReturn(List.of(copy1, other, copy2));
+        cachingService.getAllBooks();
+
+        // Act
+        List<Book> received = new ArrayList<>();
+        cachingService.streamAllBooks(received::add);
+
+        // Assert
+        assertEquals(List.of(copy1, copy2, other), received);
+        verify(delegate, never()).streamAllBooks(any());
+    }
+
+    @Test
+    @DisplayName("Should cache catalog pages per query")
+    void testGetBooks_CachedPerQuery() {
+        // Arrange
+        BookQuery query = new BookQuery(10, null, "Test Author", null, null);
+        when(delegate.getBooks(query)).thenReturn(new BookPage(List.of(copy1, copy2), null));
+
+        // Act
+        cachingService.getBooks(query);
+        BookPage page = cachingService.getBooks(new BookQuery(10, null, "Test Author", null, null));
+
+        // Assert
+        assertEquals(2, page.getBooks().size());
+        assertSame(copy2, cachingService.getBookById(2));
+        verify(delegate, times(1)).getBooks(query);
+        verify(delegate, never()).getBookById(anyInt());
+    }
+
+    @Test
+    @DisplayName("Should serve repeated getAvailabilitySummary calls from the cache")
+    void testGetAvailabilitySummary_CachedAfterFirstCall() {
+        // Arrange
+        when(delegate.getAvailabilitySummary("123456")).thenReturn(AvailabilitySummary.of(2, 1, 1, 0, 1));
+
+        // Act
+        cachingService.getAvailabilitySummary("123456");
+        AvailabilitySummary result = cachingService.getAvailabilitySummary("123456");
+
+        // Assert
+        assertEquals(1, result.getAvailable());
+        verify(delegate, times(1)).getAvailabilitySummary("123456");
+        verify(delegate, never()).getBooksByIsbn(anyString());
+    }
+
+    @Test
+    @DisplayName("Should count the listed copies once persistence lacks GetAvailabilitySummary")
+    void testGetAvailabilitySummary_UnimplementedCountsCopies() {
+        // Arrange
+        when(delegate.getAvailabilitySummary(anyString()))
+                .thenThrow(new UnsupportedOperationException("GetAvailabilitySummary"));
+        when(delegate.getBooksByIsbn("123456")).thenReturn(List.of(copy1, copy2));
+        when(delegate.getBooksByIsbn("654321")).thenReturn(List.of(other));
+
+        // Act
+        AvailabilitySummary first = cachingService.getAvailabilitySummary("123456");
+        AvailabilitySummary second = cachingService.getAvailabilitySummary("654321");
+
+        // Assert
+        assertEquals(1, first.getBorrowed());
+        assertEquals(3, second.getAvailableBookId());
+        verify(delegate, times(1)).getAvailabilitySummary(anyString());
+    }
+
+    @Test
+    @DisplayName("Should move a claimed and handed back copy between the counts without reloading")
+    void testUpdateBookStatus_ConditionalMovesCopyBetweenCounts() {
+        // Arrange
+        when(delegate.getAvailabilitySummary("123456")).thenReturn(AvailabilitySummary.of(2, 1, 1, 0, 1));
+        when(delegate.updateBookStatus(1, "Available", "Borrowed")).thenReturn(true);
+        when(delegate.updateBookStatus(1, "Borrowed", "Available")).thenReturn(true);
+        cachingService.getAvailabilitySummary("123456");
+
+        // Act
+        cachingService.updateBookStatus(1, "Available", "Borrowed");
+        AvailabilitySummary claimed = cachingService.getAvailabilitySummary("123456");
+        cachingService.updateBookStatus(1, "Borrowed", "Available");
+        AvailabilitySummary released = cachingService.getAvailabilitySummary("123456");
+
+        // Assert
+        assertEquals(0, claimed.getAvailable());
+        assertEquals(2, claimed.getBorrowed());
+        assertEquals(1, released.getAvailable());
+        assertEquals(1, released.getAvailableBookId());
+        verify(delegate, times(1)).getAvailabilitySummary("123456");
+    }
+
+    @Test
+    @DisplayName("Should ask persistence for the current availability even when the cache is warm")
+    void testGetCurrentAvailabilitySummary_BypassesCache() {
+        // Arrange
+        when(delegate.getAvailabilitySummary("123456"))
+                .thenReturn(AvailabilitySummary.of(2, 1, 1, 0, 1))
+                .thenReturn(AvailabilitySummary.of(2, 0, 2, 0, 0));
+        cachingService.getAvailabilitySummary("123456");
+
+        // Act
+        AvailabilitySummary current = cachingService.getCurrentAvailabilitySummary("123456");
+
+        // Assert
+        assertFalse(current.isAvailable());
+        verify(delegate, times(2)).getAvailabilitySummary("123456");
+    }
+
+    @Test
+    @DisplayName("Should not fall back to a stale availability for a write-path check")
+    void testGetCurrentAvailabilitySummary_NoStaleFallback() {
+        // Arrange
+        when(delegate.getAvailabilitySummary("123456"))
+                .thenReturn(AvailabilitySummary.of(2, 1, 1, 0, 1))
+                .thenThrow(new GrpcCommunicationException("Circuit breaker open"));
+        cachingService.getAvailabilitySummary("123456");
+
+        // Act & Assert
+        assertThrows(GrpcCommunicationException.class,
+                () -> cachingService.getCurrentAvailabilitySummary("123456"));
+    }
+
+    @Test
+    @DisplayName("Should not fall back to stale copies when choosing a copy to claim")
+    void testGetCurrentBooksByIsbn_NoStaleFallback() {
+        // Arrange
+        when(delegate.getBooksByIsbn("123456"))
+                .thenReturn(List.of(copy1, copy2))
+                .thenThrow(new GrpcCommunicationException("Circuit breaker open"));
+        cachingService.getBooksByIsbn("123456");
+
+        // Act & Assert
+        assertThrows(GrpcCommunicationException.class,
+                () -> cachingService.getCurrentBooksByIsbn("123456"));
+    }
+
+    @Test
+    @DisplayName("Should not index a catalog snapshot loaded while an eviction ran")
+    void testGetAllBooks_EvictionWhileLoading_SkipsIndexing() {
+        // Arrange
+        when(delegate.getAllBooks()).thenAnswer(invocation -> {
+            cachingService.bookStateChanged(1);
+            return List.of(copy1, copy2, other);
+        });
+        when(delegate.getBooksByIsbn("123456")).thenReturn(List.of(copy1, copy2));
+
+        // Act
+        List<Book> catalog = cachingService.getAllBooks();
+        cachingService.getBooksByIsbn("123456");
+
+        // Assert
+        assertEquals(3, catalog.size());
+        verify(delegate, times(1)).getBooksByIsbn("123456");
+    }
+}
@@ -0,0 +1,58 @@
+package dk.via.sep3.grpcConnection.config;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GrpcChannelPropertiesTest {
+
+    private GrpcChannelProperties bind(Map<String, String> properties) {
+        return new Binder(new MapConfigurationPropertySource(properties))
+                .bindOrCreate("grpc", GrpcChannelProperties.class);
+    }
+
+    @Test
+    @DisplayName("Should bind channel durations and sizes")
+    void testChannelProperties_BindDurationsAndSizes() {
+        // Arrange
+        Map<String, String> source = Map.of(
+                "grpc.channel.keep-alive-time", "30s",
+                "grpc.channel.max-inbound-message-size", "16MB",
+                "grpc.channel.accept-compressed-responses", "false");
+
+        // Act
+        GrpcChannelProperties properties = bind(source);
+
+        // Assert
+        assertEquals(Duration.ofSeconds(30), properties.getChannel().getKeepAliveTime());
+        assertEquals(DataSize.ofMegabytes(16), properties.getChannel().getMaxInboundMessageSize());
+        assertNull(properties.getChannel().getIdleTimeout());
+        assertFalse(properties.getChannel().isAcceptCompressedResponses());
+    }
+
+    @Test
+    @DisplayName("Should keep accepting the existing camelCase TLS keys")
+    void testTlsProperties_CamelCaseKeys() {
+        // Arrange
+        Map<String, String> source = Map.of(
+                "grpc.tls.enabled", "true",
+                "grpc.tls.trustCert", "/certs/ca.pem",
+                "grpc.tls.clientKey", "/certs/client.key");
+
+        // Act
+        GrpcChannelProperties properties = bind(source);
+
+        // Assert
+        assertTrue(properties.getTls().isEnabled());
+        assertEquals("/certs/ca.pem", properties.getTls().getTrustCert());
+        assertEquals("/certs/client.key", properties.getTls().getClientKey());
+        assertEquals(5020, properties.getServer().getPort());
+    }
+}
@@ -0,0 +1,102 @@
+package dk.via.sep3.grpcConnection.config;
+
+import dk.via.sep3.BookServiceGrpc;
+import dk.via.sep3.DTOBook;
+import dk.via.sep3.GetBookByIdRequest;
+import dk.via.sep3.GetBookByIdResponse;
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.Metadata;
+import io.grpc.Status;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class GrpcMetricsInterceptorTest {
+
+    @Mock
+    private Channel channel;
+
+    @Mock
+    private ClientCall<GetBookByIdRequest, GetBookByIdResponse> delegate;
+
+    @Mock
+    private ClientCall.Listener<GetBookByIdResponse> responseListener;
+
+    private SimpleMeterRegistry meterRegistry;
+    private ClientCall<GetBookByIdRequest, GetBookByIdResponse> call;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        when(channel.newCall(eq(BookServiceGrpc.getGetBookByIdMethod()), any())).thenReturn(delegate);
+
+        call = new GrpcMetricsInterceptor(meterRegistry)
+                .interceptCall(BookServiceGrpc.getGetBookByIdMethod(), CallOptions.DEFAULT, channel);
+    }
+
+    @SuppressWarnings("unchecked")
+    private ClientCall.Listener<GetBookByIdResponse> start() {
+        call.start(responseListener, new Metadata());
+        ArgumentCaptor<ClientCall.Listener<GetBookByIdResponse>> listener =
+                ArgumentCaptor.forClass(ClientCall.Listener.class);
+        verify(delegate).start(listener.capture(), any());
+        return listener.getValue();
+    }
+
+    private double inFlight() {
+        return meterRegistry.get("grpc.client.calls.in.flight")
+                .tags("service", "dk.via.sep3.BookService", "method", "GetBookById")
+                .gauge().value();
+    }
+
+    @Test
+    @DisplayName("Should record latency per status and the size of each message")
+    void testCompletedCall_RecordsLatencyAndSizes() {
+        // Arrange
+        GetBookByIdRequest request = GetBookByIdRequest.newBuilder().setId(7).build();
+        GetBookByIdResponse response = GetBookByIdResponse.newBuilder()
+                .setBook(DTOBook.newBuilder().setId(7).setTitle("Title")).build();
+
+        // Act
+        ClientCall.Listener<GetBookByIdResponse> listener = start();
+        call.sendMessage(request);
+        listener.onMessage(response);
+        listener.onClose(Status.OK, new Metadata());
+
+        // Assert
+        assertEquals(1, meterRegistry.get("grpc.client.calls")
+                .tags("method", "GetBookById", "status", "OK").timer().count());
+        assertEquals(request.getSerializedSize(),
+                meterRegistry.get("grpc.client.request.size").summary().totalAmount());
+        assertEquals(response.getSerializedSize(),
+                meterRegistry.get("grpc.client.response.size").summary().totalAmount());
+        verify(responseListener).onMessage(response);
+    }
+
+    @Test
+    @DisplayName("Should count a call as in flight until it closes")
+    void testInFlight_UntilClosed() {
+        // Act
+        ClientCall.Listener<GetBookByIdResponse> listener = start();
+        double during = inFlight();
+        listener.onClose(Status.UNAVAILABLE, new Metadata());
+
+        // Assert
+        assertEquals(1, during);
+        assertEquals(0, inFlight());
+        assertEquals(1, meterRegistry.get("grpc.client.calls")
+                .tags("status", "UNAVAILABLE").timer().count());
+    }
+}
@@ -0,0 +1,273 @@
+package dk.via.sep3.grpcConnection.config;
+
+import dk.via.sep3.BookServiceGrpc;
+import dk.via.sep3.GetAllBooksRequest;
+import dk.via.sep3.GetAllBooksResponse;
+import dk.via.sep3.GetBookByIdRequest;
+import dk.via.sep3.GetBookByIdResponse;
+import dk.via.sep3.UpdateBookStateRequest;
+import dk.via.sep3.UpdateBookStateResponse;
+import io.grpc.LoadBalancerProvider;
+import io.grpc.LoadBalancerRegistry;
+import io.grpc.ManagedChannel;
+import io.grpc.NameResolver;
+import io.grpc.Server;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.netty.shaded.io.grpc.netty.NettyChannelBuilder;
+import io.grpc.netty.shaded.io.grpc.netty.NettyServerBuilder;
+import io.grpc.stub.StreamObserver;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GrpcServiceConfigTest {
+
+    private GrpcChannelProperties properties;
+    private Server server;
+    private ManagedChannel channel;
+
+    @BeforeEach
+    void setUp() {
+        properties = new GrpcChannelProperties();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (channel != null) {
+            channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        }
+        if (server != null) {
+            server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Map<String, ?>> methodConfig(Map<String, Object> serviceConfig) {
+        return (List<Map<String, ?>>) serviceConfig.get("methodConfig");
+    }
+
+    private BookServiceGrpc.BookServiceBlockingStub stubFor(BookServiceGrpc.BookServiceImplBase service)
+            throws Exception {
+        server = NettyServerBuilder.forPort(0).addService(service).build().start();
+        properties.getLoadBalancing().setHealthCheck(false);
+        channel = NettyChannelBuilder.forTarget("127.0.0.1:" + server.getPort())
+                .defaultServiceConfig(GrpcServiceConfig.build(properties))
+                .enableRetry()
+                .usePlaintext()
+                .build();
+        return BookServiceGrpc.newBlockingStub(channel).withDeadlineAfter(5, TimeUnit.SECONDS);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, ?> policy(Map<String, Object> serviceConfig) {
+        return ((List<Map<String, ?>>) serviceConfig.get("loadBalancingConfig")).get(0);
+    }
+
+    @Test
+    @DisplayName("Should wrap round_robin in outlier detection and enable health checks by default")
+    void testBuild_Defaults() {
+        // Act
+        Map<String, Object> serviceConfig = GrpcServiceConfig.build(properties);
+
+        // Assert
+        assertTrue(policy(serviceConfig).containsKey(GrpcServiceConfig.OUTLIER_DETECTION_POLICY));
+        assertEquals(Map.of("serviceName", ""), serviceConfig.get("healthCheckConfig"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    @DisplayName("Should produce an outlier detection config gRPC accepts")
+    void testBuild_OutlierDetectionParses() {
+        // Arrange
+        properties.getLoadBalancing().getOutlierDetection().setBaseEjectionTime(Duration.ofMillis(1500));
+        Map<String, ?> policy = policy(GrpcServiceConfig.build(properties));
+        LoadBalancerProvider provider = LoadBalancerRegistry.getDefaultRegistry()
+                .getProvider(GrpcServiceConfig.OUTLIER_DETECTION_POLICY);
+
+        // Act
+        NameResolver.ConfigOrError parsed = provider.parseLoadBalancingPolicyConfig(
+                (Map<String, ?>) policy.get(GrpcServiceConfig.OUTLIER_DETECTION_POLICY));
+
+        // Assert
+        assertNull(parsed.getError());
+    }
+
+    @Test
+    @DisplayName("Should use the policy directly when outlier detection is off")
+    void testBuild_OutlierDetectionDisabled() {
+        // Arrange
+        properties.getLoadBalancing().getOutlierDetection().setEnabled(false);
+        properties.getLoadBalancing().setPolicy("pick_first");
+        properties.getLoadBalancing().setHealthCheck(false);
+
+        // Act
+        Map<String, Object> serviceConfig = GrpcServiceConfig.build(properties);
+
+        // Assert
+        assertEquals(Map.of("pick_first", Map.of()), policy(serviceConfig));
+        assertFalse(serviceConfig.containsKey("healthCheckConfig"));
+    }
+
+    @Test
+    @DisplayName("Should fail at startup for a policy that is not on the classpath")
+    void testBuild_UnknownPolicy() {
+        // Arrange
+        properties.getLoadBalancing().setPolicy("least_request_experimental");
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> GrpcServiceConfig.build(properties));
+    }
+
+    @Test
+    @DisplayName("Should hedge single-item reads and retry list reads by default")
+    void testBuild_MethodConfigDefaults() {
+        // Act
+        List<Map<String, ?>> methodConfig = methodConfig(GrpcServiceConfig.build(properties));
+
+        // Assert
+        assertEquals(2, methodConfig.size());
+        assertTrue(methodConfig.get(0).containsKey("hedgingPolicy"));
+        assertTrue(((List<?>) methodConfig.get(0).get("name")).contains(
+                Map.of("service", "dk.via.sep3.BookService", "method", "GetBookById")));
+        assertTrue(methodConfig.get(1).containsKey("retryPolicy"));
+        assertTrue(((List<?>) methodConfig.get(1).get("name")).contains(
+                Map.of("service", "dk.via.sep3.BookService", "method", "GetAllBooks")));
+    }
+
+    @Test
+    @DisplayName("Should leave out method config when retry and hedging are off")
+    void testBuild_RetryAndHedgingDisabled() {
+        // Arrange
+        properties.getRetry().setEnabled(false);
+        properties.getHedging().setEnabled(false);
+
+        // Act
+        Map<String, Object> serviceConfig = GrpcServiceConfig.build(properties);
+
+        // Assert
+        assertFalse(serviceConfig.containsKey("methodConfig"));
+        assertFalse(serviceConfig.containsKey("retryThrottling"));
+    }
+
+    @Test
+    @DisplayName("Should refuse to hedge or retry writes")
+    void testBuild_WritesRejected() {
+        // Arrange
+        properties.getHedging().setMethods(List.of("LoanService/CreateLoan"));
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> GrpcServiceConfig.build(properties));
+        properties.getHedging().setMethods(List.of());
+        properties.getRetry().setMethods(List.of("ReservationService/CreateReservation"));
+        assertThrows(IllegalStateException.class, () -> GrpcServiceConfig.build(properties));
+    }
+
+    @Test
+    @DisplayName("Should refuse a method that is both retried and hedged")
+    void testBuild_MethodInBothLists() {
+        // Arrange
+        properties.getRetry().setMethods(List.of("BookService/GetBookById"));
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> GrpcServiceConfig.build(properties));
+    }
+
+    @Test
+    @DisplayName("Should retry a read that failed with UNAVAILABLE")
+    void testRetry_ReadSucceedsAfterUnavailable() throws Exception {
+        // Arrange
+        AtomicInteger calls = new AtomicInteger();
+        BookServiceGrpc.BookServiceBlockingStub stub = stubFor(new BookServiceGrpc.BookServiceImplBase() {
+            @Override
+            public void getAllBooks(GetAllBooksRequest request, StreamObserver<GetAllBooksResponse> responseObserver) {
+                if (calls.incrementAndGet() == 1) {
+                    responseObserver.onError(Status.UNAVAILABLE.asRuntimeException());
+                    return;
+                }
+                responseObserver.onNext(GetAllBooksResponse.getDefaultInstance());
+                responseObserver.onCompleted();
+            }
+        });
+
+        // Act
+        GetAllBooksResponse response = stub.getAllBooks(GetAllBooksRequest.getDefaultInstance());
+
+        // Assert
+        assertNotNull(response);
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    @DisplayName("Should answer a hedged read from the second attempt when the first hangs")
+    void testHedging_SecondAttemptWins() throws Exception {
+        // Arrange
+        properties.getHedging().setDelay(Duration.ofMillis(50));
+        AtomicInteger calls = new AtomicInteger();
+        BookServiceGrpc.BookServiceBlockingStub stub = stubFor(new BookServiceGrpc.BookServiceImplBase() {
+            @Override
+            public void getBookById(GetBookByIdRequest request, StreamObserver<GetBookByIdResponse> responseObserver) {
+                // The first attempt never answers
+                if (calls.incrementAndGet() > 1) {
+                    responseObserver.onNext(GetBookByIdResponse.getDefaultInstance());
+                    responseObserver.onCompleted();
+                }
+            }
+        });
+        long start = System.nanoTime();
+
+        // Act
+        GetBookByIdResponse response = stub.getBookById(GetBookByIdRequest.getDefaultInstance());
+
+        // Assert
+        assertNotNull(response);
+        assertEquals(2, calls.get());
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(2));
+    }
+
+    @Test
+    @DisplayName("Should send a write once even when it fails with UNAVAILABLE")
+    void testWrite_NotRetried() throws Exception {
+        // Arrange
+        AtomicInteger calls = new AtomicInteger();
+        BookServiceGrpc.BookServiceBlockingStub stub = stubFor(new BookServiceGrpc.BookServiceImplBase() {
+            @Override
+            public void updateBookState(UpdateBookStateRequest request,
+                    StreamObserver<UpdateBookStateResponse> responseObserver) {
+                calls.incrementAndGet();
+                responseObserver.onError(Status.UNAVAILABLE.asRuntimeException());
+            }
+        });
+
+        // Act
+        StatusRuntimeException ex = assertThrows(StatusRuntimeException.class,
+                () -> stub.updateBookState(UpdateBookStateRequest.getDefaultInstance()));
+
+        // Assert
+        assertEquals(Status.Code.UNAVAILABLE, ex.getStatus().getCode());
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    @DisplayName("Should prefer the explicit target, then the address list, then host and port")
+    void testTarget_Precedence() {
+        // Arrange
+        GrpcChannelProperties.Server server = properties.getServer();
+
+        // Act & Assert
+        assertEquals("localhost:5020", GrpcConfig.target(server));
+        server.setAddresses(List.of("db1", "db2:5021"));
+        assertEquals("static:///db1:5020,db2:5021", GrpcConfig.target(server));
+        server.setTarget("dns:///persistence:5020");
+        assertEquals("dns:///persistence:5020", GrpcConfig.target(server));
+    }
+}
@@ -0,0 +1,85 @@
+package dk.via.sep3.grpcConnection.config;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledOnJre;
+import org.junit.jupiter.api.condition.JRE;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GrpcThreadsTest {
+
+    @Test
+    @DisplayName("Should keep platform threads on Java 17 even when virtual threads are enabled")
+    @EnabledOnJre(JRE.JAVA_17)
+    void testVirtualThreadsEnabled_FallsBackOnJava17() {
+        // Arrange
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("spring.threads.virtual.enabled", "true");
+
+        // Act
+        GrpcThreads threads = new GrpcThreads(environment);
+
+        // Assert
+        assertFalse(threads.isVirtual());
+    }
+
+    @Test
+    @DisplayName("Should run platform-mode tasks on named daemon threads")
+    void testPlatformExecutor_NamedDaemonThreads() {
+        // Arrange
+        Executor executor = new GrpcThreads(false).newExecutor("test-pool-", 2);
+
+        try {
+            // Act
+            Thread thread = CompletableFuture.supplyAsync(Thread::currentThread, executor).join();
+
+            // Assert
+            assertTrue(thread.getName().startsWith("test-pool-"));
+            assertTrue(thread.isDaemon());
+        } finally {
+            ((ExecutorService) executor).shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Should run a task on the calling thread when every pool thread is busy")
+    void testPlatformExecutor_AllThreadsBusy_RunsOnCallingThread() throws InterruptedException {
+        // Arrange
+        Executor executor = new GrpcThreads(false).newExecutor("test-pool-", 1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+
+        try {
+            executor.execute(() -> {
+                started.countDown();
+                awaitQuietly(release);
+            });
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            // Act
+            Thread thread = CompletableFuture.supplyAsync(Thread::currentThread, executor).join();
+
+            // Assert
+            assertSame(Thread.currentThread(), thread);
+        } finally {
+            release.countDown();
+            ((ExecutorService) executor).shutdown();
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
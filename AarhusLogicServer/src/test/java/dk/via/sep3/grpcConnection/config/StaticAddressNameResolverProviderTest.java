@@ -0,0 +1,94 @@
+package dk.via.sep3.grpcConnection.config;
+
+import io.grpc.ManagedChannel;
+import io.grpc.Metadata;
+import io.grpc.Server;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.ServerInterceptors;
+import io.grpc.health.v1.HealthCheckRequest;
+import io.grpc.health.v1.HealthGrpc;
+import io.grpc.netty.shaded.io.grpc.netty.NettyChannelBuilder;
+import io.grpc.netty.shaded.io.grpc.netty.NettyServerBuilder;
+import io.grpc.protobuf.services.HealthStatusManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StaticAddressNameResolverProviderTest {
+
+    private final List<Server> servers = new ArrayList<>();
+    private ManagedChannel channel;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (channel != null) {
+            channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        }
+        for (Server server : servers) {
+            server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        }
+    }
+
+    private Server startReplica(AtomicInteger calls) throws Exception {
+        ServerInterceptor counter = new ServerInterceptor() {
+            @Override
+            public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(ServerCall<ReqT, RespT> call,
+                    Metadata headers, ServerCallHandler<ReqT, RespT> next) {
+                // The load balancer's own health checks are Watch streams
+                if ("Check".equals(call.getMethodDescriptor().getBareMethodName())) {
+                    calls.incrementAndGet();
+                }
+                return next.startCall(call, headers);
+            }
+        };
+        Server server = NettyServerBuilder.forPort(0)
+                .addService(ServerInterceptors.intercept(new HealthStatusManager().getHealthService(), counter))
+                .build().start();
+        servers.add(server);
+        return server;
+    }
+
+    @Test
+    @DisplayName("Should leave other schemes to other resolvers")
+    void testNewNameResolver_UnknownScheme() {
+        // Act & Assert
+        assertNull(new StaticAddressNameResolverProvider()
+                .newNameResolver(URI.create("dns:///persistence:5020"), null));
+    }
+
+    @Test
+    @DisplayName("Should spread calls over every replica with round_robin")
+    void testRoundRobin_SpreadsCalls() throws Exception {
+        // Arrange
+        AtomicInteger first = new AtomicInteger();
+        AtomicInteger second = new AtomicInteger();
+        Server one = startReplica(first);
+        Server two = startReplica(second);
+        GrpcChannelProperties properties = new GrpcChannelProperties();
+        properties.getServer().setAddresses(List.of("127.0.0.1:" + one.getPort(), "127.0.0.1:" + two.getPort()));
+        channel = NettyChannelBuilder.forTarget(GrpcConfig.target(properties.getServer()))
+                .defaultServiceConfig(GrpcServiceConfig.build(properties))
+                .usePlaintext()
+                .build();
+        HealthGrpc.HealthBlockingStub stub = HealthGrpc.newBlockingStub(channel).withWaitForReady();
+
+        // Act: the second subchannel may still be connecting for the first few calls
+        for (int i = 0; i < 200 && (first.get() == 0 || second.get() == 0); i++) {
+            stub.withDeadlineAfter(5, TimeUnit.SECONDS).check(HealthCheckRequest.getDefaultInstance());
+        }
+
+        // Assert
+        assertTrue(first.get() > 0, "first replica got no calls");
+        assertTrue(second.get() > 0, "second replica got no calls");
+    }
+}
@@ -0,0 +1,90 @@
+package dk.via.sep3.grpcConnection.deadline;
+
+import dk.via.sep3.BookServiceGrpc;
+import dk.via.sep3.grpcConnection.config.GrpcChannelProperties;
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.Deadline;
+import io.grpc.MethodDescriptor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class GrpcDeadlineInterceptorTest {
+
+    @Mock
+    private Channel channel;
+
+    private GrpcChannelProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        properties = new GrpcChannelProperties();
+        properties.getDeadlines().setDefaultTimeout(Duration.ofSeconds(5));
+        properties.getDeadlines().getMethods().put("GetAllBooks", Duration.ofSeconds(15));
+    }
+
+    private CallOptions intercept(MethodDescriptor<?, ?> method, CallOptions callOptions) {
+        new GrpcDeadlineInterceptor(properties).interceptCall(method, callOptions, channel);
+        ArgumentCaptor<CallOptions> captor = ArgumentCaptor.forClass(CallOptions.class);
+        verify(channel).newCall(any(), captor.capture());
+        return captor.getValue();
+    }
+
+    @Test
+    @DisplayName("Should give unary calls the default timeout")
+    void testInterceptCall_UnaryGetsDefaultTimeout() {
+        // Act
+        Deadline deadline = intercept(BookServiceGrpc.getGetBookByIdMethod(), CallOptions.DEFAULT).getDeadline();
+
+        // Assert
+        assertNotNull(deadline);
+        assertTrue(deadline.timeRemaining(TimeUnit.SECONDS) <= 5);
+    }
+
+    @Test
+    @DisplayName("Should give a configured method its own timeout")
+    void testInterceptCall_ConfiguredMethodTimeout() {
+        // Act
+        Deadline deadline = intercept(BookServiceGrpc.getGetAllBooksMethod(), CallOptions.DEFAULT).getDeadline();
+
+        // Assert
+        assertTrue(deadline.timeRemaining(TimeUnit.SECONDS) > 5);
+    }
+
+    @Test
+    @DisplayName("Should leave streaming calls without a configured timeout alone")
+    void testInterceptCall_StreamingWithoutTimeout() {
+        // Act
+        CallOptions options = intercept(BookServiceGrpc.getStreamAllBooksMethod(), CallOptions.DEFAULT);
+
+        // Assert
+        assertNull(options.getDeadline());
+    }
+
+    @Test
+    @DisplayName("Should keep an earlier deadline from the request budget")
+    void testInterceptCall_KeepsEarlierDeadline() {
+        // Arrange
+        Deadline budget = Deadline.after(1, TimeUnit.SECONDS);
+
+        // Act
+        CallOptions options = intercept(BookServiceGrpc.getGetBookByIdMethod(),
+                CallOptions.DEFAULT.withDeadline(budget));
+
+        // Assert
+        assertSame(budget, options.getDeadline());
+    }
+}
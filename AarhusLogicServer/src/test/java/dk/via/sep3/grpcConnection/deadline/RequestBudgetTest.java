@@ -0,0 +1,94 @@
+package dk.via.sep3.grpcConnection.deadline;
+
+import dk.via.sep3.exceptionHandler.GrpcCommunicationException;
+import dk.via.sep3.exceptionHandler.RequestTimeoutException;
+import io.grpc.Context;
+import io.grpc.Deadline;
+import io.grpc.Status;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestBudgetTest {
+
+    private ScheduledExecutorService scheduler;
+    private Context.CancellableContext context;
+    private Context previous;
+
+    @BeforeEach
+    void setUp() {
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (context != null) {
+            context.detach(previous);
+            context.cancel(null);
+        }
+        scheduler.shutdownNow();
+    }
+
+    private void attachBudget(long millis) {
+        context = Context.current().withDeadlineAfter(millis, TimeUnit.MILLISECONDS, scheduler);
+        previous = context.attach();
+    }
+
+    @Test
+    @DisplayName("Should pass while budget is left")
+    void testEnsureRemaining_BudgetLeft() {
+        // Arrange
+        attachBudget(10_000);
+
+        // Act & Assert
+        assertDoesNotThrow(() -> RequestBudget.ensureRemaining("next step"));
+    }
+
+    @Test
+    @DisplayName("Should throw once the budget is spent")
+    void testEnsureRemaining_BudgetSpent() {
+        // Arrange
+        attachBudget(0);
+
+        // Act
+        RequestTimeoutException ex = assertThrows(RequestTimeoutException.class,
+                () -> RequestBudget.ensureRemaining("creating the loan"));
+
+        // Assert
+        assertTrue(ex.getMessage().endsWith("creating the loan"));
+    }
+
+    @Test
+    @DisplayName("Should run follow-up writes without the budget deadline")
+    void testFinishOutsideBudget_NoBudgetDeadline() {
+        // Arrange
+        attachBudget(0);
+
+        // Act
+        Deadline inside = RequestBudget.finishOutsideBudget(() -> Context.current().getDeadline());
+
+        // Assert
+        assertNull(inside);
+        assertTrue(RequestBudget.isExhausted());
+    }
+
+    @Test
+    @DisplayName("Should treat DEADLINE_EXCEEDED in the cause chain as a timeout")
+    void testIsTimeout_DeadlineExceededCause() {
+        // Arrange
+        GrpcCommunicationException ex = new GrpcCommunicationException("slow",
+                Status.DEADLINE_EXCEEDED.asRuntimeException());
+
+        // Act & Assert
+        assertTrue(RequestBudget.isTimeout(ex));
+        assertFalse(RequestBudget.isTimeout(new GrpcCommunicationException("down",
+                Status.UNAVAILABLE.asRuntimeException())));
+    }
+}
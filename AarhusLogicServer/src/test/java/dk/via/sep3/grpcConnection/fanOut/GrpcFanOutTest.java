@@ -0,0 +1,129 @@
+package dk.via.sep3.grpcConnection.fanOut;
+
+import dk.via.sep3.grpcConnection.config.GrpcThreads;
+import io.grpc.Context;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GrpcFanOutTest {
+
+    private GrpcFanOut fanOut;
+
+    @BeforeEach
+    void setUp() {
+        fanOut = new GrpcFanOut(new GrpcThreads(false), 4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        fanOut.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should expose every result once the scope has joined")
+    void testJoin_AllSucceed() {
+        try (GrpcFanOut.Scope scope = fanOut.open()) {
+            // Arrange
+            CompletableFuture<String> first = scope.fork(() -> "first");
+            CompletableFuture<Integer> second = scope.fork(() -> 2);
+
+            // Act
+            scope.join();
+
+            // Assert
+            assertEquals("first", first.join());
+            assertEquals(2, second.join());
+        }
+    }
+
+    @Test
+    @DisplayName("Should rethrow the first failure and cancel the remaining calls")
+    void testJoin_FailFast() throws Exception {
+        // Arrange
+        AtomicBoolean cancelled = new AtomicBoolean();
+        CountDownLatch slowDone = new CountDownLatch(1);
+
+        try (GrpcFanOut.Scope scope = fanOut.open()) {
+            scope.fork(() -> {
+                throw new IllegalStateException("User already has an active loan for this book");
+            });
+            scope.fork(() -> {
+                long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+                while (!Context.current().isCancelled() && System.nanoTime() < deadline) {
+                    Thread.onSpinWait();
+                }
+                cancelled.set(Context.current().isCancelled());
+                slowDone.countDown();
+            });
+
+            // Act & Assert
+            IllegalStateException exception = assertThrows(IllegalStateException.class, scope::join);
+            assertEquals("User already has an active loan for this book", exception.getMessage());
+        }
+        assertTrue(slowDone.await(2, TimeUnit.SECONDS));
+        assertTrue(cancelled.get());
+    }
+
+    @Test
+    @DisplayName("Should rethrow an earlier task's failure even when a later task fails first")
+    void testJoin_LaterTaskFailsFirst_EarlierFailureWins() {
+        // Arrange
+        CountDownLatch laterFailed = new CountDownLatch(1);
+
+        try (GrpcFanOut.Scope scope = fanOut.open()) {
+            scope.fork(() -> {
+                awaitQuietly(laterFailed);
+                throw new IllegalStateException("User already has an active loan for this book");
+            });
+            scope.fork(() -> {
+                throw new IllegalArgumentException("No available copies of this book");
+            }).whenComplete((result, ex) -> laterFailed.countDown());
+
+            // Act & Assert
+            IllegalStateException exception = assertThrows(IllegalStateException.class, scope::join);
+            assertEquals("User already has an active loan for this book", exception.getMessage());
+        }
+    }
+
+    @Test
+    @DisplayName("Should let earlier tasks finish uncancelled before rethrowing a later failure")
+    void testJoin_LaterTaskFails_WaitsForEarlierTasks() {
+        // Arrange
+        CountDownLatch laterFailed = new CountDownLatch(1);
+        AtomicBoolean earlierCancelled = new AtomicBoolean();
+
+        try (GrpcFanOut.Scope scope = fanOut.open()) {
+            CompletableFuture<String> earlier = scope.fork(() -> {
+                awaitQuietly(laterFailed);
+                earlierCancelled.set(Context.current().isCancelled());
+                return "ok";
+            });
+            scope.fork(() -> {
+                throw new IllegalArgumentException("No available copies of this book");
+            }).whenComplete((result, ex) -> laterFailed.countDown());
+
+            // Act & Assert
+            IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, scope::join);
+            assertEquals("No available copies of this book", exception.getMessage());
+            assertTrue(earlier.isDone());
+            assertFalse(earlierCancelled.get());
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -3,7 +3,10 @@ package dk.via.sep3.grpcConnection.loanGrpcService;
 import dk.via.sep3.*;
 import dk.via.sep3.mapper.loanMapper.LoanMapper;
 import dk.via.sep3.application.domain.Loan;
+import dk.via.sep3.application.domain.LoanResult;
+import dk.via.sep3.exceptionHandler.GrpcCommunicationException;
 import io.grpc.ManagedChannel;
+import io.grpc.Status;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -14,6 +17,7 @@ import org.mockito.MockedStatic;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.sql.Date;
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -126,6 +130,243 @@ class LoanGrpcServiceImplTest {
         assertNull(result);
     }
 
+    @Test
+    @DisplayName("Should borrow a copy in one BorrowBook call")
+    void testBorrowBook_Success() {
+        // Arrange
+        Loan loan = borrowRequest();
+        DTOLoan dtoLoan = DTOLoan.newBuilder()
+            .setId(1)
+            .setUsername("testuser")
+            .setBookId(3)
+            .build();
+        BorrowBookResponse response = BorrowBookResponse.newBuilder()
+            .setSuccess(true)
+            .setLoan(dtoLoan)
+            .build();
+        Loan created = new Loan();
+        created.setLoanId(1);
+        created.setBookId(3);
+
+        when(loanStub.borrowBook(any(BorrowBookRequest.class))).thenReturn(response);
+        when(loanMapper.mapDTOLoanToDomain(dtoLoan)).thenReturn(created);
+
+        // Act
+        Loan result = loanGrpcService.borrowBook(loan);
+
+        // Assert
+        assertEquals(3, result.getBookId());
+        verify(loanStub).borrowBook(argThat(request -> request.getIsbn().equals("123456")
+            && request.getUsername().equals("testuser")
+            && request.getBorrowDate().equals("2025-01-01")
+            && request.getDueDate().equals("2025-01-31")));
+    }
+
+    @Test
+    @DisplayName("Should map BorrowBook failures to the exceptions of the stepwise path")
+    void testBorrowBook_Failures() {
+        // Arrange
+        Loan loan = borrowRequest();
+        when(loanStub.borrowBook(any(BorrowBookRequest.class)))
+            .thenReturn(borrowFailure(BorrowBookFailure.ALREADY_BORROWED))
+            .thenReturn(borrowFailure(BorrowBookFailure.NO_COPIES))
+            .thenReturn(borrowFailure(BorrowBookFailure.NO_AVAILABLE_COPY))
+            .thenReturn(borrowFailure(BorrowBookFailure.BORROW_BOOK_FAILURE_UNSPECIFIED));
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> loanGrpcService.borrowBook(loan));
+        assertThrows(IllegalArgumentException.class, () -> loanGrpcService.borrowBook(loan));
+        assertThrows(IllegalArgumentException.class, () -> loanGrpcService.borrowBook(loan));
+        assertThrows(GrpcCommunicationException.class, () -> loanGrpcService.borrowBook(loan));
+    }
+
+    @Test
+    @DisplayName("Should report a persistence server without BorrowBook as unsupported")
+    void testBorrowBook_Unimplemented() {
+        // Arrange
+        Loan loan = borrowRequest();
+        when(loanStub.borrowBook(any(BorrowBookRequest.class)))
+            .thenThrow(Status.UNIMPLEMENTED.asRuntimeException());
+
+        // Act & Assert
+        assertThrows(UnsupportedOperationException.class, () -> loanGrpcService.borrowBook(loan));
+    }
+
+    private static Loan borrowRequest() {
+        Loan loan = new Loan();
+        loan.setUsername("testuser");
+        loan.setBookISBN("123456");
+        loan.setBorrowDate(Date.valueOf("2025-01-01"));
+        loan.setDueDate(Date.valueOf("2025-01-31"));
+        return loan;
+    }
+
+    private static BorrowBookResponse borrowFailure(BorrowBookFailure failure) {
+        return BorrowBookResponse.newBuilder()
+            .setSuccess(false)
+            .setFailure(failure)
+            .setMessage(failure.name())
+            .build();
+    }
+
+    @Test
+    @DisplayName("Should borrow a whole checkout in one BorrowBooks call, one result per book")
+    void testBorrowBooks_Success() {
+        // Arrange
+        Loan second = borrowRequest();
+        second.setBookISBN("654321");
+        DTOLoan dtoLoan = DTOLoan.newBuilder().setId(1).setBookId(3).build();
+        BorrowBooksResponse response = BorrowBooksResponse.newBuilder()
+            .addResults(BorrowBookResponse.newBuilder().setSuccess(true).setLoan(dtoLoan))
+            .addResults(borrowFailure(BorrowBookFailure.ALREADY_BORROWED))
+            .build();
+        Loan created = new Loan();
+        created.setLoanId(1);
+
+        when(loanStub.borrowBooks(any(BorrowBooksRequest.class))).thenReturn(response);
+        when(loanMapper.mapDTOLoanToDomain(dtoLoan)).thenReturn(created);
+
+        // Act
+        List<LoanResult> results = loanGrpcService.borrowBooks(List.of(borrowRequest(), second));
+
+        // Assert
+        assertEquals("123456", results.get(0).getBookISBN());
+        assertSame(created, results.get(0).getLoan());
+        assertEquals("654321", results.get(1).getBookISBN());
+        assertInstanceOf(IllegalStateException.class, results.get(1).getError());
+        verify(loanStub).borrowBooks(argThat(request -> request.getItemsCount() == 2
+            && request.getItems(1).getIsbn().equals("654321")));
+    }
+
+    @Test
+    @DisplayName("Should fetch several loans by ID in one call")
+    void testGetLoansByIds_Success() {
+        // Arrange
+        DTOLoan dtoLoan = DTOLoan.newBuilder().setId(1).build();
+        GetLoansByIdsResponse response = GetLoansByIdsResponse.newBuilder()
+            .setSuccess(true)
+            .addLoans(dtoLoan)
+            .build();
+        Loan loan = new Loan();
+        loan.setLoanId(1);
+
+        when(loanStub.getLoansByIds(any(GetLoansByIdsRequest.class))).thenReturn(response);
+        when(loanMapper.mapDTOLoanToDomain(dtoLoan)).thenReturn(loan);
+
+        // Act
+        List<Loan> result = loanGrpcService.getLoansByIds(List.of(1, 2));
+
+        // Assert
+        assertEquals(List.of(loan), result);
+        verify(loanStub).getLoansByIds(argThat(request -> request.getIdsList().equals(List.of(1, 2))));
+    }
+
+    @Test
+    @DisplayName("Should save several extended loans in one call")
+    void testExtendLoans_Success() {
+        // Arrange
+        Loan loan = new Loan();
+        loan.setLoanId(1);
+        DTOLoan dtoLoan = DTOLoan.newBuilder().setId(1).setNumberOfExtensions(1).build();
+        ExtendLoansResponse response = ExtendLoansResponse.newBuilder()
+            .setSuccess(true)
+            .addLoans(dtoLoan)
+            .build();
+
+        when(loanMapper.mapDomainToDTOLoan(loan)).thenReturn(dtoLoan);
+        when(loanStub.extendLoans(any(ExtendLoansRequest.class))).thenReturn(response);
+        when(loanMapper.mapDTOLoanToDomain(dtoLoan)).thenReturn(loan);
+
+        // Act
+        List<Loan> result = loanGrpcService.extendLoans(List.of(loan));
+
+        // Assert
+        assertEquals(List.of(loan), result);
+        verify(loanStub).extendLoans(argThat(request -> request.getLoansList().equals(List.of(dtoLoan))));
+    }
+
+    @Test
+    @DisplayName("Should report persistence servers without the batch loan calls as unsupported")
+    void testBatchLoanCalls_Unimplemented() {
+        // Arrange
+        when(loanStub.getLoansByIds(any(GetLoansByIdsRequest.class)))
+            .thenThrow(Status.UNIMPLEMENTED.asRuntimeException());
+        when(loanStub.extendLoans(any(ExtendLoansRequest.class)))
+            .thenThrow(Status.UNIMPLEMENTED.asRuntimeException());
+
+        // Act & Assert
+        assertThrows(UnsupportedOperationException.class, () -> loanGrpcService.getLoansByIds(List.of(1)));
+        assertThrows(UnsupportedOperationException.class, () -> loanGrpcService.extendLoans(List.of()));
+    }
+
+    @Test
+    @DisplayName("Should fail when the persistence server did not extend the loans")
+    void testExtendLoans_Failure() {
+        // Arrange
+        when(loanStub.extendLoans(any(ExtendLoansRequest.class))).thenReturn(
+            ExtendLoansResponse.newBuilder().setSuccess(false).setMessage("Loan not found").build());
+
+        // Act & Assert
+        assertThrows(GrpcCommunicationException.class, () -> loanGrpcService.extendLoans(List.of()));
+    }
+
+    @Test
+    @DisplayName("Should pass each streamed active loan to the consumer")
+    void testStreamActiveLoans_Success() {
+        // Arrange
+        DTOLoan first = DTOLoan.newBuilder().setId(1).build();
+        DTOLoan second = DTOLoan.newBuilder().setId(2).build();
+        Loan loan1 = new Loan();
+        Loan loan2 = new Loan();
+        when(loanStub.streamActiveLoans(any(StreamActiveLoansRequest.class)))
+            .thenReturn(List.of(first, second).iterator());
+        when(loanMapper.mapDTOLoanToDomain(first)).thenReturn(loan1);
+        when(loanMapper.mapDTOLoanToDomain(second)).thenReturn(loan2);
+
+        // Act
+        List<Loan> received = new ArrayList<>();
+        loanGrpcService.streamActiveLoans(received::add);
+
+        // Assert
+        assertEquals(List.of(loan1, loan2), received);
+    }
+
+    @Test
+    @DisplayName("Should report a persistence server without StreamActiveLoans as unsupported")
+    void testStreamActiveLoans_Unimplemented() {
+        // Arrange
+        when(loanStub.streamActiveLoans(any(StreamActiveLoansRequest.class)))
+            .thenThrow(Status.UNIMPLEMENTED.asRuntimeException());
+
+        // Act & Assert
+        assertThrows(UnsupportedOperationException.class,
+            () -> loanGrpcService.streamActiveLoans(loan -> { }));
+    }
+
+    @Test
+    @DisplayName("Should report a persistence server without BorrowBooks as unsupported")
+    void testBorrowBooks_Unimplemented() {
+        // Arrange
+        when(loanStub.borrowBooks(any(BorrowBooksRequest.class)))
+            .thenThrow(Status.UNIMPLEMENTED.asRuntimeException());
+
+        // Act & Assert
+        assertThrows(UnsupportedOperationException.class,
+            () -> loanGrpcService.borrowBooks(List.of(borrowRequest())));
+    }
+
+    @Test
+    @DisplayName("Should fail when the number of results does not match the request")
+    void testBorrowBooks_ResultCountMismatch() {
+        // Arrange
+        when(loanStub.borrowBooks(any(BorrowBooksRequest.class)))
+            .thenReturn(BorrowBooksResponse.getDefaultInstance());
+
+        // Act & Assert
+        assertThrows(GrpcCommunicationException.class,
+            () -> loanGrpcService.borrowBooks(List.of(borrowRequest())));
+    }
+
     @Test
     @DisplayName("Should get loans by ISBN successfully")
     void testGetLoansByISBN_Success() {
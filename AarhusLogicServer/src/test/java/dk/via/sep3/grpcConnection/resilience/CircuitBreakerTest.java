@@ -0,0 +1,106 @@
+package dk.via.sep3.grpcConnection.resilience;
+
+import dk.via.sep3.grpcConnection.config.GrpcChannelProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CircuitBreakerTest {
+
+    private AtomicLong nanos;
+    private CircuitBreaker breaker;
+
+    @BeforeEach
+    void setUp() {
+        GrpcChannelProperties.Policy policy = new GrpcChannelProperties.Policy();
+        policy.setFailureRateThreshold(50);
+        policy.setSlidingWindowSize(4);
+        policy.setMinimumCalls(4);
+        policy.setWaitInOpenState(Duration.ofSeconds(10));
+        policy.setPermittedCallsInHalfOpenState(2);
+        nanos = new AtomicLong();
+        breaker = new CircuitBreaker(policy, nanos::get);
+    }
+
+    private void call(boolean fail) {
+        assertTrue(breaker.tryAcquire());
+        if (fail) {
+            breaker.onFailure();
+        } else {
+            breaker.onSuccess();
+        }
+    }
+
+    private void open() {
+        for (int i = 0; i < 4; i++) {
+            call(true);
+        }
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    @Test
+    @DisplayName("Should stay closed until the minimum number of calls was made")
+    void testOnFailure_BelowMinimumCalls() {
+        // Act
+        call(true);
+        call(true);
+        call(true);
+
+        // Assert
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(-1, breaker.getFailureRate());
+    }
+
+    @Test
+    @DisplayName("Should open once the failure rate reaches the threshold")
+    void testOnFailure_OpensAtThreshold() {
+        // Act
+        call(false);
+        call(false);
+        call(true);
+        call(true);
+
+        // Assert
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire());
+    }
+
+    @Test
+    @DisplayName("Should close again after the trial calls succeed")
+    void testHalfOpen_ClosesOnSuccess() {
+        // Arrange
+        open();
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(10));
+
+        // Act
+        assertTrue(breaker.tryAcquire());
+        assertTrue(breaker.tryAcquire());
+        assertFalse(breaker.tryAcquire());
+        breaker.onSuccess();
+        breaker.onSuccess();
+
+        // Assert
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    @DisplayName("Should open again when a trial call fails")
+    void testHalfOpen_OpensOnFailure() {
+        // Arrange
+        open();
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(10));
+
+        // Act
+        call(true);
+
+        // Assert
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire());
+    }
+}
@@ -1,10 +1,15 @@
 package dk.via.sep3.mapper.loanMapper;
 
 import dk.via.sep3.DTOLoan;
+import dk.via.sep3.application.domain.ExtensionResult;
 import dk.via.sep3.application.domain.Loan;
+import dk.via.sep3.application.domain.LoanResult;
+import dk.via.sep3.exceptionHandler.GrpcCommunicationException;
 import dk.via.sep3.DTOs.extension.CreateExtensionDTO;
+import dk.via.sep3.DTOs.extension.ExtensionResultDTO;
 import dk.via.sep3.DTOs.loan.CreateLoanDTO;
 import dk.via.sep3.DTOs.loan.LoanDTO;
+import dk.via.sep3.DTOs.loan.LoanResultDTO;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -256,5 +261,71 @@ class LoanMapperImplTest {
         Loan result2 = loanMapper.mapCreateLoanDTOToDomain(dto2);
         assertEquals("978-0-123456-78-9", result2.getBookISBN());
     }
-}
 
+    @Test
+    @DisplayName("Should map a successful LoanResult with its loan")
+    void testMapLoanResultToDTO_Success() {
+        // Arrange
+        Loan loan = new Loan();
+        loan.setLoanId(7);
+        loan.setBorrowDate(Date.valueOf("2025-01-01"));
+        loan.setDueDate(Date.valueOf("2025-01-31"));
+        loan.setUsername("testuser");
+        loan.setBookId(3);
+
+        // Act
+        LoanResultDTO result = loanMapper.mapLoanResultToDTO(LoanResult.success("123456", loan));
+
+        // Assert
+        assertEquals("123456", result.getBookISBN());
+        assertTrue(result.isSuccess());
+        assertEquals("7", result.getLoan().getId());
+        assertNull(result.getErrorCode());
+        assertNull(result.getMessage());
+    }
+
+    @Test
+    @DisplayName("Should map a failed LoanResult to the error code of the single-loan endpoint")
+    void testMapLoanResultToDTO_Failure() {
+        // Act
+        LoanResultDTO noCopies = loanMapper.mapLoanResultToDTO(LoanResult.failure("1",
+                new IllegalArgumentException("No available copies of this book")));
+        LoanResultDTO duplicate = loanMapper.mapLoanResultToDTO(LoanResult.failure("2",
+                new IllegalStateException("User already has an active loan for this book")));
+        LoanResultDTO unavailable = loanMapper.mapLoanResultToDTO(LoanResult.failure("3",
+                new GrpcCommunicationException("Persistence down")));
+
+        // Assert
+        assertFalse(noCopies.isSuccess());
+        assertNull(noCopies.getLoan());
+        assertEquals("INVALID_INPUT", noCopies.getErrorCode());
+        assertEquals("No available copies of this book", noCopies.getMessage());
+        assertEquals("BUSINESS_CONSTRAINT", duplicate.getErrorCode());
+        assertEquals("SERVICE_UNAVAILABLE", unavailable.getErrorCode());
+    }
+
+    @Test
+    @DisplayName("Should map an ExtensionResult with its new due date or error code")
+    void testMapExtensionResultToDTO() {
+        // Arrange
+        Loan loan = new Loan();
+        loan.setLoanId(7);
+        loan.setBorrowDate(Date.valueOf("2025-01-01"));
+        loan.setDueDate(Date.valueOf("2025-03-02"));
+        loan.setNumberOfExtensions(1);
+
+        // Act
+        ExtensionResultDTO extended = loanMapper.mapExtensionResultToDTO(ExtensionResult.success(7, loan));
+        ExtensionResultDTO refused = loanMapper.mapExtensionResultToDTO(ExtensionResult.failure(8,
+                new IllegalStateException("Only the borrower can extend the loan")));
+
+        // Assert
+        assertEquals(7, extended.getLoanId());
+        assertTrue(extended.isSuccess());
+        assertEquals("2025-03-02", extended.getLoan().getDueDate());
+        assertEquals(8, refused.getLoanId());
+        assertFalse(refused.isSuccess());
+        assertEquals("BUSINESS_CONSTRAINT", refused.getErrorCode());
+        assertEquals("Only the borrower can extend the loan", refused.getMessage());
+    }
+}
@@ -0,0 +1,101 @@
+package dk.via.sep3.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CachingJwtTokenProviderTest {
+
+    private static final Instant NOW = Instant.parse("2025-01-01T12:00:00Z");
+
+    @Mock
+    private IJwtTokenProvider delegate;
+
+    private AtomicLong nanos;
+    private CachingJwtTokenProvider provider;
+
+    @BeforeEach
+    void setUp() {
+        nanos = new AtomicLong();
+        provider = new CachingJwtTokenProvider(delegate, 100, Duration.ofMinutes(5),
+                nanos::get, Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
+    @Test
+    @DisplayName("Should verify a token once and serve every claim from the cache")
+    void testVerifyAndExtract_VerifiedOnce() {
+        // Arrange
+        when(delegate.verifyAndExtract("token"))
+                .thenReturn(new JwtClaims("johndoe", "Reader", NOW.plusSeconds(3600)));
+
+        // Act
+        boolean valid = provider.validateToken("token");
+        String username = provider.getUsernameFromToken("token");
+        String role = provider.getRoleFromToken("token");
+
+        // Assert
+        assertTrue(valid);
+        assertEquals("johndoe", username);
+        assertEquals("Reader", role);
+        verify(delegate, times(1)).verifyAndExtract("token");
+        verifyNoMoreInteractions(delegate);
+    }
+
+    @Test
+    @DisplayName("Should not cache invalid tokens")
+    void testVerifyAndExtract_InvalidNotCached() {
+        // Arrange
+        when(delegate.verifyAndExtract("bad")).thenReturn(null);
+
+        // Act & Assert
+        assertNull(provider.verifyAndExtract("bad"));
+        assertNull(provider.verifyAndExtract("bad"));
+        verify(delegate, times(2)).verifyAndExtract("bad");
+    }
+
+    @Test
+    @DisplayName("Should drop a cached token once it expires, even within the TTL")
+    void testVerifyAndExtract_ExpiresWithToken() {
+        // Arrange
+        when(delegate.verifyAndExtract("token"))
+                .thenReturn(new JwtClaims("johndoe", "Reader", NOW.plusSeconds(30)));
+
+        // Act
+        provider.verifyAndExtract("token");
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(31));
+        provider.verifyAndExtract("token");
+
+        // Assert
+        verify(delegate, times(2)).verifyAndExtract("token");
+    }
+
+    @Test
+    @DisplayName("Should re-verify a long-lived token after the TTL")
+    void testVerifyAndExtract_ExpiresAfterTtl() {
+        // Arrange
+        when(delegate.verifyAndExtract("token"))
+                .thenReturn(new JwtClaims("johndoe", "Reader", NOW.plusSeconds(3600)));
+
+        // Act
+        provider.verifyAndExtract("token");
+        nanos.addAndGet(TimeUnit.MINUTES.toNanos(6));
+        provider.verifyAndExtract("token");
+
+        // Assert
+        verify(delegate, times(2)).verifyAndExtract("token");
+    }
+}
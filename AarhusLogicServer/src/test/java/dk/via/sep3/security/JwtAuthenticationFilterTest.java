@@ -54,9 +54,7 @@ class JwtAuthenticationFilterTest {
     void testDoFilterInternal_ValidToken() throws ServletException, IOException {
         // Arrange
         when(request.getHeader("Authorization")).thenReturn("Bearer " + VALID_TOKEN);
-        when(jwtTokenProvider.validateToken(VALID_TOKEN)).thenReturn(true);
-        when(jwtTokenProvider.getUsernameFromToken(VALID_TOKEN)).thenReturn("johndoe");
-        when(jwtTokenProvider.getRoleFromToken(VALID_TOKEN)).thenReturn("Reader");
+        when(jwtTokenProvider.verifyAndExtract(VALID_TOKEN)).thenReturn(new JwtClaims("johndoe", "Reader", null));
 
         // Act
         jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
@@ -68,9 +66,8 @@ class JwtAuthenticationFilterTest {
         assertTrue(authentication.getAuthorities().stream()
                 .anyMatch(auth -> auth.getAuthority().equals("ROLE_Reader")));
 
-        verify(jwtTokenProvider, times(1)).validateToken(VALID_TOKEN);
-        verify(jwtTokenProvider, times(1)).getUsernameFromToken(VALID_TOKEN);
-        verify(jwtTokenProvider, times(1)).getRoleFromToken(VALID_TOKEN);
+        verify(jwtTokenProvider, times(1)).verifyAndExtract(VALID_TOKEN);
+        verifyNoMoreInteractions(jwtTokenProvider);
         verify(filterChain, times(1)).doFilter(request, response);
     }
 
@@ -79,7 +76,7 @@ class JwtAuthenticationFilterTest {
     void testDoFilterInternal_InvalidToken() throws ServletException, IOException {
         // Arrange
         when(request.getHeader("Authorization")).thenReturn("Bearer " + INVALID_TOKEN);
-        when(jwtTokenProvider.validateToken(INVALID_TOKEN)).thenReturn(false);
+        when(jwtTokenProvider.verifyAndExtract(INVALID_TOKEN)).thenReturn(null);
 
         // Act
         jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
@@ -88,9 +85,8 @@ class JwtAuthenticationFilterTest {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         assertNull(authentication);
 
-        verify(jwtTokenProvider, times(1)).validateToken(INVALID_TOKEN);
-        verify(jwtTokenProvider, never()).getUsernameFromToken(anyString());
-        verify(jwtTokenProvider, never()).getRoleFromToken(anyString());
+        verify(jwtTokenProvider, times(1)).verifyAndExtract(INVALID_TOKEN);
+        verifyNoMoreInteractions(jwtTokenProvider);
         verify(filterChain, times(1)).doFilter(request, response);
     }
 
@@ -107,7 +103,7 @@ class JwtAuthenticationFilterTest {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         assertNull(authentication);
 
-        verify(jwtTokenProvider, never()).validateToken(anyString());
+        verify(jwtTokenProvider, never()).verifyAndExtract(anyString());
         verify(filterChain, times(1)).doFilter(request, response);
     }
 
@@ -124,7 +120,7 @@ class JwtAuthenticationFilterTest {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         assertNull(authentication);
 
-        verify(jwtTokenProvider, never()).validateToken(anyString());
+        verify(jwtTokenProvider, never()).verifyAndExtract(anyString());
         verify(filterChain, times(1)).doFilter(request, response);
     }
 
@@ -133,7 +129,7 @@ class JwtAuthenticationFilterTest {
     void testDoFilterInternal_ValidationException() throws ServletException, IOException {
         // Arrange
         when(request.getHeader("Authorization")).thenReturn("Bearer " + VALID_TOKEN);
-        when(jwtTokenProvider.validateToken(VALID_TOKEN))
+        when(jwtTokenProvider.verifyAndExtract(VALID_TOKEN))
                 .thenThrow(new RuntimeException("Token validation error"));
 
         // Act
@@ -153,15 +149,13 @@ class JwtAuthenticationFilterTest {
         // Arrange
         String token = "my.jwt.token.here";
         when(request.getHeader("Authorization")).thenReturn("Bearer " + token);
-        when(jwtTokenProvider.validateToken(token)).thenReturn(true);
-        when(jwtTokenProvider.getUsernameFromToken(token)).thenReturn("user");
-        when(jwtTokenProvider.getRoleFromToken(token)).thenReturn("Admin");
+        when(jwtTokenProvider.verifyAndExtract(token)).thenReturn(new JwtClaims("user", "Admin", null));
 
         // Act
         jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
 
         // Assert
-        verify(jwtTokenProvider, times(1)).validateToken(token);
+        verify(jwtTokenProvider, times(1)).verifyAndExtract(token);
     }
 
     @Test
@@ -169,9 +163,7 @@ class JwtAuthenticationFilterTest {
     void testDoFilterInternal_RolePrefixAdded() throws ServletException, IOException {
         // Arrange
         when(request.getHeader("Authorization")).thenReturn("Bearer " + VALID_TOKEN);
-        when(jwtTokenProvider.validateToken(VALID_TOKEN)).thenReturn(true);
-        when(jwtTokenProvider.getUsernameFromToken(VALID_TOKEN)).thenReturn("librarian");
-        when(jwtTokenProvider.getRoleFromToken(VALID_TOKEN)).thenReturn("Librarian");
+        when(jwtTokenProvider.verifyAndExtract(VALID_TOKEN)).thenReturn(new JwtClaims("librarian", "Librarian", null));
 
         // Act
         jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
@@ -188,9 +180,7 @@ class JwtAuthenticationFilterTest {
     void testDoFilterInternal_AlwaysCallsFilterChain() throws ServletException, IOException {
         // Test with valid token
         when(request.getHeader("Authorization")).thenReturn("Bearer " + VALID_TOKEN);
-        when(jwtTokenProvider.validateToken(VALID_TOKEN)).thenReturn(true);
-        when(jwtTokenProvider.getUsernameFromToken(VALID_TOKEN)).thenReturn("user");
-        when(jwtTokenProvider.getRoleFromToken(VALID_TOKEN)).thenReturn("Reader");
+        when(jwtTokenProvider.verifyAndExtract(VALID_TOKEN)).thenReturn(new JwtClaims("user", "Reader", null));
 
         jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
         verify(filterChain, times(1)).doFilter(request, response);
@@ -224,9 +214,7 @@ class JwtAuthenticationFilterTest {
     void testDoFilterInternal_DifferentRoles() throws ServletException, IOException {
         // Test Admin role
         when(request.getHeader("Authorization")).thenReturn("Bearer admintoken");
-        when(jwtTokenProvider.validateToken("admintoken")).thenReturn(true);
-        when(jwtTokenProvider.getUsernameFromToken("admintoken")).thenReturn("admin");
-        when(jwtTokenProvider.getRoleFromToken("admintoken")).thenReturn("Admin");
+        when(jwtTokenProvider.verifyAndExtract("admintoken")).thenReturn(new JwtClaims("admin", "Admin", null));
 
         jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
 
@@ -240,9 +228,7 @@ class JwtAuthenticationFilterTest {
 
         // Test Reader role
         when(request.getHeader("Authorization")).thenReturn("Bearer readertoken");
-        when(jwtTokenProvider.validateToken("readertoken")).thenReturn(true);
-        when(jwtTokenProvider.getUsernameFromToken("readertoken")).thenReturn("reader");
-        when(jwtTokenProvider.getRoleFromToken("readertoken")).thenReturn("Reader");
+        when(jwtTokenProvider.verifyAndExtract("readertoken")).thenReturn(new JwtClaims("reader", "Reader", null));
 
         jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
 
@@ -257,9 +243,7 @@ class JwtAuthenticationFilterTest {
     void testDoFilterInternal_UsernamePrincipal() throws ServletException, IOException {
         // Arrange
         when(request.getHeader("Authorization")).thenReturn("Bearer " + VALID_TOKEN);
-        when(jwtTokenProvider.validateToken(VALID_TOKEN)).thenReturn(true);
-        when(jwtTokenProvider.getUsernameFromToken(VALID_TOKEN)).thenReturn("testuser");
-        when(jwtTokenProvider.getRoleFromToken(VALID_TOKEN)).thenReturn("Reader");
+        when(jwtTokenProvider.verifyAndExtract(VALID_TOKEN)).thenReturn(new JwtClaims("testuser", "Reader", null));
 
         // Act
         jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
@@ -271,22 +255,19 @@ class JwtAuthenticationFilterTest {
     }
 
     @Test
-    @DisplayName("Should handle exception when extracting username")
-    void testDoFilterInternal_ExceptionDuringUsernameExtraction() throws ServletException, IOException {
+    @DisplayName("Should verify the token once instead of once per claim")
+    void testDoFilterInternal_SingleVerification() throws ServletException, IOException {
         // Arrange
         when(request.getHeader("Authorization")).thenReturn("Bearer " + VALID_TOKEN);
-        when(jwtTokenProvider.validateToken(VALID_TOKEN)).thenReturn(true);
-        when(jwtTokenProvider.getUsernameFromToken(VALID_TOKEN))
-                .thenThrow(new RuntimeException("Token parsing error"));
+        when(jwtTokenProvider.verifyAndExtract(VALID_TOKEN)).thenReturn(new JwtClaims("johndoe", "Reader", null));
 
         // Act
         jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
 
         // Assert
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        assertNull(authentication);
-
-        verify(filterChain, times(1)).doFilter(request, response);
+        verify(jwtTokenProvider, times(1)).verifyAndExtract(VALID_TOKEN);
+        verify(jwtTokenProvider, never()).validateToken(anyString());
+        verify(jwtTokenProvider, never()).getUsernameFromToken(anyString());
+        verify(jwtTokenProvider, never()).getRoleFromToken(anyString());
     }
 }
-
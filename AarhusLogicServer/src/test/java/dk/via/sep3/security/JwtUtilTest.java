@@ -425,5 +425,28 @@ class JwtUtilTest {
         assertNotNull(token);
         assertTrue(newJwtUtil.validateToken(token));
     }
-}
 
+    @Test
+    @DisplayName("Should verify a token and extract all claims in one call")
+    void testVerifyAndExtract_ValidToken() {
+        // Arrange
+        String token = jwtUtil.generateToken("johndoe", "Reader");
+
+        // Act
+        JwtClaims claims = jwtUtil.verifyAndExtract(token);
+
+        // Assert
+        assertNotNull(claims);
+        assertEquals("johndoe", claims.getUsername());
+        assertEquals("Reader", claims.getRole());
+        assertNotNull(claims.getExpiresAt());
+    }
+
+    @Test
+    @DisplayName("Should return null claims for an invalid token")
+    void testVerifyAndExtract_InvalidToken() {
+        // Act & Assert
+        assertNull(jwtUtil.verifyAndExtract("invalid.token.here"));
+        assertNull(jwtUtil.verifyAndExtract(null));
+    }
+}
@@ -0,0 +1,92 @@
+package dk.via.sep3.security;
+
+import dk.via.sep3.exceptionHandler.ServiceOverloadedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PasswordHashingExecutorTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private PasswordHashingExecutor executor;
+    // Callers need their own threads; the common pool may have only one
+    private ExecutorService callers;
+
+    @BeforeEach
+    void setUp() {
+        callers = Executors.newFixedThreadPool(2);
+        meterRegistry = new SimpleMeterRegistry();
+        executor = new PasswordHashingExecutor(1, 1, Duration.ofSeconds(2), meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+        callers.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Should run the task on the hashing pool and record its duration")
+    void testRun_Success() {
+        // Act
+        Boolean result = executor.run("matches", () -> true);
+
+        // Assert
+        assertTrue(result);
+        assertEquals(1, meterRegistry.get("password.hashing.duration")
+                .tag("operation", "matches").timer().count());
+    }
+
+    @Test
+    @DisplayName("Should reject with a retry hint once the pool and queue are full")
+    void testRun_QueueFull() throws Exception {
+        // Arrange
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(
+                () -> executor.run("hash", () -> awaitRelease(release)), callers);
+        // The blocking task must hold the only thread before the next one queues
+        waitForGauge("password.hashing.active", 1);
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(
+                () -> executor.run("hash", () -> "queued"), callers);
+        waitForGauge("password.hashing.queue.size", 1);
+
+        // Act
+        ServiceOverloadedException ex = assertThrows(ServiceOverloadedException.class,
+                () -> executor.run("hash", () -> "rejected"));
+
+        // Assert
+        assertEquals(Duration.ofSeconds(2), ex.getRetryAfter());
+        release.countDown();
+        assertEquals("released", running.get(5, TimeUnit.SECONDS));
+        assertEquals("queued", queued.get(5, TimeUnit.SECONDS));
+    }
+
+    private static String awaitRelease(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+            return "released";
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return "interrupted";
+        }
+    }
+
+    private void waitForGauge(String name, int value) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.get(name).gauge().value() < value) {
+            assertTrue(System.nanoTime() < deadline, name + " never reached " + value);
+            Thread.sleep(5);
+        }
+    }
+}
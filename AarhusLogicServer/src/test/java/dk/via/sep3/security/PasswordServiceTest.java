@@ -1,5 +1,7 @@
 package dk.via.sep3.security;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -8,6 +10,8 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 
+import java.time.Duration;
+
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
@@ -21,11 +25,18 @@ class PasswordServiceTest {
     @Mock
     private BCryptPasswordEncoder encoder;
 
+    private PasswordHashingExecutor hashingExecutor;
     private PasswordService passwordService;
 
     @BeforeEach
     void setUp() {
-        passwordService = new PasswordService(encoder);
+        hashingExecutor = new PasswordHashingExecutor(2, 4, Duration.ofSeconds(1), new SimpleMeterRegistry());
+        passwordService = new PasswordService(encoder, hashingExecutor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        hashingExecutor.shutdown();
     }
 
     @Test
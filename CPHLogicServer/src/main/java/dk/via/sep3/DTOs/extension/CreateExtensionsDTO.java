@@ -0,0 +1,39 @@
+package dk.via.sep3.DTOs.extension;
+
+import java.util.List;
+
+public class CreateExtensionsDTO
+{
+  private String username;
+  private List<Integer> loanIds;
+
+  public CreateExtensionsDTO()
+  {
+  }
+
+  public CreateExtensionsDTO(String username, List<Integer> loanIds)
+  {
+    this.username = username;
+    this.loanIds = loanIds;
+  }
+
+  public String getUsername()
+  {
+    return username;
+  }
+
+  public void setUsername(String username)
+  {
+    this.username = username;
+  }
+
+  public List<Integer> getLoanIds()
+  {
+    return loanIds;
+  }
+
+  public void setLoanIds(List<Integer> loanIds)
+  {
+    this.loanIds = loanIds;
+  }
+}
@@ -0,0 +1,81 @@
+package dk.via.sep3.DTOs.extension;
+
+import dk.via.sep3.DTOs.loan.LoanDTO;
+
+/**
+ * One item of a batch extension. On success {@code loan} is set, with its
+ * new due date; on failure {@code errorCode} and {@code message} are, with the
+ * same codes the error response of a single extension uses.
+ */
+public class ExtensionResultDTO
+{
+  private int loanId;
+  private boolean success;
+  private LoanDTO loan;
+  private String errorCode;
+  private String message;
+
+  public ExtensionResultDTO()
+  {
+  }
+
+  public ExtensionResultDTO(int loanId, boolean success, LoanDTO loan,
+                            String errorCode, String message)
+  {
+    this.loanId = loanId;
+    this.success = success;
+    this.loan = loan;
+    this.errorCode = errorCode;
+    this.message = message;
+  }
+
+  public int getLoanId()
+  {
+    return loanId;
+  }
+
+  public void setLoanId(int loanId)
+  {
+    this.loanId = loanId;
+  }
+
+  public boolean isSuccess()
+  {
+    return success;
+  }
+
+  public void setSuccess(boolean success)
+  {
+    this.success = success;
+  }
+
+  public LoanDTO getLoan()
+  {
+    return loan;
+  }
+
+  public void setLoan(LoanDTO loan)
+  {
+    this.loan = loan;
+  }
+
+  public String getErrorCode()
+  {
+    return errorCode;
+  }
+
+  public void setErrorCode(String errorCode)
+  {
+    this.errorCode = errorCode;
+  }
+
+  public String getMessage()
+  {
+    return message;
+  }
+
+  public void setMessage(String message)
+  {
+    this.message = message;
+  }
+}
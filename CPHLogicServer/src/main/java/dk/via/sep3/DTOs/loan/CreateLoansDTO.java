@@ -0,0 +1,39 @@
+package dk.via.sep3.DTOs.loan;
+
+import java.util.List;
+
+public class CreateLoansDTO
+{
+  private String username;
+  private List<String> bookISBNs;
+
+  public CreateLoansDTO()
+  {
+  }
+
+  public CreateLoansDTO(String username, List<String> bookISBNs)
+  {
+    this.username = username;
+    this.bookISBNs = bookISBNs;
+  }
+
+  public String getUsername()
+  {
+    return username;
+  }
+
+  public void setUsername(String username)
+  {
+    this.username = username;
+  }
+
+  public List<String> getBookISBNs()
+  {
+    return bookISBNs;
+  }
+
+  public void setBookISBNs(List<String> bookISBNs)
+  {
+    this.bookISBNs = bookISBNs;
+  }
+}
@@ -0,0 +1,146 @@
+package dk.via.sep3.application.domain;
+
+import java.util.List;
+
+/**
+ * How many copies of one ISBN there are in each state, plus one available
+ * copy to lend, so "is it on the shelf?" needs no list of copies.
+ */
+public class AvailabilitySummary
+{
+  private final int total;
+  private final int available;
+  private final int borrowed;
+  private final int reserved;
+  private final int availableBookId;
+
+  private AvailabilitySummary(int total, int available, int borrowed,
+      int reserved, int availableBookId)
+  {
+    this.total = total;
+    this.available = available;
+    this.borrowed = borrowed;
+    this.reserved = reserved;
+    this.availableBookId = availableBookId;
+  }
+
+  /**
+   * @param availableBookId an available copy, or 0 if none is available
+   */
+  public static AvailabilitySummary of(int total, int available, int borrowed,
+      int reserved, int availableBookId)
+  {
+    return new AvailabilitySummary(total, available, borrowed, reserved,
+        available > 0 ? availableBookId : 0);
+  }
+
+  /**
+   * Counts the given copies of one ISBN, picking the available copy with the
+   * lowest id like the persistence server does.
+   */
+  public static AvailabilitySummary fromCopies(List<Book> copies)
+  {
+    int available = 0;
+    int borrowed = 0;
+    int reserved = 0;
+    int availableBookId = 0;
+    for (Book copy : copies)
+    {
+      if (copy.getState() == State.AVAILABLE)
+      {
+        available++;
+        if (availableBookId == 0 || copy.getId() < availableBookId)
+        {
+          availableBookId = copy.getId();
+        }
+      }
+      else if (copy.getState() == State.BORROWED)
+      {
+        borrowed++;
+      }
+      else if (copy.getState() == State.RESERVED)
+      {
+        reserved++;
+      }
+    }
+    return new AvailabilitySummary(copies.size(), available, borrowed,
+        reserved, availableBookId);
+  }
+
+  /**
+   * Applies a state change of one copy of this ISBN.
+   *
+   * @return the updated summary, or null if it can no longer be kept exact:
+   * the counts do not add up, or the available copy was taken while others
+   * remain whose ids are unknown here
+   */
+  public AvailabilitySummary withStateChange(int bookId, State from, State to)
+  {
+    if (from == to)
+    {
+      return this;
+    }
+    int[] counts = {available, borrowed, reserved};
+    if (counts[from.ordinal()] == 0)
+    {
+      return null;
+    }
+    counts[from.ordinal()]--;
+    counts[to.ordinal()]++;
+
+    int nextAvailableBookId = availableBookId;
+    if (to == State.AVAILABLE && availableBookId == 0)
+    {
+      nextAvailableBookId = bookId;
+    }
+    else if (from == State.AVAILABLE && bookId == availableBookId)
+    {
+      if (counts[State.AVAILABLE.ordinal()] > 0)
+      {
+        return null;
+      }
+      nextAvailableBookId = 0;
+    }
+    return new AvailabilitySummary(total, counts[State.AVAILABLE.ordinal()],
+        counts[State.BORROWED.ordinal()], counts[State.RESERVED.ordinal()],
+        nextAvailableBookId);
+  }
+
+  public int getTotal()
+  {
+    return total;
+  }
+
+  public int getAvailable()
+  {
+    return available;
+  }
+
+  public int getBorrowed()
+  {
+    return borrowed;
+  }
+
+  public int getReserved()
+  {
+    return reserved;
+  }
+
+  /**
+   * @return an available copy, or 0 if none is available
+   */
+  public int getAvailableBookId()
+  {
+    return availableBookId;
+  }
+
+  public boolean exists()
+  {
+    return total > 0;
+  }
+
+  public boolean isAvailable()
+  {
+    return available > 0;
+  }
+}
@@ -0,0 +1,28 @@
+package dk.via.sep3.application.domain;
+
+import java.util.List;
+
+/**
+ * One page of a catalog lookup. The next cursor is null on the last page.
+ */
+public class BookPage
+{
+  private final List<Book> books;
+  private final String nextCursor;
+
+  public BookPage(List<Book> books, String nextCursor)
+  {
+    this.books = books;
+    this.nextCursor = nextCursor;
+  }
+
+  public List<Book> getBooks()
+  {
+    return books;
+  }
+
+  public String getNextCursor()
+  {
+    return nextCursor;
+  }
+}
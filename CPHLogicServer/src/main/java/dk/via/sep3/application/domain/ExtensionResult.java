@@ -0,0 +1,55 @@
+package dk.via.sep3.application.domain;
+
+/**
+ * Outcome of extending one loan as part of a batch: either the extended loan,
+ * or the exception a single extension of that loan would have thrown.
+ */
+public class ExtensionResult
+{
+  private final int loanId;
+  private final Loan loan;
+  private final RuntimeException error;
+
+  private ExtensionResult(int loanId, Loan loan, RuntimeException error)
+  {
+    this.loanId = loanId;
+    this.loan = loan;
+    this.error = error;
+  }
+
+  public static ExtensionResult success(int loanId, Loan loan)
+  {
+    return new ExtensionResult(loanId, loan, null);
+  }
+
+  public static ExtensionResult failure(int loanId, RuntimeException error)
+  {
+    return new ExtensionResult(loanId, null, error);
+  }
+
+  public int getLoanId()
+  {
+    return loanId;
+  }
+
+  public boolean isSuccess()
+  {
+    return error == null;
+  }
+
+  /**
+   * @return the loan with its new due date, or null if the item failed
+   */
+  public Loan getLoan()
+  {
+    return loan;
+  }
+
+  /**
+   * @return why the item failed, or null if it succeeded
+   */
+  public RuntimeException getError()
+  {
+    return error;
+  }
+}
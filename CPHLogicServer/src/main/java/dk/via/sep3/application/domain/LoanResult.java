@@ -0,0 +1,55 @@
+package dk.via.sep3.application.domain;
+
+/**
+ * Outcome of borrowing one ISBN as part of a batch: either the loan that was
+ * made, or the exception a single checkout of that ISBN would have thrown.
+ */
+public class LoanResult
+{
+  private final String bookISBN;
+  private final Loan loan;
+  private final RuntimeException error;
+
+  private LoanResult(String bookISBN, Loan loan, RuntimeException error)
+  {
+    this.bookISBN = bookISBN;
+    this.loan = loan;
+    this.error = error;
+  }
+
+  public static LoanResult success(String bookISBN, Loan loan)
+  {
+    return new LoanResult(bookISBN, loan, null);
+  }
+
+  public static LoanResult failure(String bookISBN, RuntimeException error)
+  {
+    return new LoanResult(bookISBN, null, error);
+  }
+
+  public String getBookISBN()
+  {
+    return bookISBN;
+  }
+
+  public boolean isSuccess()
+  {
+    return error == null;
+  }
+
+  /**
+   * @return the persisted loan, or null if the item failed
+   */
+  public Loan getLoan()
+  {
+    return loan;
+  }
+
+  /**
+   * @return why the item failed, or null if it succeeded
+   */
+  public RuntimeException getError()
+  {
+    return error;
+  }
+}
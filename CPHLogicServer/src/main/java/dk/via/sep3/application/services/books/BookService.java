@@ -1,11 +1,16 @@
 package dk.via.sep3.application.services.books;
 
 import dk.via.sep3.application.domain.Book;
+import dk.via.sep3.application.domain.BookPage;
+import dk.via.sep3.application.domain.BookQuery;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 
 public interface BookService {
     List<Book> getAllBooks();
+    BookPage getBooks(BookQuery query);
+    void streamAllBooks(Consumer<Book> consumer);
     Book getBookByIsbn(String isbn);
 }
@@ -0,0 +1,201 @@
+package dk.via.sep3.application.services.loans;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Unreturned loans keyed on the day their next due event fires, so finding
+ * the loans that became due soon or overdue touches only those loans rather
+ * than every active loan.
+ * <p>
+ * A loan fires {@link LoanDueEvent.Kind#DUE_SOON} {@code dueSoonDays} before
+ * its due date, then {@link LoanDueEvent.Kind#OVERDUE} the day after it.
+ * Events whose day has already passed when a loan is put are skipped, so
+ * reloading the index does not announce old events again. Only a missed
+ * {@code OVERDUE} can be brought back, with {@link #catchUpOverdue}.
+ */
+final class DueDateIndex
+{
+  private final int dueSoonDays;
+  // Loan ids by the day their next event fires, in the order they were put
+  private final TreeMap<LocalDate, Set<Integer>> loanIdsByDay = new TreeMap<>();
+  private final Map<Integer, Due> pending = new HashMap<>();
+
+  DueDateIndex(int dueSoonDays)
+  {
+    this.dueSoonDays = dueSoonDays;
+  }
+
+  /**
+   * Schedules the next event of a loan due on {@code dueDate}. A loan
+   * already indexed with the same due date keeps its place, so an event
+   * that has fired is not repeated.
+   */
+  synchronized void put(int loanId, LocalDate dueDate, LocalDate today)
+  {
+    Due current = pending.get(loanId);
+    if (current != null && current.dueDate.equals(dueDate))
+    {
+      return;
+    }
+    if (current != null)
+    {
+      unschedule(current);
+    }
+    Due next = firstDue(loanId, dueDate, today);
+    if (next != null)
+    {
+      schedule(next);
+    }
+  }
+
+  /**
+   * Drops a loan, unless it was rescheduled since {@code due} was handed out.
+   */
+  synchronized void remove(Due due)
+  {
+    if (pending.get(due.loanId) == due)
+    {
+      unschedule(due);
+    }
+  }
+
+  /**
+   * @return the events whose day is {@code today} or earlier, earliest first
+   */
+  synchronized List<Due> dueBy(LocalDate today)
+  {
+    List<Due> due = new ArrayList<>();
+    for (Set<Integer> loanIds : loanIdsByDay.headMap(today, true).values())
+    {
+      for (int loanId : loanIds)
+      {
+        due.add(pending.get(loanId));
+      }
+    }
+    return due;
+  }
+
+  /**
+   * Moves a loan past an event that has been announced: on to
+   * {@code OVERDUE} after {@code DUE_SOON}, out of the index after
+   * {@code OVERDUE}. Does nothing if the loan was rescheduled meanwhile.
+   */
+  synchronized void fired(Due due)
+  {
+    if (pending.get(due.loanId) != due)
+    {
+      return;
+    }
+    unschedule(due);
+    if (due.kind == LoanDueEvent.Kind.DUE_SOON)
+    {
+      schedule(new Due(due.loanId, due.dueDate, LoanDueEvent.Kind.OVERDUE,
+          due.dueDate.plusDays(1)));
+    }
+  }
+
+  /**
+   * Schedules the {@code OVERDUE} event of a loan whose overdue day has
+   * already passed, on that day, so the next check announces it.
+   *
+   * @return whether it was scheduled; a loan already indexed, or not yet
+   * past its overdue day, is left to {@link #put}
+   */
+  synchronized boolean catchUpOverdue(int loanId, LocalDate dueDate,
+      LocalDate today)
+  {
+    LocalDate overdue = dueDate.plusDays(1);
+    if (pending.containsKey(loanId) || !overdue.isBefore(today))
+    {
+      return false;
+    }
+    schedule(new Due(loanId, dueDate, LoanDueEvent.Kind.OVERDUE, overdue));
+    return true;
+  }
+
+  synchronized int size()
+  {
+    return pending.size();
+  }
+
+  private Due firstDue(int loanId, LocalDate dueDate, LocalDate today)
+  {
+    LocalDate dueSoon = dueDate.minusDays(dueSoonDays);
+    if (dueSoonDays > 0 && !dueSoon.isBefore(today))
+    {
+      return new Due(loanId, dueDate, LoanDueEvent.Kind.DUE_SOON, dueSoon);
+    }
+    LocalDate overdue = dueDate.plusDays(1);
+    if (!overdue.isBefore(today))
+    {
+      return new Due(loanId, dueDate, LoanDueEvent.Kind.OVERDUE, overdue);
+    }
+    return null;
+  }
+
+  private void schedule(Due due)
+  {
+    pending.put(due.loanId, due);
+    loanIdsByDay.computeIfAbsent(due.day, day -> new LinkedHashSet<>())
+        .add(due.loanId);
+  }
+
+  private void unschedule(Due due)
+  {
+    pending.remove(due.loanId);
+    Set<Integer> loanIds = loanIdsByDay.get(due.day);
+    loanIds.remove(due.loanId);
+    if (loanIds.isEmpty())
+    {
+      loanIdsByDay.remove(due.day);
+    }
+  }
+
+  /**
+   * The next event of one loan.
+   */
+  static final class Due
+  {
+    private final int loanId;
+    private final LocalDate dueDate;
+    private final LoanDueEvent.Kind kind;
+    // The day the event fires
+    private final LocalDate day;
+
+    private Due(int loanId, LocalDate dueDate, LoanDueEvent.Kind kind,
+        LocalDate day)
+    {
+      this.loanId = loanId;
+      this.dueDate = dueDate;
+      this.kind = kind;
+      this.day = day;
+    }
+
+    int getLoanId()
+    {
+      return loanId;
+    }
+
+    LocalDate getDueDate()
+    {
+      return dueDate;
+    }
+
+    LoanDueEvent.Kind getKind()
+    {
+      return kind;
+    }
+
+    LocalDate getDay()
+    {
+      return day;
+    }
+  }
+}
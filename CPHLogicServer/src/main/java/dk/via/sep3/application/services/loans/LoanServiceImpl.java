@@ -3,16 +3,27 @@ package dk.via.sep3.application.services.loans;
 import dk.via.sep3.exceptionHandler.GrpcCommunicationException;
 import dk.via.sep3.exceptionHandler.ResourceNotFoundException;
 import dk.via.sep3.grpcConnection.bookGrpcService.BookGrpcService;
+import dk.via.sep3.grpcConnection.deadline.RequestBudget;
+import dk.via.sep3.grpcConnection.fanOut.GrpcFanOut;
 import dk.via.sep3.grpcConnection.loanGrpcService.LoanGrpcService;
+import dk.via.sep3.application.domain.AvailabilitySummary;
 import dk.via.sep3.application.domain.Book;
+import dk.via.sep3.application.domain.ExtensionResult;
 import dk.via.sep3.application.domain.Loan;
+import dk.via.sep3.application.domain.LoanResult;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
 
 import java.sql.Date;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 @Service public class LoanServiceImpl implements LoanService
 {
@@ -20,23 +31,47 @@ import java.util.List;
       LoanServiceImpl.class);
   private final BookGrpcService bookGrpcService;
   private final LoanGrpcService loanGrpcService;
+  private final GrpcFanOut grpcFanOut;
+  private final OverdueLoanMonitor overdueLoanMonitor;
+  // Cleared when the persistence server answers BorrowBook with
+  // UNIMPLEMENTED, e.g. mid rolling upgrade; loans are then made step by
+  // step until this node restarts
+  private volatile boolean borrowBookSupported = true;
+  // Likewise for BorrowBooks; batches are then lent one item at a time
+  private volatile boolean borrowBooksSupported = true;
+  // Likewise for GetLoansByIds and ExtendLoans, which ship together
+  private volatile boolean extendLoansSupported = true;
+
+  static final int MAX_BATCH_SIZE = 20;
 
   public LoanServiceImpl(BookGrpcService bookGrpcService,
-      LoanGrpcService loanGrpcService)
+      LoanGrpcService loanGrpcService, GrpcFanOut grpcFanOut,
+      OverdueLoanMonitor overdueLoanMonitor)
   {
     this.bookGrpcService = bookGrpcService;
     this.loanGrpcService = loanGrpcService;
+    this.grpcFanOut = grpcFanOut;
+    this.overdueLoanMonitor = overdueLoanMonitor;
   }
 
   /**
    * Create a new loan (borrow a book) for a user.
    * <p>
-   * This method performs several steps:
+   * The loan is made with a single {@code BorrowBook} call: the persistence
+   * server checks for a duplicate active loan, takes an available copy of the
+   * ISBN and records the loan in one transaction, so concurrent borrowers
+   * never get the same copy.
+   * <p>
+   * Against a persistence server without {@code BorrowBook} it falls back to
+   * separate steps:
    * <ol>
-   *   <li>Validates the user does not already have an active loan for the same ISBN.</li>
-   *   <li>Finds an available copy of the requested ISBN.</li>
-   *   <li>Creates and persists the Loan via gRPC.</li>
-   *   <li>Updates the book status to "Borrowed".</li>
+   *   <li>Validates the user does not already have an active loan for the same ISBN
+   *   and, concurrently, checks the availability summary of the requested ISBN.</li>
+   *   <li>Claims the available copy the summary names by moving it from
+   *   "Available" to "Borrowed" only if no other request did first. Only on
+   *   a conflict are the copies listed, trying the next available one.</li>
+   *   <li>Creates and persists the Loan via gRPC, handing the copy back if
+   *   that fails.</li>
    * </ol>
    *
    * @param loan a Loan object containing at least the username and the book ISBN.
@@ -49,20 +84,166 @@ import java.util.List;
   {
     logger.info("Creating loan for user {} and ISBN {}", loan.getUsername(), loan.getBookISBN());
 
-    // Step 1: Validate no duplicate active loan
-    validateNoDuplicateActiveLoan(loan.getUsername(), loan.getBookISBN());
+    if (borrowBookSupported)
+    {
+      try
+      {
+        return borrowBook(loan);
+      }
+      catch (UnsupportedOperationException ex)
+      {
+        borrowBookSupported = false;
+        logger.warn("Persistence server does not implement BorrowBook; "
+            + "creating loans step by step");
+      }
+    }
+    return createLoanStepwise(loan);
+  }
+
+  /**
+   * Borrow several ISBNs for one user, such as a stack of books at the
+   * counter.
+   * <p>
+   * All items go to the persistence server in one {@code BorrowBooks} call,
+   * and each is checked and lent as by {@link #createLoan(Loan)}. A failing
+   * item does not stop the others. Against a persistence server without
+   * {@code BorrowBooks} the items are lent one at a time.
+   *
+   * @param username the borrower
+   * @param isbns    the ISBNs to borrow, at most {@value #MAX_BATCH_SIZE}
+   * @return one result per ISBN, in request order
+   * @throws IllegalArgumentException   if no ISBNs or too many are given.
+   * @throws GrpcCommunicationException if the batch could not be sent.
+   */
+  @Override public List<LoanResult> createLoans(String username,
+      List<String> isbns)
+  {
+    if (isbns == null || isbns.isEmpty() || isbns.size() > MAX_BATCH_SIZE)
+    {
+      throw new IllegalArgumentException(
+          "Between 1 and " + MAX_BATCH_SIZE + " books can be borrowed at once");
+    }
+    logger.info("Creating {} loans for user {}", isbns.size(), username);
+
+    if (borrowBooksSupported)
+    {
+      try
+      {
+        return borrowBooks(username, isbns);
+      }
+      catch (UnsupportedOperationException ex)
+      {
+        borrowBooksSupported = false;
+        logger.warn("Persistence server does not implement BorrowBooks; "
+            + "creating batched loans one at a time");
+      }
+    }
+    return createLoansOneByOne(username, isbns);
+  }
 
-    // Step 2: Find available book
-    Book availableBook = findAndValidateAvailableBook(loan.getBookISBN());
+  private List<LoanResult> borrowBooks(String username, List<String> isbns)
+  {
+    List<Loan> requests = new ArrayList<>();
+    for (String isbn : isbns)
+    {
+      Loan request = createLoanObject(username);
+      request.setBookISBN(isbn);
+      requests.add(request);
+    }
 
-    // Step 3: Create and persist loan
-    Loan createdLoan = createAndPersistLoan(loan.getUsername(), availableBook);
+    List<LoanResult> results = loanGrpcService.borrowBooks(requests);
+    for (LoanResult result : results)
+    {
+      if (result.isSuccess())
+      {
+        bookGrpcService.bookStateChanged(result.getLoan().getBookId());
+        overdueLoanMonitor.track(result.getLoan());
+      }
+    }
+    logger.info("Created {} of {} loans for user {}",
+        results.stream().filter(LoanResult::isSuccess).count(), isbns.size(),
+        username);
+    return results;
+  }
 
-    // Step 4: Update book status
-    updateBookStatusToBorrowed(availableBook.getId());
+  private List<LoanResult> createLoansOneByOne(String username,
+      List<String> isbns)
+  {
+    List<LoanResult> results = new ArrayList<>();
+    for (String isbn : isbns)
+    {
+      Loan loan = new Loan();
+      loan.setUsername(username);
+      loan.setBookISBN(isbn);
+      try
+      {
+        results.add(LoanResult.success(isbn, createLoan(loan)));
+      }
+      catch (RuntimeException ex)
+      {
+        results.add(LoanResult.failure(isbn, ex));
+      }
+    }
+    return results;
+  }
+
+  /**
+   * Borrows an available copy in one round trip.
+   */
+  private Loan borrowBook(Loan loan)
+  {
+    Loan request = createLoanObject(loan.getUsername());
+    request.setBookISBN(loan.getBookISBN());
+
+    Loan createdLoan = loanGrpcService.borrowBook(request);
+    if (createdLoan == null || createdLoan.getLoanId() <= 0)
+    {
+      logger.error("Failed to borrow ISBN {} via gRPC for user: {}",
+          loan.getBookISBN(), loan.getUsername());
+      throw new RuntimeException("Failed to create loan - invalid response from server");
+    }
+    bookGrpcService.bookStateChanged(createdLoan.getBookId());
+    overdueLoanMonitor.track(createdLoan);
 
     logger.info("Loan created successfully with ID {} for book {}",
-        createdLoan.getLoanId(), availableBook.getId());
+        createdLoan.getLoanId(), createdLoan.getBookId());
+    return createdLoan;
+  }
+
+  /**
+   * Creates a loan with separate lookups, loan creation and state update.
+   */
+  private Loan createLoanStepwise(Loan loan)
+  {
+    // Steps 1 and 2 are independent lookups, so they run concurrently and
+    // the first validation failure cancels the other
+    AvailabilitySummary availability;
+    try (GrpcFanOut.Scope scope = grpcFanOut.open())
+    {
+      // Step 1: Validate no duplicate active loan
+      scope.fork(() -> validateNoDuplicateActiveLoan(loan.getUsername(),
+          loan.getBookISBN()));
+
+      // Step 2: Check that a copy is available
+      CompletableFuture<AvailabilitySummary> summary = scope.fork(
+          () -> findAndValidateAvailability(loan.getBookISBN()));
+
+      scope.join();
+      availability = summary.join();
+    }
+
+    // Step 3: Claim a copy, unless the lookups used up the budget
+    RequestBudget.ensureRemaining("creating the loan");
+    int claimedBookId = claimAvailableBook(loan.getBookISBN(), availability);
+
+    // Step 4: Create and persist loan; the copy is taken now, so this must
+    // finish
+    Loan createdLoan = RequestBudget.finishOutsideBudget(
+        () -> createLoanForClaimedBook(loan.getUsername(), claimedBookId));
+    overdueLoanMonitor.track(createdLoan);
+
+    logger.info("Loan created successfully with ID {} for book {}",
+        createdLoan.getLoanId(), claimedBookId);
 
     return createdLoan;
   }
@@ -100,10 +281,133 @@ import java.util.List;
 
     // Step 5: Persist the extension
     loanGrpcService.extendLoan(loan);
+    overdueLoanMonitor.track(loan);
 
     logger.info("Loan {} successfully extended to {}", loan.getLoanId(), loan.getDueDate());
   }
 
+  /**
+   * Extend several loans of one user, such as everything on loan before a
+   * holiday.
+   * <p>
+   * The loans are fetched with one {@code GetLoansByIds} call and each is
+   * checked as by a single extension; the eligible ones are saved with one
+   * {@code ExtendLoans} call, so the batch costs two round trips however
+   * many loans it holds. An ineligible loan does not stop the others.
+   * Against a persistence server without these calls the loans are extended
+   * one at a time.
+   *
+   * @param username the borrower
+   * @param loanIds  the loans to extend, at most {@value #MAX_BATCH_SIZE}
+   * @return one result per loan id, in request order
+   * @throws IllegalArgumentException   if no loan ids or too many are given.
+   * @throws GrpcCommunicationException if the loans could not be fetched or saved.
+   */
+  @Override public List<ExtensionResult> extendLoans(String username,
+      List<Integer> loanIds)
+  {
+    if (loanIds == null || loanIds.isEmpty() || loanIds.size() > MAX_BATCH_SIZE)
+    {
+      throw new IllegalArgumentException(
+          "Between 1 and " + MAX_BATCH_SIZE + " loans can be extended at once");
+    }
+    logger.info("Extending {} loans for user {}", loanIds.size(), username);
+
+    if (extendLoansSupported)
+    {
+      try
+      {
+        return extendLoansBatched(username, loanIds);
+      }
+      catch (UnsupportedOperationException ex)
+      {
+        extendLoansSupported = false;
+        logger.warn("Persistence server does not implement GetLoansByIds "
+            + "or ExtendLoans; extending batched loans one at a time");
+      }
+    }
+    return extendLoansOneByOne(username, loanIds);
+  }
+
+  private List<ExtensionResult> extendLoansBatched(String username,
+      List<Integer> loanIds)
+  {
+    Map<Integer, Loan> found = new HashMap<>();
+    for (Loan loan : loanGrpcService.getLoansByIds(loanIds))
+    {
+      found.put(loan.getLoanId(), loan);
+    }
+
+    List<ExtensionResult> results = new ArrayList<>();
+    List<Loan> eligible = new ArrayList<>();
+    Set<Integer> seen = new HashSet<>();
+    for (int loanId : loanIds)
+    {
+      try
+      {
+        requireFirstMention(seen, loanId);
+        Loan loan = found.get(loanId);
+        if (loan == null)
+        {
+          logger.error("Loan not found with ID: {}", loanId);
+          throw new IllegalArgumentException("Loan not found with ID: " + loanId);
+        }
+        prepareExtension(loan, username);
+        eligible.add(loan);
+        results.add(ExtensionResult.success(loanId, loan));
+      }
+      catch (RuntimeException ex)
+      {
+        results.add(ExtensionResult.failure(loanId, ex));
+      }
+    }
+
+    if (!eligible.isEmpty())
+    {
+      loanGrpcService.extendLoans(eligible);
+      eligible.forEach(overdueLoanMonitor::track);
+    }
+    logger.info("Extended {} of {} loans for user {}", eligible.size(),
+        loanIds.size(), username);
+    return results;
+  }
+
+  private List<ExtensionResult> extendLoansOneByOne(String username,
+      List<Integer> loanIds)
+  {
+    List<ExtensionResult> results = new ArrayList<>();
+    Set<Integer> seen = new HashSet<>();
+    for (int loanId : loanIds)
+    {
+      try
+      {
+        requireFirstMention(seen, loanId);
+        Loan loan = retrieveAndValidateLoanExists(loanId);
+        prepareExtension(loan, username);
+        loanGrpcService.extendLoan(loan);
+        overdueLoanMonitor.track(loan);
+        results.add(ExtensionResult.success(loanId, loan));
+      }
+      catch (RuntimeException ex)
+      {
+        results.add(ExtensionResult.failure(loanId, ex));
+      }
+    }
+    return results;
+  }
+
+  /**
+   * A loan listed twice must not be extended twice.
+   */
+  private static void requireFirstMention(Set<Integer> seen, int loanId)
+  {
+    if (!seen.add(loanId))
+    {
+      throw new IllegalArgumentException(
+          "Loan " + loanId + " is listed more than once");
+    }
+  }
+
   /**
    * Retrieve active loans for a given username.
    *
@@ -157,61 +461,144 @@ import java.util.List;
   }
 
   /**
-   * Finds and validates that an available book exists for the given ISBN.
+   * Validates that an available copy exists for the given ISBN, from the
+   * copy counts rather than the copies themselves. The counts come from the
+   * persistence server, not the book cache, since a copy is claimed on them.
    *
    * @param isbn the ISBN to search for
-   * @return an available Book domain object
+   * @return the availability summary, naming an available copy
    * @throws IllegalArgumentException if no books or no available copies are found
    */
-  private Book findAndValidateAvailableBook(String isbn)
+  private AvailabilitySummary findAndValidateAvailability(String isbn)
   {
-    List<Book> books = bookGrpcService.getBooksByIsbn(isbn);
-    logger.debug("Found {} books with ISBN {}", books.size(), isbn);
+    AvailabilitySummary availability =
+        bookGrpcService.getCurrentAvailabilitySummary(isbn);
+    logger.debug("Found {} books with ISBN {}, {} available",
+        availability.getTotal(), isbn, availability.getAvailable());
 
-    if (books.isEmpty())
+    if (!availability.exists())
     {
       logger.error("No books found with ISBN {}", isbn);
       throw new IllegalArgumentException("No books found with the specified ISBN");
     }
-
-    return findAvailableBook(books);
+    if (!availability.isAvailable())
+    {
+      logger.error("No available books found from {} total books",
+          availability.getTotal());
+      throw new IllegalArgumentException("No available copies of this book");
+    }
+    return availability;
   }
 
   /**
-   * Finds the first available book from a list.
+   * Finds the available books in a list.
    *
    * @param books candidate books
-   * @return the first Book whose state equals "AVAILABLE"
+   * @return the Books whose state equals "AVAILABLE", in list order
    * @throws IllegalArgumentException if no available copy is found
    */
-  private Book findAvailableBook(List<Book> books)
+  private List<Book> findAvailableBooks(List<Book> books)
   {
+    List<Book> available = books.stream()
+        .filter(book -> book.getState().toString().equalsIgnoreCase("AVAILABLE"))
+        .toList();
+    if (available.isEmpty())
+    {
+      logger.error("No available books found from {} total books", books.size());
+      throw new IllegalArgumentException("No available copies of this book");
+    }
+    logger.debug("Found {} available books", available.size());
+    return available;
+  }
+
+  /**
+   * Marks the copy named by the summary as "Borrowed", or failing that the
+   * first other copy that is still available. The update only applies if
+   * the copy is still "Available", so when another logic server claims it
+   * first this moves on to the next copy.
+   *
+   * @param isbn         the ISBN being borrowed
+   * @param availability the summary naming an available copy
+   * @return the id of the claimed copy
+   * @throws IllegalArgumentException if every copy was claimed by others
+   */
+  private int claimAvailableBook(String isbn, AvailabilitySummary availability)
+  {
+    int bookId = availability.getAvailableBookId();
+    if (bookGrpcService.updateBookStatus(bookId, "Available", "Borrowed"))
+    {
+      logger.debug("Book {} status updated to Borrowed", bookId);
+      return bookId;
+    }
+    logger.info("Book {} was claimed by another request, listing the other copies",
+        bookId);
+
+    List<Book> books = findAvailableBooks(
+        bookGrpcService.getCurrentBooksByIsbn(isbn));
     for (Book book : books)
     {
-      if (book.getState().toString().equalsIgnoreCase("AVAILABLE"))
+      if (book.getId() == bookId)
+      {
+        continue;
+      }
+      if (bookGrpcService.updateBookStatus(book.getId(), "Available",
+          "Borrowed"))
       {
-        logger.debug("Available book found with ID: {}", book.getId());
-        return book;
+        logger.debug("Book {} status updated to Borrowed", book.getId());
+        return book.getId();
       }
+      logger.info("Book {} was claimed by another request, trying the next copy",
+          book.getId());
     }
-
-    logger.error("No available books found from {} total books", books.size());
+    logger.error("All {} available books were claimed by other requests",
+        books.size());
     throw new IllegalArgumentException("No available copies of this book");
   }
 
+  /**
+   * Persists the loan for a claimed copy and hands the copy back if that
+   * fails, so it is not left "Borrowed" without a loan.
+   */
+  private Loan createLoanForClaimedBook(String username, int bookId)
+  {
+    try
+    {
+      return createAndPersistLoan(username, bookId);
+    }
+    catch (RuntimeException ex)
+    {
+      releaseClaimedBook(bookId);
+      throw ex;
+    }
+  }
+
+  private void releaseClaimedBook(long bookId)
+  {
+    try
+    {
+      bookGrpcService.updateBookStatus((int) bookId, "Borrowed", "Available");
+    }
+    catch (RuntimeException ex)
+    {
+      logger.error("Could not hand book {} back after the loan failed", bookId,
+          ex);
+    }
+  }
+
   /**
    * Creates a loan object and persists it via gRPC.
    *
    * @param username borrower
-   * @param book     book to borrow
+   * @param bookId   copy to borrow
    * @return the persisted Loan
    */
-  private Loan createAndPersistLoan(String username, Book book)
+  private Loan createAndPersistLoan(String username, int bookId)
   {
-    Loan loan = createLoanObject(username, book);
+    Loan loan = createLoanObject(username);
+    loan.setBookId(bookId);
     Loan persistedLoan = loanGrpcService.createLoan(loan);
 
-    validateLoanPersistence(persistedLoan, username, book.getId());
+    validateLoanPersistence(persistedLoan, username, bookId);
 
     return persistedLoan;
   }
@@ -219,7 +606,7 @@ import java.util.List;
   /**
    * Creates a new loan domain object with proper dates.
    */
-  private Loan createLoanObject(String username, Book book)
+  private Loan createLoanObject(String username)
   {
     Date today = new Date(System.currentTimeMillis());
     Date borrowDate = Date.valueOf(today.toLocalDate());
@@ -227,7 +614,6 @@ import java.util.List;
 
     Loan loan = new Loan();
     loan.setUsername(username);
-    loan.setBookId(book.getId());
     loan.setBorrowDate(borrowDate);
     loan.setDueDate(dueDate);
     loan.setNumberOfExtensions(0);
@@ -248,17 +634,6 @@ import java.util.List;
     }
   }
 
-  /**
-   * Updates the book status to "Borrowed".
-   *
-   * @param bookId id of the book to update
-   */
-  private void updateBookStatusToBorrowed(long bookId)
-  {
-    bookGrpcService.updateBookStatus((int) bookId, "Borrowed");
-    logger.debug("Book {} status updated to Borrowed", bookId);
-  }
-
   // ==================== Extend Loan Helper Methods ====================
 
   /**
@@ -281,6 +656,19 @@ import java.util.List;
     return loan;
   }
 
+  /**
+   * Checks a stored loan can be extended by {@code username} and moves its
+   * due date on.
+   *
+   * @throws IllegalStateException if the user is not the borrower, the request is too early, or the maximum extensions are reached.
+   */
+  private void prepareExtension(Loan loan, String username)
+  {
+    validateUserIsBorrower(loan, username);
+    validateExtensionEligibility(loan);
+    applyExtensionToLoan(loan);
+  }
+
   /**
    * Validates that the requesting user is the borrower of the loan.
    *
@@ -0,0 +1,92 @@
+package dk.via.sep3.application.services.loans;
+
+import dk.via.sep3.application.domain.Loan;
+
+import java.sql.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The loans of one ISBN, loaded once for a single operation.
+ * <p>
+ * Unreturned loans are indexed while loading, so checks that used to call
+ * getLoansByISBN again for the same ISBN become map lookups.
+ */
+public final class LoanSnapshot
+{
+  private final List<Loan> unreturnedLoans;
+  private final Map<Integer, Date> earliestDueDateByBookId;
+
+  private LoanSnapshot(List<Loan> unreturnedLoans,
+      Map<Integer, Date> earliestDueDateByBookId)
+  {
+    this.unreturnedLoans = unreturnedLoans;
+    this.earliestDueDateByBookId = earliestDueDateByBookId;
+  }
+
+  /**
+   * Builds a snapshot from the loans of a single ISBN.
+   *
+   * @param loans all loans for the ISBN, returned or not
+   * @return the indexed snapshot
+   */
+  public static LoanSnapshot of(List<Loan> loans)
+  {
+    List<Loan> unreturned = loans.stream().filter(loan -> !loan.isReturned())
+        .toList();
+    Map<Integer, Date> earliest = new HashMap<>();
+    for (Loan loan : unreturned)
+    {
+      if (loan.getDueDate() != null)
+      {
+        earliest.merge(loan.getBookId(), loan.getDueDate(),
+            (current, candidate) -> candidate.before(current) ?
+                candidate :
+                current);
+      }
+    }
+    return new LoanSnapshot(unreturned, earliest);
+  }
+
+  /**
+   * @param username the user to look for, compared case-insensitively
+   * @return true if the user has an unreturned loan in this snapshot
+   */
+  public boolean hasUnreturnedLoan(String username)
+  {
+    return unreturnedLoans.stream()
+        .anyMatch(loan -> username.equalsIgnoreCase(loan.getUsername()));
+  }
+
+  /**
+   * @param bookId the copy to look up
+   * @return the earliest due date among the copy's unreturned loans, or null
+   * if the copy has none
+   */
+  public Date earliestDueDate(int bookId)
+  {
+    return earliestDueDateByBookId.get(bookId);
+  }
+
+  /**
+   * @return the copy whose unreturned loan is due first, the lowest id on a
+   * tie, or 0 if no unreturned loan has a due date
+   */
+  public int bookWithEarliestDueDate()
+  {
+    int bookId = 0;
+    Date earliest = null;
+    for (Map.Entry<Integer, Date> entry : earliestDueDateByBookId.entrySet())
+    {
+      Date dueDate = entry.getValue();
+      if (earliest == null || dueDate.before(earliest)
+          || dueDate.equals(earliest) && entry.getKey() < bookId)
+      {
+        earliest = dueDate;
+        bookId = entry.getKey();
+      }
+    }
+    return bookId;
+  }
+}
@@ -0,0 +1,336 @@
+package dk.via.sep3.application.services.loans;
+
+import dk.via.sep3.application.domain.Loan;
+import dk.via.sep3.grpcConnection.loanGrpcService.LoanGrpcService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Publishes a {@link LoanDueEvent} when a loan becomes due soon or overdue,
+ * without rescanning every loan.
+ * <p>
+ * Unreturned loans sit in a {@link DueDateIndex} keyed on the day of their
+ * next event. The index is loaded from the {@code StreamActiveLoans} stream
+ * once the application is ready and reloaded every
+ * {@code loans.due-monitor.reload-interval}, which also picks up loans made
+ * through other logic servers. Loans made or extended on this node are
+ * indexed straight away. The first load after startup also schedules one
+ * {@code OVERDUE} event for each loan whose overdue day passed while no
+ * check was running, which may repeat an event announced before a restart.
+ * <p>
+ * Every {@code loans.due-monitor.check-interval} the loans whose day has come
+ * are fetched with one {@code GetLoansByIds} call per batch. Only loans still
+ * unreturned and due as indexed get an event; returned loans are dropped and
+ * loans extended elsewhere rescheduled. Returns are not made through the
+ * logic servers, so this is how they reach the index.
+ * <p>
+ * Publishes {@code loans.due.tracked}, the loans in the index, and
+ * {@code loans.due.events}, the events published, by {@code kind}.
+ */
+@Component
+public class OverdueLoanMonitor
+{
+  private static final Logger logger = LoggerFactory.getLogger(
+      OverdueLoanMonitor.class);
+
+  private final LoanGrpcService loanGrpcService;
+  private final ApplicationEventPublisher eventPublisher;
+  private final DueDateIndex index;
+  private final Duration checkInterval;
+  private final Duration reloadInterval;
+  private final int batchSize;
+  private final Supplier<LocalDate> today;
+  private final Map<LoanDueEvent.Kind, Counter> published = new EnumMap<>(
+      LoanDueEvent.Kind.class);
+  private final ScheduledExecutorService scheduler;
+
+  // Cleared when the persistence server answers StreamActiveLoans with
+  // UNIMPLEMENTED; only loans made on this node are tracked then
+  private volatile boolean streamActiveLoansSupported = true;
+  // Likewise for GetLoansByIds; due loans are then fetched one at a time
+  private volatile boolean getLoansByIdsSupported = true;
+  // Set once a load has succeeded; until then missed OVERDUE events are
+  // caught up on
+  private volatile boolean loaded;
+
+  @Autowired
+  public OverdueLoanMonitor(LoanGrpcService loanGrpcService,
+      ApplicationEventPublisher eventPublisher, MeterRegistry meterRegistry,
+      @Value("${loans.due-monitor.due-soon-days:3}") int dueSoonDays,
+      @Value("${loans.due-monitor.check-interval:15m}") Duration checkInterval,
+      @Value("${loans.due-monitor.reload-interval:6h}") Duration reloadInterval,
+      @Value("${loans.due-monitor.batch-size:100}") int batchSize)
+  {
+    this(loanGrpcService, eventPublisher, meterRegistry, dueSoonDays,
+        checkInterval, reloadInterval, batchSize, LocalDate::now);
+  }
+
+  OverdueLoanMonitor(LoanGrpcService loanGrpcService,
+      ApplicationEventPublisher eventPublisher, MeterRegistry meterRegistry,
+      int dueSoonDays, Duration checkInterval, Duration reloadInterval,
+      int batchSize, Supplier<LocalDate> today)
+  {
+    this.loanGrpcService = loanGrpcService;
+    this.eventPublisher = eventPublisher;
+    this.index = new DueDateIndex(dueSoonDays);
+    this.checkInterval = checkInterval;
+    this.reloadInterval = reloadInterval;
+    this.batchSize = Math.max(1, batchSize);
+    this.today = today;
+    Gauge.builder("loans.due.tracked", index, DueDateIndex::size)
+        .description("Unreturned loans in the due date index")
+        .register(meterRegistry);
+    for (LoanDueEvent.Kind kind : LoanDueEvent.Kind.values())
+    {
+      published.put(kind, Counter.builder("loans.due.events")
+          .description("Due soon and overdue loan events published")
+          .tag("kind", kind.name().toLowerCase(Locale.ROOT))
+          .register(meterRegistry));
+    }
+    CustomizableThreadFactory factory = new CustomizableThreadFactory(
+        "loan-due-monitor-");
+    factory.setDaemon(true);
+    this.scheduler = Executors.newSingleThreadScheduledExecutor(factory);
+  }
+
+  /**
+   * Loads the index and starts the checks; a check interval of zero turns
+   * the monitor off.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void start()
+  {
+    if (checkInterval.isZero() || checkInterval.isNegative())
+    {
+      logger.info("Due loan checks are off; set loans.due-monitor.check-interval");
+      return;
+    }
+    // One thread, so the first check runs after the first load
+    if (reloadInterval.isZero() || reloadInterval.isNegative())
+    {
+      scheduler.execute(this::reload);
+    }
+    else
+    {
+      scheduler.scheduleWithFixedDelay(this::reload, 0,
+          reloadInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+    scheduler.scheduleWithFixedDelay(this::check, 0,
+        checkInterval.toMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Indexes a loan made or extended on this node.
+   */
+  public void track(Loan loan)
+  {
+    track(loan, today.get());
+  }
+
+  private void track(Loan loan, LocalDate day)
+  {
+    if (loan != null && !loan.isReturned() && loan.getDueDate() != null)
+    {
+      index.put(loan.getLoanId(), loan.getDueDate().toLocalDate(), day);
+    }
+  }
+
+  /**
+   * Streams every active loan into the index. Loans already indexed with the
+   * same due date keep their place; on failure the index stays as it is.
+   * Until a load has succeeded, loans past their overdue day are indexed for
+   * a catch-up {@code OVERDUE} event.
+   */
+  public void reload()
+  {
+    if (!streamActiveLoansSupported)
+    {
+      return;
+    }
+    LocalDate day = today.get();
+    boolean catchUp = !loaded;
+    int[] count = {0};
+    int[] missed = {0};
+    try
+    {
+      loanGrpcService.streamActiveLoans(loan -> {
+        track(loan, day);
+        if (catchUp && catchUpOverdue(loan, day))
+        {
+          missed[0]++;
+        }
+        count[0]++;
+      });
+      loaded = true;
+      logger.info("Due date index loaded from {} active loans, tracking {}",
+          count[0], index.size());
+      if (missed[0] > 0)
+      {
+        logger.info("{} loans became overdue before this node was checking; "
+            + "announcing them once", missed[0]);
+      }
+    }
+    catch (UnsupportedOperationException ex)
+    {
+      streamActiveLoansSupported = false;
+      logger.warn("Persistence server does not implement StreamActiveLoans; "
+          + "only loans made on this node are tracked");
+    }
+    catch (RuntimeException ex)
+    {
+      logger.warn("Could not load the due date index, keeping {} tracked loans: {}",
+          index.size(), ex.getMessage());
+    }
+  }
+
+  private boolean catchUpOverdue(Loan loan, LocalDate day)
+  {
+    return loan != null && !loan.isReturned() && loan.getDueDate() != null
+        && index.catchUpOverdue(loan.getLoanId(),
+        loan.getDueDate().toLocalDate(), day);
+  }
+
+  /**
+   * Publishes the events whose day has come, after checking each loan with
+   * persistence. Loans that could not be checked stay due for the next run.
+   */
+  public void check()
+  {
+    LocalDate day = today.get();
+    List<DueDateIndex.Due> due = index.dueBy(day);
+    if (due.isEmpty())
+    {
+      return;
+    }
+    int events = 0;
+    try
+    {
+      for (int from = 0; from < due.size(); from += batchSize)
+      {
+        List<DueDateIndex.Due> batch = due.subList(from,
+            Math.min(due.size(), from + batchSize));
+        Map<Integer, Loan> loans = fetch(batch);
+        for (DueDateIndex.Due next : batch)
+        {
+          if (loans.containsKey(next.getLoanId())
+              && settle(next, loans.get(next.getLoanId()), day))
+          {
+            events++;
+          }
+        }
+      }
+    }
+    catch (RuntimeException ex)
+    {
+      logger.warn("Could not check due loans, retrying on the next run: {}",
+          ex.getMessage());
+    }
+    logger.info("Published {} due loan events for {} due loans", events,
+        due.size());
+  }
+
+  /**
+   * @return the current loans by id; a {@code null} value means there is no
+   * such loan, a missing key that it could not be fetched
+   */
+  private Map<Integer, Loan> fetch(List<DueDateIndex.Due> batch)
+  {
+    List<Integer> loanIds = batch.stream().map(DueDateIndex.Due::getLoanId)
+        .toList();
+    Map<Integer, Loan> loans = new HashMap<>();
+    if (getLoansByIdsSupported)
+    {
+      try
+      {
+        for (int loanId : loanIds)
+        {
+          loans.put(loanId, null);
+        }
+        for (Loan loan : loanGrpcService.getLoansByIds(loanIds))
+        {
+          loans.put(loan.getLoanId(), loan);
+        }
+        return loans;
+      }
+      catch (UnsupportedOperationException ex)
+      {
+        getLoansByIdsSupported = false;
+        loans.clear();
+        logger.warn("Persistence server does not implement GetLoansByIds; "
+            + "checking due loans one at a time");
+      }
+    }
+    // getLoanById answers null on any failure, so a miss is only skipped
+    for (int loanId : loanIds)
+    {
+      Loan loan = loanGrpcService.getLoanById(loanId);
+      if (loan != null)
+      {
+        loans.put(loanId, loan);
+      }
+    }
+    return loans;
+  }
+
+  /**
+   * Announces a due loan, or drops or reschedules it if persistence has
+   * moved on.
+   *
+   * @return whether an event was published
+   */
+  private boolean settle(DueDateIndex.Due due, Loan loan, LocalDate day)
+  {
+    if (loan == null || loan.isReturned() || loan.getDueDate() == null)
+    {
+      index.remove(due);
+      return false;
+    }
+    LocalDate dueDate = loan.getDueDate().toLocalDate();
+    if (!dueDate.equals(due.getDueDate()))
+    {
+      index.put(due.getLoanId(), dueDate, day);
+      return false;
+    }
+    index.fired(due);
+    try
+    {
+      eventPublisher.publishEvent(new LoanDueEvent(due.getKind(), loan));
+    }
+    catch (RuntimeException ex)
+    {
+      logger.error("A listener failed on the {} event of loan {}",
+          due.getKind(), due.getLoanId(), ex);
+    }
+    published.get(due.getKind()).increment();
+    return true;
+  }
+
+  @PreDestroy
+  public void shutdown()
+  {
+    scheduler.shutdownNow();
+  }
+}
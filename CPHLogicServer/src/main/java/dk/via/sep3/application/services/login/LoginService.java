@@ -4,5 +4,8 @@ import dk.via.sep3.application.domain.User;
 
 public interface LoginService
 {
-  User login(User user);
+  /**
+   * @param clientAddress the caller's IP address, used for throttling; may be {@code null}
+   */
+  User login(User user, String clientAddress);
 }
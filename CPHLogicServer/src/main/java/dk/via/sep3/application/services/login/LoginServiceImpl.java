@@ -2,6 +2,7 @@ package dk.via.sep3.application.services.login;
 
 import dk.via.sep3.grpcConnection.userGrpcService.UserGrpcService;
 import dk.via.sep3.application.domain.User;
+import dk.via.sep3.exceptionHandler.RateLimitExceededException;
 import dk.via.sep3.security.IPasswordEncoderService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -12,24 +13,33 @@ public class LoginServiceImpl implements LoginService {
   private static final Logger logger = LoggerFactory.getLogger(LoginServiceImpl.class);
   private final UserGrpcService userGrpcService;
   private final IPasswordEncoderService passwordEncoderService;
+  private final LoginRateLimiter rateLimiter;
+  private final UnknownUsernameCache unknownUsernames;
 
-  public LoginServiceImpl(UserGrpcService userGrpcService, IPasswordEncoderService passwordEncoderService) {
+  public LoginServiceImpl(UserGrpcService userGrpcService, IPasswordEncoderService passwordEncoderService,
+      LoginRateLimiter rateLimiter, UnknownUsernameCache unknownUsernames) {
     this.userGrpcService = userGrpcService;
     this.passwordEncoderService = passwordEncoderService;
+    this.rateLimiter = rateLimiter;
+    this.unknownUsernames = unknownUsernames;
   }
 
   /**
    * Authenticate a user by username and password.
    *
-   * This method validates input fields, fetches the user record via gRPC,
-   * and verifies the provided password using the configured password encoder.
+   * This method validates input fields, applies the per-user and per-address
+   * attempt limits, fetches the user record via gRPC unless the username is
+   * known not to exist, and verifies the provided password using the
+   * configured password encoder.
    *
    * @param user a User object containing username and plaintext password
+   * @param clientAddress the caller's IP address; may be {@code null}
    * @return the authenticated User object from the backend (without plaintext password)
    * @throws IllegalArgumentException when username or password is empty or authentication fails
+   * @throws RateLimitExceededException when too many attempts were made
    */
   @Override
-  public User login(User user) {
+  public User login(User user, String clientAddress) {
     logger.info("LoginService: Validating login request for user: {}", user.getUsername());
 
     // Validate that fields are not empty
@@ -40,12 +50,21 @@ public class LoginServiceImpl implements LoginService {
       throw new IllegalArgumentException("Password cannot be empty");
     }
 
+    // Reject abusive clients before any gRPC or BCrypt work
+    rateLimiter.acquire(user.getUsername(), clientAddress);
+
+    if (unknownUsernames.isUnknown(user.getUsername())) {
+      logger.warn("LoginService: User known not to exist: {}", user.getUsername());
+      throw new IllegalArgumentException("Invalid username or password");
+    }
+
     logger.info("LoginService: Fetching user from database: {}", user.getUsername());
     // Get user from database via gRPC
     User dbUser = userGrpcService.getUserByUsername(user.getUsername());
 
     if (dbUser == null) {
       logger.warn("LoginService: User not found: {}", user.getUsername());
+      unknownUsernames.remember(user.getUsername());
       throw new IllegalArgumentException("Invalid username or password");
     }
 
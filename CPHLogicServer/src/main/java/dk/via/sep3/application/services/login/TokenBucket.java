@@ -0,0 +1,36 @@
+package dk.via.sep3.application.services.login;
+
+/**
+ * A token bucket that holds up to {@code capacity} tokens and gains one
+ * token every {@code refillNanos}. Each instance guards its own state, so
+ * contention is limited to requests for the same key.
+ */
+final class TokenBucket {
+  private final int capacity;
+  private final long refillNanos;
+  private double tokens;
+  private long lastRefill;
+
+  TokenBucket(int capacity, long refillNanos, long now) {
+    this.capacity = capacity;
+    this.refillNanos = refillNanos;
+    this.tokens = capacity;
+    this.lastRefill = now;
+  }
+
+  /**
+   * Takes one token if available.
+   *
+   * @return 0 if a token was taken, otherwise the nanoseconds until the next
+   *         token becomes available
+   */
+  synchronized long tryAcquire(long now) {
+    tokens = Math.min(capacity, tokens + (double) (now - lastRefill) / refillNanos);
+    lastRefill = now;
+    if (tokens >= 1) {
+      tokens -= 1;
+      return 0;
+    }
+    return (long) Math.ceil((1 - tokens) * refillNanos);
+  }
+}
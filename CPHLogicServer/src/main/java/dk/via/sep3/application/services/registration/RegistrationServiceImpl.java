@@ -1,7 +1,10 @@
 package dk.via.sep3.application.services.registration;
 
+import dk.via.sep3.exceptionHandler.BusinessRuleViolationException;
 import dk.via.sep3.grpcConnection.userGrpcService.UserGrpcService;
 import dk.via.sep3.application.domain.User;
+import dk.via.sep3.application.services.login.UnknownUsernameCache;
+import dk.via.sep3.application.services.validation.UsernameFilter;
 import dk.via.sep3.application.services.validation.Validator;
 import dk.via.sep3.security.IPasswordEncoderService;
 import org.springframework.stereotype.Service;
@@ -11,13 +14,18 @@ import org.springframework.stereotype.Service;
   private final UserGrpcService userGrpcService;
   private final Validator validator;
   private final IPasswordEncoderService passwordEncoderService;
+  private final UnknownUsernameCache unknownUsernames;
+  private final UsernameFilter usernameFilter;
 
   public RegistrationServiceImpl(
-      UserGrpcService userGrpcService, Validator validator, IPasswordEncoderService passwordEncoderService)
+      UserGrpcService userGrpcService, Validator validator, IPasswordEncoderService passwordEncoderService,
+      UnknownUsernameCache unknownUsernames, UsernameFilter usernameFilter)
   {
     this.userGrpcService = userGrpcService;
     this.validator = validator;
     this.passwordEncoderService = passwordEncoderService;
+    this.unknownUsernames = unknownUsernames;
+    this.usernameFilter = usernameFilter;
   }
 
   /**
@@ -44,6 +52,18 @@ import org.springframework.stereotype.Service;
     user.setPassword(hashedPassword);
 
     // Call gRPC service to register
-    return userGrpcService.createUser(user);
+    User created;
+    try {
+      created = userGrpcService.createUser(user);
+    } catch (BusinessRuleViolationException e) {
+      // Taken on another logic server; remember it so the next try is
+      // checked against persistence instead of skipped by the filter
+      usernameFilter.add(user.getUsername());
+      throw e;
+    }
+    // The name may have been looked up (and cached as unknown) before it existed
+    unknownUsernames.forget(user.getUsername());
+    usernameFilter.add(user.getUsername());
+    return created;
   }
 }
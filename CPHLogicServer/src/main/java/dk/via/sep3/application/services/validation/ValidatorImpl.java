@@ -12,10 +12,12 @@ public class ValidatorImpl implements Validator
 {
   private static final Logger logger = LoggerFactory.getLogger(ValidatorImpl.class);
     private final UserGrpcService userGrpcService;
+    private final UsernameFilter usernameFilter;
 
-    public ValidatorImpl(UserGrpcService userGrpcService)
+    public ValidatorImpl(UserGrpcService userGrpcService, UsernameFilter usernameFilter)
     {
         this.userGrpcService = userGrpcService;
+        this.usernameFilter = usernameFilter;
     }
 
     @Override public void validateUser(String username)
@@ -66,6 +68,10 @@ public class ValidatorImpl implements Validator
     if (username.length() < 3) {
       throw new BusinessRuleViolationException("Username must be at least 3 characters");
     }
+    // A name the filter has never seen is free, so skip the lookup
+    if (!usernameFilter.mightExist(username)) {
+      return;
+    }
     // Check if username already exists
     User user = userGrpcService.getUserByUsername(username);
 
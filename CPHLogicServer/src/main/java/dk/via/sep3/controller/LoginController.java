@@ -6,6 +6,7 @@ import dk.via.sep3.security.IJwtTokenProvider;
 import dk.via.sep3.DTOs.login.LoginDTO;
 import dk.via.sep3.DTOs.login.LoginResponseDTO;
 import dk.via.sep3.mapper.loginMapper.LoginMapper;
+import jakarta.servlet.http.HttpServletRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.ResponseEntity;
@@ -28,7 +29,7 @@ public class LoginController
   }
 
   @PostMapping(value = "/login", consumes = "application/json", produces = "application/json")
-  public ResponseEntity<LoginResponseDTO> login(@RequestBody LoginDTO loginDTO)
+  public ResponseEntity<LoginResponseDTO> login(@RequestBody LoginDTO loginDTO, HttpServletRequest request)
   {
     logger.info("Login attempt for user: {}", loginDTO.getUsername());
 
@@ -36,7 +37,7 @@ public class LoginController
     User user = loginMapper.mapLoginDTOToDomain(loginDTO);
 
     // Perform login (validates credentials and returns user from DB)
-    User authenticatedUser = loginService.login(user);
+    User authenticatedUser = loginService.login(user, request.getRemoteAddr());
 
     // Generate JWT token
     String token = jwtTokenProvider.generateToken(authenticatedUser.getUsername(), authenticatedUser.getRole());
@@ -1,13 +1,16 @@
 package dk.via.sep3.exceptionHandler;
 
 import dk.via.sep3.DTOs.error.ErrorResponseDTO;
+import dk.via.sep3.grpcConnection.deadline.RequestBudget;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
+import java.time.Duration;
 import java.time.Instant;
 
 @RestControllerAdvice
@@ -53,6 +56,9 @@ public class GlobalExceptionHandler {
 
   @ExceptionHandler(GrpcCommunicationException.class)
   public ResponseEntity<ErrorResponseDTO> handleGrpcCommunication(GrpcCommunicationException ex) {
+    if (RequestBudget.isTimeout(ex)) {
+      return handleRequestTimeout(new RequestTimeoutException(ex.getMessage()));
+    }
     logger.error("gRPC communication error: {}", ex.getMessage(), ex);
     return new ResponseEntity<>(
         new ErrorResponseDTO("Service temporarily unavailable", "SERVICE_UNAVAILABLE", Instant.now().toString(), ex.getMessage()),
@@ -60,12 +66,46 @@ public class GlobalExceptionHandler {
     );
   }
 
+  @ExceptionHandler(RequestTimeoutException.class)
+  public ResponseEntity<ErrorResponseDTO> handleRequestTimeout(RequestTimeoutException ex) {
+    logger.warn("Request timed out: {}", ex.getMessage());
+    return new ResponseEntity<>(
+        new ErrorResponseDTO("Request timed out", "GATEWAY_TIMEOUT", Instant.now().toString(), ex.getMessage()),
+        HttpStatus.GATEWAY_TIMEOUT
+    );
+  }
+
+  @ExceptionHandler(ServiceOverloadedException.class)
+  public ResponseEntity<ErrorResponseDTO> handleServiceOverloaded(ServiceOverloadedException ex) {
+    logger.warn("Service overloaded: {}", ex.getMessage());
+    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+        .header(HttpHeaders.RETRY_AFTER, retryAfterSeconds(ex.getRetryAfter()))
+        .body(new ErrorResponseDTO("Service busy, please retry later", "SERVICE_OVERLOADED", Instant.now().toString(), ex.getMessage()));
+  }
+
+  @ExceptionHandler(RateLimitExceededException.class)
+  public ResponseEntity<ErrorResponseDTO> handleRateLimitExceeded(RateLimitExceededException ex) {
+    logger.warn("Rate limit exceeded: {}", ex.getMessage());
+    return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+        .header(HttpHeaders.RETRY_AFTER, retryAfterSeconds(ex.getRetryAfter()))
+        .body(new ErrorResponseDTO("Too many requests, please retry later", "RATE_LIMITED", Instant.now().toString(), ex.getMessage()));
+  }
+
   @ExceptionHandler(Exception.class)
   public ResponseEntity<ErrorResponseDTO> handleGeneral(Exception ex) {
+    // Backend calls that swallow the gRPC status still fail once the budget is gone
+    if (RequestBudget.isTimeout(ex)) {
+      return handleRequestTimeout(new RequestTimeoutException(ex.getMessage()));
+    }
     logger.error("Unexpected error: {}", ex.getMessage(), ex);
     return new ResponseEntity<>(
         new ErrorResponseDTO("An unexpected error occurred", "INTERNAL_ERROR", Instant.now().toString(), ex.getMessage()),
         HttpStatus.INTERNAL_SERVER_ERROR
     );
   }
-}
\ No newline at end of file
+
+  // Whole seconds, rounded up so clients never retry too early
+  private static String retryAfterSeconds(Duration retryAfter) {
+    return Long.toString(Math.max(1, (retryAfter.toMillis() + 999) / 1000));
+  }
+}
@@ -0,0 +1,22 @@
+package dk.via.sep3.exceptionHandler;
+
+import java.time.Duration;
+
+/**
+ * Thrown when a client has used up its request allowance.
+ */
+public class RateLimitExceededException extends RuntimeException
+{
+  private final Duration retryAfter;
+
+  public RateLimitExceededException(String message, Duration retryAfter)
+  {
+    super(message);
+    this.retryAfter = retryAfter;
+  }
+
+  public Duration getRetryAfter()
+  {
+    return retryAfter;
+  }
+}
@@ -0,0 +1,13 @@
+package dk.via.sep3.exceptionHandler;
+
+/**
+ * Thrown when the time budget of the current request has run out, so the
+ * remaining steps are abandoned and the client gets a 504.
+ */
+public class RequestTimeoutException extends RuntimeException
+{
+  public RequestTimeoutException(String message)
+  {
+    super(message);
+  }
+}
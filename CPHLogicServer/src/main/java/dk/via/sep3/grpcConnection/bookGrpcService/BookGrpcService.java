@@ -2,14 +2,70 @@ package dk.via.sep3.grpcConnection.bookGrpcService;
 
 // AarhusLogicServer/src/main/java/dk/via/sep3/grpcConnection/BookGrpcServiceInterface.java
 
+import dk.via.sep3.application.domain.AvailabilitySummary;
 import dk.via.sep3.application.domain.Book;
+import dk.via.sep3.application.domain.BookPage;
+import dk.via.sep3.application.domain.BookQuery;
+import dk.via.sep3.exceptionHandler.GrpcCommunicationException;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface BookGrpcService
 {
   List<Book> getAllBooks();
+  BookPage getBooks(BookQuery query);
+  void streamAllBooks(Consumer<Book> consumer);
   List<Book> getBooksByIsbn(String isbn);
+
+  /**
+   * {@link #getBooksByIsbn} as the persistence server sees it now, for
+   * choosing a copy to claim. Never answered from a cache, fresh or stale.
+   *
+   * @throws GrpcCommunicationException if the copies could not be fetched
+   */
+  default List<Book> getCurrentBooksByIsbn(String isbn)
+  {
+    return getBooksByIsbn(isbn);
+  }
   Book getBookById(int bookId);
+
+  /**
+   * Counts the copies of an ISBN per state without listing them.
+   *
+   * @return the summary, with a total of 0 if the ISBN is unknown
+   * @throws UnsupportedOperationException if the persistence server does not
+   * implement {@code GetAvailabilitySummary}
+   * @throws GrpcCommunicationException if the counts could not be fetched
+   */
+  AvailabilitySummary getAvailabilitySummary(String isbn);
+
+  /**
+   * {@link #getAvailabilitySummary} as the persistence server sees it now,
+   * for checks that decide a write. Never answered from a cache, so a copy
+   * lent out by another node is not mistaken for one on the shelf.
+   */
+  default AvailabilitySummary getCurrentAvailabilitySummary(String isbn)
+  {
+    return getAvailabilitySummary(isbn);
+  }
+
   void updateBookStatus(int bookId, String status);
+
+  /**
+   * Moves a copy to {@code status} only if it is still in
+   * {@code expectedStatus}, so two logic servers cannot both claim it.
+   *
+   * @return {@code false} if another request changed the copy first
+   * @throws GrpcCommunicationException if the copy could not be updated
+   */
+  boolean updateBookStatus(int bookId, String expectedStatus, String status);
+
+  /**
+   * Tells the service that a copy's state was changed by another RPC, such
+   * as {@code BorrowBook}, so anything cached about it is stale.
+   */
+  default void bookStateChanged(int bookId)
+  {
+  }
 }
\ No newline at end of file
@@ -3,15 +3,22 @@ package dk.via.sep3.grpcConnection.bookGrpcService;
 
 import dk.via.sep3.*;
 import dk.via.sep3.exceptionHandler.GrpcCommunicationException;
+import dk.via.sep3.application.domain.AvailabilitySummary;
 import dk.via.sep3.application.domain.Book;
+import dk.via.sep3.application.domain.BookPage;
+import dk.via.sep3.application.domain.BookQuery;
 import dk.via.sep3.mapper.bookMapper.BookMapper;
+import io.grpc.Context;
 import io.grpc.ManagedChannel;
+import io.grpc.Status;
 import io.grpc.StatusRuntimeException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
+import java.util.Iterator;
 import java.util.List;
+import java.util.function.Consumer;
 
 @Service public class BookGrpcServiceImpl implements BookGrpcService
 {
@@ -50,6 +57,80 @@ import java.util.List;
     }
   }
 
+  @Override public BookPage getBooks(BookQuery query)
+  {
+    try
+    {
+      GetAllBooksRequest.Builder request = GetAllBooksRequest.newBuilder()
+          .setLimit(query.getLimit());
+      if (query.getCursor() != null)
+      {
+        request.setCursor(query.getCursor());
+      }
+      if (query.getAuthor() != null)
+      {
+        request.setAuthor(query.getAuthor());
+      }
+      if (query.getGenre() != null)
+      {
+        request.setGenre(query.getGenre());
+      }
+      if (query.getState() != null)
+      {
+        request.setState(query.getState().name());
+      }
+      logger.info("Sending gRPC request to get a page of books...");
+      GetAllBooksResponse response = bookStub.getAllBooks(request.build());
+      logger.info("Received gRPC response with {} book copies.",
+          response.getBooksCount());
+      List<Book> books = response.getBooksList().stream()
+          .map(bookMapper::toDomain).toList();
+      String nextCursor = response.getNextCursor().isEmpty() ?
+          null :
+          response.getNextCursor();
+      return new BookPage(books, nextCursor);
+    }
+    catch (StatusRuntimeException ex)
+    {
+      logger.error("gRPC error fetching a page of books", ex);
+      throw new GrpcCommunicationException("Failed to fetch books", ex);
+    }
+    catch (Exception ex)
+    {
+      logger.error("Unexpected error fetching a page of books", ex);
+      throw new GrpcCommunicationException(
+          "Unexpected error fetching books", ex);
+    }
+  }
+
+  @Override public void streamAllBooks(Consumer<Book> consumer)
+  {
+    GetAllBooksRequest request = GetAllBooksRequest.newBuilder().build();
+    // Cancelling this context ends the server stream if the consumer fails
+    Context.CancellableContext context = Context.current().withCancellation();
+    try
+    {
+      logger.info("Opening gRPC stream for all books...");
+      context.run(() -> {
+        Iterator<DTOBook> books = bookStub.streamAllBooks(request);
+        while (books.hasNext())
+        {
+          consumer.accept(bookMapper.toDomain(books.next()));
+        }
+      });
+      logger.info("gRPC stream for all books completed.");
+    }
+    catch (StatusRuntimeException ex)
+    {
+      logger.error("gRPC error streaming all books", ex);
+      throw new GrpcCommunicationException("Failed to stream all books", ex);
+    }
+    finally
+    {
+      context.cancel(null);
+    }
+  }
+
   @Override public List<Book> getBooksByIsbn(String isbn)
   {
     try
@@ -100,6 +181,33 @@ import java.util.List;
     }
   }
 
+  @Override public AvailabilitySummary getAvailabilitySummary(String isbn)
+  {
+    GetAvailabilitySummaryRequest request = GetAvailabilitySummaryRequest
+        .newBuilder().setIsbn(isbn).build();
+    logger.info("Sending gRPC request for availability of ISBN: {}", isbn);
+    GetAvailabilitySummaryResponse response;
+    try
+    {
+      response = bookStub.getAvailabilitySummary(request);
+    }
+    catch (StatusRuntimeException ex)
+    {
+      if (ex.getStatus().getCode() == Status.Code.UNIMPLEMENTED)
+      {
+        throw new UnsupportedOperationException(
+            "Persistence server does not implement GetAvailabilitySummary", ex);
+      }
+      logger.error("gRPC error fetching availability of ISBN: {}", isbn, ex);
+      throw new GrpcCommunicationException(
+          "Failed to fetch availability of ISBN " + isbn, ex);
+    }
+    // An unknown ISBN is answered with success=false and a total of 0
+    return AvailabilitySummary.of(response.getTotal(), response.getAvailable(),
+        response.getBorrowed(), response.getReserved(),
+        response.getAvailableBookId());
+  }
+
   @Override public void updateBookStatus(int bookId, String status)
   {
     try
@@ -125,4 +233,38 @@ import java.util.List;
           status, ex);
     }
   }
+
+  @Override public boolean updateBookStatus(int bookId, String expectedStatus,
+      String status)
+  {
+    UpdateBookStateRequest request = UpdateBookStateRequest.newBuilder()
+        .setId(bookId).setExpectedState(expectedStatus).setState(status)
+        .build();
+    logger.info("Sending gRPC request to update book status. ID: {}, {} -> {}",
+        bookId, expectedStatus, status);
+    UpdateBookStateResponse response;
+    try
+    {
+      response = bookStub.updateBookState(request);
+    }
+    catch (StatusRuntimeException ex)
+    {
+      logger.error("gRPC error updating book status. ID: {}", bookId, ex);
+      throw new GrpcCommunicationException(
+          "Failed to update status of book " + bookId, ex);
+    }
+    if (response.getConflict())
+    {
+      logger.info("Book {} is no longer {}: {}", bookId, expectedStatus,
+          response.getMessage());
+      return false;
+    }
+    if (!response.getSuccess())
+    {
+      throw new GrpcCommunicationException(
+          "Failed to update status of book " + bookId + ": "
+              + response.getMessage());
+    }
+    return true;
+  }
 }
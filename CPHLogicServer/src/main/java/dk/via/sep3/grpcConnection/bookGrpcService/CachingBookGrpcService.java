@@ -0,0 +1,498 @@
+package dk.via.sep3.grpcConnection.bookGrpcService;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import dk.via.sep3.application.domain.AvailabilitySummary;
+import dk.via.sep3.application.domain.Book;
+import dk.via.sep3.application.domain.BookPage;
+import dk.via.sep3.application.domain.BookQuery;
+import dk.via.sep3.application.domain.State;
+import dk.via.sep3.exceptionHandler.GrpcCommunicationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Near-cache in front of the gRPC book service.
+ * <p>
+ * Keeps the catalog snapshot, catalog pages, individual copies by id and the
+ * copies of an ISBN in memory with size and TTL based eviction. Any state change made by
+ * this node through either {@code updateBookStatus}, or reported
+ * through {@link #bookStateChanged(int)}, drops the affected entries so the next read goes to the persistence server again.
+ * <p>
+ * Every successful read is also kept for {@code grpc.cache.books.stale-ttl}
+ * as the last known answer. While persistence fails, for instance because
+ * the book service circuit breaker is open, reads fall back to it so the
+ * catalog can still be browsed. Those copies are not dropped on status
+ * updates, since they are only ever served as possibly outdated data, and
+ * never to the {@code getCurrent*} reads that decide writes such as which
+ * copy to claim.
+ * <p>
+ * It also indexes the availability of each ISBN, the copy counts per state
+ * that tell whether a copy is on the shelf. A claim or release made through
+ * the conditional {@code updateBookStatus} moves one copy between the counts
+ * in place; other changes drop the ISBN's entry. Listing the copies of an
+ * ISBN refreshes its entry as a side effect. Entries do not see changes made
+ * by other logic servers, so checks that decide a write use
+ * {@link #getCurrentAvailabilitySummary(String)}, which bypasses them.
+ * <p>
+ * Entries stored as a side effect of a load, such as the ISBN groups of a
+ * catalog snapshot, are skipped when anything was evicted while the load was
+ * in flight, so an older answer cannot bring back what an eviction dropped.
+ */
+@Primary
+@Service
+public class CachingBookGrpcService implements BookGrpcService
+{
+  private static final Logger logger = LoggerFactory.getLogger(
+      CachingBookGrpcService.class);
+  private static final String ALL_BOOKS_KEY = "all";
+
+  private final BookGrpcService delegate;
+  private final Cache<String, List<Book>> allBooks;
+  private final Cache<BookQuery, BookPage> bookPages;
+  private final Cache<Integer, Book> booksById;
+  private final Cache<String, List<Book>> booksByIsbn;
+  private final Cache<String, List<Book>> staleAllBooks;
+  private final Cache<BookQuery, BookPage> staleBookPages;
+  private final Cache<Integer, Book> staleBooksById;
+  private final Cache<String, List<Book>> staleBooksByIsbn;
+  private final Cache<String, AvailabilitySummary> availability;
+  private final Cache<String, AvailabilitySummary> staleAvailability;
+  // ISBNs of the available copies named by summaries, which are not in
+  // booksById, so a claim of such a copy can still update its summary
+  private final Cache<Integer, String> isbnsByBookId;
+  // Cleared when the persistence server answers GetAvailabilitySummary with
+  // UNIMPLEMENTED; summaries are then counted from the copies of the ISBN
+  private volatile boolean availabilitySummarySupported = true;
+  // Moves on with every eviction; a load that started in an earlier
+  // generation may hold what was evicted and skips its side-effect entries
+  private final AtomicLong generation = new AtomicLong();
+
+  @Autowired
+  public CachingBookGrpcService(
+      @Qualifier("bookGrpcServiceImpl") BookGrpcService delegate,
+      @Value("${grpc.cache.books.max-size:10000}") long maxSize,
+      @Value("${grpc.cache.books.ttl:30s}") Duration ttl,
+      @Value("${grpc.cache.books.stale-ttl:10m}") Duration staleTtl)
+  {
+    this(delegate, maxSize, ttl, staleTtl, Ticker.systemTicker());
+  }
+
+  CachingBookGrpcService(BookGrpcService delegate, long maxSize, Duration ttl,
+      Duration staleTtl, Ticker ticker)
+  {
+    this.delegate = delegate;
+    this.allBooks = Caffeine.newBuilder().maximumSize(1)
+        .expireAfterWrite(ttl).ticker(ticker).build();
+    this.bookPages = Caffeine.newBuilder().maximumSize(maxSize)
+        .expireAfterWrite(ttl).ticker(ticker).build();
+    this.booksById = Caffeine.newBuilder().maximumSize(maxSize)
+        .expireAfterWrite(ttl).ticker(ticker).build();
+    this.booksByIsbn = Caffeine.newBuilder().maximumSize(maxSize)
+        .expireAfterWrite(ttl).ticker(ticker).build();
+    this.staleAllBooks = Caffeine.newBuilder().maximumSize(1)
+        .expireAfterWrite(staleTtl).ticker(ticker).build();
+    this.staleBookPages = Caffeine.newBuilder().maximumSize(maxSize)
+        .expireAfterWrite(staleTtl).ticker(ticker).build();
+    this.staleBooksById = Caffeine.newBuilder().maximumSize(maxSize)
+        .expireAfterWrite(staleTtl).ticker(ticker).build();
+    this.staleBooksByIsbn = Caffeine.newBuilder().maximumSize(maxSize)
+        .expireAfterWrite(staleTtl).ticker(ticker).build();
+    this.availability = Caffeine.newBuilder().maximumSize(maxSize)
+        .expireAfterWrite(ttl).ticker(ticker).build();
+    this.staleAvailability = Caffeine.newBuilder().maximumSize(maxSize)
+        .expireAfterWrite(staleTtl).ticker(ticker).build();
+    // A copy never changes ISBN, so these only need a size bound
+    this.isbnsByBookId = Caffeine.newBuilder().maximumSize(maxSize).build();
+  }
+
+  @Override public List<Book> getAllBooks()
+  {
+    return read(allBooks, staleAllBooks, ALL_BOOKS_KEY, key -> {
+      logger.info("Book cache miss for all books, loading from gRPC");
+      long loadGeneration = generation.get();
+      List<Book> books = delegate.getAllBooks();
+      indexCatalog(books, loadGeneration);
+      return books;
+    });
+  }
+
+  @Override public BookPage getBooks(BookQuery query)
+  {
+    return read(bookPages, staleBookPages, query, key -> {
+      logger.info("Book cache miss for catalog page");
+      long loadGeneration = generation.get();
+      BookPage page = delegate.getBooks(key);
+      // Filtered pages may hold only part of an ISBN group, so only the
+      // copies themselves are indexed
+      indexLoad(loadGeneration, page.getBooks(), Map.of(), Map.of());
+      return page;
+    });
+  }
+
+  /**
+   * Replays a warm catalog snapshot in ISBN order, otherwise streams straight
+   * from the delegate. The stream is never cached, since its purpose is to
+   * avoid holding the whole catalog in memory.
+   */
+  @Override public void streamAllBooks(Consumer<Book> consumer)
+  {
+    List<Book> snapshot = allBooks.getIfPresent(ALL_BOOKS_KEY);
+    if (snapshot == null)
+    {
+      delegate.streamAllBooks(consumer);
+      return;
+    }
+    snapshot.stream().sorted(Comparator.comparing(Book::getIsbn,
+        Comparator.nullsFirst(Comparator.naturalOrder()))).forEach(consumer);
+  }
+
+  @Override public List<Book> getBooksByIsbn(String isbn)
+  {
+    return read(booksByIsbn, staleBooksByIsbn, isbn, key -> {
+      logger.info("Book cache miss for ISBN: {}", key);
+      long loadGeneration = generation.get();
+      List<Book> books = delegate.getBooksByIsbn(key);
+      indexLoad(loadGeneration, books, Map.of(),
+          Map.of(key, AvailabilitySummary.fromCopies(books)));
+      return books;
+    });
+  }
+
+  @Override public AvailabilitySummary getAvailabilitySummary(String isbn)
+  {
+    if (availabilitySummarySupported)
+    {
+      try
+      {
+        return read(availability, staleAvailability, isbn, key -> {
+          logger.info("Availability cache miss for ISBN: {}", key);
+          AvailabilitySummary summary = delegate.getAvailabilitySummary(key);
+          if (summary.isAvailable())
+          {
+            isbnsByBookId.put(summary.getAvailableBookId(), key);
+          }
+          return summary;
+        });
+      }
+      catch (UnsupportedOperationException ex)
+      {
+        availabilitySummarySupported = false;
+        logger.warn("Persistence server does not implement "
+            + "GetAvailabilitySummary; counting the copies of each ISBN");
+      }
+    }
+    AvailabilitySummary indexed = availability.getIfPresent(isbn);
+    if (indexed != null)
+    {
+      return indexed;
+    }
+    // Outside the availability cache's loader, since listing the copies
+    // stores a summary for the ISBN itself
+    return AvailabilitySummary.fromCopies(getBooksByIsbn(isbn));
+  }
+
+  /**
+   * Asks the persistence server every time and caches nothing, not even as a
+   * stale fallback: a write must not be decided on an old answer.
+   */
+  @Override public AvailabilitySummary getCurrentAvailabilitySummary(
+      String isbn)
+  {
+    if (availabilitySummarySupported)
+    {
+      try
+      {
+        AvailabilitySummary summary = delegate.getAvailabilitySummary(isbn);
+        if (summary.isAvailable())
+        {
+          isbnsByBookId.put(summary.getAvailableBookId(), isbn);
+        }
+        return summary;
+      }
+      catch (UnsupportedOperationException ex)
+      {
+        availabilitySummarySupported = false;
+        logger.warn("Persistence server does not implement "
+            + "GetAvailabilitySummary; counting the copies of each ISBN");
+      }
+    }
+    return AvailabilitySummary.fromCopies(getCurrentBooksByIsbn(isbn));
+  }
+
+  /**
+   * Asks the persistence server every time. Failures are thrown rather than
+   * answered with the last known copies, which may already be lent out.
+   */
+  @Override public List<Book> getCurrentBooksByIsbn(String isbn)
+  {
+    List<Book> books = delegate.getBooksByIsbn(isbn);
+    for (Book book : books)
+    {
+      isbnsByBookId.put(book.getId(), isbn);
+    }
+    return books;
+  }
+
+  @Override public Book getBookById(int bookId)
+  {
+    // A null result (lookup failure) is not cached by Caffeine
+    Book book = read(booksById, staleBooksById, bookId, key -> {
+      logger.info("Book cache miss for ID: {}", key);
+      return delegate.getBookById(key);
+    });
+    if (book == null)
+    {
+      // The delegate reports failures as null rather than throwing
+      book = staleBooksById.getIfPresent(bookId);
+    }
+    return book;
+  }
+
+  /**
+   * Drops the cached copy and, since its previous state is unknown, the
+   * availability of its ISBN.
+   */
+  @Override public void updateBookStatus(int bookId, String status)
+  {
+    try
+    {
+      delegate.updateBookStatus(bookId, status);
+    }
+    finally
+    {
+      evict(bookId);
+    }
+  }
+
+  /**
+   * Drops the cached copy. When the update applies the copy is known to have
+   * moved from {@code expectedStatus} to {@code status}, so the availability
+   * of its ISBN is updated in place rather than dropped.
+   */
+  @Override public boolean updateBookStatus(int bookId, String expectedStatus,
+      String status)
+  {
+    String isbn = isbnOf(bookId);
+    boolean applied = false;
+    // Evicted on a conflict too: the cached state is what was out of date
+    try
+    {
+      applied = delegate.updateBookStatus(bookId, expectedStatus, status);
+      return applied;
+    }
+    finally
+    {
+      evictCopy(bookId, isbn);
+      if (applied)
+      {
+        moveAvailability(isbn, bookId, expectedStatus, status);
+      }
+      else
+      {
+        evictAvailability(isbn);
+      }
+    }
+  }
+
+  @Override public void bookStateChanged(int bookId)
+  {
+    evict(bookId);
+  }
+
+  /**
+   * Drops every entry that may contain the given copy.
+   */
+  private void evict(int bookId)
+  {
+    String isbn = isbnOf(bookId);
+    evictCopy(bookId, isbn);
+    evictAvailability(isbn);
+  }
+
+  /**
+   * @return the ISBN of the copy if known here, else null
+   */
+  private String isbnOf(int bookId)
+  {
+    Book cached = booksById.getIfPresent(bookId);
+    if (cached != null && cached.getIsbn() != null)
+    {
+      return cached.getIsbn();
+    }
+    return isbnsByBookId.getIfPresent(bookId);
+  }
+
+  /**
+   * Drops the copy and every listing that may contain it.
+   */
+  private void evictCopy(int bookId, String isbn)
+  {
+    generation.incrementAndGet();
+    booksById.invalidate(bookId);
+    if (isbn != null)
+    {
+      booksByIsbn.invalidate(isbn);
+    }
+    else
+    {
+      // Unknown ISBN for this copy, so any ISBN entry may hold it
+      booksByIsbn.invalidateAll();
+    }
+    allBooks.invalidateAll();
+    bookPages.invalidateAll();
+    logger.debug("Evicted cached entries for book ID: {}", bookId);
+  }
+
+  private void evictAvailability(String isbn)
+  {
+    generation.incrementAndGet();
+    if (isbn != null)
+    {
+      availability.invalidate(isbn);
+    }
+    else
+    {
+      availability.invalidateAll();
+    }
+  }
+
+  /**
+   * Moves one copy between the availability counts of its ISBN, dropping the
+   * entry when the change cannot be applied exactly.
+   */
+  private void moveAvailability(String isbn, int bookId, String from,
+      String to)
+  {
+    State fromState = parseState(from);
+    State toState = parseState(to);
+    if (isbn == null || fromState == null || toState == null)
+    {
+      evictAvailability(isbn);
+      return;
+    }
+    availability.asMap().computeIfPresent(isbn,
+        (key, summary) -> summary.withStateChange(bookId, fromState, toState));
+  }
+
+  private static State parseState(String status)
+  {
+    try
+    {
+      return State.valueOf(status.trim().toUpperCase(Locale.ROOT));
+    }
+    catch (RuntimeException ex)
+    {
+      return null;
+    }
+  }
+
+  /**
+   * Seeds the id and ISBN caches from a full catalog snapshot. The snapshot
+   * contains every copy, so the ISBN groups built here are complete.
+   */
+  private void indexCatalog(List<Book> books, long loadGeneration)
+  {
+    Map<String, List<Book>> copiesByIsbn = new LinkedHashMap<>();
+    for (Book book : books)
+    {
+      if (book.getIsbn() != null)
+      {
+        copiesByIsbn.computeIfAbsent(book.getIsbn(),
+            isbn -> new ArrayList<>()).add(book);
+      }
+    }
+    Map<String, List<Book>> groups = new LinkedHashMap<>();
+    Map<String, AvailabilitySummary> summaries = new LinkedHashMap<>();
+    copiesByIsbn.forEach((isbn, copies) -> {
+      groups.put(isbn, List.copyOf(copies));
+      summaries.put(isbn, AvailabilitySummary.fromCopies(copies));
+    });
+    indexLoad(loadGeneration, books, groups, summaries);
+  }
+
+  /**
+   * Stores what a load learned besides its own key, unless anything was
+   * evicted since the load started at {@code loadGeneration}: the answer may
+   * predate that change. An eviction racing with the stores is caught by
+   * checking again afterwards and taking them back out.
+   */
+  private void indexLoad(long loadGeneration, List<Book> copies,
+      Map<String, List<Book>> groups, Map<String, AvailabilitySummary> summaries)
+  {
+    if (generation.get() != loadGeneration)
+    {
+      logger.debug("Book cache changed during a load, not indexing its answer");
+      return;
+    }
+    for (Book book : copies)
+    {
+      put(booksById, staleBooksById, book.getId(), book);
+    }
+    groups.forEach((isbn, group) -> put(booksByIsbn, staleBooksByIsbn, isbn,
+        group));
+    summaries.forEach((isbn, summary) -> put(availability, staleAvailability,
+        isbn, summary));
+    if (generation.get() != loadGeneration)
+    {
+      booksById.invalidateAll(copies.stream().map(Book::getId).toList());
+      booksByIsbn.invalidateAll(groups.keySet());
+      availability.invalidateAll(summaries.keySet());
+    }
+  }
+
+  /**
+   * Reads through the fresh cache, remembering what was loaded as the last
+   * known answer, and falls back to that answer when persistence fails.
+   */
+  private <K, V> V read(Cache<K, V> fresh, Cache<K, V> stale, K key,
+      Function<K, V> loader)
+  {
+    try
+    {
+      return fresh.get(key, missing -> {
+        V value = loader.apply(missing);
+        if (value != null)
+        {
+          stale.put(missing, value);
+        }
+        return value;
+      });
+    }
+    catch (GrpcCommunicationException ex)
+    {
+      V last = stale.getIfPresent(key);
+      if (last == null)
+      {
+        throw ex;
+      }
+      logger.warn("Persistence failing, serving stale book data for {}: {}",
+          key, ex.getMessage());
+      return last;
+    }
+  }
+
+  private static <K, V> void put(Cache<K, V> fresh, Cache<K, V> stale, K key,
+      V value)
+  {
+    fresh.put(key, value);
+    stale.put(key, value);
+  }
+}
@@ -0,0 +1,799 @@
+package dk.via.sep3.grpcConnection.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Settings for the channel to the persistence server, bound from
+ * {@code grpc.server.*}, {@code grpc.tls.*}, {@code grpc.channel.*},
+ * {@code grpc.deadlines.*}, {@code grpc.load-balancing.*},
+ * {@code grpc.resilience.*}, {@code grpc.retry.*} and {@code grpc.hedging.*}.
+ * <p>
+ * Unset channel options keep the gRPC defaults.
+ */
+@ConfigurationProperties(prefix = "grpc")
+public class GrpcChannelProperties
+{
+  private final Server server = new Server();
+  private final Tls tls = new Tls();
+  private final Channel channel = new Channel();
+  private final Deadlines deadlines = new Deadlines();
+  private final LoadBalancing loadBalancing = new LoadBalancing();
+  private final Resilience resilience = new Resilience();
+  private final Retry retry = new Retry();
+  private final Hedging hedging = new Hedging();
+
+  public Server getServer()
+  {
+    return server;
+  }
+
+  public Tls getTls()
+  {
+    return tls;
+  }
+
+  public Channel getChannel()
+  {
+    return channel;
+  }
+
+  public Deadlines getDeadlines()
+  {
+    return deadlines;
+  }
+
+  public LoadBalancing getLoadBalancing()
+  {
+    return loadBalancing;
+  }
+
+  public Resilience getResilience()
+  {
+    return resilience;
+  }
+
+  public Retry getRetry()
+  {
+    return retry;
+  }
+
+  public Hedging getHedging()
+  {
+    return hedging;
+  }
+
+  /**
+   * Where the persistence replicas are. {@code target} wins over
+   * {@code addresses}, which win over {@code host} and {@code port}.
+   */
+  public static class Server
+  {
+    private String host = "localhost";
+    private int port = 5020;
+    /** gRPC target URI, e.g. {@code dns:///persistence:5020}. */
+    private String target;
+    /** Fixed replica list as {@code host:port}; the port defaults to {@code port}. */
+    private List<String> addresses = new ArrayList<>();
+
+    public String getHost()
+    {
+      return host;
+    }
+
+    public void setHost(String host)
+    {
+      this.host = host;
+    }
+
+    public int getPort()
+    {
+      return port;
+    }
+
+    public void setPort(int port)
+    {
+      this.port = port;
+    }
+
+    public String getTarget()
+    {
+      return target;
+    }
+
+    public void setTarget(String target)
+    {
+      this.target = target;
+    }
+
+    public List<String> getAddresses()
+    {
+      return addresses;
+    }
+
+    public void setAddresses(List<String> addresses)
+    {
+      this.addresses = addresses;
+    }
+  }
+
+  public static class Tls
+  {
+    private boolean enabled;
+    /** PEM file to trust; the JVM trust store is used when empty. */
+    private String trustCert;
+    /** PEM certificate and key presented for mutual TLS. */
+    private String clientCert;
+    private String clientKey;
+
+    public boolean isEnabled()
+    {
+      return enabled;
+    }
+
+    public void setEnabled(boolean enabled)
+    {
+      this.enabled = enabled;
+    }
+
+    public String getTrustCert()
+    {
+      return trustCert;
+    }
+
+    public void setTrustCert(String trustCert)
+    {
+      this.trustCert = trustCert;
+    }
+
+    public String getClientCert()
+    {
+      return clientCert;
+    }
+
+    public void setClientCert(String clientCert)
+    {
+      this.clientCert = clientCert;
+    }
+
+    public String getClientKey()
+    {
+      return clientKey;
+    }
+
+    public void setClientKey(String clientKey)
+    {
+      this.clientKey = clientKey;
+    }
+  }
+
+  public static class Channel
+  {
+    /** Ping interval on an idle connection, so dead peers are noticed. */
+    private Duration keepAliveTime;
+    private Duration keepAliveTimeout;
+    private boolean keepAliveWithoutCalls;
+    /** Drops the connection after this long without calls. */
+    private Duration idleTimeout;
+    /** Largest response accepted, e.g. a full catalog. gRPC defaults to 4 MB. */
+    private DataSize maxInboundMessageSize;
+    /** Starting HTTP/2 window; gRPC still tunes it from there. */
+    private DataSize initialFlowControlWindow;
+    /**
+     * Whether responses may arrive gzip-compressed. Which methods are
+     * compressed is decided by the persistence server.
+     */
+    private boolean acceptCompressedResponses = true;
+
+    public Duration getKeepAliveTime()
+    {
+      return keepAliveTime;
+    }
+
+    public void setKeepAliveTime(Duration keepAliveTime)
+    {
+      this.keepAliveTime = keepAliveTime;
+    }
+
+    public Duration getKeepAliveTimeout()
+    {
+      return keepAliveTimeout;
+    }
+
+    public void setKeepAliveTimeout(Duration keepAliveTimeout)
+    {
+      this.keepAliveTimeout = keepAliveTimeout;
+    }
+
+    public boolean isKeepAliveWithoutCalls()
+    {
+      return keepAliveWithoutCalls;
+    }
+
+    public void setKeepAliveWithoutCalls(boolean keepAliveWithoutCalls)
+    {
+      this.keepAliveWithoutCalls = keepAliveWithoutCalls;
+    }
+
+    public Duration getIdleTimeout()
+    {
+      return idleTimeout;
+    }
+
+    public void setIdleTimeout(Duration idleTimeout)
+    {
+      this.idleTimeout = idleTimeout;
+    }
+
+    public DataSize getMaxInboundMessageSize()
+    {
+      return maxInboundMessageSize;
+    }
+
+    public void setMaxInboundMessageSize(DataSize maxInboundMessageSize)
+    {
+      this.maxInboundMessageSize = maxInboundMessageSize;
+    }
+
+    public DataSize getInitialFlowControlWindow()
+    {
+      return initialFlowControlWindow;
+    }
+
+    public void setInitialFlowControlWindow(DataSize initialFlowControlWindow)
+    {
+      this.initialFlowControlWindow = initialFlowControlWindow;
+    }
+
+    public boolean isAcceptCompressedResponses()
+    {
+      return acceptCompressedResponses;
+    }
+
+    public void setAcceptCompressedResponses(boolean acceptCompressedResponses)
+    {
+      this.acceptCompressedResponses = acceptCompressedResponses;
+    }
+  }
+
+  public static class Deadlines
+  {
+    /** Deadline of unary calls without a per-method entry. */
+    private Duration defaultTimeout = Duration.ofSeconds(5);
+    /** Per-method deadlines keyed by bare or full method name. */
+    private Map<String, Duration> methods = new LinkedHashMap<>();
+    /** Total time for all calls of one HTTP request; zero disables it. */
+    private Duration requestBudget = Duration.ofSeconds(10);
+
+    public Duration getDefaultTimeout()
+    {
+      return defaultTimeout;
+    }
+
+    public void setDefaultTimeout(Duration defaultTimeout)
+    {
+      this.defaultTimeout = defaultTimeout;
+    }
+
+    public Map<String, Duration> getMethods()
+    {
+      return methods;
+    }
+
+    public void setMethods(Map<String, Duration> methods)
+    {
+      this.methods = methods;
+    }
+
+    public Duration getRequestBudget()
+    {
+      return requestBudget;
+    }
+
+    public void setRequestBudget(Duration requestBudget)
+    {
+      this.requestBudget = requestBudget;
+    }
+  }
+
+  public static class LoadBalancing
+  {
+    /** Policy spreading calls over the replicas, e.g. round_robin or pick_first. */
+    private String policy = "round_robin";
+    /**
+     * Whether subchannels watch the standard gRPC health service and stop
+     * taking calls while a replica reports NOT_SERVING. Replicas without the
+     * service count as healthy.
+     */
+    private boolean healthCheck = true;
+    /** Service name sent in health checks; empty means the whole server. */
+    private String healthCheckServiceName = "";
+    private final OutlierDetection outlierDetection = new OutlierDetection();
+
+    public String getPolicy()
+    {
+      return policy;
+    }
+
+    public void setPolicy(String policy)
+    {
+      this.policy = policy;
+    }
+
+    public boolean isHealthCheck()
+    {
+      return healthCheck;
+    }
+
+    public void setHealthCheck(boolean healthCheck)
+    {
+      this.healthCheck = healthCheck;
+    }
+
+    public String getHealthCheckServiceName()
+    {
+      return healthCheckServiceName;
+    }
+
+    public void setHealthCheckServiceName(String healthCheckServiceName)
+    {
+      this.healthCheckServiceName = healthCheckServiceName;
+    }
+
+    public OutlierDetection getOutlierDetection()
+    {
+      return outlierDetection;
+    }
+  }
+
+  /**
+   * Ejects a replica whose calls fail far more often than its peers', for
+   * {@code base-ejection-time} times the number of ejections so far.
+   */
+  public static class OutlierDetection
+  {
+    private boolean enabled = true;
+    /** How often failure rates are compared. */
+    private Duration interval = Duration.ofSeconds(10);
+    private Duration baseEjectionTime = Duration.ofSeconds(30);
+    private Duration maxEjectionTime = Duration.ofMinutes(5);
+    /** Most replicas that may be ejected at once, in percent. */
+    private int maxEjectionPercentage = 50;
+    /** Failure percentage at which a replica is ejected. */
+    private int failurePercentageThreshold = 85;
+    /** Fewest replicas with enough calls for ejection to apply. */
+    private int minimumHosts = 2;
+    /** Fewest calls in an interval for a replica to be judged. */
+    private int requestVolume = 20;
+
+    public boolean isEnabled()
+    {
+      return enabled;
+    }
+
+    public void setEnabled(boolean enabled)
+    {
+      this.enabled = enabled;
+    }
+
+    public Duration getInterval()
+    {
+      return interval;
+    }
+
+    public void setInterval(Duration interval)
+    {
+      this.interval = interval;
+    }
+
+    public Duration getBaseEjectionTime()
+    {
+      return baseEjectionTime;
+    }
+
+    public void setBaseEjectionTime(Duration baseEjectionTime)
+    {
+      this.baseEjectionTime = baseEjectionTime;
+    }
+
+    public Duration getMaxEjectionTime()
+    {
+      return maxEjectionTime;
+    }
+
+    public void setMaxEjectionTime(Duration maxEjectionTime)
+    {
+      this.maxEjectionTime = maxEjectionTime;
+    }
+
+    public int getMaxEjectionPercentage()
+    {
+      return maxEjectionPercentage;
+    }
+
+    public void setMaxEjectionPercentage(int maxEjectionPercentage)
+    {
+      this.maxEjectionPercentage = maxEjectionPercentage;
+    }
+
+    public int getFailurePercentageThreshold()
+    {
+      return failurePercentageThreshold;
+    }
+
+    public void setFailurePercentageThreshold(int failurePercentageThreshold)
+    {
+      this.failurePercentageThreshold = failurePercentageThreshold;
+    }
+
+    public int getMinimumHosts()
+    {
+      return minimumHosts;
+    }
+
+    public void setMinimumHosts(int minimumHosts)
+    {
+      this.minimumHosts = minimumHosts;
+    }
+
+    public int getRequestVolume()
+    {
+      return requestVolume;
+    }
+
+    public void setRequestVolume(int requestVolume)
+    {
+      this.requestVolume = requestVolume;
+    }
+  }
+
+  /**
+   * Circuit breaker and bulkhead settings per gRPC service.
+   * {@code grpc.resilience.services.<Service>} replaces
+   * {@code grpc.resilience.defaults} for one service, keyed by its simple
+   * name such as {@code LoanService} or its full name.
+   */
+  public static class Resilience
+  {
+    private Policy defaults = new Policy();
+    private Map<String, Policy> services = new LinkedHashMap<>();
+
+    public Policy getDefaults()
+    {
+      return defaults;
+    }
+
+    public void setDefaults(Policy defaults)
+    {
+      this.defaults = defaults;
+    }
+
+    public Map<String, Policy> getServices()
+    {
+      return services;
+    }
+
+    public void setServices(Map<String, Policy> services)
+    {
+      this.services = services;
+    }
+
+    /**
+     * @param serviceName full gRPC service name, e.g. {@code dk.via.sep3.LoanService}
+     */
+    public Policy policyFor(String serviceName)
+    {
+      String simpleName = serviceName.substring(serviceName.lastIndexOf('.') + 1);
+      // Map keys may come back in another case, e.g. from env variables
+      for (Map.Entry<String, Policy> entry : services.entrySet())
+      {
+        String key = entry.getKey().toLowerCase(Locale.ROOT);
+        if (key.equals(serviceName.toLowerCase(Locale.ROOT))
+            || key.equals(simpleName.toLowerCase(Locale.ROOT)))
+        {
+          return entry.getValue();
+        }
+      }
+      return defaults;
+    }
+  }
+
+  public static class Policy
+  {
+    private boolean enabled = true;
+    /** Failed calls in the window, in percent, that open the breaker. */
+    private int failureRateThreshold = 50;
+    /** Number of most recent calls the failure rate is computed over. */
+    private int slidingWindowSize = 20;
+    /** Fewest calls in the window before the breaker may open. */
+    private int minimumCalls = 10;
+    /** How long an open breaker rejects calls before letting trial calls through. */
+    private Duration waitInOpenState = Duration.ofSeconds(10);
+    /** Trial calls that must all succeed to close the breaker again. */
+    private int permittedCallsInHalfOpenState = 3;
+    /** Calls to the service in flight at once; further calls are rejected. */
+    private int maxConcurrentCalls = 32;
+    /** How long a call may wait for a free slot; zero rejects straight away. */
+    private Duration maxWait = Duration.ZERO;
+
+    public boolean isEnabled()
+    {
+      return enabled;
+    }
+
+    public void setEnabled(boolean enabled)
+    {
+      this.enabled = enabled;
+    }
+
+    public int getFailureRateThreshold()
+    {
+      return failureRateThreshold;
+    }
+
+    public void setFailureRateThreshold(int failureRateThreshold)
+    {
+      this.failureRateThreshold = failureRateThreshold;
+    }
+
+    public int getSlidingWindowSize()
+    {
+      return slidingWindowSize;
+    }
+
+    public void setSlidingWindowSize(int slidingWindowSize)
+    {
+      this.slidingWindowSize = slidingWindowSize;
+    }
+
+    public int getMinimumCalls()
+    {
+      return minimumCalls;
+    }
+
+    public void setMinimumCalls(int minimumCalls)
+    {
+      this.minimumCalls = minimumCalls;
+    }
+
+    public Duration getWaitInOpenState()
+    {
+      return waitInOpenState;
+    }
+
+    public void setWaitInOpenState(Duration waitInOpenState)
+    {
+      this.waitInOpenState = waitInOpenState;
+    }
+
+    public int getPermittedCallsInHalfOpenState()
+    {
+      return permittedCallsInHalfOpenState;
+    }
+
+    public void setPermittedCallsInHalfOpenState(int permittedCallsInHalfOpenState)
+    {
+      this.permittedCallsInHalfOpenState = permittedCallsInHalfOpenState;
+    }
+
+    public int getMaxConcurrentCalls()
+    {
+      return maxConcurrentCalls;
+    }
+
+    public void setMaxConcurrentCalls(int maxConcurrentCalls)
+    {
+      this.maxConcurrentCalls = maxConcurrentCalls;
+    }
+
+    public Duration getMaxWait()
+    {
+      return maxWait;
+    }
+
+    public void setMaxWait(Duration maxWait)
+    {
+      this.maxWait = maxWait;
+    }
+  }
+
+  /**
+   * Retries of read methods that failed with a retryable status, with
+   * exponential backoff. Methods are named {@code Service/Method}, e.g.
+   * {@code BookService/GetAllBooks}; only reads ({@code Get*}, {@code List*},
+   * {@code Stream*}) are accepted.
+   */
+  public static class Retry
+  {
+    private boolean enabled = true;
+    /** Attempts including the first one. */
+    private int maxAttempts = 3;
+    private Duration initialBackoff = Duration.ofMillis(50);
+    private Duration maxBackoff = Duration.ofMillis(500);
+    private double backoffMultiplier = 2;
+    private List<String> retryableStatusCodes = new ArrayList<>(
+        List.of("UNAVAILABLE"));
+    private List<String> methods = new ArrayList<>(List.of(
+        "BookService/GetAllBooks", "BookService/StreamAllBooks",
+        "UserService/ListUsernames", "LoanService/StreamActiveLoans",
+        "ReservationService/GetReservationCountByIsbn",
+        "ReservationService/GetReservationsByIsbn"));
+    /**
+     * Retry and hedging tokens: each failure costs one, each success gives
+     * back {@code throttling-token-ratio}, and below half of
+     * {@code throttling-max-tokens} no more retries or hedges are sent, so
+     * they cannot pile onto a struggling server.
+     */
+    private int throttlingMaxTokens = 10;
+    private double throttlingTokenRatio = 0.1;
+
+    public boolean isEnabled()
+    {
+      return enabled;
+    }
+
+    public void setEnabled(boolean enabled)
+    {
+      this.enabled = enabled;
+    }
+
+    public int getMaxAttempts()
+    {
+      return maxAttempts;
+    }
+
+    public void setMaxAttempts(int maxAttempts)
+    {
+      this.maxAttempts = maxAttempts;
+    }
+
+    public Duration getInitialBackoff()
+    {
+      return initialBackoff;
+    }
+
+    public void setInitialBackoff(Duration initialBackoff)
+    {
+      this.initialBackoff = initialBackoff;
+    }
+
+    public Duration getMaxBackoff()
+    {
+      return maxBackoff;
+    }
+
+    public void setMaxBackoff(Duration maxBackoff)
+    {
+      this.maxBackoff = maxBackoff;
+    }
+
+    public double getBackoffMultiplier()
+    {
+      return backoffMultiplier;
+    }
+
+    public void setBackoffMultiplier(double backoffMultiplier)
+    {
+      this.backoffMultiplier = backoffMultiplier;
+    }
+
+    public List<String> getRetryableStatusCodes()
+    {
+      return retryableStatusCodes;
+    }
+
+    public void setRetryableStatusCodes(List<String> retryableStatusCodes)
+    {
+      this.retryableStatusCodes = retryableStatusCodes;
+    }
+
+    public List<String> getMethods()
+    {
+      return methods;
+    }
+
+    public void setMethods(List<String> methods)
+    {
+      this.methods = methods;
+    }
+
+    public int getThrottlingMaxTokens()
+    {
+      return throttlingMaxTokens;
+    }
+
+    public void setThrottlingMaxTokens(int throttlingMaxTokens)
+    {
+      this.throttlingMaxTokens = throttlingMaxTokens;
+    }
+
+    public double getThrottlingTokenRatio()
+    {
+      return throttlingTokenRatio;
+    }
+
+    public void setThrottlingTokenRatio(double throttlingTokenRatio)
+    {
+      this.throttlingTokenRatio = throttlingTokenRatio;
+    }
+  }
+
+  /**
+   * Hedged reads: when the first attempt has not answered after
+   * {@code delay}, another is sent, possibly to another replica, and the
+   * first answer wins. Set the delay near the method's p95 latency. Only
+   * reads are accepted, named as for {@link Retry}.
+   */
+  public static class Hedging
+  {
+    private boolean enabled = true;
+    /** Attempts including the first one. */
+    private int maxAttempts = 2;
+    private Duration delay = Duration.ofMillis(50);
+    /** Statuses after which the other attempts keep going. */
+    private List<String> nonFatalStatusCodes = new ArrayList<>(
+        List.of("UNAVAILABLE"));
+    private List<String> methods = new ArrayList<>(List.of(
+        "BookService/GetBookById", "BookService/GetBooksByIsbn",
+        "UserService/GetUserByUsername", "LoanService/GetLoanById",
+        "LoanService/GetActiveLoansByUsername", "LoanService/GetLoansByISBN",
+        "LoanService/GetLoansByIds", "BookService/GetAvailabilitySummary"));
+
+    public boolean isEnabled()
+    {
+      return enabled;
+    }
+
+    public void setEnabled(boolean enabled)
+    {
+      this.enabled = enabled;
+    }
+
+    public int getMaxAttempts()
+    {
+      return maxAttempts;
+    }
+
+    public void setMaxAttempts(int maxAttempts)
+    {
+      this.maxAttempts = maxAttempts;
+    }
+
+    public Duration getDelay()
+    {
+      return delay;
+    }
+
+    public void setDelay(Duration delay)
+    {
+      this.delay = delay;
+    }
+
+    public List<String> getNonFatalStatusCodes()
+    {
+      return nonFatalStatusCodes;
+    }
+
+    public void setNonFatalStatusCodes(List<String> nonFatalStatusCodes)
+    {
+      this.nonFatalStatusCodes = nonFatalStatusCodes;
+    }
+
+    public List<String> getMethods()
+    {
+      return methods;
+    }
+
+    public void setMethods(List<String> methods)
+    {
+      this.methods = methods;
+    }
+  }
+}
@@ -0,0 +1,144 @@
+package dk.via.sep3.grpcConnection.config;
+
+import com.google.protobuf.MessageLite;
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.ForwardingClientCall;
+import io.grpc.ForwardingClientCallListener;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Records every call made through the persistence channel.
+ * <p>
+ * Publishes, tagged with {@code service} and {@code method}:
+ * <ul>
+ *   <li>{@code grpc.client.calls}: latency histogram, also tagged with the
+ *   final {@code status} code, so its count per status doubles as the
+ *   status-code counter</li>
+ *   <li>{@code grpc.client.calls.in.flight}: calls started but not closed</li>
+ *   <li>{@code grpc.client.request.size} and
+ *   {@code grpc.client.response.size}: serialized message sizes in bytes,
+ *   one sample per message, so streaming responses record each element</li>
+ * </ul>
+ * Meters are created once per method and status and reused afterwards.
+ */
+@Component
+public class GrpcMetricsInterceptor implements ClientInterceptor
+{
+  private final MeterRegistry meterRegistry;
+  private final Map<String, MethodMeters> meters = new ConcurrentHashMap<>();
+
+  public GrpcMetricsInterceptor(MeterRegistry meterRegistry)
+  {
+    this.meterRegistry = meterRegistry;
+  }
+
+  @Override public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(
+      MethodDescriptor<ReqT, RespT> method, CallOptions callOptions,
+      Channel next)
+  {
+    MethodMeters methodMeters = meters.computeIfAbsent(
+        method.getFullMethodName(), name -> new MethodMeters(method));
+    return new ForwardingClientCall.SimpleForwardingClientCall<>(
+        next.newCall(method, callOptions))
+    {
+      private long startedAt;
+
+      @Override public void start(Listener<RespT> responseListener,
+          Metadata headers)
+      {
+        startedAt = System.nanoTime();
+        methodMeters.inFlight.incrementAndGet();
+        super.start(
+            new ForwardingClientCallListener.SimpleForwardingClientCallListener<>(
+                responseListener)
+            {
+              @Override public void onMessage(RespT message)
+              {
+                record(methodMeters.responseSize, message);
+                super.onMessage(message);
+              }
+
+              @Override public void onClose(Status status, Metadata trailers)
+              {
+                methodMeters.inFlight.decrementAndGet();
+                methodMeters.timer(status.getCode())
+                    .record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+                super.onClose(status, trailers);
+              }
+            }, headers);
+      }
+
+      @Override public void sendMessage(ReqT message)
+      {
+        record(methodMeters.requestSize, message);
+        super.sendMessage(message);
+      }
+    };
+  }
+
+  private static void record(DistributionSummary summary, Object message)
+  {
+    // Protobuf memoizes the size, so the later serialization does not redo it
+    if (message instanceof MessageLite protobuf)
+    {
+      summary.record(protobuf.getSerializedSize());
+    }
+  }
+
+  private final class MethodMeters
+  {
+    private final String service;
+    private final String method;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final DistributionSummary requestSize;
+    private final DistributionSummary responseSize;
+    private final Map<Status.Code, Timer> timers = new ConcurrentHashMap<>();
+
+    MethodMeters(MethodDescriptor<?, ?> descriptor)
+    {
+      this.service = String.valueOf(descriptor.getServiceName());
+      this.method = String.valueOf(descriptor.getBareMethodName());
+      Gauge.builder("grpc.client.calls.in.flight", inFlight,
+              AtomicInteger::get)
+          .description("gRPC calls to persistence that have not completed")
+          .tags("service", service, "method", method)
+          .register(meterRegistry);
+      this.requestSize = DistributionSummary.builder("grpc.client.request.size")
+          .description("Serialized size of gRPC request messages")
+          .baseUnit("bytes")
+          .tags("service", service, "method", method)
+          .publishPercentileHistogram()
+          .register(meterRegistry);
+      this.responseSize = DistributionSummary.builder("grpc.client.response.size")
+          .description("Serialized size of gRPC response messages")
+          .baseUnit("bytes")
+          .tags("service", service, "method", method)
+          .publishPercentileHistogram()
+          .register(meterRegistry);
+    }
+
+    Timer timer(Status.Code code)
+    {
+      return timers.computeIfAbsent(code, key -> Timer.builder("grpc.client.calls")
+          .description("Latency of gRPC calls to persistence")
+          .tags("service", service, "method", method, "status", key.name())
+          .publishPercentileHistogram()
+          .register(meterRegistry));
+    }
+  }
+}
@@ -0,0 +1,190 @@
+package dk.via.sep3.grpcConnection.config;
+
+import dk.via.sep3.BookServiceGrpc;
+import io.grpc.LoadBalancerRegistry;
+import io.grpc.Status;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Builds the default service config of the persistence channel from
+ * {@link GrpcChannelProperties}.
+ * <p>
+ * The map mirrors the JSON service config format, so numbers are doubles and
+ * durations strings such as {@code "10s"}.
+ * <p>
+ * Retry and hedging policies are only ever attached to reads: a retried or
+ * hedged {@code CreateLoan} could lend the same copy twice, so a write in
+ * {@code grpc.retry.methods} or {@code grpc.hedging.methods} fails startup.
+ */
+final class GrpcServiceConfig
+{
+  static final String OUTLIER_DETECTION_POLICY = "outlier_detection_experimental";
+
+  // "dk.via.sep3." as declared by the proto package
+  private static final String PROTO_PACKAGE = BookServiceGrpc.SERVICE_NAME
+      .substring(0, BookServiceGrpc.SERVICE_NAME.lastIndexOf('.') + 1);
+  private static final List<String> READ_PREFIXES = List.of("Get", "List",
+      "Stream");
+
+  private GrpcServiceConfig()
+  {
+  }
+
+  static Map<String, Object> build(GrpcChannelProperties properties)
+  {
+    GrpcChannelProperties.LoadBalancing loadBalancing = properties.getLoadBalancing();
+    Map<String, Object> serviceConfig = new LinkedHashMap<>();
+    serviceConfig.put("loadBalancingConfig",
+        List.of(loadBalancingConfig(loadBalancing)));
+    if (loadBalancing.isHealthCheck())
+    {
+      serviceConfig.put("healthCheckConfig",
+          Map.of("serviceName", loadBalancing.getHealthCheckServiceName()));
+    }
+    GrpcChannelProperties.Retry retry = properties.getRetry();
+    GrpcChannelProperties.Hedging hedging = properties.getHedging();
+    List<Map<String, Object>> methodConfig = new ArrayList<>();
+    Set<String> configured = new HashSet<>();
+    if (hedging.isEnabled() && !hedging.getMethods().isEmpty())
+    {
+      methodConfig.add(Map.of(
+          "name", names(hedging.getMethods(), configured, "grpc.hedging.methods"),
+          "hedgingPolicy", hedgingPolicy(hedging)));
+    }
+    if (retry.isEnabled() && !retry.getMethods().isEmpty())
+    {
+      methodConfig.add(Map.of(
+          "name", names(retry.getMethods(), configured, "grpc.retry.methods"),
+          "retryPolicy", retryPolicy(retry)));
+    }
+    if (!methodConfig.isEmpty())
+    {
+      serviceConfig.put("methodConfig", methodConfig);
+      serviceConfig.put("retryThrottling", Map.of(
+          "maxTokens", (double) retry.getThrottlingMaxTokens(),
+          "tokenRatio", retry.getThrottlingTokenRatio()));
+    }
+    return serviceConfig;
+  }
+
+  static Map<String, Object> retryPolicy(GrpcChannelProperties.Retry retry)
+  {
+    Map<String, Object> policy = new LinkedHashMap<>();
+    policy.put("maxAttempts", (double) retry.getMaxAttempts());
+    policy.put("initialBackoff", duration(retry.getInitialBackoff()));
+    policy.put("maxBackoff", duration(retry.getMaxBackoff()));
+    policy.put("backoffMultiplier", retry.getBackoffMultiplier());
+    policy.put("retryableStatusCodes",
+        statusCodes(retry.getRetryableStatusCodes(), "grpc.retry.retryable-status-codes"));
+    return policy;
+  }
+
+  static Map<String, Object> hedgingPolicy(GrpcChannelProperties.Hedging hedging)
+  {
+    Map<String, Object> policy = new LinkedHashMap<>();
+    policy.put("maxAttempts", (double) hedging.getMaxAttempts());
+    policy.put("hedgingDelay", duration(hedging.getDelay()));
+    policy.put("nonFatalStatusCodes",
+        statusCodes(hedging.getNonFatalStatusCodes(), "grpc.hedging.non-fatal-status-codes"));
+    return policy;
+  }
+
+  /**
+   * Turns {@code Service/Method} entries into service config names, rejecting
+   * writes and methods already given a policy.
+   */
+  private static List<Map<String, Object>> names(List<String> methods,
+      Set<String> configured, String property)
+  {
+    List<Map<String, Object>> names = new ArrayList<>();
+    for (String entry : methods)
+    {
+      String[] parts = entry.trim().split("/");
+      if (parts.length != 2 || parts[0].isBlank() || parts[1].isBlank())
+      {
+        throw new IllegalStateException("Invalid method '" + entry + "' in "
+            + property + "; expected Service/Method, e.g. BookService/GetBookById");
+      }
+      String service = parts[0].contains(".") ? parts[0] : PROTO_PACKAGE + parts[0];
+      String method = parts[1];
+      if (READ_PREFIXES.stream().noneMatch(method::startsWith))
+      {
+        throw new IllegalStateException("'" + entry + "' in " + property
+            + " is not a read; writes must never be retried or hedged");
+      }
+      if (!configured.add(service + "/" + method))
+      {
+        throw new IllegalStateException("'" + entry + "' in " + property
+            + " already has a retry or hedging policy");
+      }
+      names.add(Map.of("service", service, "method", method));
+    }
+    return names;
+  }
+
+  private static List<String> statusCodes(List<String> codes, String property)
+  {
+    List<String> names = new ArrayList<>();
+    for (String code : codes)
+    {
+      String name = code.trim().toUpperCase(Locale.ROOT);
+      try
+      {
+        Status.Code.valueOf(name);
+      }
+      catch (IllegalArgumentException e)
+      {
+        throw new IllegalStateException("Unknown status code '" + code
+            + "' in " + property);
+      }
+      names.add(name);
+    }
+    return names;
+  }
+
+  static Map<String, Object> loadBalancingConfig(
+      GrpcChannelProperties.LoadBalancing loadBalancing)
+  {
+    String policy = loadBalancing.getPolicy();
+    if (LoadBalancerRegistry.getDefaultRegistry().getProvider(policy) == null)
+    {
+      throw new IllegalStateException("Unknown gRPC load-balancing policy '"
+          + policy + "'; set grpc.load-balancing.policy to one on the classpath");
+    }
+    Map<String, Object> child = Map.of(policy, Map.of());
+    GrpcChannelProperties.OutlierDetection outlier = loadBalancing.getOutlierDetection();
+    if (!outlier.isEnabled())
+    {
+      return child;
+    }
+    Map<String, Object> failurePercentage = new LinkedHashMap<>();
+    failurePercentage.put("threshold", (double) outlier.getFailurePercentageThreshold());
+    failurePercentage.put("enforcementPercentage", 100.0);
+    failurePercentage.put("minimumHosts", (double) outlier.getMinimumHosts());
+    failurePercentage.put("requestVolume", (double) outlier.getRequestVolume());
+
+    Map<String, Object> config = new LinkedHashMap<>();
+    config.put("interval", duration(outlier.getInterval()));
+    config.put("baseEjectionTime", duration(outlier.getBaseEjectionTime()));
+    config.put("maxEjectionTime", duration(outlier.getMaxEjectionTime()));
+    config.put("maxEjectionPercentage", (double) outlier.getMaxEjectionPercentage());
+    config.put("failurePercentageEjection", failurePercentage);
+    config.put("childPolicy", List.of(child));
+    return Map.of(OUTLIER_DETECTION_POLICY, config);
+  }
+
+  static String duration(Duration duration)
+  {
+    return BigDecimal.valueOf(duration.toNanos(), 9).stripTrailingZeros()
+        .toPlainString() + "s";
+  }
+}
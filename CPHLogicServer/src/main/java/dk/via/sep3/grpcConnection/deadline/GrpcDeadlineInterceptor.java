@@ -0,0 +1,81 @@
+package dk.via.sep3.grpcConnection.deadline;
+
+import dk.via.sep3.grpcConnection.config.GrpcChannelProperties;
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.Deadline;
+import io.grpc.MethodDescriptor;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Puts a deadline on every call to persistence, so a stalled server cannot
+ * hold a thread forever.
+ * <p>
+ * {@code grpc.deadlines.methods.<method>} sets the timeout of one method,
+ * keyed by its bare name such as {@code GetAllBooks} or its full name.
+ * Other unary calls get {@code grpc.deadlines.default-timeout}. Streaming
+ * calls only get a deadline when configured by name, since their length
+ * depends on the amount of data. The request budget still applies: gRPC
+ * uses whichever deadline comes first.
+ */
+@Component
+public class GrpcDeadlineInterceptor implements ClientInterceptor
+{
+  private final Duration defaultTimeout;
+  private final Map<String, Duration> methodTimeouts = new HashMap<>();
+
+  public GrpcDeadlineInterceptor(GrpcChannelProperties properties)
+  {
+    GrpcChannelProperties.Deadlines deadlines = properties.getDeadlines();
+    this.defaultTimeout = deadlines.getDefaultTimeout();
+    deadlines.getMethods().forEach(
+        (method, timeout) -> methodTimeouts.put(normalize(method), timeout));
+  }
+
+  @Override public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(
+      MethodDescriptor<ReqT, RespT> method, CallOptions callOptions,
+      Channel next)
+  {
+    Duration timeout = timeoutFor(method);
+    if (timeout != null && !timeout.isZero() && !timeout.isNegative())
+    {
+      Deadline deadline = Deadline.after(timeout.toNanos(),
+          TimeUnit.NANOSECONDS);
+      if (callOptions.getDeadline() == null
+          || deadline.isBefore(callOptions.getDeadline()))
+      {
+        callOptions = callOptions.withDeadline(deadline);
+      }
+    }
+    return next.newCall(method, callOptions);
+  }
+
+  private Duration timeoutFor(MethodDescriptor<?, ?> method)
+  {
+    Duration timeout = methodTimeouts.get(
+        normalize(method.getFullMethodName()));
+    if (timeout == null && method.getBareMethodName() != null)
+    {
+      timeout = methodTimeouts.get(normalize(method.getBareMethodName()));
+    }
+    if (timeout == null && method.getType() == MethodDescriptor.MethodType.UNARY)
+    {
+      timeout = defaultTimeout;
+    }
+    return timeout;
+  }
+
+  // Property map keys may come back in another case, e.g. from env variables
+  private static String normalize(String method)
+  {
+    return method.toLowerCase(Locale.ROOT);
+  }
+}
@@ -0,0 +1,94 @@
+package dk.via.sep3.grpcConnection.deadline;
+
+import dk.via.sep3.exceptionHandler.RequestTimeoutException;
+import io.grpc.Context;
+import io.grpc.Deadline;
+import io.grpc.Status;
+import io.grpc.StatusException;
+import io.grpc.StatusRuntimeException;
+
+import java.util.function.Supplier;
+
+/**
+ * The time left for the gRPC calls of the current HTTP request.
+ * <p>
+ * {@link RequestBudgetFilter} sets the budget as the deadline of the gRPC
+ * {@link Context}. Every call made while it is attached, including calls
+ * forked through {@code GrpcFanOut}, inherits that deadline, so chained calls
+ * share the budget: each one gets whatever the earlier ones left over.
+ */
+public final class RequestBudget
+{
+  private RequestBudget()
+  {
+  }
+
+  /**
+   * Fails fast before the next step of a chained operation, so no new write
+   * is started once the client has been answered with a timeout.
+   *
+   * @param step what would have been done next, for the error message
+   * @throws RequestTimeoutException if the budget has run out
+   */
+  public static void ensureRemaining(String step)
+  {
+    if (isExhausted())
+    {
+      throw new RequestTimeoutException(
+          "Request time budget ran out before " + step);
+    }
+  }
+
+  /**
+   * Runs the rest of an operation whose first write has already been
+   * committed, outside the request budget, so it is not left half done when
+   * the budget runs out in between. Each call still has its own per-method
+   * deadline from {@link GrpcDeadlineInterceptor}.
+   */
+  public static <T> T finishOutsideBudget(Supplier<T> task)
+  {
+    Context detached = Context.current().fork();
+    Context previous = detached.attach();
+    try
+    {
+      return task.get();
+    }
+    finally
+    {
+      detached.detach(previous);
+    }
+  }
+
+  public static boolean isExhausted()
+  {
+    Deadline deadline = Context.current().getDeadline();
+    return deadline != null && deadline.isExpired();
+  }
+
+  /**
+   * @return whether the failure is down to a deadline, either the request
+   * budget or a per-method deadline found anywhere in the cause chain
+   */
+  public static boolean isTimeout(Throwable failure)
+  {
+    if (isExhausted())
+    {
+      return true;
+    }
+    for (Throwable cause = failure; cause != null; cause = cause.getCause())
+    {
+      if (cause instanceof RequestTimeoutException)
+      {
+        return true;
+      }
+      Status status = cause instanceof StatusRuntimeException runtime
+          ? runtime.getStatus()
+          : cause instanceof StatusException checked ? checked.getStatus() : null;
+      if (status != null && status.getCode() == Status.Code.DEADLINE_EXCEEDED)
+      {
+        return true;
+      }
+    }
+    return false;
+  }
+}
@@ -0,0 +1,71 @@
+package dk.via.sep3.grpcConnection.deadline;
+
+import dk.via.sep3.grpcConnection.config.GrpcChannelProperties;
+import io.grpc.Context;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gives every HTTP request a total time budget for its gRPC calls,
+ * {@code grpc.deadlines.request-budget}.
+ * <p>
+ * The budget is attached as a cancellable gRPC {@link Context} with a
+ * deadline for the whole request dispatch. When it expires the context is
+ * cancelled, which aborts the calls still in flight instead of letting them
+ * hold the Tomcat thread. Asynchronous dispatches, such as the rest of a
+ * streamed response, are not covered.
+ */
+@Component
+public class RequestBudgetFilter extends OncePerRequestFilter
+{
+  private final Duration budget;
+  private final ScheduledExecutorService scheduler;
+
+  public RequestBudgetFilter(GrpcChannelProperties properties)
+  {
+    this.budget = properties.getDeadlines().getRequestBudget();
+    CustomizableThreadFactory factory = new CustomizableThreadFactory(
+        "request-budget-");
+    factory.setDaemon(true);
+    this.scheduler = Executors.newSingleThreadScheduledExecutor(factory);
+  }
+
+  @Override protected void doFilterInternal(HttpServletRequest request,
+      HttpServletResponse response, FilterChain filterChain)
+      throws ServletException, IOException
+  {
+    if (budget == null || budget.isZero() || budget.isNegative())
+    {
+      filterChain.doFilter(request, response);
+      return;
+    }
+    Context.CancellableContext context = Context.current()
+        .withDeadlineAfter(budget.toNanos(), TimeUnit.NANOSECONDS, scheduler);
+    Context previous = context.attach();
+    try
+    {
+      filterChain.doFilter(request, response);
+    }
+    finally
+    {
+      context.detach(previous);
+      context.cancel(null);
+    }
+  }
+
+  @Override public void destroy()
+  {
+    scheduler.shutdownNow();
+  }
+}
@@ -0,0 +1,172 @@
+package dk.via.sep3.grpcConnection.fanOut;
+
+import dk.via.sep3.grpcConnection.config.GrpcThreads;
+import io.grpc.Context;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Supplier;
+
+/**
+ * Runs independent blocking gRPC lookups concurrently.
+ * <p>
+ * Work is forked inside a {@link Scope}. Joining the scope waits until every
+ * task has finished or one has failed. On a failure it also waits for the
+ * tasks forked before the failed one, rethrows the failure of the earliest
+ * forked task unchanged and cancels the gRPC context of the calls still
+ * running. Validation exceptions therefore reach the exception handler
+ * exactly as they did when the lookups ran one after another.
+ * <p>
+ * Tasks run on up to {@code grpc.fan-out.threads} platform threads, or on a
+ * virtual thread each when {@link GrpcThreads} says so. When every platform
+ * thread is busy a task runs on the request's own thread as it is forked,
+ * as it did before the fan-out, rather than queueing.
+ */
+@Component
+public class GrpcFanOut
+{
+  private final Executor executor;
+
+  @Autowired
+  public GrpcFanOut(GrpcThreads grpcThreads,
+      @Value("${grpc.fan-out.threads:16}") int threads)
+  {
+    this(grpcThreads.newExecutor("grpc-fan-out-", threads));
+  }
+
+  public GrpcFanOut(Executor executor)
+  {
+    this.executor = executor;
+  }
+
+  public Scope open()
+  {
+    return new Scope();
+  }
+
+  @PreDestroy
+  public void shutdown()
+  {
+    if (executor instanceof ExecutorService service)
+    {
+      service.shutdown();
+    }
+  }
+
+  /**
+   * A group of tasks that succeed or fail together. Closing the scope cancels
+   * any call that is still running.
+   */
+  public final class Scope implements AutoCloseable
+  {
+    private final Context.CancellableContext context = Context.current()
+        .withCancellation();
+    private final List<CompletableFuture<?>> tasks = new ArrayList<>();
+    private final CompletableFuture<Void> firstFailure = new CompletableFuture<>();
+
+    private Scope()
+    {
+    }
+
+    public <T> CompletableFuture<T> fork(Supplier<T> task)
+    {
+      // Nothing new is started once a task has failed
+      if (firstFailure.isCompletedExceptionally())
+      {
+        return new CompletableFuture<>();
+      }
+      CompletableFuture<T> future = CompletableFuture.supplyAsync(() -> {
+        Context previous = context.attach();
+        try
+        {
+          return task.get();
+        }
+        finally
+        {
+          context.detach(previous);
+        }
+      }, executor);
+      future.whenComplete((result, ex) -> {
+        if (ex != null)
+        {
+          firstFailure.completeExceptionally(ex);
+        }
+      });
+      tasks.add(future);
+      return future;
+    }
+
+    public CompletableFuture<Void> fork(Runnable task)
+    {
+      return fork(() -> {
+        task.run();
+        return null;
+      });
+    }
+
+    /**
+     * Waits for all forked tasks, returning early on a failure once every
+     * task forked before the failed one has finished.
+     *
+     * @throws RuntimeException the failure of the earliest forked task that
+     *                          failed
+     */
+    public void join()
+    {
+      CompletableFuture<Void> all = CompletableFuture.allOf(
+          tasks.toArray(new CompletableFuture<?>[0]));
+      try
+      {
+        CompletableFuture.anyOf(all, firstFailure).join();
+      }
+      catch (CompletionException ex)
+      {
+        // Cancelling first would fail the earlier tasks still running
+        RuntimeException failure = failureInForkOrder(ex.getCause());
+        context.cancel(failure);
+        throw failure;
+      }
+    }
+
+    @Override public void close()
+    {
+      context.cancel(null);
+    }
+
+    private RuntimeException failureInForkOrder(Throwable fallback)
+    {
+      Throwable failure = fallback;
+      for (CompletableFuture<?> task : tasks)
+      {
+        // Blocks only on tasks forked before the first failed one
+        Throwable ex = task.handle((result, error) -> error).join();
+        if (ex != null)
+        {
+          failure = ex;
+          break;
+        }
+      }
+      if (failure instanceof CompletionException && failure.getCause() != null)
+      {
+        failure = failure.getCause();
+      }
+      if (failure instanceof RuntimeException runtime)
+      {
+        return runtime;
+      }
+      if (failure instanceof Error error)
+      {
+        throw error;
+      }
+      return new CompletionException(failure);
+    }
+  }
+}
@@ -1,8 +1,11 @@
 package dk.via.sep3.grpcConnection.loanGrpcService;
 
 import dk.via.sep3.application.domain.Loan;
+import dk.via.sep3.application.domain.LoanResult;
+import dk.via.sep3.exceptionHandler.GrpcCommunicationException;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface LoanGrpcService
 {
@@ -15,4 +18,52 @@ public interface LoanGrpcService
   Loan getLoanById(int bookId);
 
   List<Loan> getActiveLoansByUsername(String username);
+
+  /**
+   * @return the loans among {@code loanIds}; unknown ids are left out
+   * @throws UnsupportedOperationException if the persistence server predates {@code GetLoansByIds}
+   * @throws GrpcCommunicationException    if the loans could not be fetched
+   */
+  List<Loan> getLoansByIds(List<Integer> loanIds);
+
+  /**
+   * Streams every unreturned loan, earliest due date first, without loading
+   * them all at once.
+   *
+   * @throws UnsupportedOperationException if the persistence server predates {@code StreamActiveLoans}
+   * @throws GrpcCommunicationException    if the stream failed
+   */
+  void streamActiveLoans(Consumer<Loan> consumer);
+
+  /**
+   * Saves the due dates and extension counts of all loans in one
+   * transaction: either every loan is extended or none is.
+   *
+   * @return the stored loans, in order
+   * @throws UnsupportedOperationException if the persistence server predates {@code ExtendLoans}
+   * @throws GrpcCommunicationException    if the loans were not extended
+   */
+  List<Loan> extendLoans(List<Loan> loans);
+
+  /**
+   * Lends an available copy of {@code loan.getBookISBN()} to
+   * {@code loan.getUsername()} for the loan's dates. The persistence server
+   * checks and takes the copy in one transaction.
+   *
+   * @return the persisted loan, with the id of the copy that was lent
+   * @throws IllegalStateException         if the user already has an active loan for the ISBN
+   * @throws IllegalArgumentException      if the ISBN has no copies or none is available
+   * @throws UnsupportedOperationException if the persistence server predates {@code BorrowBook}
+   */
+  Loan borrowBook(Loan loan);
+
+  /**
+   * {@link #borrowBook} for each loan in one round trip. Items fail on their
+   * own, with the exception {@code borrowBook} would have thrown.
+   *
+   * @return one result per loan, in order
+   * @throws UnsupportedOperationException if the persistence server predates {@code BorrowBooks}
+   * @throws GrpcCommunicationException    if the batch could not be sent
+   */
+  List<LoanResult> borrowBooks(List<Loan> loans);
 }
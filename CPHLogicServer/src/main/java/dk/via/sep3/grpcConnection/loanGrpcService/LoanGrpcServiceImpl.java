@@ -3,14 +3,20 @@ package dk.via.sep3.grpcConnection.loanGrpcService;
 import dk.via.sep3.*;
 import dk.via.sep3.exceptionHandler.GrpcCommunicationException;
 import dk.via.sep3.application.domain.Loan;
+import dk.via.sep3.application.domain.LoanResult;
 import dk.via.sep3.mapper.loanMapper.LoanMapper;
+import io.grpc.Context;
 import io.grpc.ManagedChannel;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.function.Consumer;
 
 @Service public class LoanGrpcServiceImpl implements LoanGrpcService
 {
@@ -53,6 +59,113 @@ import java.util.List;
     }
   }
 
+  @Override public Loan borrowBook(Loan loan)
+  {
+    BorrowBookRequest request = toBorrowBookRequest(loan);
+    logger.info("Sending gRPC request to borrow ISBN: {} for user: {}",
+        loan.getBookISBN(), loan.getUsername());
+    BorrowBookResponse response;
+    try
+    {
+      response = loanStub.borrowBook(request);
+    }
+    catch (StatusRuntimeException ex)
+    {
+      if (ex.getStatus().getCode() == Status.Code.UNIMPLEMENTED)
+      {
+        throw new UnsupportedOperationException(
+            "Persistence server does not implement BorrowBook", ex);
+      }
+      logger.error("Error borrowing ISBN: {}", loan.getBookISBN(), ex);
+      throw new GrpcCommunicationException(
+          "Error borrowing book with ISBN: " + loan.getBookISBN(), ex);
+    }
+    if (response.getSuccess())
+    {
+      logger.info("Loan created successfully: {}", response.getLoan());
+      return loanMapper.mapDTOLoanToDomain(response.getLoan());
+    }
+    logger.error("Failed to borrow ISBN: {}: {}", loan.getBookISBN(),
+        response.getMessage());
+    throw borrowFailure(response);
+  }
+
+  @Override public List<LoanResult> borrowBooks(List<Loan> loans)
+  {
+    BorrowBooksRequest.Builder request = BorrowBooksRequest.newBuilder();
+    for (Loan loan : loans)
+    {
+      request.addItems(toBorrowBookRequest(loan));
+    }
+    logger.info("Sending gRPC request to borrow {} ISBNs for user: {}",
+        loans.size(), loans.isEmpty() ? null : loans.get(0).getUsername());
+    BorrowBooksResponse response;
+    try
+    {
+      response = loanStub.borrowBooks(request.build());
+    }
+    catch (StatusRuntimeException ex)
+    {
+      if (ex.getStatus().getCode() == Status.Code.UNIMPLEMENTED)
+      {
+        throw new UnsupportedOperationException(
+            "Persistence server does not implement BorrowBooks", ex);
+      }
+      logger.error("Error borrowing {} ISBNs", loans.size(), ex);
+      throw new GrpcCommunicationException(
+          "Error borrowing " + loans.size() + " books", ex);
+    }
+    if (response.getResultsCount() != loans.size())
+    {
+      throw new GrpcCommunicationException("Expected " + loans.size()
+          + " borrow results but got " + response.getResultsCount());
+    }
+    List<LoanResult> results = new ArrayList<>();
+    for (int i = 0; i < loans.size(); i++)
+    {
+      String isbn = loans.get(i).getBookISBN();
+      BorrowBookResponse item = response.getResults(i);
+      if (item.getSuccess())
+      {
+        results.add(LoanResult.success(isbn,
+            loanMapper.mapDTOLoanToDomain(item.getLoan())));
+      }
+      else
+      {
+        logger.info("Failed to borrow ISBN: {}: {}", isbn, item.getMessage());
+        results.add(LoanResult.failure(isbn, borrowFailure(item)));
+      }
+    }
+    return results;
+  }
+
+  private static BorrowBookRequest toBorrowBookRequest(Loan loan)
+  {
+    return BorrowBookRequest.newBuilder()
+        .setIsbn(loan.getBookISBN()).setUsername(loan.getUsername())
+        .setBorrowDate(loan.getBorrowDate().toString())
+        .setDueDate(loan.getDueDate().toString()).build();
+  }
+
+  /**
+   * The exception the stepwise checkout throws for the same failure.
+   */
+  private static RuntimeException borrowFailure(BorrowBookResponse response)
+  {
+    switch (response.getFailure())
+    {
+      case ALREADY_BORROWED:
+        return new IllegalStateException("User already has an active loan for this book");
+      case NO_COPIES:
+        return new IllegalArgumentException("No books found with the specified ISBN");
+      case NO_AVAILABLE_COPY:
+        return new IllegalArgumentException("No available copies of this book");
+      default:
+        return new GrpcCommunicationException(
+            "Failed to borrow book: " + response.getMessage());
+    }
+  }
+
   @Override public List<Loan> getLoansByISBN(String isbn)
   {
     GetLoansByISBNRequest request = GetLoansByISBNRequest.newBuilder()
@@ -97,6 +210,120 @@ import java.util.List;
     }
   }
 
+  @Override public List<Loan> extendLoans(List<Loan> loans)
+  {
+    ExtendLoansRequest.Builder request = ExtendLoansRequest.newBuilder();
+    for (Loan loan : loans)
+    {
+      request.addLoans(loanMapper.mapDomainToDTOLoan(loan));
+    }
+    logger.info("Sending gRPC request to extend {} loans", loans.size());
+    ExtendLoansResponse response;
+    try
+    {
+      response = loanStub.extendLoans(request.build());
+    }
+    catch (StatusRuntimeException ex)
+    {
+      if (ex.getStatus().getCode() == Status.Code.UNIMPLEMENTED)
+      {
+        throw new UnsupportedOperationException(
+            "Persistence server does not implement ExtendLoans", ex);
+      }
+      logger.error("Error extending {} loans", loans.size(), ex);
+      throw new GrpcCommunicationException(
+          "Error extending " + loans.size() + " loans", ex);
+    }
+    if (!response.getSuccess())
+    {
+      logger.error("Failed to extend {} loans: {}", loans.size(),
+          response.getMessage());
+      throw new GrpcCommunicationException(
+          "Failed to extend loans: " + response.getMessage());
+    }
+    if (response.getLoansCount() != loans.size())
+    {
+      throw new GrpcCommunicationException("Expected " + loans.size()
+          + " extended loans but got " + response.getLoansCount());
+    }
+    List<Loan> extended = new ArrayList<>();
+    for (DTOLoan l : response.getLoansList())
+    {
+      extended.add(loanMapper.mapDTOLoanToDomain(l));
+    }
+    return extended;
+  }
+
+  @Override public List<Loan> getLoansByIds(List<Integer> loanIds)
+  {
+    GetLoansByIdsRequest request = GetLoansByIdsRequest.newBuilder()
+        .addAllIds(loanIds).build();
+    logger.info("Sending gRPC request to get {} loans by ID", loanIds.size());
+    GetLoansByIdsResponse response;
+    try
+    {
+      response = loanStub.getLoansByIds(request);
+    }
+    catch (StatusRuntimeException ex)
+    {
+      if (ex.getStatus().getCode() == Status.Code.UNIMPLEMENTED)
+      {
+        throw new UnsupportedOperationException(
+            "Persistence server does not implement GetLoansByIds", ex);
+      }
+      logger.error("Error retrieving loans with IDs: {}", loanIds, ex);
+      throw new GrpcCommunicationException(
+          "Error retrieving loans with IDs: " + loanIds, ex);
+    }
+    if (!response.getSuccess())
+    {
+      logger.error("Failed to retrieve loans with IDs: {}: {}", loanIds,
+          response.getMessage());
+      throw new GrpcCommunicationException(
+          "Failed to retrieve loans: " + response.getMessage());
+    }
+    List<Loan> loans = new ArrayList<>();
+    for (DTOLoan l : response.getLoansList())
+    {
+      loans.add(loanMapper.mapDTOLoanToDomain(l));
+    }
+    return loans;
+  }
+
+  @Override public void streamActiveLoans(Consumer<Loan> consumer)
+  {
+    StreamActiveLoansRequest request = StreamActiveLoansRequest.newBuilder()
+        .build();
+    // Cancelling this context ends the server stream if the consumer fails
+    Context.CancellableContext context = Context.current().withCancellation();
+    try
+    {
+      logger.info("Opening gRPC stream for active loans...");
+      context.run(() -> {
+        Iterator<DTOLoan> loans = loanStub.streamActiveLoans(request);
+        while (loans.hasNext())
+        {
+          consumer.accept(loanMapper.mapDTOLoanToDomain(loans.next()));
+        }
+      });
+      logger.info("gRPC stream for active loans completed.");
+    }
+    catch (StatusRuntimeException ex)
+    {
+      if (ex.getStatus().getCode() == Status.Code.UNIMPLEMENTED)
+      {
+        throw new UnsupportedOperationException(
+            "Persistence server does not implement StreamActiveLoans", ex);
+      }
+      logger.error("gRPC error streaming active loans", ex);
+      throw new GrpcCommunicationException("Failed to stream active loans", ex);
+    }
+    finally
+    {
+      context.cancel(null);
+    }
+  }
+
   @Override public Loan getLoanById(int bookId)
   {
     try
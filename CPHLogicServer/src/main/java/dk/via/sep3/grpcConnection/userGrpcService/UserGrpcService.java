@@ -2,8 +2,12 @@ package dk.via.sep3.grpcConnection.userGrpcService;
 
 import dk.via.sep3.application.domain.User;
 
+import java.util.function.Consumer;
+
 public interface UserGrpcService
 {
   User getUserByUsername(String username);
   User createUser(User user);
+  // Streams every registered username without loading them all at once
+  void streamUsernames(Consumer<String> consumer);
 }
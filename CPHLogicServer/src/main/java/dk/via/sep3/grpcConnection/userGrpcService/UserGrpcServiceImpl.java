@@ -1,14 +1,20 @@
 package dk.via.sep3.grpcConnection.userGrpcService;
 
 import dk.via.sep3.*;
+import dk.via.sep3.exceptionHandler.BusinessRuleViolationException;
 import dk.via.sep3.exceptionHandler.GrpcCommunicationException;
 import dk.via.sep3.application.domain.User;
 import dk.via.sep3.mapper.userMapper.UserMapper;
+import io.grpc.Context;
 import io.grpc.ManagedChannel;
+import io.grpc.StatusRuntimeException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
+import java.util.Iterator;
+import java.util.function.Consumer;
+
 @Service public class UserGrpcServiceImpl implements UserGrpcService
 {
   private static final Logger logger = LoggerFactory.getLogger(
@@ -47,8 +53,10 @@ import org.springframework.stereotype.Service;
     }
     catch (Exception ex)
     {
+      // Distinguish a failed call from a missing user, so the caller never
+      // mistakes an outage for an unknown username
       logger.error("Error fetching user by username: {}", username, ex);
-      return null;
+      throw new GrpcCommunicationException(ex.getMessage());
     }
   }
 
@@ -56,20 +64,58 @@ import org.springframework.stereotype.Service;
   {
     DTOUser dtoUser = userMapper.mapDomainToDTOUser(user);
     logger.info("Creating user via gRPC: {}", dtoUser);
+    CreateUserResponse response;
     try
     {
       CreateUserRequest request = CreateUserRequest.newBuilder()
           .setUser(dtoUser).build();
-      CreateUserResponse response = userStub.createUser(request);
-      if (response.getSuccess())
-      {
-        logger.info(response.getMessage());
-      }
-      return userMapper.mapDTOUserToDomain(response.getUser());
+      response = userStub.createUser(request);
     }
     catch (Exception ex)
     {
       throw new GrpcCommunicationException(ex.getMessage());
     }
+    // Registered through another logic server after the name was validated
+    if (response.getConflict())
+    {
+      logger.info("Username {} is already registered: {}",
+          dtoUser.getUsername(), response.getMessage());
+      throw new BusinessRuleViolationException("Username already exists");
+    }
+    if (!response.getSuccess())
+    {
+      throw new GrpcCommunicationException(
+          "Failed to create user: " + response.getMessage());
+    }
+    logger.info(response.getMessage());
+    return userMapper.mapDTOUserToDomain(response.getUser());
+  }
+
+  @Override public void streamUsernames(Consumer<String> consumer)
+  {
+    ListUsernamesRequest request = ListUsernamesRequest.newBuilder().build();
+    // Cancelling this context ends the server stream if the consumer fails
+    Context.CancellableContext context = Context.current().withCancellation();
+    try
+    {
+      logger.info("Opening gRPC stream for all usernames...");
+      context.run(() -> {
+        Iterator<DTOUsername> usernames = userStub.listUsernames(request);
+        while (usernames.hasNext())
+        {
+          consumer.accept(usernames.next().getUsername());
+        }
+      });
+      logger.info("gRPC stream for all usernames completed.");
+    }
+    catch (StatusRuntimeException ex)
+    {
+      logger.error("gRPC error streaming usernames", ex);
+      throw new GrpcCommunicationException("Failed to stream usernames", ex);
+    }
+    finally
+    {
+      context.cancel(null);
+    }
   }
 }
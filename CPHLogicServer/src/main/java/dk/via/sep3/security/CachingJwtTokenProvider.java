@@ -0,0 +1,102 @@
+package dk.via.sep3.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Ticker;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Remembers the verified claims of recently seen tokens.
+ * <p>
+ * Entries are keyed by the SHA-256 hash of the token, so raw tokens are not
+ * kept in memory, and never outlive the token's {@code exp} claim or the
+ * retirement of the key that signed it. Only valid
+ * tokens are cached; an invalid token is verified again on every request.
+ */
+@Primary
+@Component
+public class CachingJwtTokenProvider implements IJwtTokenProvider {
+  private final IJwtTokenProvider delegate;
+  private final Cache<String, JwtClaims> verifiedClaims;
+
+  @Autowired
+  public CachingJwtTokenProvider(
+      @Qualifier("jwtTokenProvider") IJwtTokenProvider delegate,
+      @Value("${jwt.cache.max-size:10000}") long maxSize,
+      @Value("${jwt.cache.ttl:5m}") Duration ttl) {
+    this(delegate, maxSize, ttl, Ticker.systemTicker(), Clock.systemUTC());
+  }
+
+  CachingJwtTokenProvider(IJwtTokenProvider delegate, long maxSize, Duration ttl,
+      Ticker ticker, Clock clock) {
+    this.delegate = delegate;
+    this.verifiedClaims = Caffeine.newBuilder()
+        .maximumSize(maxSize)
+        .expireAfter(Expiry.creating((String key, JwtClaims claims) ->
+            lifetime(claims, ttl, clock)))
+        .ticker(ticker)
+        .build();
+  }
+
+  public String generateToken(String username, String role) {
+    return delegate.generateToken(username, role);
+  }
+
+  public String getUsernameFromToken(String token) {
+    JwtClaims claims = verifyAndExtract(token);
+    // Let the delegate report why the token was rejected
+    return claims != null ? claims.getUsername() : delegate.getUsernameFromToken(token);
+  }
+
+  public String getRoleFromToken(String token) {
+    JwtClaims claims = verifyAndExtract(token);
+    return claims != null ? claims.getRole() : delegate.getRoleFromToken(token);
+  }
+
+  public boolean validateToken(String token) {
+    return verifyAndExtract(token) != null;
+  }
+
+  public JwtClaims verifyAndExtract(String token) {
+    if (token == null) {
+      return null;
+    }
+    // A null result (invalid token) is not cached by Caffeine
+    return verifiedClaims.get(sha256(token), key -> delegate.verifyAndExtract(token));
+  }
+
+  private static Duration lifetime(JwtClaims claims, Duration ttl, Clock clock) {
+    if (claims.getExpiresAt() == null) {
+      return ttl;
+    }
+    Duration remaining = Duration.between(Instant.now(clock), claims.getExpiresAt());
+    if (remaining.isNegative()) {
+      return Duration.ZERO;
+    }
+    return remaining.compareTo(ttl) < 0 ? remaining : ttl;
+  }
+
+  private static String sha256(String token) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      return Base64.getEncoder().encodeToString(
+          digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+    } catch (NoSuchAlgorithmException e) {
+      // Every Java platform is required to support SHA-256
+      throw new IllegalStateException(e);
+    }
+  }
+}
@@ -6,4 +6,11 @@ public interface IJwtTokenProvider
   String getUsernameFromToken(String token);
   String getRoleFromToken(String token);
   boolean validateToken(String token);
+
+  /**
+   * Verifies the signature and expiry of a token and reads its claims in one pass.
+   *
+   * @return the verified claims, or {@code null} if the token is not valid
+   */
+  JwtClaims verifyAndExtract(String token);
 }
@@ -32,9 +32,11 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     try {
       String token = extractTokenFromRequest(request);
 
-      if (token != null && jwtTokenProvider.validateToken(token)) {
-        String username = jwtTokenProvider.getUsernameFromToken(token);
-        String role = jwtTokenProvider.getRoleFromToken(token);
+      JwtClaims claims = token == null ? null : jwtTokenProvider.verifyAndExtract(token);
+
+      if (claims != null) {
+        String username = claims.getUsername();
+        String role = claims.getRole();
         
         // Create authority with ROLE_ prefix (Spring Security convention)
         SimpleGrantedAuthority authority = new SimpleGrantedAuthority("ROLE_" + role);
@@ -0,0 +1,35 @@
+package dk.via.sep3.security;
+
+import java.time.Instant;
+
+/**
+ * The claims of a token whose signature and expiry have been verified.
+ */
+public final class JwtClaims {
+  private final String username;
+  private final String role;
+  private final Instant expiresAt;
+
+  public JwtClaims(String username, String role, Instant expiresAt) {
+    this.username = username;
+    this.role = role;
+    this.expiresAt = expiresAt;
+  }
+
+  public String getUsername() {
+    return username;
+  }
+
+  public String getRole() {
+    return role;
+  }
+
+  /**
+   * @return when the token stops being accepted: its {@code exp} claim, or
+   *         the retirement of its signing key if that comes first; {@code null}
+   *         when neither applies
+   */
+  public Instant getExpiresAt() {
+    return expiresAt;
+  }
+}
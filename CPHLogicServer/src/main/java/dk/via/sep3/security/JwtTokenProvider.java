@@ -1,15 +1,33 @@
 package dk.via.sep3.security;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Header;
+import io.jsonwebtoken.Jws;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.ProtectedHeader;
 import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.UnsupportedJwtException;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import javax.crypto.SecretKey;
+import java.security.Key;
+import java.time.Instant;
 import java.util.Date;
 
+/**
+ * Signs and verifies tokens with keys and a parser built once at startup.
+ * <p>
+ * Tokens carry the id of the key that signed them ({@code kid}). To rotate
+ * the secret, move the current {@code jwt.secret} and {@code jwt.key-id} to
+ * {@code jwt.previous.secret} and {@code jwt.previous.key-id}; tokens signed
+ * with the previous key stay valid until {@code jwt.previous.valid-until},
+ * which is then required so that restarts do not extend the grace period.
+ * Claims read from such a token expire at that instant at the latest.
+ */
 @Service
 public class JwtTokenProvider implements IJwtTokenProvider {
 
@@ -19,8 +37,41 @@ public class JwtTokenProvider implements IJwtTokenProvider {
   @Value("${jwt.expiration:3600000}")
   private long jwtExpirationMs;
 
-  private SecretKey getSigningKey() {
-    return Keys.hmacShaKeyFor(jwtSecret.getBytes());
+  @Value("${jwt.key-id:primary}")
+  private String keyId;
+
+  @Value("${jwt.previous.key-id:}")
+  private String previousKeyId;
+
+  @Value("${jwt.previous.secret:}")
+  private String previousSecret;
+
+  // ISO-8601 instant, e.g. 2025-06-01T12:00:00Z
+  @Value("${jwt.previous.valid-until:}")
+  private String previousValidUntil;
+
+  private SecretKey signingKey;
+  private SecretKey previousKey;
+  private Instant previousKeyExpiry;
+  private JwtParser parser;
+
+  @PostConstruct
+  public void init() {
+    signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+    if (previousSecret != null && !previousSecret.isBlank()) {
+      if (previousKeyId == null || previousKeyId.isBlank() || previousKeyId.equals(keyId)) {
+        throw new IllegalStateException("jwt.previous.key-id must be set and differ from jwt.key-id");
+      }
+      if (previousValidUntil == null || previousValidUntil.isBlank()) {
+        throw new IllegalStateException("jwt.previous.valid-until must be set when jwt.previous.secret is");
+      }
+      previousKey = Keys.hmacShaKeyFor(previousSecret.getBytes());
+      previousKeyExpiry = Instant.parse(previousValidUntil);
+    }
+    // JwtParser is immutable and thread-safe
+    parser = Jwts.parser()
+        .keyLocator(this::locateKey)
+        .build();
   }
 
   public String generateToken(String username, String role) {
@@ -28,41 +79,60 @@ public class JwtTokenProvider implements IJwtTokenProvider {
     Date expiryDate = new Date(now.getTime() + jwtExpirationMs);
 
     return Jwts.builder()
+        .header().keyId(keyId).and()
         .setSubject(username)
         .claim("role", role)
         .setIssuedAt(now)
         .setExpiration(expiryDate)
-        .signWith(getSigningKey(), SignatureAlgorithm.HS512)
+        .signWith(signingKey, SignatureAlgorithm.HS512)
         .compact();
   }
 
   public String getUsernameFromToken(String token) {
-    Claims claims = Jwts.parser()
-        .setSigningKey(getSigningKey())
-        .build()
-        .parseClaimsJws(token)
-        .getBody();
+    Claims claims = parser.parseClaimsJws(token).getBody();
     return claims.getSubject();
   }
 
   public String getRoleFromToken(String token) {
-    Claims claims = Jwts.parser()
-        .setSigningKey(getSigningKey())
-        .build()
-        .parseClaimsJws(token)
-        .getBody();
+    Claims claims = parser.parseClaimsJws(token).getBody();
     return claims.get("role", String.class);
   }
 
   public boolean validateToken(String token) {
     try {
-      Jwts.parser()
-          .setSigningKey(getSigningKey())
-          .build()
-          .parseClaimsJws(token);
+      parser.parseClaimsJws(token);
       return true;
     } catch (Exception e) {
       return false;
     }
   }
+
+  public JwtClaims verifyAndExtract(String token) {
+    try {
+      Jws<Claims> jws = parser.parseClaimsJws(token);
+      Claims claims = jws.getBody();
+      Date expiration = claims.getExpiration();
+      Instant expiresAt = expiration == null ? null : expiration.toInstant();
+      // A token signed with the previous key is only accepted until it retires
+      if (previousKey != null && previousKeyId.equals(jws.getHeader().getKeyId())
+          && (expiresAt == null || previousKeyExpiry.isBefore(expiresAt))) {
+        expiresAt = previousKeyExpiry;
+      }
+      return new JwtClaims(claims.getSubject(), claims.get("role", String.class), expiresAt);
+    } catch (Exception e) {
+      return null;
+    }
+  }
+
+  private Key locateKey(Header header) {
+    String kid = header instanceof ProtectedHeader protectedHeader ? protectedHeader.getKeyId() : null;
+    // Tokens issued before key ids were introduced carry none
+    if (kid == null || kid.equals(keyId)) {
+      return signingKey;
+    }
+    if (previousKey != null && kid.equals(previousKeyId) && Instant.now().isBefore(previousKeyExpiry)) {
+      return previousKey;
+    }
+    throw new UnsupportedJwtException("Unknown or retired signing key id: " + kid);
+  }
 }
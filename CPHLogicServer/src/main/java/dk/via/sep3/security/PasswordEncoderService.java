@@ -7,14 +7,21 @@ import org.springframework.stereotype.Component;
 public class PasswordEncoderService implements IPasswordEncoderService
 {
   private final BCryptPasswordEncoder encoder = new BCryptPasswordEncoder();
+  private final PasswordHashingExecutor hashingExecutor;
+
+  public PasswordEncoderService(PasswordHashingExecutor hashingExecutor)
+  {
+    this.hashingExecutor = hashingExecutor;
+  }
 
   public String encode(String password)
   {
-    return encoder.encode(password);
+    return hashingExecutor.run("hash", () -> encoder.encode(password));
   }
 
   public boolean matches(String rawPassword, String encodedPassword)
   {
-    return encoder.matches(rawPassword, encodedPassword);
+    return hashingExecutor.run("matches",
+        () -> encoder.matches(rawPassword, encodedPassword));
   }
 }
@@ -0,0 +1,141 @@
+package dk.via.sep3.security;
+
+import dk.via.sep3.exceptionHandler.ServiceOverloadedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Runs BCrypt work on a small dedicated pool with a bounded queue.
+ * <p>
+ * The calling request thread waits for the result, but at most
+ * {@code threads + queue-capacity} request threads can be tied up by password
+ * hashing at once. Beyond that, requests are rejected straight away with a
+ * {@link ServiceOverloadedException}, so a login burst cannot take every
+ * Tomcat thread from the rest of the API.
+ * <p>
+ * Publishes {@code password.hashing.queue.size},
+ * {@code password.hashing.active}, {@code password.hashing.wait},
+ * {@code password.hashing.duration} and {@code password.hashing.rejected}.
+ */
+@Component
+public class PasswordHashingExecutor
+{
+  private static final Logger logger = LoggerFactory.getLogger(
+      PasswordHashingExecutor.class);
+
+  private final ThreadPoolExecutor executor;
+  private final Duration retryAfter;
+  private final MeterRegistry meterRegistry;
+  private final Timer waitTimer;
+  private final Counter rejected;
+
+  public PasswordHashingExecutor(
+      @Value("${password.hashing.threads:4}") int threads,
+      @Value("${password.hashing.queue-capacity:32}") int queueCapacity,
+      @Value("${password.hashing.retry-after:1s}") Duration retryAfter,
+      MeterRegistry meterRegistry)
+  {
+    CustomizableThreadFactory factory = new CustomizableThreadFactory(
+        "password-hashing-");
+    factory.setDaemon(true);
+    this.executor = new ThreadPoolExecutor(threads, threads, 0L,
+        TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity),
+        factory, new ThreadPoolExecutor.AbortPolicy());
+    this.retryAfter = retryAfter;
+    this.meterRegistry = meterRegistry;
+
+    Gauge.builder("password.hashing.queue.size", executor,
+            pool -> pool.getQueue().size())
+        .description("Password hashing requests waiting for a thread")
+        .register(meterRegistry);
+    Gauge.builder("password.hashing.active", executor,
+            ThreadPoolExecutor::getActiveCount)
+        .description("Password hashing requests being processed")
+        .register(meterRegistry);
+    this.waitTimer = Timer.builder("password.hashing.wait")
+        .description("Time spent queued before hashing started")
+        .register(meterRegistry);
+    this.rejected = Counter.builder("password.hashing.rejected")
+        .description("Requests rejected because the hashing queue was full")
+        .register(meterRegistry);
+  }
+
+  /**
+   * Runs the task on the hashing pool and waits for its result.
+   *
+   * @param operation tag for the duration metric, e.g. {@code hash}
+   * @throws ServiceOverloadedException if the queue is full
+   */
+  public <T> T run(String operation, Supplier<T> task)
+  {
+    Timer duration = Timer.builder("password.hashing.duration")
+        .description("Time spent hashing or verifying a password")
+        .tag("operation", operation)
+        .register(meterRegistry);
+    long submittedAt = System.nanoTime();
+
+    Future<T> future;
+    try
+    {
+      future = executor.submit(() -> {
+        waitTimer.record(System.nanoTime() - submittedAt, TimeUnit.NANOSECONDS);
+        return duration.record(task);
+      });
+    }
+    catch (RejectedExecutionException e)
+    {
+      rejected.increment();
+      logger.warn("Password hashing queue is full, rejecting {} request",
+          operation);
+      throw new ServiceOverloadedException(
+          "Too many sign-in requests right now", retryAfter);
+    }
+
+    try
+    {
+      return future.get();
+    }
+    catch (InterruptedException e)
+    {
+      future.cancel(true);
+      Thread.currentThread().interrupt();
+      throw new ServiceOverloadedException(
+          "Interrupted while waiting for password hashing", retryAfter);
+    }
+    catch (ExecutionException e)
+    {
+      if (e.getCause() instanceof RuntimeException runtime)
+      {
+        throw runtime;
+      }
+      if (e.getCause() instanceof Error error)
+      {
+        throw error;
+      }
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+
+  @PreDestroy
+  public void shutdown()
+  {
+    executor.shutdown();
+  }
+}
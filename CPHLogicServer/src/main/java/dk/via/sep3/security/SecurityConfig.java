@@ -1,5 +1,6 @@
 package dk.via.sep3.security;
 
+import jakarta.servlet.DispatcherType;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
@@ -31,8 +32,12 @@ public class SecurityConfig
         .sessionManagement(session -> session
             .sessionCreationPolicy(SessionCreationPolicy.STATELESS))
         .authorizeHttpRequests(authz -> authz
+            // Async dispatches only complete already authorized streaming responses
+            .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
             // Public endpoints - no authentication required
             .requestMatchers("/auth/register", "/auth/login").permitAll()
+            // Scraped by Prometheus and health checks from inside the network
+            .requestMatchers("/actuator/health", "/actuator/prometheus").permitAll()
             // All other endpoints require authentication
             .anyRequest().authenticated())
         .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
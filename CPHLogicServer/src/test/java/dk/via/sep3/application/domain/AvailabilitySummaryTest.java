@@ -0,0 +1,65 @@
+package dk.via.sep3.application.domain;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AvailabilitySummaryTest {
+
+  @Test
+  void fromCopies_countsStatesAndPicksLowestAvailableId() {
+    AvailabilitySummary summary = AvailabilitySummary.fromCopies(List.of(
+        new Book(5, "111", "Title", "Author", State.AVAILABLE, List.of()),
+        new Book(2, "111", "Title", "Author", State.AVAILABLE, List.of()),
+        new Book(3, "111", "Title", "Author", State.BORROWED, List.of()),
+        new Book(4, "111", "Title", "Author", State.RESERVED, List.of())));
+
+    assertEquals(4, summary.getTotal());
+    assertEquals(2, summary.getAvailable());
+    assertEquals(1, summary.getBorrowed());
+    assertEquals(1, summary.getReserved());
+    assertEquals(2, summary.getAvailableBookId());
+  }
+
+  @Test
+  void fromCopies_noCopies_doesNotExist() {
+    AvailabilitySummary summary = AvailabilitySummary.fromCopies(List.of());
+
+    assertFalse(summary.exists());
+    assertFalse(summary.isAvailable());
+  }
+
+  @Test
+  void withStateChange_lastAvailableCopyTaken_clearsAvailableId() {
+    AvailabilitySummary summary = AvailabilitySummary.of(2, 1, 1, 0, 7)
+        .withStateChange(7, State.AVAILABLE, State.BORROWED);
+
+    assertEquals(0, summary.getAvailable());
+    assertEquals(2, summary.getBorrowed());
+    assertEquals(0, summary.getAvailableBookId());
+  }
+
+  @Test
+  void withStateChange_copyReturned_becomesAvailableId() {
+    AvailabilitySummary summary = AvailabilitySummary.of(2, 0, 1, 1, 0)
+        .withStateChange(8, State.RESERVED, State.AVAILABLE);
+
+    assertEquals(1, summary.getAvailable());
+    assertEquals(0, summary.getReserved());
+    assertEquals(8, summary.getAvailableBookId());
+  }
+
+  @Test
+  void withStateChange_otherAvailableCopiesUnknown_returnsNull() {
+    assertNull(AvailabilitySummary.of(3, 2, 1, 0, 7)
+        .withStateChange(7, State.AVAILABLE, State.BORROWED));
+  }
+
+  @Test
+  void withStateChange_countsDoNotAddUp_returnsNull() {
+    assertNull(AvailabilitySummary.of(1, 1, 0, 0, 7)
+        .withStateChange(9, State.BORROWED, State.AVAILABLE));
+  }
+}
@@ -1,13 +1,17 @@
 package dk.via.sep3.application.services.books;
 
 import dk.via.sep3.application.domain.Book;
+import dk.via.sep3.application.domain.BookPage;
+import dk.via.sep3.application.domain.BookQuery;
 import dk.via.sep3.application.domain.State;
 import dk.via.sep3.exceptionHandler.ResourceNotFoundException;
 import dk.via.sep3.grpcConnection.bookGrpcService.BookGrpcService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -73,6 +77,18 @@ class BookServiceImplTest {
     assertEquals(State.AVAILABLE, result.getState());
   }
 
+  @Test
+  void getBookByIsbn_listsCopiesInOneCall() {
+    Book available = new Book("123", "Title", "Author", State.AVAILABLE, List.of());
+
+    when(bookGrpcService.getBooksByIsbn("123")).thenReturn(List.of(available));
+
+    bookService.getBookByIsbn("123");
+
+    verify(bookGrpcService).getBooksByIsbn("123");
+    verifyNoMoreInteractions(bookGrpcService);
+  }
+
   @Test
   void getBookByIsbn_returnsFirstBookIfNoAvailable() {
     Book borrowed1 = new Book("123", "Title", "Author", State.BORROWED, List.of());
@@ -94,4 +110,63 @@ class BookServiceImplTest {
     assertThrows(ResourceNotFoundException.class,
         () -> bookService.getBookByIsbn("999"));
   }
+
+  // ------------------------------------------------------------
+  // streamAllBooks()
+  // ------------------------------------------------------------
+
+  @Test
+  void streamAllBooks_skipsConsecutiveDuplicateIsbn() {
+    Book b1 = new Book("111", "Title1", "Author1", State.AVAILABLE, List.of());
+    Book b2 = new Book("111", "Title1", "Author1", State.BORROWED, List.of());
+    Book b3 = new Book("222", "Title2", "Author2", State.AVAILABLE, List.of());
+    doAnswer(invocation -> {
+      Consumer<Book> consumer = invocation.getArgument(0);
+      consumer.accept(b1);
+      consumer.accept(b2);
+      consumer.accept(b3);
+      return null;
+    }).when(bookGrpcService).streamAllBooks(any());
+
+    List<Book> result = new ArrayList<>();
+    bookService.streamAllBooks(result::add);
+
+    assertEquals(List.of(b1, b3), result);
+  }
+
+  // ------------------------------------------------------------
+  // getBooks()
+  // ------------------------------------------------------------
+
+  @Test
+  void getBooks_removesDuplicateIsbnAndKeepsCursor() {
+    Book b1 = new Book("111", "Title1", "Author1", State.AVAILABLE, List.of());
+    Book b2 = new Book("111", "Title1", "Author1", State.BORROWED, List.of());
+    BookQuery query = new BookQuery(1, null, "Author1", null, null);
+    when(bookGrpcService.getBooks(query))
+        .thenReturn(new BookPage(List.of(b1, b2), "111"));
+
+    BookPage page = bookService.getBooks(query);
+
+    assertEquals(List.of(b1), page.getBooks());
+    assertEquals("111", page.getNextCursor());
+  }
+
+  @Test
+  void getBooks_limitTooLarge_throwsIllegalArgumentException() {
+    BookQuery query = new BookQuery(101, null, null, null, null);
+
+    assertThrows(IllegalArgumentException.class,
+        () -> bookService.getBooks(query));
+    verify(bookGrpcService, never()).getBooks(any());
+  }
+
+  @Test
+  void getBooks_limitZero_throwsIllegalArgumentException() {
+    BookQuery query = new BookQuery(0, null, "Author1", null, null);
+
+    assertThrows(IllegalArgumentException.class,
+        () -> bookService.getBooks(query));
+    verify(bookGrpcService, never()).getBooks(any());
+  }
 }
@@ -0,0 +1,154 @@
+package dk.via.sep3.application.services.loans;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DueDateIndexTest {
+
+  private static final LocalDate TODAY = LocalDate.of(2025, 3, 10);
+
+  private DueDateIndex index;
+
+  @BeforeEach
+  void setUp() {
+    index = new DueDateIndex(3);
+  }
+
+  // ------------------------------------------------------------
+  // put
+  // ------------------------------------------------------------
+
+  @Test
+  void put_farDueDate_firesDueSoonFirst() {
+    index.put(1, TODAY.plusDays(10), TODAY);
+
+    assertTrue(index.dueBy(TODAY.plusDays(6)).isEmpty());
+    List<DueDateIndex.Due> due = index.dueBy(TODAY.plusDays(7));
+    assertEquals(1, due.size());
+    assertEquals(LoanDueEvent.Kind.DUE_SOON, due.get(0).getKind());
+  }
+
+  @Test
+  void put_dueSoonDayPassed_skipsToOverdue() {
+    index.put(1, TODAY.plusDays(1), TODAY);
+
+    List<DueDateIndex.Due> due = index.dueBy(TODAY.plusDays(2));
+    assertEquals(1, due.size());
+    assertEquals(LoanDueEvent.Kind.OVERDUE, due.get(0).getKind());
+    assertEquals(TODAY.plusDays(2), due.get(0).getDay());
+  }
+
+  @Test
+  void put_overdueDayPassed_notIndexed() {
+    index.put(1, TODAY.minusDays(5), TODAY);
+
+    assertEquals(0, index.size());
+  }
+
+  @Test
+  void catchUpOverdue_overdueDayPassed_dueRightAway() {
+    assertTrue(index.catchUpOverdue(1, TODAY.minusDays(5), TODAY));
+
+    List<DueDateIndex.Due> due = index.dueBy(TODAY);
+    assertEquals(1, due.size());
+    assertEquals(LoanDueEvent.Kind.OVERDUE, due.get(0).getKind());
+    assertEquals(TODAY.minusDays(4), due.get(0).getDay());
+  }
+
+  @Test
+  void catchUpOverdue_notYetOverdueOrAlreadyIndexed_leftAlone() {
+    index.put(2, TODAY.plusDays(10), TODAY);
+
+    assertFalse(index.catchUpOverdue(1, TODAY.minusDays(1), TODAY));
+    assertFalse(index.catchUpOverdue(2, TODAY.minusDays(5), TODAY));
+    assertEquals(1, index.size());
+  }
+
+  @Test
+  void put_sameDueDate_keepsPlace() {
+    index.put(1, TODAY.plusDays(10), TODAY);
+    DueDateIndex.Due first = index.dueBy(TODAY.plusDays(7)).get(0);
+    index.fired(first);
+
+    index.put(1, TODAY.plusDays(10), TODAY);
+
+    assertEquals(LoanDueEvent.Kind.OVERDUE,
+        index.dueBy(TODAY.plusDays(11)).get(0).getKind());
+  }
+
+  @Test
+  void put_newDueDate_reschedules() {
+    index.put(1, TODAY.plusDays(10), TODAY);
+
+    index.put(1, TODAY.plusDays(24), TODAY);
+
+    assertEquals(1, index.size());
+    assertTrue(index.dueBy(TODAY.plusDays(20)).isEmpty());
+    assertEquals(1, index.dueBy(TODAY.plusDays(21)).size());
+  }
+
+  // ------------------------------------------------------------
+  // dueBy / fired / remove
+  // ------------------------------------------------------------
+
+  @Test
+  void dueBy_returnsEarliestFirstAndLeavesLaterDays() {
+    index.put(1, TODAY.plusDays(8), TODAY);
+    index.put(2, TODAY.plusDays(5), TODAY);
+    index.put(3, TODAY.plusDays(30), TODAY);
+
+    List<DueDateIndex.Due> due = index.dueBy(TODAY.plusDays(5));
+
+    assertEquals(List.of(2, 1), due.stream().map(DueDateIndex.Due::getLoanId)
+        .toList());
+  }
+
+  @Test
+  void fired_overdue_dropsLoan() {
+    index.put(1, TODAY.plusDays(1), TODAY);
+
+    index.fired(index.dueBy(TODAY.plusDays(2)).get(0));
+
+    assertEquals(0, index.size());
+  }
+
+  @Test
+  void fired_afterReschedule_ignored() {
+    index.put(1, TODAY.plusDays(10), TODAY);
+    DueDateIndex.Due stale = index.dueBy(TODAY.plusDays(7)).get(0);
+    index.put(1, TODAY.plusDays(24), TODAY);
+
+    index.fired(stale);
+    index.remove(stale);
+
+    assertEquals(1, index.size());
+    assertEquals(TODAY.plusDays(24),
+        index.dueBy(TODAY.plusDays(21)).get(0).getDueDate());
+  }
+
+  @Test
+  void remove_dropsLoan() {
+    index.put(1, TODAY.plusDays(10), TODAY);
+
+    index.remove(index.dueBy(TODAY.plusDays(7)).get(0));
+
+    assertEquals(0, index.size());
+    assertTrue(index.dueBy(TODAY.plusDays(30)).isEmpty());
+  }
+
+  @Test
+  void noDueSoonDays_firesOnlyOverdue() {
+    index = new DueDateIndex(0);
+
+    index.put(1, TODAY.plusDays(10), TODAY);
+
+    assertTrue(index.dueBy(TODAY.plusDays(10)).isEmpty());
+    assertEquals(LoanDueEvent.Kind.OVERDUE,
+        index.dueBy(TODAY.plusDays(11)).get(0).getKind());
+  }
+}
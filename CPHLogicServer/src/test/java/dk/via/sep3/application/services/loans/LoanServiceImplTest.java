@@ -1,10 +1,14 @@
 package dk.via.sep3.application.services.loans;
 
+import dk.via.sep3.application.domain.AvailabilitySummary;
 import dk.via.sep3.application.domain.Book;
+import dk.via.sep3.application.domain.ExtensionResult;
 import dk.via.sep3.application.domain.Loan;
+import dk.via.sep3.application.domain.LoanResult;
 import dk.via.sep3.application.domain.State;
 import dk.via.sep3.exceptionHandler.ResourceNotFoundException;
 import dk.via.sep3.grpcConnection.bookGrpcService.BookGrpcService;
+import dk.via.sep3.grpcConnection.fanOut.GrpcFanOut;
 import dk.via.sep3.grpcConnection.loanGrpcService.LoanGrpcService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -19,13 +23,16 @@ class LoanServiceImplTest {
 
   private BookGrpcService bookGrpcService;
   private LoanGrpcService loanGrpcService;
+  private OverdueLoanMonitor overdueLoanMonitor;
   private LoanServiceImpl loanService;
 
   @BeforeEach
   void setUp() {
     bookGrpcService = mock(BookGrpcService.class);
     loanGrpcService = mock(LoanGrpcService.class);
-    loanService = new LoanServiceImpl(bookGrpcService, loanGrpcService);
+    overdueLoanMonitor = mock(OverdueLoanMonitor.class);
+    loanService = new LoanServiceImpl(bookGrpcService, loanGrpcService,
+        new GrpcFanOut(Runnable::run), overdueLoanMonitor);
   }
 
   // ------------------------------------------------------------
@@ -33,24 +40,155 @@ class LoanServiceImplTest {
   // ------------------------------------------------------------
 
   @Test
-  void createLoan_successfulBorrow() {
+  void createLoan_borrowBook_returnsLoanAndEvictsCopy() {
     Loan request = new Loan();
     request.setUsername("john");
     request.setBookISBN("123");
 
-    Book availableBook = new Book(1, "123", "Title", "Author", State.AVAILABLE, List.of());
+    Loan persistedLoan = new Loan();
+    persistedLoan.setLoanId(10);
+    persistedLoan.setBookId(4);
+    when(loanGrpcService.borrowBook(any(Loan.class))).thenReturn(persistedLoan);
+
+    Loan result = loanService.createLoan(request);
+
+    assertEquals(10, result.getLoanId());
+    verify(loanGrpcService).borrowBook(argThat(loan -> loan.getUsername().equals("john")
+        && loan.getBookISBN().equals("123") && loan.getDueDate() != null));
+    verify(bookGrpcService).bookStateChanged(4);
+    verify(overdueLoanMonitor).track(persistedLoan);
+    verify(loanGrpcService, never()).createLoan(any());
+    verify(bookGrpcService, never()).updateBookStatus(anyInt(), any());
+  }
 
+  @Test
+  void createLoan_borrowBookRejected_propagates() {
+    when(loanGrpcService.borrowBook(any(Loan.class)))
+        .thenThrow(new IllegalStateException("User already has an active loan for this book"));
+
+    Loan request = new Loan();
+    request.setUsername("john");
+    request.setBookISBN("123");
+
+    assertThrows(IllegalStateException.class,
+        () -> loanService.createLoan(request));
+    verify(loanGrpcService, never()).createLoan(any());
+  }
+
+  @Test
+  void createLoan_borrowBookUnimplemented_fallsBackAndStopsTrying() {
+    persistenceWithoutBorrowBook();
     Loan persistedLoan = new Loan();
     persistedLoan.setLoanId(10);
+    when(loanGrpcService.getLoansByISBN("123")).thenReturn(List.of());
+    when(bookGrpcService.getCurrentAvailabilitySummary("123"))
+        .thenReturn(AvailabilitySummary.of(1, 1, 0, 0, 1));
+    when(loanGrpcService.createLoan(any(Loan.class))).thenReturn(persistedLoan);
+    when(bookGrpcService.updateBookStatus(1, "Available", "Borrowed")).thenReturn(true);
+
+    Loan request = new Loan();
+    request.setUsername("john");
+    request.setBookISBN("123");
+    loanService.createLoan(request);
+    loanService.createLoan(request);
 
+    verify(loanGrpcService, times(1)).borrowBook(any());
+    verify(loanGrpcService, times(2)).createLoan(any());
+  }
+
+  // ------------------------------------------------------------
+  // createLoan() against a persistence server without BorrowBook
+  // ------------------------------------------------------------
+
+  private void persistenceWithoutBorrowBook() {
+    when(loanGrpcService.borrowBook(any(Loan.class)))
+        .thenThrow(new UnsupportedOperationException("BorrowBook"));
+  }
+
+  @Test
+  void createLoan_successfulBorrow() {
+    Loan request = new Loan();
+    request.setUsername("john");
+    request.setBookISBN("123");
+
+    Loan persistedLoan = new Loan();
+    persistedLoan.setLoanId(10);
+
+    persistenceWithoutBorrowBook();
     when(loanGrpcService.getLoansByISBN("123")).thenReturn(List.of());
-    when(bookGrpcService.getBooksByIsbn("123")).thenReturn(List.of(availableBook));
+    when(bookGrpcService.getCurrentAvailabilitySummary("123"))
+        .thenReturn(AvailabilitySummary.of(1, 1, 0, 0, 1));
     when(loanGrpcService.createLoan(any(Loan.class))).thenReturn(persistedLoan);
+    when(bookGrpcService.updateBookStatus(1, "Available", "Borrowed")).thenReturn(true);
 
     Loan result = loanService.createLoan(request);
 
     assertEquals(10, result.getLoanId());
-    verify(bookGrpcService).updateBookStatus(1, "Borrowed");
+    verify(bookGrpcService).updateBookStatus(1, "Available", "Borrowed");
+    verify(bookGrpcService, never()).getCurrentBooksByIsbn(any());
+  }
+
+  @Test
+  void createLoan_copyClaimedElsewhere_takesNextAvailableCopy() {
+    Book first = new Book(1, "123", "Title", "Author", State.AVAILABLE, List.of());
+    Book second = new Book(2, "123", "Title", "Author", State.AVAILABLE, List.of());
+    Loan persistedLoan = new Loan();
+    persistedLoan.setLoanId(10);
+
+    persistenceWithoutBorrowBook();
+    when(loanGrpcService.getLoansByISBN("123")).thenReturn(List.of());
+    when(bookGrpcService.getCurrentAvailabilitySummary("123"))
+        .thenReturn(AvailabilitySummary.of(2, 2, 0, 0, 1));
+    when(bookGrpcService.getCurrentBooksByIsbn("123")).thenReturn(List.of(first, second));
+    when(bookGrpcService.updateBookStatus(1, "Available", "Borrowed")).thenReturn(false);
+    when(bookGrpcService.updateBookStatus(2, "Available", "Borrowed")).thenReturn(true);
+    when(loanGrpcService.createLoan(any(Loan.class))).thenReturn(persistedLoan);
+
+    Loan request = new Loan();
+    request.setUsername("john");
+    request.setBookISBN("123");
+    loanService.createLoan(request);
+
+    verify(loanGrpcService).createLoan(argThat(loan -> loan.getBookId() == 2));
+  }
+
+  @Test
+  void createLoan_everyCopyClaimedElsewhere_throwsException() {
+    Book first = new Book(1, "123", "Title", "Author", State.AVAILABLE, List.of());
+    Book second = new Book(2, "123", "Title", "Author", State.AVAILABLE, List.of());
+
+    persistenceWithoutBorrowBook();
+    when(loanGrpcService.getLoansByISBN("123")).thenReturn(List.of());
+    when(bookGrpcService.getCurrentAvailabilitySummary("123"))
+        .thenReturn(AvailabilitySummary.of(2, 2, 0, 0, 1));
+    when(bookGrpcService.getCurrentBooksByIsbn("123")).thenReturn(List.of(first, second));
+
+    Loan request = new Loan();
+    request.setUsername("john");
+    request.setBookISBN("123");
+
+    assertThrows(IllegalArgumentException.class,
+        () -> loanService.createLoan(request));
+    verify(bookGrpcService, times(1)).updateBookStatus(1, "Available", "Borrowed");
+    verify(bookGrpcService).updateBookStatus(2, "Available", "Borrowed");
+    verify(loanGrpcService, never()).createLoan(any());
+  }
+
+  @Test
+  void createLoan_loanNotPersisted_handsCopyBack() {
+    persistenceWithoutBorrowBook();
+    when(loanGrpcService.getLoansByISBN("123")).thenReturn(List.of());
+    when(bookGrpcService.getCurrentAvailabilitySummary("123"))
+        .thenReturn(AvailabilitySummary.of(1, 1, 0, 0, 1));
+    when(bookGrpcService.updateBookStatus(1, "Available", "Borrowed")).thenReturn(true);
+    when(loanGrpcService.createLoan(any(Loan.class))).thenReturn(null);
+
+    Loan request = new Loan();
+    request.setUsername("john");
+    request.setBookISBN("123");
+
+    assertThrows(RuntimeException.class, () -> loanService.createLoan(request));
+    verify(bookGrpcService).updateBookStatus(1, "Borrowed", "Available");
   }
 
   @Test
@@ -59,6 +197,7 @@ class LoanServiceImplTest {
     existingLoan.setUsername("john");
     existingLoan.setReturned(false);
 
+    persistenceWithoutBorrowBook();
     when(loanGrpcService.getLoansByISBN("123"))
         .thenReturn(List.of(existingLoan));
 
@@ -72,10 +211,10 @@ class LoanServiceImplTest {
 
   @Test
   void createLoan_noAvailableBook_throwsException() {
-    Book borrowed = new Book(1, "123", "Title", "Author", State.BORROWED, List.of());
-
+    persistenceWithoutBorrowBook();
     when(loanGrpcService.getLoansByISBN("123")).thenReturn(List.of());
-    when(bookGrpcService.getBooksByIsbn("123")).thenReturn(List.of(borrowed));
+    when(bookGrpcService.getCurrentAvailabilitySummary("123"))
+        .thenReturn(AvailabilitySummary.of(1, 0, 1, 0, 0));
 
     Loan request = new Loan();
     request.setUsername("john");
@@ -83,6 +222,65 @@ class LoanServiceImplTest {
 
     assertThrows(IllegalArgumentException.class,
         () -> loanService.createLoan(request));
+    verify(bookGrpcService, never()).getCurrentBooksByIsbn(any());
+    verify(bookGrpcService, never()).updateBookStatus(anyInt(), any(), any());
+  }
+
+  // ------------------------------------------------------------
+  // createLoans()
+  // ------------------------------------------------------------
+
+  @Test
+  void createLoans_sendsOneBatchAndEvictsLentCopies() {
+    Loan lent = new Loan();
+    lent.setLoanId(10);
+    lent.setBookId(4);
+    when(loanGrpcService.borrowBooks(anyList())).thenReturn(List.of(
+        LoanResult.success("123", lent),
+        LoanResult.failure("456", new IllegalArgumentException("No available copies of this book"))));
+
+    List<LoanResult> results = loanService.createLoans("john", List.of("123", "456"));
+
+    assertTrue(results.get(0).isSuccess());
+    assertFalse(results.get(1).isSuccess());
+    verify(loanGrpcService).borrowBooks(argThat(loans -> loans.size() == 2
+        && loans.get(1).getBookISBN().equals("456")
+        && loans.stream().allMatch(loan -> loan.getUsername().equals("john")
+            && loan.getDueDate() != null)));
+    verify(bookGrpcService).bookStateChanged(4);
+    verify(loanGrpcService, never()).borrowBook(any());
+  }
+
+  @Test
+  void createLoans_emptyOrTooMany_throwsException() {
+    List<String> tooMany = java.util.Collections.nCopies(
+        LoanServiceImpl.MAX_BATCH_SIZE + 1, "123");
+
+    assertThrows(IllegalArgumentException.class,
+        () -> loanService.createLoans("john", List.of()));
+    assertThrows(IllegalArgumentException.class,
+        () -> loanService.createLoans("john", tooMany));
+    verifyNoInteractions(loanGrpcService);
+  }
+
+  @Test
+  void createLoans_borrowBooksUnimplemented_lendsOneAtATime() {
+    when(loanGrpcService.borrowBooks(anyList()))
+        .thenThrow(new UnsupportedOperationException("BorrowBooks"));
+    Loan lent = new Loan();
+    lent.setLoanId(10);
+    when(loanGrpcService.borrowBook(argThat(loan -> loan != null
+        && "123".equals(loan.getBookISBN())))).thenReturn(lent);
+    when(loanGrpcService.borrowBook(argThat(loan -> loan != null
+        && "456".equals(loan.getBookISBN()))))
+        .thenThrow(new IllegalStateException("User already has an active loan for this book"));
+
+    List<LoanResult> results = loanService.createLoans("john", List.of("123", "456"));
+    loanService.createLoans("john", List.of("123"));
+
+    assertSame(lent, results.get(0).getLoan());
+    assertInstanceOf(IllegalStateException.class, results.get(1).getError());
+    verify(loanGrpcService, times(1)).borrowBooks(anyList());
   }
 
   // ------------------------------------------------------------
@@ -106,6 +304,7 @@ class LoanServiceImplTest {
     loanService.extendLoan(request);
 
     verify(loanGrpcService).extendLoan(request);
+    verify(overdueLoanMonitor).track(request);
     assertEquals(1, request.getNumberOfExtensions());
   }
 
@@ -126,6 +325,81 @@ class LoanServiceImplTest {
         () -> loanService.extendLoan(request));
   }
 
+  // ------------------------------------------------------------
+  // extendLoans()
+  // ------------------------------------------------------------
+
+  private static Loan dueLoan(int loanId, String username) {
+    Loan loan = new Loan();
+    loan.setLoanId(loanId);
+    loan.setUsername(username);
+    loan.setDueDate(Date.valueOf("2024-01-01"));
+    return loan;
+  }
+
+  @Test
+  void extendLoans_fetchesOnceAndSavesEligibleLoansOnce() {
+    Loan mine = dueLoan(5, "john");
+    Loan theirs = dueLoan(6, "alice");
+    when(loanGrpcService.getLoansByIds(List.of(5, 6, 7, 5)))
+        .thenReturn(List.of(mine, theirs));
+
+    List<ExtensionResult> results = loanService.extendLoans("john",
+        List.of(5, 6, 7, 5));
+
+    assertTrue(results.get(0).isSuccess());
+    assertEquals(Date.valueOf("2024-01-31"), results.get(0).getLoan().getDueDate());
+    assertEquals(1, mine.getNumberOfExtensions());
+    assertInstanceOf(IllegalStateException.class, results.get(1).getError());
+    assertInstanceOf(IllegalArgumentException.class, results.get(2).getError());
+    assertInstanceOf(IllegalArgumentException.class, results.get(3).getError());
+    verify(loanGrpcService).extendLoans(List.of(mine));
+    verify(overdueLoanMonitor).track(mine);
+    verify(overdueLoanMonitor, never()).track(theirs);
+    verify(loanGrpcService, never()).getLoanById(anyInt());
+    verify(loanGrpcService, never()).extendLoan(any());
+  }
+
+  @Test
+  void extendLoans_noneEligible_savesNothing() {
+    when(loanGrpcService.getLoansByIds(List.of(6)))
+        .thenReturn(List.of(dueLoan(6, "alice")));
+
+    List<ExtensionResult> results = loanService.extendLoans("john", List.of(6));
+
+    assertFalse(results.get(0).isSuccess());
+    verify(loanGrpcService, never()).extendLoans(anyList());
+  }
+
+  @Test
+  void extendLoans_emptyOrTooMany_throwsException() {
+    List<Integer> tooMany = java.util.Collections.nCopies(
+        LoanServiceImpl.MAX_BATCH_SIZE + 1, 5);
+
+    assertThrows(IllegalArgumentException.class,
+        () -> loanService.extendLoans("john", List.of()));
+    assertThrows(IllegalArgumentException.class,
+        () -> loanService.extendLoans("john", tooMany));
+    verifyNoInteractions(loanGrpcService);
+  }
+
+  @Test
+  void extendLoans_batchCallsUnimplemented_extendsOneAtATime() {
+    when(loanGrpcService.getLoansByIds(anyList()))
+        .thenThrow(new UnsupportedOperationException("GetLoansByIds"));
+    Loan mine = dueLoan(5, "john");
+    when(loanGrpcService.getLoanById(5)).thenReturn(mine);
+    when(loanGrpcService.getLoanById(7)).thenReturn(null);
+
+    List<ExtensionResult> results = loanService.extendLoans("john", List.of(5, 7));
+    loanService.extendLoans("john", List.of(7));
+
+    assertSame(mine, results.get(0).getLoan());
+    assertInstanceOf(IllegalArgumentException.class, results.get(1).getError());
+    verify(loanGrpcService).extendLoan(mine);
+    verify(loanGrpcService, times(1)).getLoansByIds(anyList());
+  }
+
   // ------------------------------------------------------------
   // getActiveLoansByUsername()
   // ------------------------------------------------------------
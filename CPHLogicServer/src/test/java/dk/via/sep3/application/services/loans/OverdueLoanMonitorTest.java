@@ -0,0 +1,301 @@
+package dk.via.sep3.application.services.loans;
+
+import dk.via.sep3.application.domain.Loan;
+import dk.via.sep3.exceptionHandler.GrpcCommunicationException;
+import dk.via.sep3.grpcConnection.loanGrpcService.LoanGrpcService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.sql.Date;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class OverdueLoanMonitorTest {
+
+  private static final LocalDate START = LocalDate.of(2025, 3, 10);
+
+  private LoanGrpcService loanGrpcService;
+  private ApplicationEventPublisher eventPublisher;
+  private SimpleMeterRegistry meterRegistry;
+  private LocalDate today;
+  private OverdueLoanMonitor monitor;
+
+  @BeforeEach
+  void setUp() {
+    loanGrpcService = mock(LoanGrpcService.class);
+    eventPublisher = mock(ApplicationEventPublisher.class);
+    meterRegistry = new SimpleMeterRegistry();
+    today = START;
+    monitor = new OverdueLoanMonitor(loanGrpcService, eventPublisher,
+        meterRegistry, 3, Duration.ZERO, Duration.ZERO, 100, () -> today);
+  }
+
+  @AfterEach
+  void tearDown() {
+    monitor.shutdown();
+  }
+
+  private static Loan loan(int loanId, LocalDate dueDate, boolean returned) {
+    return new Loan(loanId, 1, "john", Date.valueOf(START.minusDays(20)),
+        Date.valueOf(dueDate), returned, 0);
+  }
+
+  private void streamReturns(Loan... loans) {
+    doAnswer(invocation -> {
+      Consumer<Loan> consumer = invocation.getArgument(0);
+      for (Loan loan : loans) {
+        consumer.accept(loan);
+      }
+      return null;
+    }).when(loanGrpcService).streamActiveLoans(any());
+  }
+
+  private List<LoanDueEvent> publishedEvents(int times) {
+    ArgumentCaptor<LoanDueEvent> captor = ArgumentCaptor.forClass(
+        LoanDueEvent.class);
+    verify(eventPublisher, times(times)).publishEvent(captor.capture());
+    return captor.getAllValues();
+  }
+
+  private double tracked() {
+    return meterRegistry.get("loans.due.tracked").gauge().value();
+  }
+
+  // ------------------------------------------------------------
+  // reload / track
+  // ------------------------------------------------------------
+
+  @Test
+  void reload_indexesStreamedLoans() {
+    streamReturns(loan(1, START.plusDays(10), false),
+        loan(2, START.plusDays(1), false),
+        loan(3, START.minusDays(10), false));
+
+    monitor.reload();
+
+    // Loan 3 went overdue before the first load and is caught up on
+    assertEquals(3, tracked());
+  }
+
+  @Test
+  void reload_restartAfterOverdueDay_announcesOverdueOnce() {
+    Loan loan = loan(1, START.minusDays(10), false);
+    streamReturns(loan);
+    when(loanGrpcService.getLoansByIds(List.of(1))).thenReturn(List.of(loan));
+
+    monitor.reload();
+    monitor.check();
+    monitor.reload();
+    monitor.check();
+
+    List<LoanDueEvent> events = publishedEvents(1);
+    assertEquals(LoanDueEvent.Kind.OVERDUE, events.get(0).getKind());
+    assertSame(loan, events.get(0).getLoan());
+    assertEquals(0, tracked());
+  }
+
+  @Test
+  void reload_afterFirstLoad_skipsLoansPastOverdueDay() {
+    streamReturns();
+    monitor.reload();
+    streamReturns(loan(1, START.minusDays(10), false));
+
+    monitor.reload();
+
+    assertEquals(0, tracked());
+  }
+
+  @Test
+  void reload_firstLoadFails_nextLoadCatchesUp() {
+    doThrow(new GrpcCommunicationException("down"))
+        .when(loanGrpcService).streamActiveLoans(any());
+    monitor.reload();
+    streamReturns(loan(1, START.minusDays(10), false));
+
+    monitor.reload();
+
+    assertEquals(1, tracked());
+  }
+
+  @Test
+  void reload_streamFails_keepsIndex() {
+    monitor.track(loan(1, START.plusDays(10), false));
+    doThrow(new GrpcCommunicationException("down"))
+        .when(loanGrpcService).streamActiveLoans(any());
+
+    monitor.reload();
+
+    assertEquals(1, tracked());
+  }
+
+  @Test
+  void reload_unimplemented_stopsStreaming() {
+    doThrow(new UnsupportedOperationException("old server"))
+        .when(loanGrpcService).streamActiveLoans(any());
+
+    monitor.reload();
+    monitor.reload();
+
+    verify(loanGrpcService, times(1)).streamActiveLoans(any());
+  }
+
+  @Test
+  void track_returnedLoan_ignored() {
+    monitor.track(loan(1, START.plusDays(10), true));
+
+    assertEquals(0, tracked());
+  }
+
+  // ------------------------------------------------------------
+  // check
+  // ------------------------------------------------------------
+
+  @Test
+  void check_nothingDue_fetchesNothing() {
+    monitor.track(loan(1, START.plusDays(10), false));
+
+    monitor.check();
+
+    verifyNoInteractions(eventPublisher);
+    verify(loanGrpcService, never()).getLoansByIds(any());
+  }
+
+  @Test
+  void check_publishesDueSoonThenOverdue() {
+    Loan loan = loan(1, START.plusDays(10), false);
+    monitor.track(loan);
+    when(loanGrpcService.getLoansByIds(List.of(1))).thenReturn(List.of(loan));
+
+    today = START.plusDays(7);
+    monitor.check();
+    monitor.check();
+    today = START.plusDays(11);
+    monitor.check();
+
+    List<LoanDueEvent> events = publishedEvents(2);
+    assertEquals(LoanDueEvent.Kind.DUE_SOON, events.get(0).getKind());
+    assertEquals(LoanDueEvent.Kind.OVERDUE, events.get(1).getKind());
+    assertSame(loan, events.get(1).getLoan());
+    assertEquals(0, tracked());
+    assertEquals(1, meterRegistry.get("loans.due.events")
+        .tag("kind", "overdue").counter().count());
+  }
+
+  @Test
+  void check_returnedLoan_droppedWithoutEvent() {
+    monitor.track(loan(1, START.plusDays(10), false));
+    when(loanGrpcService.getLoansByIds(List.of(1)))
+        .thenReturn(List.of(loan(1, START.plusDays(10), true)));
+
+    today = START.plusDays(7);
+    monitor.check();
+
+    verifyNoInteractions(eventPublisher);
+    assertEquals(0, tracked());
+  }
+
+  @Test
+  void check_unknownLoan_dropped() {
+    monitor.track(loan(1, START.plusDays(10), false));
+    when(loanGrpcService.getLoansByIds(List.of(1))).thenReturn(List.of());
+
+    today = START.plusDays(7);
+    monitor.check();
+
+    verifyNoInteractions(eventPublisher);
+    assertEquals(0, tracked());
+  }
+
+  @Test
+  void check_extendedElsewhere_reschedules() {
+    monitor.track(loan(1, START.plusDays(10), false));
+    Loan extended = loan(1, START.plusDays(24), false);
+    when(loanGrpcService.getLoansByIds(List.of(1)))
+        .thenReturn(List.of(extended));
+
+    today = START.plusDays(7);
+    monitor.check();
+    verifyNoInteractions(eventPublisher);
+
+    today = START.plusDays(21);
+    monitor.check();
+    assertEquals(LoanDueEvent.Kind.DUE_SOON, publishedEvents(1).get(0)
+        .getKind());
+  }
+
+  @Test
+  void check_fetchFails_retriesNextRun() {
+    Loan loan = loan(1, START.plusDays(10), false);
+    monitor.track(loan);
+    when(loanGrpcService.getLoansByIds(List.of(1)))
+        .thenThrow(new GrpcCommunicationException("down"))
+        .thenReturn(List.of(loan));
+
+    today = START.plusDays(7);
+    monitor.check();
+    verifyNoInteractions(eventPublisher);
+
+    monitor.check();
+    assertEquals(LoanDueEvent.Kind.DUE_SOON, publishedEvents(1).get(0)
+        .getKind());
+  }
+
+  @Test
+  void check_listenerFails_stillMovesOn() {
+    Loan loan = loan(1, START.plusDays(10), false);
+    monitor.track(loan);
+    when(loanGrpcService.getLoansByIds(List.of(1))).thenReturn(List.of(loan));
+    doThrow(new IllegalStateException("listener"))
+        .when(eventPublisher).publishEvent(any(Object.class));
+
+    today = START.plusDays(7);
+    monitor.check();
+    monitor.check();
+
+    verify(eventPublisher, times(1)).publishEvent(any(Object.class));
+  }
+
+  @Test
+  void check_batchesFetches() {
+    monitor = new OverdueLoanMonitor(loanGrpcService, eventPublisher,
+        new SimpleMeterRegistry(), 3, Duration.ZERO, Duration.ZERO, 2,
+        () -> today);
+    for (int loanId = 1; loanId <= 3; loanId++) {
+      monitor.track(loan(loanId, START.plusDays(10), false));
+    }
+    when(loanGrpcService.getLoansByIds(any())).thenReturn(List.of());
+
+    today = START.plusDays(7);
+    monitor.check();
+
+    verify(loanGrpcService).getLoansByIds(List.of(1, 2));
+    verify(loanGrpcService).getLoansByIds(List.of(3));
+  }
+
+  @Test
+  void check_getLoansByIdsUnimplemented_fetchesOneByOne() {
+    Loan loan = loan(1, START.plusDays(10), false);
+    monitor.track(loan);
+    when(loanGrpcService.getLoansByIds(any()))
+        .thenThrow(new UnsupportedOperationException("old server"));
+    when(loanGrpcService.getLoanById(1)).thenReturn(loan);
+
+    today = START.plusDays(7);
+    monitor.check();
+    today = START.plusDays(11);
+    monitor.check();
+
+    publishedEvents(2);
+    verify(loanGrpcService, times(1)).getLoansByIds(any());
+    verify(loanGrpcService, times(2)).getLoanById(1);
+  }
+}
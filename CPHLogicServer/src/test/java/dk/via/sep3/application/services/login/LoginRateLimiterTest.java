@@ -0,0 +1,112 @@
+package dk.via.sep3.application.services.login;
+
+import dk.via.sep3.exceptionHandler.RateLimitExceededException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoginRateLimiterTest {
+
+  private AtomicLong nanos;
+  private LoginRateLimiter limiter;
+
+  @BeforeEach
+  void setUp() {
+    nanos = new AtomicLong();
+    limiter = new LoginRateLimiter(3, Duration.ofSeconds(30), 5, Duration.ofSeconds(1),
+        100, Duration.ofMinutes(15), nanos::get);
+  }
+
+  // ------------------------------------------------------------
+  // per-username limit
+  // ------------------------------------------------------------
+
+  @Test
+  void acquire_usernameBurstUsedUp_throwsWithRetryAfter() {
+    for (int i = 0; i < 3; i++) {
+      limiter.acquire("john", "10.0.0." + i);
+    }
+
+    RateLimitExceededException ex = assertThrows(RateLimitExceededException.class,
+        () -> limiter.acquire("john", "10.0.0.9"));
+
+    assertEquals(Duration.ofSeconds(30), ex.getRetryAfter());
+  }
+
+  @Test
+  void acquire_usernameThrottled_addressStillServesOtherUsernames() {
+    for (int i = 0; i < 3; i++) {
+      limiter.acquire("john", "10.0.0.1");
+    }
+    assertThrows(RateLimitExceededException.class, () -> limiter.acquire("john", "10.0.0.1"));
+
+    assertDoesNotThrow(() -> limiter.acquire("jane", "10.0.0.1"));
+  }
+
+  @Test
+  void acquire_usernameIsCaseInsensitive() {
+    limiter.acquire("john", null);
+    limiter.acquire("John", null);
+    limiter.acquire("JOHN", null);
+
+    assertThrows(RateLimitExceededException.class, () -> limiter.acquire("jOhN", null));
+  }
+
+  @Test
+  void acquire_tokensRefillOverTime() {
+    for (int i = 0; i < 3; i++) {
+      limiter.acquire("john", null);
+    }
+    assertThrows(RateLimitExceededException.class, () -> limiter.acquire("john", null));
+
+    nanos.addAndGet(TimeUnit.SECONDS.toNanos(30));
+
+    assertDoesNotThrow(() -> limiter.acquire("john", null));
+    assertThrows(RateLimitExceededException.class, () -> limiter.acquire("john", null));
+  }
+
+  @Test
+  void acquire_otherUsernamesUnaffected() {
+    for (int i = 0; i < 3; i++) {
+      limiter.acquire("john", null);
+    }
+
+    assertDoesNotThrow(() -> limiter.acquire("jane", null));
+  }
+
+  // ------------------------------------------------------------
+  // per-address limit
+  // ------------------------------------------------------------
+
+  @Test
+  void acquire_addressSprayingManyUsernames_throws() {
+    for (int i = 0; i < 5; i++) {
+      limiter.acquire("user" + i, "10.0.0.1");
+    }
+
+    RateLimitExceededException ex = assertThrows(RateLimitExceededException.class,
+        () -> limiter.acquire("user5", "10.0.0.1"));
+
+    assertEquals(Duration.ofSeconds(1), ex.getRetryAfter());
+    assertDoesNotThrow(() -> limiter.acquire("user5", "10.0.0.2"));
+  }
+
+  @Test
+  void acquire_addressRejected_doesNotSpendUsernameToken() {
+    for (int i = 0; i < 5; i++) {
+      limiter.acquire("user" + i, "10.0.0.1");
+    }
+    for (int i = 0; i < 10; i++) {
+      assertThrows(RateLimitExceededException.class, () -> limiter.acquire("john", "10.0.0.1"));
+    }
+
+    for (int i = 0; i < 3; i++) {
+      limiter.acquire("john", "10.0.0.2");
+    }
+  }
+}
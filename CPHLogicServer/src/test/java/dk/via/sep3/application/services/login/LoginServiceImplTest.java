@@ -1,11 +1,15 @@
 package dk.via.sep3.application.services.login;
 
 import dk.via.sep3.application.domain.User;
+import dk.via.sep3.exceptionHandler.RateLimitExceededException;
 import dk.via.sep3.grpcConnection.userGrpcService.UserGrpcService;
 import dk.via.sep3.security.IPasswordEncoderService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
@@ -13,13 +17,19 @@ class LoginServiceImplTest {
 
   private UserGrpcService userGrpcService;
   private IPasswordEncoderService passwordEncoderService;
+  private UnknownUsernameCache unknownUsernames;
   private LoginServiceImpl loginService;
 
   @BeforeEach
   void setUp() {
     userGrpcService = mock(UserGrpcService.class);
     passwordEncoderService = mock(IPasswordEncoderService.class);
-    loginService = new LoginServiceImpl(userGrpcService, passwordEncoderService);
+    AtomicLong nanos = new AtomicLong();
+    LoginRateLimiter rateLimiter = new LoginRateLimiter(2, Duration.ofMinutes(1),
+        10, Duration.ofSeconds(1), 100, Duration.ofMinutes(15), nanos::get);
+    unknownUsernames = new UnknownUsernameCache(100, Duration.ofMinutes(1), nanos::get);
+    loginService = new LoginServiceImpl(userGrpcService, passwordEncoderService,
+        rateLimiter, unknownUsernames);
   }
 
   // ------------------------------------------------------------
@@ -40,7 +50,7 @@ class LoginServiceImplTest {
     when(passwordEncoderService.matches("rawPassword", "hashedPassword"))
         .thenReturn(true);
 
-    User result = loginService.login(inputUser);
+    User result = loginService.login(inputUser, "10.0.0.1");
 
     assertEquals("john", result.getUsername());
     verify(userGrpcService).getUserByUsername("john");
@@ -58,7 +68,7 @@ class LoginServiceImplTest {
     user.setPassword("password");
 
     assertThrows(IllegalArgumentException.class,
-        () -> loginService.login(user));
+        () -> loginService.login(user, "10.0.0.1"));
   }
 
   @Test
@@ -68,7 +78,7 @@ class LoginServiceImplTest {
     user.setPassword("");
 
     assertThrows(IllegalArgumentException.class,
-        () -> loginService.login(user));
+        () -> loginService.login(user, "10.0.0.1"));
   }
 
   // ------------------------------------------------------------
@@ -84,7 +94,7 @@ class LoginServiceImplTest {
     when(userGrpcService.getUserByUsername("john")).thenReturn(null);
 
     assertThrows(IllegalArgumentException.class,
-        () -> loginService.login(user));
+        () -> loginService.login(user, "10.0.0.1"));
   }
 
   @Test
@@ -102,6 +112,52 @@ class LoginServiceImplTest {
         .thenReturn(false);
 
     assertThrows(IllegalArgumentException.class,
-        () -> loginService.login(user));
+        () -> loginService.login(user, "10.0.0.1"));
+  }
+
+  // ------------------------------------------------------------
+  // login() - throttling and unknown usernames
+  // ------------------------------------------------------------
+
+  @Test
+  void login_unknownUsernameCached_skipsGrpcLookup() {
+    User user = new User();
+    user.setUsername("ghost");
+    user.setPassword("password");
+
+    when(userGrpcService.getUserByUsername("ghost")).thenReturn(null);
+
+    assertThrows(IllegalArgumentException.class,
+        () -> loginService.login(user, "10.0.0.1"));
+    assertThrows(IllegalArgumentException.class,
+        () -> loginService.login(user, "10.0.0.1"));
+
+    verify(userGrpcService, times(1)).getUserByUsername("ghost");
+    assertTrue(unknownUsernames.isUnknown("ghost"));
+  }
+
+  @Test
+  void login_tooManyAttempts_rejectedBeforeGrpcLookup() {
+    User user = new User();
+    user.setUsername("john");
+    user.setPassword("wrongPassword");
+
+    User dbUser = new User();
+    dbUser.setUsername("john");
+    dbUser.setPassword("hashedPassword");
+
+    when(userGrpcService.getUserByUsername("john")).thenReturn(dbUser);
+    when(passwordEncoderService.matches("wrongPassword", "hashedPassword"))
+        .thenReturn(false);
+
+    assertThrows(IllegalArgumentException.class,
+        () -> loginService.login(user, "10.0.0.1"));
+    assertThrows(IllegalArgumentException.class,
+        () -> loginService.login(user, "10.0.0.2"));
+    assertThrows(RateLimitExceededException.class,
+        () -> loginService.login(user, "10.0.0.3"));
+
+    verify(userGrpcService, times(2)).getUserByUsername("john");
+    verify(passwordEncoderService, times(2)).matches("wrongPassword", "hashedPassword");
   }
 }
@@ -0,0 +1,59 @@
+package dk.via.sep3.application.services.login;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UnknownUsernameCacheTest {
+
+  private AtomicLong nanos;
+  private UnknownUsernameCache cache;
+
+  @BeforeEach
+  void setUp() {
+    nanos = new AtomicLong();
+    cache = new UnknownUsernameCache(100, Duration.ofSeconds(60), nanos::get);
+  }
+
+  @Test
+  void remember_marksUsernameUnknown() {
+    cache.remember("ghost");
+
+    assertTrue(cache.isUnknown("ghost"));
+    assertFalse(cache.isUnknown("john"));
+  }
+
+  @Test
+  void usernames_compareIgnoringCase() {
+    cache.remember("Ghost");
+
+    assertTrue(cache.isUnknown("gHOST"));
+
+    cache.forget("GHOST");
+
+    assertFalse(cache.isUnknown("ghost"));
+  }
+
+  @Test
+  void forget_clearsEntry() {
+    cache.remember("ghost");
+
+    cache.forget("ghost");
+
+    assertFalse(cache.isUnknown("ghost"));
+  }
+
+  @Test
+  void entries_expireAfterTtl() {
+    cache.remember("ghost");
+
+    nanos.addAndGet(TimeUnit.SECONDS.toNanos(61));
+
+    assertFalse(cache.isUnknown("ghost"));
+  }
+}
@@ -1,7 +1,10 @@
 package dk.via.sep3.application.services.registration;
 
 import dk.via.sep3.application.domain.User;
+import dk.via.sep3.application.services.login.UnknownUsernameCache;
+import dk.via.sep3.application.services.validation.UsernameFilter;
 import dk.via.sep3.application.services.validation.Validator;
+import dk.via.sep3.exceptionHandler.BusinessRuleViolationException;
 import dk.via.sep3.grpcConnection.userGrpcService.UserGrpcService;
 import dk.via.sep3.security.IPasswordEncoderService;
 import org.junit.jupiter.api.BeforeEach;
@@ -15,6 +18,8 @@ class RegistrationServiceImplTest {
   private UserGrpcService userGrpcService;
   private Validator validator;
   private IPasswordEncoderService passwordEncoderService;
+  private UnknownUsernameCache unknownUsernames;
+  private UsernameFilter usernameFilter;
   private RegistrationServiceImpl registrationService;
 
   @BeforeEach
@@ -22,9 +27,11 @@ class RegistrationServiceImplTest {
     userGrpcService = mock(UserGrpcService.class);
     validator = mock(Validator.class);
     passwordEncoderService = mock(IPasswordEncoderService.class);
+    unknownUsernames = mock(UnknownUsernameCache.class);
+    usernameFilter = mock(UsernameFilter.class);
 
     registrationService = new RegistrationServiceImpl(
-        userGrpcService, validator, passwordEncoderService
+        userGrpcService, validator, passwordEncoderService, unknownUsernames, usernameFilter
     );
   }
 
@@ -59,6 +66,8 @@ class RegistrationServiceImplTest {
 
     verify(passwordEncoderService).encode("plainPassword");
     verify(userGrpcService).createUser(user);
+    verify(unknownUsernames).forget("john");
+    verify(usernameFilter).add("john");
   }
 
   // ------------------------------------------------------------
@@ -83,4 +92,23 @@ class RegistrationServiceImplTest {
     verify(passwordEncoderService, never()).encode(any());
     verify(userGrpcService, never()).createUser(any());
   }
+
+  @Test
+  void register_usernameTakenOnOtherServer_throwsAndAddsToFilter() {
+    User user = new User();
+    user.setUsername("john");
+    user.setPassword("plainPassword");
+
+    when(passwordEncoderService.encode("plainPassword")).thenReturn("hashedPassword");
+    when(userGrpcService.createUser(any(User.class)))
+        .thenThrow(new BusinessRuleViolationException("Username already exists"));
+
+    BusinessRuleViolationException ex = assertThrows(
+        BusinessRuleViolationException.class,
+        () -> registrationService.register(user));
+
+    assertEquals("Username already exists", ex.getMessage());
+    verify(usernameFilter).add("john");
+    verify(unknownUsernames, never()).forget(any());
+  }
 }
@@ -1,11 +1,11 @@
 package dk.via.sep3.application.services.reservation;
 
-import dk.via.sep3.application.domain.Book;
+import dk.via.sep3.application.domain.AvailabilitySummary;
 import dk.via.sep3.application.domain.Loan;
 import dk.via.sep3.application.domain.Reservation;
-import dk.via.sep3.application.domain.State;
 import dk.via.sep3.exceptionHandler.ResourceNotFoundException;
 import dk.via.sep3.grpcConnection.bookGrpcService.BookGrpcService;
+import dk.via.sep3.grpcConnection.fanOut.GrpcFanOut;
 import dk.via.sep3.grpcConnection.loanGrpcService.LoanGrpcService;
 import dk.via.sep3.grpcConnection.reservationGrpcService.ReservationGrpcService;
 import org.junit.jupiter.api.BeforeEach;
@@ -31,7 +31,8 @@ class ReservationServiceImplTest {
     reservationGrpcService = mock(ReservationGrpcService.class);
 
     reservationService = new ReservationServiceImpl(
-        loanGrpcService, bookGrpcService, reservationGrpcService
+        loanGrpcService, bookGrpcService, reservationGrpcService,
+        new GrpcFanOut(Runnable::run)
     );
   }
 
@@ -45,9 +46,9 @@ class ReservationServiceImplTest {
     request.setUsername("john");
     request.setBookISBN("123");
 
-    Book book = new Book(1, "123", "Title", "Author", State.BORROWED, List.of());
-
     Loan loan = new Loan();
+    loan.setBookId(1);
+    loan.setUsername("jane");
     loan.setReturned(false);
     loan.setDueDate(Date.valueOf("2024-01-10"));
 
@@ -57,8 +58,8 @@ class ReservationServiceImplTest {
     persisted.setBookId(1);
     persisted.setReservationDate(Date.valueOf("2024-01-01"));
 
-    when(bookGrpcService.getBooksByIsbn("123"))
-        .thenReturn(List.of(book));
+    when(bookGrpcService.getCurrentAvailabilitySummary("123"))
+        .thenReturn(AvailabilitySummary.of(1, 0, 1, 0, 0));
     when(reservationGrpcService.getReservationsByIsbn("123"))
         .thenReturn(List.of());
     when(loanGrpcService.getLoansByISBN("123"))
@@ -86,10 +87,8 @@ class ReservationServiceImplTest {
     request.setUsername("john");
     request.setBookISBN("123");
 
-    Book availableBook = new Book(1, "123", "Title", "Author", State.AVAILABLE, List.of());
-
-    when(bookGrpcService.getBooksByIsbn("123"))
-        .thenReturn(List.of(availableBook));
+    when(bookGrpcService.getCurrentAvailabilitySummary("123"))
+        .thenReturn(AvailabilitySummary.of(1, 1, 0, 0, 1));
 
     assertThrows(IllegalArgumentException.class,
         () -> reservationService.createReservation(request));
@@ -104,9 +103,8 @@ class ReservationServiceImplTest {
     Reservation existing = new Reservation();
     existing.setUsername("john");
 
-    Book book = new Book(1, "123", "Title", "Author", State.BORROWED, List.of());
-
-    when(bookGrpcService.getBooksByIsbn("123")).thenReturn(List.of(book));
+    when(bookGrpcService.getCurrentAvailabilitySummary("123"))
+        .thenReturn(AvailabilitySummary.of(1, 0, 1, 0, 0));
     when(reservationGrpcService.getReservationsByIsbn("123"))
         .thenReturn(List.of(existing));
 
@@ -120,14 +118,12 @@ class ReservationServiceImplTest {
     request.setUsername("john");
     request.setBookISBN("123");
 
-    Book book = new Book(1, "123", "Title", "Author", State.BORROWED, List.of());
-
     Loan activeLoan = new Loan();
     activeLoan.setUsername("john");
     activeLoan.setReturned(false);
 
-    when(bookGrpcService.getBooksByIsbn("123"))
-        .thenReturn(List.of(book));
+    when(bookGrpcService.getCurrentAvailabilitySummary("123"))
+        .thenReturn(AvailabilitySummary.of(1, 0, 1, 0, 0));
     when(reservationGrpcService.getReservationsByIsbn("123"))
         .thenReturn(List.of());
     when(loanGrpcService.getLoansByISBN("123"))
@@ -143,13 +139,11 @@ class ReservationServiceImplTest {
     request.setUsername("john");
     request.setBookISBN("123");
 
-    Book book = new Book(1, "123", "Title", "Author", State.BORROWED, List.of());
-
     Loan returnedLoan = new Loan();
     returnedLoan.setReturned(true);
 
-    when(bookGrpcService.getBooksByIsbn("123"))
-        .thenReturn(List.of(book));
+    when(bookGrpcService.getCurrentAvailabilitySummary("123"))
+        .thenReturn(AvailabilitySummary.of(1, 0, 1, 0, 0));
     when(reservationGrpcService.getReservationsByIsbn("123"))
         .thenReturn(List.of());
     when(loanGrpcService.getLoansByISBN("123"))
@@ -158,4 +152,42 @@ class ReservationServiceImplTest {
     assertThrows(ResourceNotFoundException.class,
         () -> reservationService.createReservation(request));
   }
+
+  // ------------------------------------------------------------
+  // createReservation() - copy selection
+  // ------------------------------------------------------------
+
+  @Test
+  void createReservation_manyCopies_loadsLoansOnceAndPicksEarliestDueCopy() {
+    Reservation request = new Reservation();
+    request.setUsername("john");
+    request.setBookISBN("123");
+
+    Loan late = new Loan(1, 1, "anna", Date.valueOf("2024-01-01"),
+        Date.valueOf("2024-02-01"), false, 0);
+    Loan early = new Loan(2, 2, "bob", Date.valueOf("2024-01-01"),
+        Date.valueOf("2024-01-15"), false, 0);
+    Loan returned = new Loan(3, 3, "carl", Date.valueOf("2023-12-01"),
+        Date.valueOf("2024-01-01"), true, 0);
+
+    Reservation persisted = new Reservation();
+    persisted.setId(11);
+    persisted.setUsername("john");
+    persisted.setBookId(2);
+
+    when(bookGrpcService.getCurrentAvailabilitySummary("123"))
+        .thenReturn(AvailabilitySummary.of(3, 0, 3, 0, 0));
+    when(reservationGrpcService.getReservationsByIsbn("123"))
+        .thenReturn(List.of());
+    when(loanGrpcService.getLoansByISBN("123"))
+        .thenReturn(List.of(late, early, returned));
+    when(reservationGrpcService.createReservation(any(Reservation.class)))
+        .thenReturn(persisted);
+
+    reservationService.createReservation(request);
+
+    verify(loanGrpcService, times(1)).getLoansByISBN("123");
+    verify(bookGrpcService).updateBookStatus(2, "Reserved");
+    verify(bookGrpcService, never()).getBooksByIsbn(any());
+  }
 }
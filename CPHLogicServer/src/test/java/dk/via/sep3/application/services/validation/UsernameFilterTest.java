@@ -0,0 +1,105 @@
+package dk.via.sep3.application.services.validation;
+
+import dk.via.sep3.exceptionHandler.GrpcCommunicationException;
+import dk.via.sep3.grpcConnection.userGrpcService.UserGrpcService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class UsernameFilterTest {
+
+  private UserGrpcService userGrpcService;
+  private UsernameFilter filter;
+
+  @BeforeEach
+  void setUp() {
+    userGrpcService = mock(UserGrpcService.class);
+    filter = new UsernameFilter(userGrpcService, 1000, 0.01, Duration.ZERO);
+  }
+
+  private void streamReturns(String... usernames) {
+    doAnswer(invocation -> {
+      Consumer<String> consumer = invocation.getArgument(0);
+      for (String username : usernames) {
+        consumer.accept(username);
+      }
+      return null;
+    }).when(userGrpcService).streamUsernames(any());
+  }
+
+  // ------------------------------------------------------------
+  // before the first build
+  // ------------------------------------------------------------
+
+  @Test
+  void mightExist_coldFilter_alwaysTrue() {
+    assertTrue(filter.mightExist("anyone"));
+  }
+
+  @Test
+  void rebuild_streamFails_staysCold() {
+    doThrow(new GrpcCommunicationException("down"))
+        .when(userGrpcService).streamUsernames(any());
+
+    filter.rebuild();
+
+    assertTrue(filter.mightExist("anyone"));
+  }
+
+  // ------------------------------------------------------------
+  // after a build
+  // ------------------------------------------------------------
+
+  @Test
+  void rebuild_containsStreamedNames() {
+    streamReturns("john", "jane");
+
+    filter.rebuild();
+
+    assertTrue(filter.mightExist("john"));
+    assertTrue(filter.mightExist("jane"));
+    assertFalse(filter.mightExist("ghost"));
+  }
+
+  @Test
+  void add_afterBuild_isVisible() {
+    streamReturns("john");
+    filter.rebuild();
+
+    filter.add("newbie");
+
+    assertTrue(filter.mightExist("newbie"));
+  }
+
+  @Test
+  void add_duringRebuild_survivesSwap() {
+    doAnswer(invocation -> {
+      Consumer<String> consumer = invocation.getArgument(0);
+      consumer.accept("john");
+      filter.add("newbie");
+      return null;
+    }).when(userGrpcService).streamUsernames(any());
+
+    filter.rebuild();
+
+    assertTrue(filter.mightExist("newbie"));
+  }
+
+  @Test
+  void rebuild_failureAfterBuild_keepsPreviousFilter() {
+    streamReturns("john");
+    filter.rebuild();
+    doThrow(new GrpcCommunicationException("down"))
+        .when(userGrpcService).streamUsernames(any());
+
+    filter.rebuild();
+
+    assertTrue(filter.mightExist("john"));
+    assertFalse(filter.mightExist("ghost"));
+  }
+}
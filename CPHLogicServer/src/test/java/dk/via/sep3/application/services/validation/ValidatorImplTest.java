@@ -6,18 +6,34 @@ import dk.via.sep3.grpcConnection.userGrpcService.UserGrpcService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.time.Duration;
+import java.util.function.Consumer;
+
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
 class ValidatorImplTest {
 
   private UserGrpcService userGrpcService;
+  private UsernameFilter usernameFilter;
   private ValidatorImpl validator;
 
   @BeforeEach
   void setUp() {
     userGrpcService = mock(UserGrpcService.class);
-    validator = new ValidatorImpl(userGrpcService);
+    usernameFilter = new UsernameFilter(userGrpcService, 1000, 0.01, Duration.ZERO);
+    validator = new ValidatorImpl(userGrpcService, usernameFilter);
+  }
+
+  private void buildFilter(String... usernames) {
+    doAnswer(invocation -> {
+      Consumer<String> consumer = invocation.getArgument(0);
+      for (String username : usernames) {
+        consumer.accept(username);
+      }
+      return null;
+    }).when(userGrpcService).streamUsernames(any());
+    usernameFilter.rebuild();
   }
 
   // ------------------------------------------------------------
@@ -113,6 +129,27 @@ class ValidatorImplTest {
         () -> validator.validateUsername("john"));
   }
 
+  @Test
+  void validateUsername_notInFilter_skipsLookup() {
+    buildFilter("jane");
+
+    assertDoesNotThrow(() -> validator.validateUsername("john"));
+
+    verify(userGrpcService, never()).getUserByUsername(anyString());
+  }
+
+  @Test
+  void validateUsername_inFilter_confirmsWithLookup() {
+    buildFilter("john");
+    when(userGrpcService.getUserByUsername("john"))
+        .thenReturn(new User());
+
+    assertThrows(BusinessRuleViolationException.class,
+        () -> validator.validateUsername("john"));
+
+    verify(userGrpcService).getUserByUsername("john");
+  }
+
   @Test
   void validateUsername_tooShort_throwsException() {
     assertThrows(BusinessRuleViolationException.class,
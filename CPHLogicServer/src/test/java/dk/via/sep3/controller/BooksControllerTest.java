@@ -1,15 +1,24 @@
 package dk.via.sep3.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import dk.via.sep3.application.domain.Book;
+import dk.via.sep3.application.domain.BookPage;
+import dk.via.sep3.application.domain.BookQuery;
+import dk.via.sep3.application.domain.State;
 import dk.via.sep3.application.services.books.BookService;
 import dk.via.sep3.DTOs.book.BookDTO;
 import dk.via.sep3.mapper.bookMapper.BookMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -18,6 +27,7 @@ class BooksControllerTest {
 
   private BookService bookService;
   private BookMapper bookMapper;
+  private ObjectMapper objectMapper;
   private BooksController controller;
 
   private Book book;
@@ -27,7 +37,8 @@ class BooksControllerTest {
   void setup() {
     bookService = mock(BookService.class);
     bookMapper = mock(BookMapper.class);
-    controller = new BooksController(bookService, bookMapper);
+    objectMapper = new ObjectMapper();
+    controller = new BooksController(bookService, bookMapper, objectMapper);
 
     book = new Book(
         "123",
@@ -49,7 +60,7 @@ class BooksControllerTest {
     when(bookService.getAllBooks()).thenReturn(List.of(book));
     when(bookMapper.toDto(book)).thenReturn(bookDTO);
 
-    ResponseEntity<List<BookDTO>> response = controller.getAllBooks();
+    ResponseEntity<List<BookDTO>> response = controller.getAllBooks(null, null, null, null, null);
 
     assertEquals(200, response.getStatusCode().value());
     assertEquals(1, response.getBody().size());
@@ -73,4 +84,75 @@ class BooksControllerTest {
     verify(bookService).getBookByIsbn("123");
     verify(bookMapper).toDto(book);
   }
+
+  @Test
+  void streamAllBooks_writesOneJsonLinePerBook() throws Exception {
+    Book second = new Book(2, "456", "Other", "Author",
+        dk.via.sep3.application.domain.State.AVAILABLE, new ArrayList<>());
+    BookDTO secondDTO = new BookDTO();
+    secondDTO.setId(2);
+    secondDTO.setIsbn("456");
+    doAnswer(invocation -> {
+      Consumer<Book> consumer = invocation.getArgument(0);
+      consumer.accept(book);
+      consumer.accept(second);
+      return null;
+    }).when(bookService).streamAllBooks(any());
+    when(bookMapper.toDto(book)).thenReturn(bookDTO);
+    when(bookMapper.toDto(second)).thenReturn(secondDTO);
+
+    ResponseEntity<StreamingResponseBody> response = controller.streamAllBooks();
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    response.getBody().writeTo(out);
+
+    assertEquals(MediaType.APPLICATION_NDJSON,
+        response.getHeaders().getContentType());
+    String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+    assertEquals(2, lines.length);
+    assertEquals("123", objectMapper.readValue(lines[0], BookDTO.class).getIsbn());
+    assertEquals("456", objectMapper.readValue(lines[1], BookDTO.class).getIsbn());
+  }
+
+  @Test
+  void getAllBooks_withPaging_returnsPageAndNextCursorHeader() {
+    BookQuery query = new BookQuery(1, null, null, "Fantasy", State.AVAILABLE);
+    when(bookService.getBooks(query)).thenReturn(new BookPage(List.of(book), "123"));
+    when(bookMapper.toDto(book)).thenReturn(bookDTO);
+
+    ResponseEntity<List<BookDTO>> response =
+        controller.getAllBooks(1, null, null, "Fantasy", "available");
+
+    assertEquals(1, response.getBody().size());
+    assertEquals("123", response.getHeaders().getFirst("X-Next-Cursor"));
+    verify(bookService, never()).getAllBooks();
+  }
+
+  @Test
+  void getAllBooks_filterWithoutLimit_usesDefaultLimit() {
+    BookQuery query = new BookQuery(BookQuery.DEFAULT_LIMIT, null, "Author", null, null);
+    when(bookService.getBooks(query)).thenReturn(new BookPage(List.of(), null));
+
+    controller.getAllBooks(null, null, "Author", null, null);
+
+    verify(bookService).getBooks(query);
+    verify(bookService, never()).getAllBooks();
+  }
+
+  @Test
+  void getAllBooks_lastPage_hasNoNextCursorHeader() {
+    BookQuery query = new BookQuery(10, "123", null, null, null);
+    when(bookService.getBooks(query)).thenReturn(new BookPage(List.of(), null));
+
+    ResponseEntity<List<BookDTO>> response =
+        controller.getAllBooks(10, "123", null, null, null);
+
+    assertTrue(response.getBody().isEmpty());
+    assertFalse(response.getHeaders().containsKey("X-Next-Cursor"));
+  }
+
+  @Test
+  void getAllBooks_unknownState_throwsIllegalArgumentException() {
+    assertThrows(IllegalArgumentException.class,
+        () -> controller.getAllBooks(null, null, null, null, "lost"));
+  }
 }
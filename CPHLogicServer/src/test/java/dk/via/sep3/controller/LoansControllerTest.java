@@ -1,10 +1,16 @@
 package dk.via.sep3.controller;
 
+import dk.via.sep3.application.domain.ExtensionResult;
 import dk.via.sep3.application.domain.Loan;
+import dk.via.sep3.application.domain.LoanResult;
 import dk.via.sep3.application.services.loans.LoanService;
 import dk.via.sep3.DTOs.extension.CreateExtensionDTO;
+import dk.via.sep3.DTOs.extension.CreateExtensionsDTO;
+import dk.via.sep3.DTOs.extension.ExtensionResultDTO;
 import dk.via.sep3.DTOs.loan.CreateLoanDTO;
+import dk.via.sep3.DTOs.loan.CreateLoansDTO;
 import dk.via.sep3.DTOs.loan.LoanDTO;
+import dk.via.sep3.DTOs.loan.LoanResultDTO;
 import dk.via.sep3.mapper.loanMapper.LoanMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -62,6 +68,26 @@ class LoansControllerTest {
     verify(loanMapper).mapDomainToLoanDTO(loan);
   }
 
+  @Test
+  void createLoans_returnsOneResultPerIsbn() {
+    CreateLoansDTO request = new CreateLoansDTO("testUser", List.of("123", "456"));
+    LoanResult lent = LoanResult.success("123", loan);
+    LoanResult refused = LoanResult.failure("456",
+        new IllegalArgumentException("No available copies of this book"));
+    LoanResultDTO lentDTO = new LoanResultDTO("123", true, loanDTO, null, null);
+    LoanResultDTO refusedDTO = new LoanResultDTO("456", false, null,
+        "INVALID_INPUT", "No available copies of this book");
+    when(loanService.createLoans("testUser", List.of("123", "456")))
+        .thenReturn(List.of(lent, refused));
+    when(loanMapper.mapLoanResultToDTO(lent)).thenReturn(lentDTO);
+    when(loanMapper.mapLoanResultToDTO(refused)).thenReturn(refusedDTO);
+
+    ResponseEntity<List<LoanResultDTO>> response = controller.createLoans(request);
+
+    assertEquals(200, response.getStatusCode().value());
+    assertEquals(List.of(lentDTO, refusedDTO), response.getBody());
+  }
+
   @Test
   void extendLoan_returnsOkStatus() {
     when(loanMapper.mapCreateExtensionDTOToDomain(createExtensionDTO))
@@ -75,6 +101,26 @@ class LoansControllerTest {
     verify(loanService).extendLoan(loan);
   }
 
+  @Test
+  void extendLoans_returnsOneResultPerLoanId() {
+    CreateExtensionsDTO request = new CreateExtensionsDTO("testUser", List.of(1, 2));
+    ExtensionResult extended = ExtensionResult.success(1, loan);
+    ExtensionResult refused = ExtensionResult.failure(2,
+        new IllegalStateException("Only the borrower can extend the loan"));
+    ExtensionResultDTO extendedDTO = new ExtensionResultDTO(1, true, loanDTO, null, null);
+    ExtensionResultDTO refusedDTO = new ExtensionResultDTO(2, false, null,
+        "BUSINESS_CONSTRAINT", "Only the borrower can extend the loan");
+    when(loanService.extendLoans("testUser", List.of(1, 2)))
+        .thenReturn(List.of(extended, refused));
+    when(loanMapper.mapExtensionResultToDTO(extended)).thenReturn(extendedDTO);
+    when(loanMapper.mapExtensionResultToDTO(refused)).thenReturn(refusedDTO);
+
+    ResponseEntity<List<ExtensionResultDTO>> response = controller.extendLoans(request);
+
+    assertEquals(200, response.getStatusCode().value());
+    assertEquals(List.of(extendedDTO, refusedDTO), response.getBody());
+  }
+
   @Test
   void getActiveLoansByUsername_returnsLoanDTOs() {
     when(loanService.getActiveLoansByUsername("testUser"))
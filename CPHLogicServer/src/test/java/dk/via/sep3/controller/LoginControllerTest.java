@@ -9,6 +9,7 @@ import dk.via.sep3.security.IJwtTokenProvider;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -47,13 +48,13 @@ class LoginControllerTest {
   @Test
   void login_returnsLoginResponseDTO() {
     when(loginMapper.mapLoginDTOToDomain(loginDTO)).thenReturn(user);
-    when(loginService.login(user)).thenReturn(user);
+    when(loginService.login(user, "127.0.0.1")).thenReturn(user);
     when(jwtTokenProvider.generateToken("testUser", "READER"))
         .thenReturn("jwt-token");
     when(loginMapper.mapDomainToLoginResponse("jwt-token", user))
         .thenReturn(responseDTO);
 
-    ResponseEntity<LoginResponseDTO> response = controller.login(loginDTO);
+    ResponseEntity<LoginResponseDTO> response = controller.login(loginDTO, new MockHttpServletRequest());
 
     assertEquals(200, response.getStatusCode().value());
     assertNotNull(response.getBody());
@@ -61,7 +62,7 @@ class LoginControllerTest {
     assertEquals("jwt-token", response.getBody().getToken());
 
     verify(loginMapper).mapLoginDTOToDomain(loginDTO);
-    verify(loginService).login(user);
+    verify(loginService).login(user, "127.0.0.1");
     verify(jwtTokenProvider).generateToken("testUser", "READER");
     verify(loginMapper).mapDomainToLoginResponse("jwt-token", user);
   }
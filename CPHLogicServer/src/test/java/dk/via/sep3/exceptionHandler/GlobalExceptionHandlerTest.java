@@ -1,10 +1,13 @@
 package dk.via.sep3.exceptionHandler;
 
 import dk.via.sep3.DTOs.error.ErrorResponseDTO;
+import io.grpc.Status;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.http.ResponseEntity;
 
+import java.time.Duration;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class GlobalExceptionHandlerTest {
@@ -77,6 +80,30 @@ class GlobalExceptionHandlerTest {
     assertEquals("SERVICE_UNAVAILABLE", response.getBody().getErrorCode());
   }
 
+  @Test
+  void handleGrpcCommunication_deadlineExceeded_returnsGatewayTimeout() {
+    GrpcCommunicationException ex = new GrpcCommunicationException(
+        "gRPC slow", Status.DEADLINE_EXCEEDED.asRuntimeException());
+
+    ResponseEntity<ErrorResponseDTO> response =
+        handler.handleGrpcCommunication(ex);
+
+    assertEquals(504, response.getStatusCode().value());
+    assertEquals("GATEWAY_TIMEOUT", response.getBody().getErrorCode());
+  }
+
+  @Test
+  void handleRequestTimeout_returnsGatewayTimeout() {
+    RequestTimeoutException ex =
+        new RequestTimeoutException("Request time budget ran out");
+
+    ResponseEntity<ErrorResponseDTO> response =
+        handler.handleRequestTimeout(ex);
+
+    assertEquals(504, response.getStatusCode().value());
+    assertEquals("GATEWAY_TIMEOUT", response.getBody().getErrorCode());
+  }
+
   @Test
   void handleGeneralException_returnsInternalServerError() {
     Exception ex = new Exception("Unexpected failure");
@@ -87,4 +114,30 @@ class GlobalExceptionHandlerTest {
     assertEquals(500, response.getStatusCode().value());
     assertEquals("INTERNAL_ERROR", response.getBody().getErrorCode());
   }
+
+  @Test
+  void handleServiceOverloaded_returnsServiceUnavailableWithRetryAfter() {
+    ServiceOverloadedException ex =
+        new ServiceOverloadedException("Too many sign-in requests", Duration.ofMillis(1500));
+
+    ResponseEntity<ErrorResponseDTO> response =
+        handler.handleServiceOverloaded(ex);
+
+    assertEquals(503, response.getStatusCode().value());
+    assertEquals("2", response.getHeaders().getFirst("Retry-After"));
+    assertEquals("SERVICE_OVERLOADED", response.getBody().getErrorCode());
+  }
+
+  @Test
+  void handleRateLimitExceeded_returnsTooManyRequestsWithRetryAfter() {
+    RateLimitExceededException ex =
+        new RateLimitExceededException("Too many login attempts", Duration.ofSeconds(30));
+
+    ResponseEntity<ErrorResponseDTO> response =
+        handler.handleRateLimitExceeded(ex);
+
+    assertEquals(429, response.getStatusCode().value());
+    assertEquals("30", response.getHeaders().getFirst("Retry-After"));
+    assertEquals("RATE_LIMITED", response.getBody().getErrorCode());
+  }
 }
@@ -1,14 +1,20 @@
 package dk.via.sep3.grpcConnection.bookGrpcService;
 
 import dk.via.sep3.*;
+import dk.via.sep3.application.domain.AvailabilitySummary;
 import dk.via.sep3.application.domain.Book;
+import dk.via.sep3.application.domain.BookPage;
+import dk.via.sep3.application.domain.BookQuery;
+import dk.via.sep3.application.domain.State;
 import dk.via.sep3.exceptionHandler.GrpcCommunicationException;
 import dk.via.sep3.mapper.bookMapper.BookMapper;
 import io.grpc.ManagedChannel;
+import io.grpc.Status;
 import io.grpc.StatusRuntimeException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -106,6 +112,53 @@ class BookGrpcServiceImplTest {
         () -> service.getBooksByIsbn("123"));
   }
 
+  // ---------------------------------------------------
+  // getAvailabilitySummary()
+  // ---------------------------------------------------
+
+  @Test
+  void getAvailabilitySummary_returnsCounts() {
+    when(bookStub.getAvailabilitySummary(any(GetAvailabilitySummaryRequest.class)))
+        .thenReturn(GetAvailabilitySummaryResponse.newBuilder().setTotal(3)
+            .setAvailable(1).setBorrowed(1).setReserved(1)
+            .setAvailableBookId(7).setSuccess(true).build());
+
+    AvailabilitySummary result = service.getAvailabilitySummary("123");
+
+    assertEquals(3, result.getTotal());
+    assertEquals(1, result.getAvailable());
+    assertEquals(7, result.getAvailableBookId());
+    verify(bookStub).getAvailabilitySummary(argThat(
+        (GetAvailabilitySummaryRequest request) -> request.getIsbn().equals("123")));
+  }
+
+  @Test
+  void getAvailabilitySummary_unknownIsbn_returnsEmptySummary() {
+    when(bookStub.getAvailabilitySummary(any(GetAvailabilitySummaryRequest.class)))
+        .thenReturn(GetAvailabilitySummaryResponse.newBuilder()
+            .setSuccess(false).build());
+
+    assertFalse(service.getAvailabilitySummary("999").exists());
+  }
+
+  @Test
+  void getAvailabilitySummary_unimplemented_throwsUnsupportedOperation() {
+    when(bookStub.getAvailabilitySummary(any(GetAvailabilitySummaryRequest.class)))
+        .thenThrow(new StatusRuntimeException(Status.UNIMPLEMENTED));
+
+    assertThrows(UnsupportedOperationException.class,
+        () -> service.getAvailabilitySummary("123"));
+  }
+
+  @Test
+  void getAvailabilitySummary_grpcError_throwsGrpcCommunicationException() {
+    when(bookStub.getAvailabilitySummary(any(GetAvailabilitySummaryRequest.class)))
+        .thenThrow(new StatusRuntimeException(Status.UNAVAILABLE));
+
+    assertThrows(GrpcCommunicationException.class,
+        () -> service.getAvailabilitySummary("123"));
+  }
+
   // ---------------------------------------------------
   // getBookById()
   // ---------------------------------------------------
@@ -145,4 +198,91 @@ class BookGrpcServiceImplTest {
 
     verify(bookStub).updateBookState(any(UpdateBookStateRequest.class));
   }
+
+  @Test
+  void updateBookStatus_expectedState_sentAndConflictReturnsFalse() {
+    when(bookStub.updateBookState(any(UpdateBookStateRequest.class)))
+        .thenReturn(UpdateBookStateResponse.newBuilder().setSuccess(true).build())
+        .thenReturn(UpdateBookStateResponse.newBuilder().setConflict(true).build());
+
+    assertTrue(service.updateBookStatus(1, "Available", "Borrowed"));
+    assertFalse(service.updateBookStatus(1, "Available", "Borrowed"));
+
+    verify(bookStub, times(2)).updateBookState(
+        UpdateBookStateRequest.newBuilder().setId(1)
+            .setExpectedState("Available").setState("Borrowed").build());
+  }
+
+  @Test
+  void updateBookStatus_expectedState_failureThrows() {
+    when(bookStub.updateBookState(any(UpdateBookStateRequest.class)))
+        .thenReturn(UpdateBookStateResponse.newBuilder()
+            .setMessage("Book not found").build());
+
+    assertThrows(GrpcCommunicationException.class,
+        () -> service.updateBookStatus(1, "Available", "Borrowed"));
+  }
+
+  // ---------------------------------------------------
+  // streamAllBooks()
+  // ---------------------------------------------------
+
+  @Test
+  void streamAllBooks_passesEachMappedBookToConsumer() {
+    DTOBook first = DTOBook.newBuilder().setId(1).setIsbn("111").build();
+    DTOBook second = DTOBook.newBuilder().setId(2).setIsbn("222").build();
+    Book book1 = new Book();
+    Book book2 = new Book();
+
+    when(bookStub.streamAllBooks(any(GetAllBooksRequest.class)))
+        .thenReturn(List.of(first, second).iterator());
+    when(bookMapper.toDomain(first)).thenReturn(book1);
+    when(bookMapper.toDomain(second)).thenReturn(book2);
+
+    List<Book> received = new ArrayList<>();
+    service.streamAllBooks(received::add);
+
+    assertEquals(List.of(book1, book2), received);
+  }
+
+  @Test
+  void streamAllBooks_grpcFailure_throwsGrpcCommunicationException() {
+    when(bookStub.streamAllBooks(any(GetAllBooksRequest.class)))
+        .thenThrow(StatusRuntimeException.class);
+
+    assertThrows(GrpcCommunicationException.class,
+        () -> service.streamAllBooks(book -> { }));
+  }
+
+  // ---------------------------------------------------
+  // getBooks()
+  // ---------------------------------------------------
+
+  @Test
+  void getBooks_sendsFiltersAndReturnsNextCursor() {
+    DTOBook dtoBook = DTOBook.newBuilder().setId(1).setIsbn("111").build();
+    Book domainBook = new Book();
+    when(bookStub.getAllBooks(any(GetAllBooksRequest.class))).thenReturn(
+        GetAllBooksResponse.newBuilder().addBooks(dtoBook).setNextCursor("111")
+            .build());
+    when(bookMapper.toDomain(dtoBook)).thenReturn(domainBook);
+
+    BookPage page = service.getBooks(
+        new BookQuery(1, "100", null, "Drama", State.AVAILABLE));
+
+    assertEquals(List.of(domainBook), page.getBooks());
+    assertEquals("111", page.getNextCursor());
+    verify(bookStub).getAllBooks(GetAllBooksRequest.newBuilder().setLimit(1)
+        .setCursor("100").setGenre("Drama").setState("AVAILABLE").build());
+  }
+
+  @Test
+  void getBooks_lastPage_returnsNullCursor() {
+    when(bookStub.getAllBooks(any(GetAllBooksRequest.class)))
+        .thenReturn(GetAllBooksResponse.newBuilder().build());
+
+    BookPage page = service.getBooks(new BookQuery(5, null, null, null, null));
+
+    assertNull(page.getNextCursor());
+  }
 }
@@ -0,0 +1,395 @@
+package dk.via.sep3.grpcConnection.bookGrpcService;
+
+import dk.via.sep3.application.domain.AvailabilitySummary;
+import dk.via.sep3.application.domain.Book;
+import dk.via.sep3.application.domain.BookPage;
+import dk.via.sep3.application.domain.BookQuery;
+import dk.via.sep3.application.domain.State;
+import dk.via.sep3.exceptionHandler.GrpcCommunicationException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CachingBookGrpcServiceTest {
+
+  private BookGrpcService delegate;
+  private AtomicLong nanos;
+  private CachingBookGrpcService cache;
+
+  private Book copy1;
+  private Book copy2;
+  private Book other;
+
+  @BeforeEach
+  void setUp() {
+    delegate = mock(BookGrpcService.class);
+    nanos = new AtomicLong();
+    cache = new CachingBookGrpcService(delegate, 100, Duration.ofSeconds(30),
+        Duration.ofMinutes(10), nanos::get);
+
+    copy1 = new Book(1, "111", "Title1", "Author1", State.AVAILABLE, List.of());
+    copy2 = new Book(2, "111", "Title1", "Author1", State.BORROWED, List.of());
+    other = new Book(3, "222", "Title2", "Author2", State.AVAILABLE, List.of());
+  }
+
+  // ---------------------------------------------------
+  // reads
+  // ---------------------------------------------------
+
+  @Test
+  void getAllBooks_secondCall_servedFromCache() {
+    when(delegate.getAllBooks()).thenReturn(List.of(copy1, copy2, other));
+
+    cache.getAllBooks();
+    List<Book> result = cache.getAllBooks();
+
+    assertEquals(3, result.size());
+    verify(delegate, times(1)).getAllBooks();
+  }
+
+  @Test
+  void getAllBooks_seedsIdAndIsbnCaches() {
+    when(delegate.getAllBooks()).thenReturn(List.of(copy1, copy2, other));
+
+    cache.getAllBooks();
+
+    assertSame(copy2, cache.getBookById(2));
+    assertEquals(2, cache.getBooksByIsbn("111").size());
+    verify(delegate, never()).getBookById(anyInt());
+    verify(delegate, never()).getBooksByIsbn(anyString());
+  }
+
+  @Test
+  void getBooksByIsbn_secondCall_servedFromCache() {
+    when(delegate.getBooksByIsbn("111")).thenReturn(List.of(copy1, copy2));
+
+    cache.getBooksByIsbn("111");
+    cache.getBooksByIsbn("111");
+
+    verify(delegate, times(1)).getBooksByIsbn("111");
+  }
+
+  @Test
+  void getBookById_nullResult_isNotCached() {
+    when(delegate.getBookById(9)).thenReturn(null);
+
+    assertNull(cache.getBookById(9));
+    assertNull(cache.getBookById(9));
+
+    verify(delegate, times(2)).getBookById(9);
+  }
+
+  @Test
+  void entries_expireAfterTtl() {
+    when(delegate.getBooksByIsbn("111")).thenReturn(List.of(copy1, copy2));
+
+    cache.getBooksByIsbn("111");
+    nanos.addAndGet(TimeUnit.SECONDS.toNanos(31));
+    cache.getBooksByIsbn("111");
+
+    verify(delegate, times(2)).getBooksByIsbn("111");
+  }
+
+  // ---------------------------------------------------
+  // stale fallback
+  // ---------------------------------------------------
+
+  @Test
+  void getAllBooks_persistenceFailing_servesLastKnownCatalog() {
+    when(delegate.getAllBooks()).thenReturn(List.of(copy1, copy2, other))
+        .thenThrow(new GrpcCommunicationException("Circuit breaker open"));
+    cache.getAllBooks();
+    nanos.addAndGet(TimeUnit.SECONDS.toNanos(31));
+
+    List<Book> result = cache.getAllBooks();
+
+    assertEquals(3, result.size());
+    verify(delegate, times(2)).getAllBooks();
+  }
+
+  @Test
+  void getBookById_persistenceFailing_servesLastKnownCopy() {
+    when(delegate.getBooksByIsbn("111")).thenReturn(List.of(copy1, copy2));
+    cache.getBooksByIsbn("111");
+    nanos.addAndGet(TimeUnit.SECONDS.toNanos(31));
+    when(delegate.getBookById(2)).thenReturn(null);
+
+    assertSame(copy2, cache.getBookById(2));
+  }
+
+  @Test
+  void getBooksByIsbn_staleCopyExpired_throws() {
+    when(delegate.getBooksByIsbn("111")).thenReturn(List.of(copy1))
+        .thenThrow(new GrpcCommunicationException("down"));
+    cache.getBooksByIsbn("111");
+    nanos.addAndGet(TimeUnit.MINUTES.toNanos(11));
+
+    assertThrows(GrpcCommunicationException.class,
+        () -> cache.getBooksByIsbn("111"));
+  }
+
+  // ---------------------------------------------------
+  // updateBookStatus()
+  // ---------------------------------------------------
+
+  @Test
+  void updateBookStatus_evictsCopyItsIsbnAndCatalog() {
+    when(delegate.getBooksByIsbn("111")).thenReturn(List.of(copy1, copy2));
+    when(delegate.getBooksByIsbn("222")).thenReturn(List.of(other));
+    cache.getBooksByIsbn("111");
+    cache.getBooksByIsbn("222");
+
+    cache.updateBookStatus(1, "Borrowed");
+
+    verify(delegate).updateBookStatus(1, "Borrowed");
+    cache.getBooksByIsbn("111");
+    cache.getBooksByIsbn("222");
+    verify(delegate, times(2)).getBooksByIsbn("111");
+    verify(delegate, times(1)).getBooksByIsbn("222");
+  }
+
+  @Test
+  void updateBookStatus_delegateFails_stillEvicts() {
+    when(delegate.getBooksByIsbn("111")).thenReturn(List.of(copy1, copy2));
+    cache.getBooksByIsbn("111");
+    doThrow(new RuntimeException("boom")).when(delegate)
+        .updateBookStatus(1, "Borrowed");
+
+    assertThrows(RuntimeException.class,
+        () -> cache.updateBookStatus(1, "Borrowed"));
+
+    cache.getBooksByIsbn("111");
+    verify(delegate, times(2)).getBooksByIsbn("111");
+  }
+
+  @Test
+  void updateBookStatus_conditionalConflict_returnsFalseAndEvicts() {
+    when(delegate.getBooksByIsbn("111")).thenReturn(List.of(copy1, copy2));
+    cache.getBooksByIsbn("111");
+    when(delegate.updateBookStatus(1, "Available", "Borrowed")).thenReturn(false);
+
+    assertFalse(cache.updateBookStatus(1, "Available", "Borrowed"));
+
+    cache.getBooksByIsbn("111");
+    verify(delegate, times(2)).getBooksByIsbn("111");
+  }
+
+  @Test
+  void bookStateChanged_evictsWithoutCallingDelegate() {
+    when(delegate.getBooksByIsbn("111")).thenReturn(List.of(copy1, copy2));
+    cache.getBooksByIsbn("111");
+
+    cache.bookStateChanged(1);
+
+    cache.getBooksByIsbn("111");
+    verify(delegate, times(2)).getBooksByIsbn("111");
+    verify(delegate, never()).updateBookStatus(anyInt(), any());
+  }
+
+  // ---------------------------------------------------
+  // getAvailabilitySummary()
+  // ---------------------------------------------------
+
+  @Test
+  void getAvailabilitySummary_secondCall_servedFromCache() {
+    when(delegate.getAvailabilitySummary("111"))
+        .thenReturn(AvailabilitySummary.of(2, 1, 1, 0, 1));
+
+    cache.getAvailabilitySummary("111");
+    AvailabilitySummary result = cache.getAvailabilitySummary("111");
+
+    assertEquals(1, result.getAvailable());
+    verify(delegate, times(1)).getAvailabilitySummary("111");
+    verify(delegate, never()).getBooksByIsbn(anyString());
+  }
+
+  @Test
+  void getAvailabilitySummary_seededByListingCopies() {
+    when(delegate.getBooksByIsbn("111")).thenReturn(List.of(copy1, copy2));
+
+    cache.getBooksByIsbn("111");
+    AvailabilitySummary result = cache.getAvailabilitySummary("111");
+
+    assertEquals(2, result.getTotal());
+    assertEquals(1, result.getAvailableBookId());
+    verify(delegate, never()).getAvailabilitySummary(anyString());
+  }
+
+  @Test
+  void getAvailabilitySummary_unimplemented_countsCopiesAndStopsAsking() {
+    when(delegate.getAvailabilitySummary(anyString()))
+        .thenThrow(new UnsupportedOperationException("GetAvailabilitySummary"));
+    when(delegate.getBooksByIsbn("111")).thenReturn(List.of(copy1, copy2));
+    when(delegate.getBooksByIsbn("222")).thenReturn(List.of(other));
+
+    AvailabilitySummary first = cache.getAvailabilitySummary("111");
+    AvailabilitySummary second = cache.getAvailabilitySummary("222");
+
+    assertEquals(1, first.getBorrowed());
+    assertEquals(3, second.getAvailableBookId());
+    verify(delegate, times(1)).getAvailabilitySummary(anyString());
+  }
+
+  @Test
+  void getCurrentAvailabilitySummary_warmCache_stillAsksPersistence() {
+    when(delegate.getAvailabilitySummary("111"))
+        .thenReturn(AvailabilitySummary.of(2, 1, 1, 0, 1))
+        .thenReturn(AvailabilitySummary.of(2, 0, 2, 0, 0));
+    cache.getAvailabilitySummary("111");
+
+    AvailabilitySummary current = cache.getCurrentAvailabilitySummary("111");
+
+    assertFalse(current.isAvailable());
+    verify(delegate, times(2)).getAvailabilitySummary("111");
+  }
+
+  @Test
+  void getCurrentAvailabilitySummary_persistenceFailing_doesNotServeStale() {
+    when(delegate.getAvailabilitySummary("111"))
+        .thenReturn(AvailabilitySummary.of(2, 1, 1, 0, 1))
+        .thenThrow(new GrpcCommunicationException("Circuit breaker open"));
+    cache.getAvailabilitySummary("111");
+
+    assertThrows(GrpcCommunicationException.class,
+        () -> cache.getCurrentAvailabilitySummary("111"));
+  }
+
+  @Test
+  void getCurrentBooksByIsbn_persistenceFailing_doesNotServeStale() {
+    when(delegate.getBooksByIsbn("111"))
+        .thenReturn(List.of(copy1, copy2))
+        .thenThrow(new GrpcCommunicationException("Circuit breaker open"));
+    cache.getBooksByIsbn("111");
+
+    assertThrows(GrpcCommunicationException.class,
+        () -> cache.getCurrentBooksByIsbn("111"));
+  }
+
+  @Test
+  void getAllBooks_evictionWhileLoading_doesNotIndexIsbns() {
+    when(delegate.getAllBooks()).thenAnswer(invocation -> {
+      cache.bookStateChanged(1);
+      return List.of(copy1, copy2, other);
+    });
+    when(delegate.getBooksByIsbn("111")).thenReturn(List.of(copy1, copy2));
+
+    assertEquals(3, cache.getAllBooks().size());
+    cache.getBooksByIsbn("111");
+
+    verify(delegate, times(1)).getBooksByIsbn("111");
+  }
+
+  @Test
+  void conditionalUpdate_claimAndHandBack_movesCopyBetweenCounts() {
+    when(delegate.getAvailabilitySummary("111"))
+        .thenReturn(AvailabilitySummary.of(2, 1, 1, 0, 1));
+    when(delegate.updateBookStatus(1, "Available", "Borrowed")).thenReturn(true);
+    when(delegate.updateBookStatus(1, "Borrowed", "Available")).thenReturn(true);
+    cache.getAvailabilitySummary("111");
+
+    cache.updateBookStatus(1, "Available", "Borrowed");
+    AvailabilitySummary claimed = cache.getAvailabilitySummary("111");
+    cache.updateBookStatus(1, "Borrowed", "Available");
+    AvailabilitySummary released = cache.getAvailabilitySummary("111");
+
+    assertEquals(0, claimed.getAvailable());
+    assertEquals(2, claimed.getBorrowed());
+    assertEquals(0, claimed.getAvailableBookId());
+    assertEquals(1, released.getAvailable());
+    assertEquals(1, released.getBorrowed());
+    assertEquals(1, released.getAvailableBookId());
+    verify(delegate, times(1)).getAvailabilitySummary("111");
+  }
+
+  @Test
+  void conditionalUpdate_lastKnownAvailableCopyTaken_reloads() {
+    when(delegate.getAvailabilitySummary("111"))
+        .thenReturn(AvailabilitySummary.of(3, 2, 1, 0, 1));
+    when(delegate.updateBookStatus(1, "Available", "Borrowed")).thenReturn(true);
+    cache.getAvailabilitySummary("111");
+
+    cache.updateBookStatus(1, "Available", "Borrowed");
+    cache.getAvailabilitySummary("111");
+
+    verify(delegate, times(2)).getAvailabilitySummary("111");
+  }
+
+  @Test
+  void conditionalUpdate_conflict_dropsSummary() {
+    when(delegate.getAvailabilitySummary("111"))
+        .thenReturn(AvailabilitySummary.of(2, 1, 1, 0, 1));
+    when(delegate.updateBookStatus(1, "Available", "Borrowed")).thenReturn(false);
+    cache.getAvailabilitySummary("111");
+
+    cache.updateBookStatus(1, "Available", "Borrowed");
+    cache.getAvailabilitySummary("111");
+
+    verify(delegate, times(2)).getAvailabilitySummary("111");
+  }
+
+  @Test
+  void unconditionalUpdateAndStateChange_dropSummary() {
+    when(delegate.getAvailabilitySummary("111"))
+        .thenReturn(AvailabilitySummary.of(2, 1, 1, 0, 1));
+    cache.getAvailabilitySummary("111");
+
+    cache.updateBookStatus(1, "Reserved");
+    cache.getAvailabilitySummary("111");
+    cache.bookStateChanged(1);
+    cache.getAvailabilitySummary("111");
+
+    verify(delegate, times(3)).getAvailabilitySummary("111");
+  }
+
+  // ---------------------------------------------------
+  // streamAllBooks()
+  // ---------------------------------------------------
+
+  @Test
+  void streamAllBooks_coldCache_streamsFromDelegate() {
+    Consumer<Book> consumer = book -> { };
+
+    cache.streamAllBooks(consumer);
+
+    verify(delegate).streamAllBooks(consumer);
+  }
+
+  @Test
+  void streamAllBooks_warmCatalog_replaysInIsbnOrder() {
+    when(delegate.getAllBooks()).thenReturn(List.of(copy1, other, copy2));
+    cache.getAllBooks();
+
+    List<Book> received = new ArrayList<>();
+    cache.streamAllBooks(received::add);
+
+    assertEquals(List.of(copy1, copy2, other), received);
+    verify(delegate, never()).streamAllBooks(any());
+  }
+
+  // ---------------------------------------------------
+  // getBooks()
+  // ---------------------------------------------------
+
+  @Test
+  void getBooks_sameQuery_servedFromCacheUntilUpdate() {
+    BookQuery query = new BookQuery(1, null, null, null, State.AVAILABLE);
+    when(delegate.getBooks(query)).thenReturn(new BookPage(List.of(copy1), "111"));
+
+    cache.getBooks(query);
+    cache.getBooks(new BookQuery(1, null, null, null, State.AVAILABLE));
+    verify(delegate, times(1)).getBooks(query);
+
+    cache.updateBookStatus(1, "Borrowed");
+    cache.getBooks(query);
+    verify(delegate, times(2)).getBooks(query);
+  }
+}
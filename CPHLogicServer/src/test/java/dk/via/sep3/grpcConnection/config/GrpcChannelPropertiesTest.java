@@ -0,0 +1,59 @@
+package dk.via.sep3.grpcConnection.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GrpcChannelPropertiesTest {
+
+  private GrpcChannelProperties bind(Map<String, String> properties) {
+    return new Binder(new MapConfigurationPropertySource(properties))
+        .bindOrCreate("grpc", GrpcChannelProperties.class);
+  }
+
+  @Test
+  void noProperties_keepsGrpcDefaults() {
+    GrpcChannelProperties properties = bind(Map.of());
+
+    assertEquals("localhost", properties.getServer().getHost());
+    assertEquals(5020, properties.getServer().getPort());
+    assertFalse(properties.getTls().isEnabled());
+    assertNull(properties.getChannel().getKeepAliveTime());
+    assertNull(properties.getChannel().getMaxInboundMessageSize());
+    assertTrue(properties.getChannel().isAcceptCompressedResponses());
+  }
+
+  @Test
+  void channelProperties_bindDurationsAndSizes() {
+    GrpcChannelProperties properties = bind(Map.of(
+        "grpc.channel.keep-alive-time", "30s",
+        "grpc.channel.idle-timeout", "5m",
+        "grpc.channel.max-inbound-message-size", "16MB",
+        "grpc.channel.initial-flow-control-window", "2MB",
+        "grpc.channel.accept-compressed-responses", "false"));
+
+    assertEquals(Duration.ofSeconds(30), properties.getChannel().getKeepAliveTime());
+    assertEquals(Duration.ofMinutes(5), properties.getChannel().getIdleTimeout());
+    assertEquals(DataSize.ofMegabytes(16), properties.getChannel().getMaxInboundMessageSize());
+    assertEquals(DataSize.ofMegabytes(2), properties.getChannel().getInitialFlowControlWindow());
+    assertFalse(properties.getChannel().isAcceptCompressedResponses());
+  }
+
+  @Test
+  void tlsProperties_acceptExistingCamelCaseKeys() {
+    GrpcChannelProperties properties = bind(Map.of(
+        "grpc.tls.enabled", "true",
+        "grpc.tls.trustCert", "/certs/ca.pem",
+        "grpc.tls.client-cert", "/certs/client.pem"));
+
+    assertTrue(properties.getTls().isEnabled());
+    assertEquals("/certs/ca.pem", properties.getTls().getTrustCert());
+    assertEquals("/certs/client.pem", properties.getTls().getClientCert());
+  }
+}
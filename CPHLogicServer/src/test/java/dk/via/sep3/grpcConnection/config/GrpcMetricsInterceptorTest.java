@@ -0,0 +1,86 @@
+package dk.via.sep3.grpcConnection.config;
+
+import dk.via.sep3.BookServiceGrpc;
+import dk.via.sep3.DTOBook;
+import dk.via.sep3.GetBookByIdRequest;
+import dk.via.sep3.GetBookByIdResponse;
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.Metadata;
+import io.grpc.Status;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class GrpcMetricsInterceptorTest {
+
+  private SimpleMeterRegistry meterRegistry;
+  private ClientCall<GetBookByIdRequest, GetBookByIdResponse> delegate;
+  private ClientCall<GetBookByIdRequest, GetBookByIdResponse> call;
+
+  @BeforeEach
+  @SuppressWarnings("unchecked")
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    delegate = mock(ClientCall.class);
+    Channel channel = mock(Channel.class);
+    when(channel.newCall(eq(BookServiceGrpc.getGetBookByIdMethod()), any()))
+        .thenReturn((ClientCall) delegate);
+
+    call = new GrpcMetricsInterceptor(meterRegistry).interceptCall(
+        BookServiceGrpc.getGetBookByIdMethod(), CallOptions.DEFAULT, channel);
+  }
+
+  @SuppressWarnings("unchecked")
+  private ClientCall.Listener<GetBookByIdResponse> start() {
+    call.start(mock(ClientCall.Listener.class), new Metadata());
+    ArgumentCaptor<ClientCall.Listener<GetBookByIdResponse>> listener =
+        ArgumentCaptor.forClass(ClientCall.Listener.class);
+    verify(delegate).start(listener.capture(), any());
+    return listener.getValue();
+  }
+
+  private double inFlight() {
+    return meterRegistry.get("grpc.client.calls.in.flight")
+        .tags("service", "dk.via.sep3.BookService", "method", "GetBookById")
+        .gauge().value();
+  }
+
+  @Test
+  void completedCall_recordsLatencyPerStatusAndMessageSizes() {
+    GetBookByIdRequest request = GetBookByIdRequest.newBuilder().setId(7).build();
+    GetBookByIdResponse response = GetBookByIdResponse.newBuilder()
+        .setBook(DTOBook.newBuilder().setId(7).setTitle("Title")).build();
+
+    ClientCall.Listener<GetBookByIdResponse> listener = start();
+    call.sendMessage(request);
+    listener.onMessage(response);
+    listener.onClose(Status.OK, new Metadata());
+
+    assertEquals(1, meterRegistry.get("grpc.client.calls")
+        .tags("method", "GetBookById", "status", "OK").timer().count());
+    assertEquals(request.getSerializedSize(), meterRegistry
+        .get("grpc.client.request.size").summary().totalAmount());
+    assertEquals(response.getSerializedSize(), meterRegistry
+        .get("grpc.client.response.size").summary().totalAmount());
+    verify(delegate).sendMessage(request);
+  }
+
+  @Test
+  void inFlight_countsCallsUntilClosed() {
+    ClientCall.Listener<GetBookByIdResponse> listener = start();
+    assertEquals(1, inFlight());
+
+    listener.onClose(Status.UNAVAILABLE, new Metadata());
+
+    assertEquals(0, inFlight());
+    assertEquals(1, meterRegistry.get("grpc.client.calls")
+        .tags("status", "UNAVAILABLE").timer().count());
+  }
+}
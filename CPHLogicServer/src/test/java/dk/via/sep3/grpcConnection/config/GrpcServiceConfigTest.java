@@ -0,0 +1,256 @@
+package dk.via.sep3.grpcConnection.config;
+
+import dk.via.sep3.BookServiceGrpc;
+import dk.via.sep3.GetAllBooksRequest;
+import dk.via.sep3.GetAllBooksResponse;
+import dk.via.sep3.GetBookByIdRequest;
+import dk.via.sep3.GetBookByIdResponse;
+import dk.via.sep3.UpdateBookStateRequest;
+import dk.via.sep3.UpdateBookStateResponse;
+import io.grpc.LoadBalancerProvider;
+import io.grpc.LoadBalancerRegistry;
+import io.grpc.ManagedChannel;
+import io.grpc.NameResolver;
+import io.grpc.Server;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.netty.shaded.io.grpc.netty.NettyChannelBuilder;
+import io.grpc.netty.shaded.io.grpc.netty.NettyServerBuilder;
+import io.grpc.stub.StreamObserver;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GrpcServiceConfigTest {
+
+  private GrpcChannelProperties properties;
+  private Server server;
+  private ManagedChannel channel;
+
+  @BeforeEach
+  void setUp() {
+    properties = new GrpcChannelProperties();
+  }
+
+  @AfterEach
+  void tearDown() throws InterruptedException {
+    if (channel != null) {
+      channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+    }
+    if (server != null) {
+      server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private List<Map<String, ?>> methodConfig(Map<String, Object> serviceConfig) {
+    return (List<Map<String, ?>>) serviceConfig.get("methodConfig");
+  }
+
+  private BookServiceGrpc.BookServiceBlockingStub stubFor(BookServiceGrpc.BookServiceImplBase service)
+      throws Exception {
+    server = NettyServerBuilder.forPort(0).addService(service).build().start();
+    properties.getLoadBalancing().setHealthCheck(false);
+    channel = NettyChannelBuilder.forTarget("127.0.0.1:" + server.getPort())
+        .defaultServiceConfig(GrpcServiceConfig.build(properties))
+        .enableRetry()
+        .usePlaintext()
+        .build();
+    return BookServiceGrpc.newBlockingStub(channel).withDeadlineAfter(5, TimeUnit.SECONDS);
+  }
+
+  @SuppressWarnings("unchecked")
+  private Map<String, ?> policy(Map<String, Object> serviceConfig) {
+    return ((List<Map<String, ?>>) serviceConfig.get("loadBalancingConfig")).get(0);
+  }
+
+  // ---------------------------------------------------
+  // build()
+  // ---------------------------------------------------
+
+  @Test
+  void defaults_wrapRoundRobinInOutlierDetectionWithHealthChecks() {
+    Map<String, Object> serviceConfig = GrpcServiceConfig.build(properties);
+
+    Map<String, ?> policy = policy(serviceConfig);
+    assertTrue(policy.containsKey(GrpcServiceConfig.OUTLIER_DETECTION_POLICY));
+    assertEquals(Map.of("serviceName", ""), serviceConfig.get("healthCheckConfig"));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void outlierDetectionConfig_isAcceptedByGrpc() {
+    properties.getLoadBalancing().getOutlierDetection()
+        .setBaseEjectionTime(Duration.ofMillis(1500));
+    Map<String, ?> policy = policy(GrpcServiceConfig.build(properties));
+
+    LoadBalancerProvider provider = LoadBalancerRegistry.getDefaultRegistry()
+        .getProvider(GrpcServiceConfig.OUTLIER_DETECTION_POLICY);
+    NameResolver.ConfigOrError parsed = provider.parseLoadBalancingPolicyConfig(
+        (Map<String, ?>) policy.get(GrpcServiceConfig.OUTLIER_DETECTION_POLICY));
+
+    assertNull(parsed.getError());
+  }
+
+  @Test
+  void outlierDetectionDisabled_usesPolicyDirectly() {
+    properties.getLoadBalancing().getOutlierDetection().setEnabled(false);
+    properties.getLoadBalancing().setPolicy("pick_first");
+    properties.getLoadBalancing().setHealthCheck(false);
+
+    Map<String, Object> serviceConfig = GrpcServiceConfig.build(properties);
+
+    assertEquals(Map.of("pick_first", Map.of()), policy(serviceConfig));
+    assertFalse(serviceConfig.containsKey("healthCheckConfig"));
+  }
+
+  @Test
+  void unknownPolicy_failsAtStartup() {
+    properties.getLoadBalancing().setPolicy("least_request_experimental");
+
+    assertThrows(IllegalStateException.class,
+        () -> GrpcServiceConfig.build(properties));
+  }
+
+  @Test
+  void duration_usesProtobufJsonFormat() {
+    assertEquals("10s", GrpcServiceConfig.duration(Duration.ofSeconds(10)));
+    assertEquals("1.5s", GrpcServiceConfig.duration(Duration.ofMillis(1500)));
+  }
+
+  // ---------------------------------------------------
+  // Retry and hedging
+  // ---------------------------------------------------
+
+  @Test
+  void defaults_hedgeSingleReadsAndRetryListReads() {
+    List<Map<String, ?>> methodConfig = methodConfig(GrpcServiceConfig.build(properties));
+
+    assertEquals(2, methodConfig.size());
+    assertTrue(methodConfig.get(0).containsKey("hedgingPolicy"));
+    assertTrue(((List<?>) methodConfig.get(0).get("name")).contains(
+        Map.of("service", "dk.via.sep3.BookService", "method", "GetBookById")));
+    assertTrue(methodConfig.get(1).containsKey("retryPolicy"));
+    assertTrue(((List<?>) methodConfig.get(1).get("name")).contains(
+        Map.of("service", "dk.via.sep3.BookService", "method", "GetAllBooks")));
+  }
+
+  @Test
+  void disabled_leavesNoMethodConfig() {
+    properties.getRetry().setEnabled(false);
+    properties.getHedging().setEnabled(false);
+
+    Map<String, Object> serviceConfig = GrpcServiceConfig.build(properties);
+
+    assertFalse(serviceConfig.containsKey("methodConfig"));
+    assertFalse(serviceConfig.containsKey("retryThrottling"));
+  }
+
+  @Test
+  void writes_areNeverHedgedOrRetried() {
+    properties.getHedging().setMethods(List.of("LoanService/CreateLoan"));
+    assertThrows(IllegalStateException.class, () -> GrpcServiceConfig.build(properties));
+
+    properties.getHedging().setMethods(List.of());
+    properties.getRetry().setMethods(List.of("BookService/UpdateBookState"));
+    assertThrows(IllegalStateException.class, () -> GrpcServiceConfig.build(properties));
+  }
+
+  @Test
+  void methodInBothLists_failsAtStartup() {
+    properties.getRetry().setMethods(List.of("BookService/GetBookById"));
+
+    assertThrows(IllegalStateException.class, () -> GrpcServiceConfig.build(properties));
+  }
+
+  @Test
+  void unknownStatusCode_failsAtStartup() {
+    properties.getRetry().setRetryableStatusCodes(List.of("SOMETIMES"));
+
+    assertThrows(IllegalStateException.class, () -> GrpcServiceConfig.build(properties));
+  }
+
+  @Test
+  void retriedRead_succeedsAfterUnavailable() throws Exception {
+    AtomicInteger calls = new AtomicInteger();
+    BookServiceGrpc.BookServiceBlockingStub stub = stubFor(new BookServiceGrpc.BookServiceImplBase() {
+      @Override
+      public void getAllBooks(GetAllBooksRequest request, StreamObserver<GetAllBooksResponse> responseObserver) {
+        if (calls.incrementAndGet() == 1) {
+          responseObserver.onError(Status.UNAVAILABLE.asRuntimeException());
+          return;
+        }
+        responseObserver.onNext(GetAllBooksResponse.getDefaultInstance());
+        responseObserver.onCompleted();
+      }
+    });
+
+    assertNotNull(stub.getAllBooks(GetAllBooksRequest.getDefaultInstance()));
+    assertEquals(2, calls.get());
+  }
+
+  @Test
+  void hedgedRead_isAnsweredByTheSecondAttemptWhenTheFirstHangs() throws Exception {
+    properties.getHedging().setDelay(Duration.ofMillis(50));
+    AtomicInteger calls = new AtomicInteger();
+    BookServiceGrpc.BookServiceBlockingStub stub = stubFor(new BookServiceGrpc.BookServiceImplBase() {
+      @Override
+      public void getBookById(GetBookByIdRequest request, StreamObserver<GetBookByIdResponse> responseObserver) {
+        // The first attempt never answers
+        if (calls.incrementAndGet() > 1) {
+          responseObserver.onNext(GetBookByIdResponse.getDefaultInstance());
+          responseObserver.onCompleted();
+        }
+      }
+    });
+
+    long start = System.nanoTime();
+    assertNotNull(stub.getBookById(GetBookByIdRequest.getDefaultInstance()));
+
+    assertEquals(2, calls.get());
+    assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(2));
+  }
+
+  @Test
+  void write_isSentOnceEvenWhenUnavailable() throws Exception {
+    AtomicInteger calls = new AtomicInteger();
+    BookServiceGrpc.BookServiceBlockingStub stub = stubFor(new BookServiceGrpc.BookServiceImplBase() {
+      @Override
+      public void updateBookState(UpdateBookStateRequest request,
+          StreamObserver<UpdateBookStateResponse> responseObserver) {
+        calls.incrementAndGet();
+        responseObserver.onError(Status.UNAVAILABLE.asRuntimeException());
+      }
+    });
+
+    StatusRuntimeException ex = assertThrows(StatusRuntimeException.class,
+        () -> stub.updateBookState(UpdateBookStateRequest.getDefaultInstance()));
+
+    assertEquals(Status.Code.UNAVAILABLE, ex.getStatus().getCode());
+    assertEquals(1, calls.get());
+  }
+
+  // ---------------------------------------------------
+  // GrpcConfig.target()
+  // ---------------------------------------------------
+
+  @Test
+  void target_prefersExplicitTargetThenAddressesThenHost() {
+    GrpcChannelProperties.Server server = properties.getServer();
+    assertEquals("localhost:5020", GrpcConfig.target(server));
+
+    server.setAddresses(List.of("db1", "db2:5021"));
+    assertEquals("static:///db1:5020,db2:5021", GrpcConfig.target(server));
+
+    server.setTarget("dns:///persistence:5020");
+    assertEquals("dns:///persistence:5020", GrpcConfig.target(server));
+  }
+}
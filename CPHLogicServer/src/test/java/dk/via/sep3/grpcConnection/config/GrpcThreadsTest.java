@@ -0,0 +1,78 @@
+package dk.via.sep3.grpcConnection.config;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledOnJre;
+import org.junit.jupiter.api.condition.JRE;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GrpcThreadsTest {
+
+  @Test
+  void virtualThreadsNotEnabled_usesPlatformThreads() {
+    GrpcThreads threads = new GrpcThreads(new MockEnvironment());
+
+    assertFalse(threads.isVirtual());
+  }
+
+  @Test
+  @EnabledOnJre(JRE.JAVA_17)
+  void virtualThreadsEnabledOnJava17_fallsBackToPlatformThreads() {
+    MockEnvironment environment = new MockEnvironment()
+        .withProperty("spring.threads.virtual.enabled", "true");
+
+    assertFalse(new GrpcThreads(environment).isVirtual());
+  }
+
+  @Test
+  void platformExecutor_runsOnNamedDaemonThreads() {
+    Executor executor = new GrpcThreads(false).newExecutor("test-pool-", 2);
+    try {
+      Thread thread = CompletableFuture.supplyAsync(Thread::currentThread,
+          executor).join();
+
+      assertTrue(thread.getName().startsWith("test-pool-"));
+      assertTrue(thread.isDaemon());
+    } finally {
+      ((ExecutorService) executor).shutdown();
+    }
+  }
+
+  @Test
+  void platformExecutor_allThreadsBusy_runsTaskOnCallingThread()
+      throws InterruptedException {
+    Executor executor = new GrpcThreads(false).newExecutor("test-pool-", 1);
+    CountDownLatch release = new CountDownLatch(1);
+    CountDownLatch started = new CountDownLatch(1);
+    try {
+      executor.execute(() -> {
+        started.countDown();
+        awaitQuietly(release);
+      });
+      assertTrue(started.await(5, TimeUnit.SECONDS));
+
+      Thread thread = CompletableFuture.supplyAsync(Thread::currentThread,
+          executor).join();
+
+      assertSame(Thread.currentThread(), thread);
+    } finally {
+      release.countDown();
+      ((ExecutorService) executor).shutdown();
+    }
+  }
+
+  private static void awaitQuietly(CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,78 @@
+package dk.via.sep3.grpcConnection.deadline;
+
+import dk.via.sep3.BookServiceGrpc;
+import dk.via.sep3.grpcConnection.config.GrpcChannelProperties;
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.Deadline;
+import io.grpc.MethodDescriptor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class GrpcDeadlineInterceptorTest {
+
+  private GrpcChannelProperties properties;
+  private Channel channel;
+
+  @BeforeEach
+  void setUp() {
+    properties = new GrpcChannelProperties();
+    properties.getDeadlines().setDefaultTimeout(Duration.ofSeconds(5));
+    properties.getDeadlines().getMethods()
+        .put("GetAllBooks", Duration.ofSeconds(15));
+    channel = mock(Channel.class);
+  }
+
+  private CallOptions intercept(MethodDescriptor<?, ?> method,
+      CallOptions callOptions) {
+    new GrpcDeadlineInterceptor(properties).interceptCall(method, callOptions,
+        channel);
+    ArgumentCaptor<CallOptions> captor = ArgumentCaptor.forClass(
+        CallOptions.class);
+    verify(channel).newCall(any(), captor.capture());
+    return captor.getValue();
+  }
+
+  @Test
+  void unaryCall_getsDefaultTimeout() {
+    Deadline deadline = intercept(BookServiceGrpc.getGetBookByIdMethod(),
+        CallOptions.DEFAULT).getDeadline();
+
+    assertNotNull(deadline);
+    assertTrue(deadline.timeRemaining(TimeUnit.SECONDS) <= 5);
+  }
+
+  @Test
+  void configuredMethod_getsItsOwnTimeout() {
+    Deadline deadline = intercept(BookServiceGrpc.getGetAllBooksMethod(),
+        CallOptions.DEFAULT).getDeadline();
+
+    assertTrue(deadline.timeRemaining(TimeUnit.SECONDS) > 5);
+  }
+
+  @Test
+  void streamingCall_withoutConfiguredTimeout_getsNoDeadline() {
+    CallOptions options = intercept(BookServiceGrpc.getStreamAllBooksMethod(),
+        CallOptions.DEFAULT);
+
+    assertNull(options.getDeadline());
+  }
+
+  @Test
+  void earlierExistingDeadline_isKept() {
+    Deadline budget = Deadline.after(1, TimeUnit.SECONDS);
+
+    CallOptions options = intercept(BookServiceGrpc.getGetBookByIdMethod(),
+        CallOptions.DEFAULT.withDeadline(budget));
+
+    assertSame(budget, options.getDeadline());
+  }
+}
@@ -0,0 +1,103 @@
+package dk.via.sep3.grpcConnection.deadline;
+
+import dk.via.sep3.exceptionHandler.GrpcCommunicationException;
+import dk.via.sep3.exceptionHandler.RequestTimeoutException;
+import io.grpc.Context;
+import io.grpc.Deadline;
+import io.grpc.Status;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestBudgetTest {
+
+  private ScheduledExecutorService scheduler;
+  private Context.CancellableContext context;
+  private Context previous;
+
+  @BeforeEach
+  void setUp() {
+    scheduler = Executors.newSingleThreadScheduledExecutor();
+  }
+
+  @AfterEach
+  void tearDown() {
+    if (context != null) {
+      context.detach(previous);
+      context.cancel(null);
+    }
+    scheduler.shutdownNow();
+  }
+
+  private void attachBudget(long millis) {
+    context = Context.current().withDeadlineAfter(millis,
+        TimeUnit.MILLISECONDS, scheduler);
+    previous = context.attach();
+  }
+
+  // ---------------------------------------------------
+  // ensureRemaining()
+  // ---------------------------------------------------
+
+  @Test
+  void ensureRemaining_noBudget_passes() {
+    assertDoesNotThrow(() -> RequestBudget.ensureRemaining("next step"));
+  }
+
+  @Test
+  void ensureRemaining_budgetLeft_passes() {
+    attachBudget(10_000);
+
+    assertDoesNotThrow(() -> RequestBudget.ensureRemaining("next step"));
+  }
+
+  @Test
+  void ensureRemaining_budgetSpent_throws() {
+    attachBudget(0);
+
+    RequestTimeoutException ex = assertThrows(RequestTimeoutException.class,
+        () -> RequestBudget.ensureRemaining("creating the loan"));
+    assertTrue(ex.getMessage().endsWith("creating the loan"));
+  }
+
+  // ---------------------------------------------------
+  // finishOutsideBudget()
+  // ---------------------------------------------------
+
+  @Test
+  void finishOutsideBudget_runsWithoutTheBudgetDeadline() {
+    attachBudget(0);
+
+    Deadline inside = RequestBudget.finishOutsideBudget(
+        () -> Context.current().getDeadline());
+
+    assertNull(inside);
+    assertTrue(RequestBudget.isExhausted());
+  }
+
+  // ---------------------------------------------------
+  // isTimeout()
+  // ---------------------------------------------------
+
+  @Test
+  void isTimeout_deadlineExceededCause_true() {
+    GrpcCommunicationException ex = new GrpcCommunicationException("slow",
+        Status.DEADLINE_EXCEEDED.asRuntimeException());
+
+    assertTrue(RequestBudget.isTimeout(ex));
+  }
+
+  @Test
+  void isTimeout_otherStatus_false() {
+    GrpcCommunicationException ex = new GrpcCommunicationException("down",
+        Status.UNAVAILABLE.asRuntimeException());
+
+    assertFalse(RequestBudget.isTimeout(ex));
+  }
+}
@@ -0,0 +1,151 @@
+package dk.via.sep3.grpcConnection.fanOut;
+
+import dk.via.sep3.grpcConnection.config.GrpcThreads;
+import io.grpc.Context;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GrpcFanOutTest {
+
+  private GrpcFanOut fanOut;
+
+  @BeforeEach
+  void setUp() {
+    fanOut = new GrpcFanOut(new GrpcThreads(false), 4);
+  }
+
+  @AfterEach
+  void tearDown() {
+    fanOut.shutdown();
+  }
+
+  @Test
+  void join_allTasksSucceed_resultsAvailable() {
+    try (GrpcFanOut.Scope scope = fanOut.open()) {
+      CompletableFuture<String> a = scope.fork(() -> "a");
+      CompletableFuture<Integer> b = scope.fork(() -> 2);
+
+      scope.join();
+
+      assertEquals("a", a.join());
+      assertEquals(2, b.join());
+    }
+  }
+
+  @Test
+  void join_taskFails_rethrowsOriginalException() {
+    try (GrpcFanOut.Scope scope = fanOut.open()) {
+      scope.fork(() -> "ok");
+      scope.fork(() -> {
+        throw new IllegalStateException("duplicate");
+      });
+
+      IllegalStateException ex =
+          assertThrows(IllegalStateException.class, scope::join);
+      assertEquals("duplicate", ex.getMessage());
+    }
+  }
+
+  @Test
+  void join_taskFails_returnsEarlyAndCancelsSlowCall() throws Exception {
+    AtomicBoolean cancelled = new AtomicBoolean();
+    CountDownLatch slowDone = new CountDownLatch(1);
+
+    try (GrpcFanOut.Scope scope = fanOut.open()) {
+      scope.fork(() -> {
+        throw new IllegalArgumentException("no copies");
+      });
+      scope.fork(() -> {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!Context.current().isCancelled() && System.nanoTime() < deadline) {
+          Thread.onSpinWait();
+        }
+        cancelled.set(Context.current().isCancelled());
+        slowDone.countDown();
+      });
+
+      long start = System.nanoTime();
+      assertThrows(IllegalArgumentException.class, scope::join);
+      assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(2));
+    }
+
+    assertTrue(slowDone.await(2, TimeUnit.SECONDS));
+    assertTrue(cancelled.get());
+  }
+
+  @Test
+  void join_laterTaskFailsFirst_rethrowsEarlierTasksFailure() {
+    CountDownLatch laterFailed = new CountDownLatch(1);
+
+    try (GrpcFanOut.Scope scope = fanOut.open()) {
+      scope.fork(() -> {
+        awaitQuietly(laterFailed);
+        throw new IllegalStateException("earlier");
+      });
+      scope.fork(() -> {
+        throw new IllegalArgumentException("later");
+      }).whenComplete((result, ex) -> laterFailed.countDown());
+
+      IllegalStateException ex =
+          assertThrows(IllegalStateException.class, scope::join);
+      assertEquals("earlier", ex.getMessage());
+    }
+  }
+
+  @Test
+  void join_laterTaskFailsWhileEarlierSucceeds_waitsThenRethrowsLaterFailure() {
+    CountDownLatch laterFailed = new CountDownLatch(1);
+    AtomicBoolean earlierCancelled = new AtomicBoolean();
+
+    try (GrpcFanOut.Scope scope = fanOut.open()) {
+      CompletableFuture<String> earlier = scope.fork(() -> {
+        awaitQuietly(laterFailed);
+        earlierCancelled.set(Context.current().isCancelled());
+        return "ok";
+      });
+      scope.fork(() -> {
+        throw new IllegalArgumentException("later");
+      }).whenComplete((result, ex) -> laterFailed.countDown());
+
+      IllegalArgumentException ex =
+          assertThrows(IllegalArgumentException.class, scope::join);
+      assertEquals("later", ex.getMessage());
+      assertTrue(earlier.isDone());
+      assertFalse(earlierCancelled.get());
+    }
+  }
+
+  @Test
+  void fork_afterFailureOnCallingThread_doesNotStartTask() {
+    GrpcFanOut direct = new GrpcFanOut(Runnable::run);
+    AtomicBoolean started = new AtomicBoolean();
+
+    try (GrpcFanOut.Scope scope = direct.open()) {
+      scope.fork(() -> {
+        throw new IllegalStateException("first");
+      });
+      scope.fork(() -> started.set(true));
+
+      IllegalStateException ex =
+          assertThrows(IllegalStateException.class, scope::join);
+      assertEquals("first", ex.getMessage());
+    }
+    assertFalse(started.get());
+  }
+
+  private static void awaitQuietly(CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
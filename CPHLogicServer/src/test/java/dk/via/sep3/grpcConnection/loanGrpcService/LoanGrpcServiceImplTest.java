@@ -2,13 +2,16 @@ package dk.via.sep3.grpcConnection.loanGrpcService;
 
 import dk.via.sep3.*;
 import dk.via.sep3.application.domain.Loan;
+import dk.via.sep3.application.domain.LoanResult;
 import dk.via.sep3.exceptionHandler.GrpcCommunicationException;
 import dk.via.sep3.mapper.loanMapper.LoanMapper;
 import io.grpc.ManagedChannel;
+import io.grpc.Status;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.sql.Date;
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -87,6 +90,99 @@ class LoanGrpcServiceImplTest {
     assertNull(result);
   }
 
+  // ---------------------------------------------------
+  // borrowBook()
+  // ---------------------------------------------------
+
+  private Loan borrowRequest() {
+    Loan loan = new Loan();
+    loan.setUsername("john");
+    loan.setBookISBN("123");
+    loan.setBorrowDate(Date.valueOf("2024-01-01"));
+    loan.setDueDate(Date.valueOf("2024-01-31"));
+    return loan;
+  }
+
+  @Test
+  void borrowBook_success_returnsMappedLoan() {
+    DTOLoan dtoLoan = DTOLoan.newBuilder().setId(10).setBookId(4).build();
+    when(loanStub.borrowBook(any(BorrowBookRequest.class))).thenReturn(
+        BorrowBookResponse.newBuilder().setSuccess(true).setLoan(dtoLoan).build());
+    Loan mapped = new Loan();
+    when(loanMapper.mapDTOLoanToDomain(dtoLoan)).thenReturn(mapped);
+
+    assertSame(mapped, service.borrowBook(borrowRequest()));
+    verify(loanStub).borrowBook(BorrowBookRequest.newBuilder().setIsbn("123")
+        .setUsername("john").setBorrowDate("2024-01-01").setDueDate("2024-01-31").build());
+  }
+
+  @Test
+  void borrowBook_failure_throwsMatchingException() {
+    when(loanStub.borrowBook(any(BorrowBookRequest.class))).thenReturn(
+        BorrowBookResponse.newBuilder().setFailure(BorrowBookFailure.ALREADY_BORROWED).build(),
+        BorrowBookResponse.newBuilder().setFailure(BorrowBookFailure.NO_AVAILABLE_COPY).build(),
+        BorrowBookResponse.newBuilder().setMessage("database locked").build());
+
+    assertThrows(IllegalStateException.class, () -> service.borrowBook(borrowRequest()));
+    assertThrows(IllegalArgumentException.class, () -> service.borrowBook(borrowRequest()));
+    assertThrows(GrpcCommunicationException.class, () -> service.borrowBook(borrowRequest()));
+  }
+
+  @Test
+  void borrowBook_unimplemented_throwsUnsupportedOperation() {
+    when(loanStub.borrowBook(any(BorrowBookRequest.class)))
+        .thenThrow(Status.UNIMPLEMENTED.asRuntimeException());
+
+    assertThrows(UnsupportedOperationException.class,
+        () -> service.borrowBook(borrowRequest()));
+  }
+
+  // ---------------------------------------------------
+  // borrowBooks()
+  // ---------------------------------------------------
+
+  @Test
+  void borrowBooks_sendsOneRequestAndMapsEachResult() {
+    Loan second = borrowRequest();
+    second.setBookISBN("456");
+    DTOLoan dtoLoan = DTOLoan.newBuilder().setId(10).setBookId(4).build();
+    when(loanStub.borrowBooks(any(BorrowBooksRequest.class))).thenReturn(
+        BorrowBooksResponse.newBuilder()
+            .addResults(BorrowBookResponse.newBuilder().setSuccess(true).setLoan(dtoLoan))
+            .addResults(BorrowBookResponse.newBuilder()
+                .setFailure(BorrowBookFailure.NO_AVAILABLE_COPY))
+            .build());
+    Loan mapped = new Loan();
+    when(loanMapper.mapDTOLoanToDomain(dtoLoan)).thenReturn(mapped);
+
+    List<LoanResult> results = service.borrowBooks(List.of(borrowRequest(), second));
+
+    assertEquals("123", results.get(0).getBookISBN());
+    assertSame(mapped, results.get(0).getLoan());
+    assertEquals("456", results.get(1).getBookISBN());
+    assertInstanceOf(IllegalArgumentException.class, results.get(1).getError());
+    verify(loanStub).borrowBooks(argThat(request -> request.getItemsCount() == 2
+        && request.getItems(1).getIsbn().equals("456")));
+  }
+
+  @Test
+  void borrowBooks_unimplemented_throwsUnsupportedOperation() {
+    when(loanStub.borrowBooks(any(BorrowBooksRequest.class)))
+        .thenThrow(Status.UNIMPLEMENTED.asRuntimeException());
+
+    assertThrows(UnsupportedOperationException.class,
+        () -> service.borrowBooks(List.of(borrowRequest())));
+  }
+
+  @Test
+  void borrowBooks_resultCountMismatch_throwsGrpcCommunicationException() {
+    when(loanStub.borrowBooks(any(BorrowBooksRequest.class)))
+        .thenReturn(BorrowBooksResponse.getDefaultInstance());
+
+    assertThrows(GrpcCommunicationException.class,
+        () -> service.borrowBooks(List.of(borrowRequest())));
+  }
+
   // ---------------------------------------------------
   // getLoansByISBN()
   // ---------------------------------------------------
@@ -149,6 +245,104 @@ class LoanGrpcServiceImplTest {
         () -> service.extendLoan(loan));
   }
 
+  // ---------------------------------------------------
+  // getLoansByIds() and extendLoans()
+  // ---------------------------------------------------
+
+  @Test
+  void getLoansByIds_sendsAllIdsAndMapsFoundLoans() {
+    DTOLoan dtoLoan = DTOLoan.newBuilder().setId(3).build();
+    when(loanStub.getLoansByIds(any(GetLoansByIdsRequest.class))).thenReturn(
+        GetLoansByIdsResponse.newBuilder().setSuccess(true).addLoans(dtoLoan)
+            .build());
+    Loan mapped = new Loan();
+    when(loanMapper.mapDTOLoanToDomain(dtoLoan)).thenReturn(mapped);
+
+    List<Loan> result = service.getLoansByIds(List.of(3, 4));
+
+    assertEquals(List.of(mapped), result);
+    verify(loanStub).getLoansByIds(argThat(request ->
+        request.getIdsList().equals(List.of(3, 4))));
+  }
+
+  @Test
+  void getLoansByIds_unimplemented_throwsUnsupportedOperation() {
+    when(loanStub.getLoansByIds(any(GetLoansByIdsRequest.class)))
+        .thenThrow(Status.UNIMPLEMENTED.asRuntimeException());
+
+    assertThrows(UnsupportedOperationException.class,
+        () -> service.getLoansByIds(List.of(3)));
+  }
+
+  @Test
+  void extendLoans_sendsAllLoansInOneRequest() {
+    Loan first = new Loan();
+    Loan second = new Loan();
+    DTOLoan dtoFirst = DTOLoan.newBuilder().setId(5).build();
+    DTOLoan dtoSecond = DTOLoan.newBuilder().setId(6).build();
+    when(loanMapper.mapDomainToDTOLoan(first)).thenReturn(dtoFirst);
+    when(loanMapper.mapDomainToDTOLoan(second)).thenReturn(dtoSecond);
+    when(loanStub.extendLoans(any(ExtendLoansRequest.class))).thenReturn(
+        ExtendLoansResponse.newBuilder().setSuccess(true)
+            .addLoans(dtoFirst).addLoans(dtoSecond).build());
+
+    List<Loan> result = service.extendLoans(List.of(first, second));
+
+    assertEquals(2, result.size());
+    verify(loanStub).extendLoans(argThat(request ->
+        request.getLoansList().equals(List.of(dtoFirst, dtoSecond))));
+  }
+
+  @Test
+  void extendLoans_failure_throwsGrpcCommunicationException() {
+    when(loanMapper.mapDomainToDTOLoan(any())).thenReturn(DTOLoan.getDefaultInstance());
+    when(loanStub.extendLoans(any(ExtendLoansRequest.class))).thenReturn(
+        ExtendLoansResponse.newBuilder().setSuccess(false)
+            .setMessage("Loan not found").build());
+
+    assertThrows(GrpcCommunicationException.class,
+        () -> service.extendLoans(List.of(new Loan())));
+  }
+
+  // ---------------------------------------------------
+  // streamActiveLoans()
+  // ---------------------------------------------------
+
+  @Test
+  void streamActiveLoans_passesEachMappedLoanToConsumer() {
+    DTOLoan first = DTOLoan.newBuilder().setId(1).build();
+    DTOLoan second = DTOLoan.newBuilder().setId(2).build();
+    Loan loan1 = new Loan();
+    Loan loan2 = new Loan();
+    when(loanStub.streamActiveLoans(any(StreamActiveLoansRequest.class)))
+        .thenReturn(List.of(first, second).iterator());
+    when(loanMapper.mapDTOLoanToDomain(first)).thenReturn(loan1);
+    when(loanMapper.mapDTOLoanToDomain(second)).thenReturn(loan2);
+
+    List<Loan> received = new ArrayList<>();
+    service.streamActiveLoans(received::add);
+
+    assertEquals(List.of(loan1, loan2), received);
+  }
+
+  @Test
+  void streamActiveLoans_unimplemented_throwsUnsupportedOperation() {
+    when(loanStub.streamActiveLoans(any(StreamActiveLoansRequest.class)))
+        .thenThrow(Status.UNIMPLEMENTED.asRuntimeException());
+
+    assertThrows(UnsupportedOperationException.class,
+        () -> service.streamActiveLoans(loan -> { }));
+  }
+
+  @Test
+  void streamActiveLoans_grpcFailure_throwsGrpcCommunicationException() {
+    when(loanStub.streamActiveLoans(any(StreamActiveLoansRequest.class)))
+        .thenThrow(Status.UNAVAILABLE.asRuntimeException());
+
+    assertThrows(GrpcCommunicationException.class,
+        () -> service.streamActiveLoans(loan -> { }));
+  }
+
   // ---------------------------------------------------
   // getLoanById()
   // ---------------------------------------------------
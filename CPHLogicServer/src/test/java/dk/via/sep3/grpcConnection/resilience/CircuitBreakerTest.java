@@ -0,0 +1,124 @@
+package dk.via.sep3.grpcConnection.resilience;
+
+import dk.via.sep3.grpcConnection.config.GrpcChannelProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CircuitBreakerTest {
+
+  private AtomicLong nanos;
+  private CircuitBreaker breaker;
+
+  @BeforeEach
+  void setUp() {
+    GrpcChannelProperties.Policy policy = new GrpcChannelProperties.Policy();
+    policy.setFailureRateThreshold(50);
+    policy.setSlidingWindowSize(4);
+    policy.setMinimumCalls(4);
+    policy.setWaitInOpenState(Duration.ofSeconds(10));
+    policy.setPermittedCallsInHalfOpenState(2);
+    nanos = new AtomicLong();
+    breaker = new CircuitBreaker(policy, nanos::get);
+  }
+
+  private void call(boolean fail) {
+    assertTrue(breaker.tryAcquire());
+    if (fail) {
+      breaker.onFailure();
+    } else {
+      breaker.onSuccess();
+    }
+  }
+
+  private void open() {
+    for (int i = 0; i < 4; i++) {
+      call(true);
+    }
+    assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+  }
+
+  // ---------------------------------------------------
+  // closed
+  // ---------------------------------------------------
+
+  @Test
+  void failuresBelowMinimumCalls_keepBreakerClosed() {
+    call(true);
+    call(true);
+    call(true);
+
+    assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    assertEquals(-1, breaker.getFailureRate());
+  }
+
+  @Test
+  void failureRateAtThreshold_opensBreaker() {
+    call(false);
+    call(false);
+    call(true);
+    call(true);
+
+    assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    assertFalse(breaker.tryAcquire());
+  }
+
+  @Test
+  void oldOutcomes_slideOutOfTheWindow() {
+    call(true);
+    call(false);
+    call(false);
+    call(false);
+    call(false);
+
+    assertEquals(0.0, breaker.getFailureRate());
+  }
+
+  // ---------------------------------------------------
+  // open and half-open
+  // ---------------------------------------------------
+
+  @Test
+  void afterWait_letsTrialCallsThroughAndClosesOnSuccess() {
+    open();
+    nanos.addAndGet(TimeUnit.SECONDS.toNanos(10));
+
+    assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+    assertTrue(breaker.tryAcquire());
+    assertTrue(breaker.tryAcquire());
+    assertFalse(breaker.tryAcquire());
+    breaker.onSuccess();
+    breaker.onSuccess();
+
+    assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    assertEquals(-1, breaker.getFailureRate());
+  }
+
+  @Test
+  void failedTrialCall_opensBreakerAgain() {
+    open();
+    nanos.addAndGet(TimeUnit.SECONDS.toNanos(10));
+
+    call(true);
+
+    assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    assertFalse(breaker.tryAcquire());
+  }
+
+  @Test
+  void ignoredTrialCall_freesItsSlot() {
+    open();
+    nanos.addAndGet(TimeUnit.SECONDS.toNanos(10));
+    assertTrue(breaker.tryAcquire());
+    assertTrue(breaker.tryAcquire());
+
+    breaker.onIgnored();
+
+    assertTrue(breaker.tryAcquire());
+  }
+}
@@ -0,0 +1,218 @@
+package dk.via.sep3.grpcConnection.resilience;
+
+import dk.via.sep3.BookServiceGrpc;
+import dk.via.sep3.GetLoanByIdRequest;
+import dk.via.sep3.GetLoanByIdResponse;
+import dk.via.sep3.LoanServiceGrpc;
+import dk.via.sep3.grpcConnection.config.GrpcChannelProperties;
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.Context;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class GrpcResilienceInterceptorTest {
+
+  private static final String BOOK_SERVICE = BookServiceGrpc.SERVICE_NAME;
+  private static final String LOAN_SERVICE = LoanServiceGrpc.SERVICE_NAME;
+
+  private SimpleMeterRegistry meterRegistry;
+  private GrpcChannelProperties properties;
+  private Channel channel;
+  private List<ClientCall<Object, Object>> sent;
+  private GrpcResilienceInterceptor interceptor;
+  private ScheduledExecutorService scheduler;
+
+  @BeforeEach
+  @SuppressWarnings("unchecked")
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    properties = new GrpcChannelProperties();
+    GrpcChannelProperties.Policy defaults = properties.getResilience().getDefaults();
+    defaults.setSlidingWindowSize(4);
+    defaults.setMinimumCalls(4);
+    GrpcChannelProperties.Policy loans = new GrpcChannelProperties.Policy();
+    loans.setMaxConcurrentCalls(1);
+    properties.getResilience().getServices().put("LoanService", loans);
+
+    sent = new ArrayList<>();
+    channel = mock(Channel.class);
+    when(channel.newCall(any(), any())).thenAnswer(invocation -> {
+      ClientCall<Object, Object> call = mock(ClientCall.class);
+      sent.add(call);
+      return call;
+    });
+    interceptor = new GrpcResilienceInterceptor(properties, meterRegistry,
+        new AtomicLong()::get);
+    scheduler = Executors.newSingleThreadScheduledExecutor();
+  }
+
+  @AfterEach
+  void tearDown() {
+    scheduler.shutdownNow();
+  }
+
+  private ClientCall.Listener<Object> start(MethodDescriptor<?, ?> method) {
+    return start(method, CallOptions.DEFAULT);
+  }
+
+  @SuppressWarnings("unchecked")
+  private ClientCall.Listener<Object> start(MethodDescriptor<?, ?> method,
+      CallOptions callOptions) {
+    ClientCall.Listener<Object> listener = mock(ClientCall.Listener.class);
+    interceptor.interceptCall((MethodDescriptor<Object, Object>) method,
+        callOptions, channel).start(listener, new Metadata());
+    return listener;
+  }
+
+  // Starts book calls with a 5 second deadline of their own inside a request
+  // budget of the given length, and lets each of them time out
+  private void timeOutBookCallsWithinBudget(long budgetSeconds) {
+    Context.CancellableContext budget = Context.current()
+        .withDeadlineAfter(budgetSeconds, TimeUnit.SECONDS, scheduler);
+    Context previous = budget.attach();
+    try {
+      for (int i = 0; i < 4; i++) {
+        start(BookServiceGrpc.getGetBookByIdMethod(),
+            CallOptions.DEFAULT.withDeadlineAfter(5, TimeUnit.SECONDS));
+        serverListener(i).onClose(Status.DEADLINE_EXCEEDED, new Metadata());
+      }
+    } finally {
+      budget.detachAndCancel(previous, null);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private ClientCall.Listener<Object> serverListener(int index) {
+    ArgumentCaptor<ClientCall.Listener<Object>> captor =
+        ArgumentCaptor.forClass(ClientCall.Listener.class);
+    verify(sent.get(index)).start(captor.capture(), any());
+    return captor.getValue();
+  }
+
+  private Status closedWith(ClientCall.Listener<Object> listener) {
+    ArgumentCaptor<Status> status = ArgumentCaptor.forClass(Status.class);
+    verify(listener).onClose(status.capture(), any());
+    return status.getValue();
+  }
+
+  // ---------------------------------------------------
+  // circuit breaker
+  // ---------------------------------------------------
+
+  @Test
+  void repeatedUnavailable_opensBreakerAndFailsFast() {
+    for (int i = 0; i < 4; i++) {
+      start(BookServiceGrpc.getGetBookByIdMethod());
+      serverListener(i).onClose(Status.UNAVAILABLE, new Metadata());
+    }
+
+    ClientCall.Listener<Object> rejected = start(BookServiceGrpc.getGetBookByIdMethod());
+
+    assertEquals(Status.Code.UNAVAILABLE, closedWith(rejected).getCode());
+    verify(sent.get(4), never()).start(any(), any());
+    assertEquals(CircuitBreaker.State.OPEN, interceptor.getState(BOOK_SERVICE));
+    assertEquals(1, meterRegistry.get("grpc.client.circuit.state")
+        .tags("service", BOOK_SERVICE, "state", "open").gauge().value());
+    assertEquals(1, meterRegistry.get("grpc.client.calls.rejected")
+        .tags("service", BOOK_SERVICE, "reason", "circuit_open").counter().count());
+  }
+
+  @Test
+  void notFound_countsAsAnswerNotFailure() {
+    for (int i = 0; i < 4; i++) {
+      start(BookServiceGrpc.getGetBookByIdMethod());
+      serverListener(i).onClose(Status.NOT_FOUND, new Metadata());
+    }
+
+    assertEquals(CircuitBreaker.State.CLOSED, interceptor.getState(BOOK_SERVICE));
+  }
+
+  @Test
+  void openBreaker_onlyAffectsItsOwnService() {
+    for (int i = 0; i < 4; i++) {
+      start(LoanServiceGrpc.getGetLoanByIdMethod());
+      serverListener(i).onClose(Status.DEADLINE_EXCEEDED, new Metadata());
+    }
+
+    start(BookServiceGrpc.getGetBookByIdMethod());
+
+    verify(sent.get(4)).start(any(), any());
+    assertEquals(CircuitBreaker.State.CLOSED, interceptor.getState(BOOK_SERVICE));
+  }
+
+  @Test
+  void ownDeadlineExceeded_countsAsFailure() {
+    timeOutBookCallsWithinBudget(10);
+
+    assertEquals(CircuitBreaker.State.OPEN, interceptor.getState(BOOK_SERVICE));
+  }
+
+  @Test
+  void requestBudgetExceeded_doesNotCountAgainstService() {
+    timeOutBookCallsWithinBudget(1);
+
+    assertEquals(CircuitBreaker.State.CLOSED, interceptor.getState(BOOK_SERVICE));
+  }
+
+  // ---------------------------------------------------
+  // bulkhead
+  // ---------------------------------------------------
+
+  @Test
+  void fullBulkhead_rejectsUntilACallCompletes() {
+    start(LoanServiceGrpc.getGetLoanByIdMethod());
+
+    ClientCall.Listener<Object> rejected = start(LoanServiceGrpc.getGetLoanByIdMethod());
+    assertEquals(Status.Code.RESOURCE_EXHAUSTED, closedWith(rejected).getCode());
+    assertEquals(0, meterRegistry.get("grpc.client.bulkhead.available")
+        .tags("service", LOAN_SERVICE).gauge().value());
+
+    serverListener(0).onClose(Status.OK, new Metadata());
+    start(LoanServiceGrpc.getGetLoanByIdMethod());
+    verify(sent.get(2)).start(any(), any());
+  }
+
+  @Test
+  void fullLoanBulkhead_leavesBookCallsAlone() {
+    start(LoanServiceGrpc.getGetLoanByIdMethod());
+
+    start(BookServiceGrpc.getGetBookByIdMethod());
+
+    verify(sent.get(1)).start(any(), any());
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void rejectedCall_ignoresLaterCallsOnIt() {
+    start(LoanServiceGrpc.getGetLoanByIdMethod());
+    ClientCall<GetLoanByIdRequest, GetLoanByIdResponse> call =
+        interceptor.interceptCall(LoanServiceGrpc.getGetLoanByIdMethod(),
+            CallOptions.DEFAULT, channel);
+    call.start(mock(ClientCall.Listener.class), new Metadata());
+
+    call.request(1);
+    call.sendMessage(GetLoanByIdRequest.getDefaultInstance());
+    call.halfClose();
+
+    verifyNoInteractions(sent.get(1));
+  }
+}
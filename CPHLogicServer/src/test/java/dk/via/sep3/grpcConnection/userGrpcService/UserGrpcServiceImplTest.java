@@ -2,6 +2,7 @@ package dk.via.sep3.grpcConnection.userGrpcService;
 
 import dk.via.sep3.*;
 import dk.via.sep3.application.domain.User;
+import dk.via.sep3.exceptionHandler.BusinessRuleViolationException;
 import dk.via.sep3.exceptionHandler.GrpcCommunicationException;
 import dk.via.sep3.mapper.userMapper.UserMapper;
 import io.grpc.ManagedChannel;
@@ -79,13 +80,12 @@ class UserGrpcServiceImplTest {
   }
 
   @Test
-  void getUserByUsername_exception_returnsNull() {
+  void getUserByUsername_exception_throwsGrpcCommunicationException() {
     when(userStub.getUserByUsername(any(GetUserByUsernameRequest.class)))
         .thenThrow(RuntimeException.class);
 
-    User result = service.getUserByUsername("john");
-
-    assertNull(result);
+    assertThrows(GrpcCommunicationException.class,
+        () -> service.getUserByUsername("john"));
   }
 
   // ---------------------------------------------------
@@ -133,4 +133,37 @@ class UserGrpcServiceImplTest {
     assertThrows(GrpcCommunicationException.class,
         () -> service.createUser(domainUser));
   }
+
+  @Test
+  void createUser_conflict_throwsUsernameAlreadyExists() {
+    User domainUser = new User();
+    DTOUser dtoUser = DTOUser.newBuilder().setUsername("john").build();
+
+    when(userMapper.mapDomainToDTOUser(domainUser)).thenReturn(dtoUser);
+    when(userStub.createUser(any(CreateUserRequest.class)))
+        .thenReturn(CreateUserResponse.newBuilder()
+            .setSuccess(false).setConflict(true)
+            .setMessage("Username already exists.").build());
+
+    BusinessRuleViolationException ex = assertThrows(
+        BusinessRuleViolationException.class,
+        () -> service.createUser(domainUser));
+
+    assertEquals("Username already exists", ex.getMessage());
+  }
+
+  @Test
+  void createUser_notCreated_throwsGrpcCommunicationException() {
+    User domainUser = new User();
+    DTOUser dtoUser = DTOUser.newBuilder().setUsername("john").build();
+
+    when(userMapper.mapDomainToDTOUser(domainUser)).thenReturn(dtoUser);
+    when(userStub.createUser(any(CreateUserRequest.class)))
+        .thenReturn(CreateUserResponse.newBuilder()
+            .setSuccess(false).setMessage("disk full").build());
+
+    assertThrows(GrpcCommunicationException.class,
+        () -> service.createUser(domainUser));
+    verify(userMapper, never()).mapDTOUserToDomain(any());
+  }
 }
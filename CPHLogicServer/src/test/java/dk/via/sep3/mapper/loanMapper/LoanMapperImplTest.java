@@ -1,10 +1,16 @@
 package dk.via.sep3.mapper.loanMapper;
 
 import dk.via.sep3.DTOLoan;
+import dk.via.sep3.application.domain.ExtensionResult;
 import dk.via.sep3.application.domain.Loan;
+import dk.via.sep3.application.domain.LoanResult;
+import dk.via.sep3.exceptionHandler.GrpcCommunicationException;
+import dk.via.sep3.exceptionHandler.ResourceNotFoundException;
 import dk.via.sep3.DTOs.extension.CreateExtensionDTO;
+import dk.via.sep3.DTOs.extension.ExtensionResultDTO;
 import dk.via.sep3.DTOs.loan.CreateLoanDTO;
 import dk.via.sep3.DTOs.loan.LoanDTO;
+import dk.via.sep3.DTOs.loan.LoanResultDTO;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -129,4 +135,79 @@ class LoanMapperImplTest {
     assertEquals("david", loanDTO.getUsername());
     assertEquals(77, loanDTO.getBookId());
   }
+
+  // --------------------------------------------------
+  // mapLoanResultToDTO
+  // --------------------------------------------------
+
+  @Test
+  void mapLoanResultToDTO_success_carriesLoan() {
+    Loan loan = new Loan();
+    loan.setLoanId(20);
+    loan.setBorrowDate(Date.valueOf("2025-04-01"));
+    loan.setDueDate(Date.valueOf("2025-05-01"));
+    loan.setUsername("david");
+    loan.setBookId(77);
+
+    LoanResultDTO dto = mapper.mapLoanResultToDTO(LoanResult.success("ISBN123", loan));
+
+    assertEquals("ISBN123", dto.getBookISBN());
+    assertTrue(dto.isSuccess());
+    assertEquals("20", dto.getLoan().getId());
+    assertNull(dto.getErrorCode());
+  }
+
+  @Test
+  void mapLoanResultToDTO_failure_usesErrorHandlerCodes() {
+    LoanResultDTO noCopies = mapper.mapLoanResultToDTO(LoanResult.failure("A",
+        new IllegalArgumentException("No available copies of this book")));
+    LoanResultDTO duplicate = mapper.mapLoanResultToDTO(LoanResult.failure("B",
+        new IllegalStateException("User already has an active loan for this book")));
+    LoanResultDTO unknownBook = mapper.mapLoanResultToDTO(LoanResult.failure("C",
+        new ResourceNotFoundException("Book not found")));
+    LoanResultDTO unavailable = mapper.mapLoanResultToDTO(LoanResult.failure("D",
+        new GrpcCommunicationException("Persistence down")));
+
+    assertFalse(noCopies.isSuccess());
+    assertNull(noCopies.getLoan());
+    assertEquals("INVALID_INPUT", noCopies.getErrorCode());
+    assertEquals("No available copies of this book", noCopies.getMessage());
+    assertEquals("BUSINESS_CONSTRAINT", duplicate.getErrorCode());
+    assertEquals("RESOURCE_NOT_FOUND", unknownBook.getErrorCode());
+    assertEquals("SERVICE_UNAVAILABLE", unavailable.getErrorCode());
+  }
+
+  // --------------------------------------------------
+  // mapExtensionResultToDTO
+  // --------------------------------------------------
+
+  @Test
+  void mapExtensionResultToDTO_success_carriesExtendedLoan() {
+    Loan loan = new Loan();
+    loan.setLoanId(20);
+    loan.setBorrowDate(Date.valueOf("2025-04-01"));
+    loan.setDueDate(Date.valueOf("2025-05-31"));
+    loan.setNumberOfExtensions(1);
+    loan.setUsername("david");
+
+    ExtensionResultDTO dto = mapper.mapExtensionResultToDTO(
+        ExtensionResult.success(20, loan));
+
+    assertEquals(20, dto.getLoanId());
+    assertTrue(dto.isSuccess());
+    assertEquals("2025-05-31", dto.getLoan().getDueDate());
+    assertNull(dto.getErrorCode());
+  }
+
+  @Test
+  void mapExtensionResultToDTO_failure_usesErrorHandlerCodes() {
+    ExtensionResultDTO dto = mapper.mapExtensionResultToDTO(ExtensionResult.failure(
+        21, new IllegalArgumentException("Loan not found with ID: 21")));
+
+    assertEquals(21, dto.getLoanId());
+    assertFalse(dto.isSuccess());
+    assertNull(dto.getLoan());
+    assertEquals("INVALID_INPUT", dto.getErrorCode());
+    assertEquals("Loan not found with ID: 21", dto.getMessage());
+  }
 }
@@ -0,0 +1,106 @@
+package dk.via.sep3.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CachingJwtTokenProviderTest {
+
+  private static final Instant NOW = Instant.parse("2025-01-01T12:00:00Z");
+
+  private IJwtTokenProvider delegate;
+  private AtomicLong nanos;
+  private CachingJwtTokenProvider provider;
+
+  @BeforeEach
+  void setUp() {
+    delegate = mock(IJwtTokenProvider.class);
+    nanos = new AtomicLong();
+    provider = new CachingJwtTokenProvider(delegate, 100, Duration.ofMinutes(5),
+        nanos::get, Clock.fixed(NOW, ZoneOffset.UTC));
+  }
+
+  // --------------------------------------------------
+  // verifyAndExtract()
+  // --------------------------------------------------
+
+  @Test
+  void verifyAndExtract_sameToken_verifiedOnce() {
+    JwtClaims claims = new JwtClaims("john", "READER", NOW.plusSeconds(3600));
+    when(delegate.verifyAndExtract("token")).thenReturn(claims);
+
+    provider.verifyAndExtract("token");
+    provider.validateToken("token");
+    provider.getUsernameFromToken("token");
+
+    assertEquals("READER", provider.getRoleFromToken("token"));
+    verify(delegate, times(1)).verifyAndExtract("token");
+    verifyNoMoreInteractions(delegate);
+  }
+
+  @Test
+  void verifyAndExtract_invalidToken_isNotCached() {
+    when(delegate.verifyAndExtract("bad")).thenReturn(null);
+
+    assertFalse(provider.validateToken("bad"));
+    assertFalse(provider.validateToken("bad"));
+
+    verify(delegate, times(2)).verifyAndExtract("bad");
+  }
+
+  @Test
+  void verifyAndExtract_nullToken_returnsNull() {
+    assertNull(provider.verifyAndExtract(null));
+    verifyNoInteractions(delegate);
+  }
+
+  @Test
+  void entry_expiresWithTheToken() {
+    when(delegate.verifyAndExtract("token"))
+        .thenReturn(new JwtClaims("john", "READER", NOW.plusSeconds(30)));
+
+    provider.verifyAndExtract("token");
+    nanos.addAndGet(TimeUnit.SECONDS.toNanos(31));
+    provider.verifyAndExtract("token");
+
+    verify(delegate, times(2)).verifyAndExtract("token");
+  }
+
+  @Test
+  void entry_expiresAfterTtlForLongLivedToken() {
+    when(delegate.verifyAndExtract("token"))
+        .thenReturn(new JwtClaims("john", "READER", NOW.plusSeconds(3600)));
+
+    provider.verifyAndExtract("token");
+    nanos.addAndGet(TimeUnit.MINUTES.toNanos(4));
+    provider.verifyAndExtract("token");
+    verify(delegate, times(1)).verifyAndExtract("token");
+
+    nanos.addAndGet(TimeUnit.MINUTES.toNanos(2));
+    provider.verifyAndExtract("token");
+    verify(delegate, times(2)).verifyAndExtract("token");
+  }
+
+  // --------------------------------------------------
+  // claim getters
+  // --------------------------------------------------
+
+  @Test
+  void getUsernameFromToken_invalidToken_delegatesForTheError() {
+    when(delegate.verifyAndExtract("bad")).thenReturn(null);
+    when(delegate.getUsernameFromToken("bad"))
+        .thenThrow(new IllegalArgumentException("bad token"));
+
+    assertThrows(IllegalArgumentException.class,
+        () -> provider.getUsernameFromToken("bad"));
+  }
+}
@@ -47,9 +47,8 @@ class JwtAuthenticationFilterTest {
     String token = "valid.jwt.token";
 
     when(request.getHeader("Authorization")).thenReturn("Bearer " + token);
-    when(jwtTokenProvider.validateToken(token)).thenReturn(true);
-    when(jwtTokenProvider.getUsernameFromToken(token)).thenReturn("john");
-    when(jwtTokenProvider.getRoleFromToken(token)).thenReturn("READER");
+    when(jwtTokenProvider.verifyAndExtract(token))
+        .thenReturn(new JwtClaims("john", "READER", null));
 
     filter.doFilterInternal(request, response, filterChain);
 
@@ -63,6 +62,8 @@ class JwtAuthenticationFilterTest {
     );
 
     verify(filterChain).doFilter(request, response);
+    verify(jwtTokenProvider, times(1)).verifyAndExtract(token);
+    verifyNoMoreInteractions(jwtTokenProvider);
   }
 
   // --------------------------------------------------
@@ -91,7 +92,7 @@ class JwtAuthenticationFilterTest {
     String token = "invalid.token";
 
     when(request.getHeader("Authorization")).thenReturn("Bearer " + token);
-    when(jwtTokenProvider.validateToken(token)).thenReturn(false);
+    when(jwtTokenProvider.verifyAndExtract(token)).thenReturn(null);
 
     filter.doFilterInternal(request, response, filterChain);
 
@@ -4,26 +4,45 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.lang.reflect.Field;
+import java.time.Instant;
+import java.util.Base64;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 class JwtTokenProviderTest {
 
+  private static final String CURRENT_SECRET =
+      "test-secret-key-test-secret-key-test-secret-key-test-secret-key-current";
+  private static final String OLD_SECRET =
+      "test-secret-key-test-secret-key-test-secret-key-test-secret-key-old";
+
   private JwtTokenProvider tokenProvider;
 
   @BeforeEach
   void setUp() throws Exception {
-    tokenProvider = new JwtTokenProvider();
+    // HS512 needs a secret of at least 64 bytes
+    tokenProvider = createProvider("current", CURRENT_SECRET, "", "", "");
+  }
+
+  private static JwtTokenProvider createProvider(String keyId, String secret,
+      String previousKeyId, String previousSecret, String previousValidUntil) throws Exception {
+    JwtTokenProvider provider = new JwtTokenProvider();
 
     // Manually inject @Value fields
-    setPrivateField("jwtSecret", "test-secret-key-test-secret-key-test-secret");
-    setPrivateField("jwtExpirationMs", 3600000L);
+    setPrivateField(provider, "jwtSecret", secret);
+    setPrivateField(provider, "jwtExpirationMs", 3600000L);
+    setPrivateField(provider, "keyId", keyId);
+    setPrivateField(provider, "previousKeyId", previousKeyId);
+    setPrivateField(provider, "previousSecret", previousSecret);
+    setPrivateField(provider, "previousValidUntil", previousValidUntil);
+    provider.init();
+    return provider;
   }
 
-  private void setPrivateField(String fieldName, Object value) throws Exception {
+  private static void setPrivateField(JwtTokenProvider provider, String fieldName, Object value) throws Exception {
     Field field = JwtTokenProvider.class.getDeclaredField(fieldName);
     field.setAccessible(true);
-    field.set(tokenProvider, value);
+    field.set(provider, value);
   }
 
   // --------------------------------------------------
@@ -79,4 +98,93 @@ class JwtTokenProviderTest {
   void validateToken_invalidToken_returnsFalse() {
     assertFalse(tokenProvider.validateToken("invalid.token.value"));
   }
+
+  // --------------------------------------------------
+  // verifyAndExtract()
+  // --------------------------------------------------
+
+  @Test
+  void verifyAndExtract_invalidToken_returnsNull() {
+    assertNull(tokenProvider.verifyAndExtract("invalid.token.value"));
+  }
+
+  @Test
+  void verifyAndExtract_validToken_returnsAllClaims() {
+    String token = tokenProvider.generateToken("alice", "ADMIN");
+
+    JwtClaims claims = tokenProvider.verifyAndExtract(token);
+
+    assertNotNull(claims);
+    assertEquals("alice", claims.getUsername());
+    assertEquals("ADMIN", claims.getRole());
+    assertNotNull(claims.getExpiresAt());
+  }
+
+  // --------------------------------------------------
+  // key rotation
+  // --------------------------------------------------
+
+  @Test
+  void generateToken_setsKeyIdHeader() {
+    String token = tokenProvider.generateToken("john", "READER");
+
+    String header = new String(Base64.getUrlDecoder().decode(token.split("\\.")[0]));
+
+    assertTrue(header.contains("\"kid\":\"current\""));
+  }
+
+  @Test
+  void validateToken_previousKeyWithinGracePeriod_returnsTrue() throws Exception {
+    String oldToken = createProvider("old", OLD_SECRET, "", "", "")
+        .generateToken("john", "READER");
+    JwtTokenProvider rotated = createProvider("current", CURRENT_SECRET,
+        "old", OLD_SECRET, Instant.now().plusSeconds(600).toString());
+
+    assertTrue(rotated.validateToken(oldToken));
+    assertEquals("john", rotated.getUsernameFromToken(oldToken));
+  }
+
+  @Test
+  void validateToken_previousKeyAfterGracePeriod_returnsFalse() throws Exception {
+    String oldToken = createProvider("old", OLD_SECRET, "", "", "")
+        .generateToken("john", "READER");
+    JwtTokenProvider rotated = createProvider("current", CURRENT_SECRET,
+        "old", OLD_SECRET, Instant.now().minusSeconds(1).toString());
+
+    assertFalse(rotated.validateToken(oldToken));
+  }
+
+  @Test
+  void validateToken_unknownKeyId_returnsFalse() throws Exception {
+    String foreignToken = createProvider("other", OLD_SECRET, "", "", "")
+        .generateToken("john", "READER");
+
+    assertFalse(tokenProvider.validateToken(foreignToken));
+  }
+
+  @Test
+  void init_previousKeyWithoutKeyId_throwsException() {
+    assertThrows(IllegalStateException.class,
+        () -> createProvider("current", CURRENT_SECRET, "", OLD_SECRET, ""));
+  }
+
+  @Test
+  void init_previousKeyWithoutValidUntil_throwsException() {
+    assertThrows(IllegalStateException.class,
+        () -> createProvider("current", CURRENT_SECRET, "old", OLD_SECRET, ""));
+  }
+
+  @Test
+  void verifyAndExtract_previousKey_expiresWhenKeyRetires() throws Exception {
+    String oldToken = createProvider("old", OLD_SECRET, "", "", "")
+        .generateToken("john", "READER");
+    Instant retires = Instant.now().plusSeconds(600);
+    JwtTokenProvider rotated = createProvider("current", CURRENT_SECRET,
+        "old", OLD_SECRET, retires.toString());
+
+    JwtClaims claims = rotated.verifyAndExtract(oldToken);
+
+    assertNotNull(claims);
+    assertEquals(Instant.parse(retires.toString()), claims.getExpiresAt());
+  }
 }
@@ -0,0 +1,99 @@
+package dk.via.sep3.security;
+
+import dk.via.sep3.exceptionHandler.ServiceOverloadedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PasswordHashingExecutorTest {
+
+  private SimpleMeterRegistry meterRegistry;
+  private PasswordHashingExecutor executor;
+  // Callers need their own threads; the common pool may have only one
+  private ExecutorService callers;
+
+  @BeforeEach
+  void setUp() {
+    callers = Executors.newFixedThreadPool(2);
+    meterRegistry = new SimpleMeterRegistry();
+    executor = new PasswordHashingExecutor(1, 1, Duration.ofSeconds(2),
+        meterRegistry);
+  }
+
+  @AfterEach
+  void tearDown() {
+    executor.shutdown();
+    callers.shutdownNow();
+  }
+
+  @Test
+  void run_returnsResultAndRecordsDuration() {
+    String result = executor.run("hash", () -> "hashed");
+
+    assertEquals("hashed", result);
+    assertEquals(1, meterRegistry.get("password.hashing.duration")
+        .tag("operation", "hash").timer().count());
+    assertEquals(1, meterRegistry.get("password.hashing.wait").timer().count());
+  }
+
+  @Test
+  void run_taskFails_rethrowsOriginalException() {
+    IllegalArgumentException failure = new IllegalArgumentException("bad hash");
+
+    IllegalArgumentException thrown = assertThrows(IllegalArgumentException.class,
+        () -> executor.run("matches", () -> {
+          throw failure;
+        }));
+
+    assertSame(failure, thrown);
+  }
+
+  @Test
+  void run_poolAndQueueFull_rejectsWithRetryAfter() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    CompletableFuture<Boolean> running = CompletableFuture.supplyAsync(
+        () -> executor.run("hash", () -> await(release)), callers);
+    // The blocking task must hold the only thread before the next one queues
+    waitForGauge("password.hashing.active", 1);
+    CompletableFuture<Boolean> queued = CompletableFuture.supplyAsync(
+        () -> executor.run("hash", () -> true), callers);
+    waitForGauge("password.hashing.queue.size", 1);
+
+    ServiceOverloadedException ex = assertThrows(ServiceOverloadedException.class,
+        () -> executor.run("hash", () -> true));
+
+    assertEquals(Duration.ofSeconds(2), ex.getRetryAfter());
+    assertEquals(1.0, meterRegistry.get("password.hashing.rejected").counter().count());
+
+    release.countDown();
+    assertTrue(running.get(5, TimeUnit.SECONDS));
+    assertTrue(queued.get(5, TimeUnit.SECONDS));
+  }
+
+  private static boolean await(CountDownLatch latch) {
+    try {
+      return latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+
+  private void waitForGauge(String name, int value) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (meterRegistry.get(name).gauge().value() < value) {
+      assertTrue(System.nanoTime() < deadline, name + " never reached " + value);
+      Thread.sleep(5);
+    }
+  }
+}
@@ -0,0 +1,266 @@
+package dk.via.sep3.fake;
+
+import dk.via.sep3.BookServiceGrpc;
+import dk.via.sep3.DTOBook;
+import dk.via.sep3.DTOGenre;
+import dk.via.sep3.GetAvailabilitySummaryRequest;
+import dk.via.sep3.GetAvailabilitySummaryResponse;
+import dk.via.sep3.GetAllBooksRequest;
+import dk.via.sep3.GetAllBooksResponse;
+import dk.via.sep3.GetBookByIdRequest;
+import dk.via.sep3.GetBookByIdResponse;
+import dk.via.sep3.GetBooksByIsbnRequest;
+import dk.via.sep3.GetBooksByIsbnResponse;
+import dk.via.sep3.UpdateBookStateRequest;
+import dk.via.sep3.UpdateBookStateResponse;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Book service with the paging, filtering and messages of the real
+ * persistence server.
+ */
+public class FakeBookService extends BookServiceGrpc.BookServiceImplBase
+{
+  private final FakeDataset dataset;
+
+  public FakeBookService(FakeDataset dataset)
+  {
+    this.dataset = dataset;
+  }
+
+  @Override public void getAllBooks(GetAllBooksRequest request,
+      StreamObserver<GetAllBooksResponse> responseObserver)
+  {
+    GetAllBooksResponse.Builder response = GetAllBooksResponse.newBuilder();
+    if (request.getLimit() > 0 || !request.getCursor().isEmpty()
+        || isFiltered(request))
+    {
+      page(request, response);
+    }
+    else
+    {
+      response.addAllBooks(dataset.booksInIsbnOrder());
+    }
+    if (response.getBooksCount() == 0)
+    {
+      response.setSuccess(false).setMessage("No books found.");
+    }
+    else
+    {
+      response.setSuccess(true).setMessage("Books retrieved successfully.");
+    }
+    responseObserver.onNext(response.build());
+    responseObserver.onCompleted();
+  }
+
+  @Override public void streamAllBooks(GetAllBooksRequest request,
+      StreamObserver<DTOBook> responseObserver)
+  {
+    ServerCallStreamObserver<DTOBook> call =
+        (ServerCallStreamObserver<DTOBook>) responseObserver;
+    for (DTOBook book : dataset.booksInIsbnOrder())
+    {
+      if (call.isCancelled())
+      {
+        return;
+      }
+      if (matches(request, book))
+      {
+        responseObserver.onNext(book);
+      }
+    }
+    responseObserver.onCompleted();
+  }
+
+  @Override public void getBooksByIsbn(GetBooksByIsbnRequest request,
+      StreamObserver<GetBooksByIsbnResponse> responseObserver)
+  {
+    List<DTOBook> books = dataset.booksByIsbn(request.getIsbn());
+    GetBooksByIsbnResponse.Builder response = GetBooksByIsbnResponse.newBuilder()
+        .addAllBooks(books);
+    if (books.isEmpty())
+    {
+      response.setSuccess(false)
+          .setMessage("No books found with ISBN " + request.getIsbn() + ".");
+    }
+    else
+    {
+      response.setSuccess(true).setMessage(
+          "Books with ISBN " + request.getIsbn() + " retrieved successfully.");
+    }
+    responseObserver.onNext(response.build());
+    responseObserver.onCompleted();
+  }
+
+  @Override public void getBookById(GetBookByIdRequest request,
+      StreamObserver<GetBookByIdResponse> responseObserver)
+  {
+    DTOBook book = dataset.book(request.getId());
+    GetBookByIdResponse.Builder response = GetBookByIdResponse.newBuilder();
+    if (book == null)
+    {
+      response.setSuccess(false)
+          .setMessage("Book with ID " + request.getId() + " not found.");
+    }
+    else
+    {
+      response.setBook(book).setSuccess(true).setMessage(
+          "Book with ID " + request.getId() + " retrieved successfully.");
+    }
+    responseObserver.onNext(response.build());
+    responseObserver.onCompleted();
+  }
+
+  @Override public void updateBookState(UpdateBookStateRequest request,
+      StreamObserver<UpdateBookStateResponse> responseObserver)
+  {
+    UpdateBookStateResponse.Builder response = UpdateBookStateResponse.newBuilder();
+    DTOBook book;
+    if (request.getExpectedState().isEmpty())
+    {
+      book = dataset.updateBookState(request.getId(), request.getState());
+    }
+    else
+    {
+      FakeDataset.StateChange change = dataset.updateBookState(request.getId(),
+          request.getExpectedState(), request.getState());
+      book = change == null ? null : change.book();
+      if (change != null && !change.applied())
+      {
+        response.setBook(book).setSuccess(false).setConflict(true).setMessage(
+            "Book with ID " + request.getId() + " is " + book.getState()
+                + ", not " + request.getExpectedState() + ".");
+        responseObserver.onNext(response.build());
+        responseObserver.onCompleted();
+        return;
+      }
+    }
+    if (book == null)
+    {
+      response.setSuccess(false)
+          .setMessage("Error updating book state: Book not found");
+    }
+    else
+    {
+      response.setBook(book).setSuccess(true).setMessage(
+          "Book state updated successfully for ID " + request.getId() + ".");
+    }
+    responseObserver.onNext(response.build());
+    responseObserver.onCompleted();
+  }
+
+  @Override public void getAvailabilitySummary(
+      GetAvailabilitySummaryRequest request,
+      StreamObserver<GetAvailabilitySummaryResponse> responseObserver)
+  {
+    GetAvailabilitySummaryResponse.Builder response =
+        GetAvailabilitySummaryResponse.newBuilder();
+    int total = 0;
+    for (DTOBook book : dataset.booksByIsbn(request.getIsbn()))
+    {
+      total++;
+      if (book.getState().equalsIgnoreCase(FakeDataset.AVAILABLE))
+      {
+        // Lowest id first, as the real server picks it
+        if (response.getAvailable() == 0
+            || book.getId() < response.getAvailableBookId())
+        {
+          response.setAvailableBookId(book.getId());
+        }
+        response.setAvailable(response.getAvailable() + 1);
+      }
+      else if (book.getState().equalsIgnoreCase(FakeDataset.BORROWED))
+      {
+        response.setBorrowed(response.getBorrowed() + 1);
+      }
+      else if (book.getState().equalsIgnoreCase(FakeDataset.RESERVED))
+      {
+        response.setReserved(response.getReserved() + 1);
+      }
+    }
+    response.setTotal(total);
+    if (total == 0)
+    {
+      response.setSuccess(false)
+          .setMessage("No books found with ISBN " + request.getIsbn() + ".");
+    }
+    else
+    {
+      response.setSuccess(true).setMessage("Availability of ISBN "
+          + request.getIsbn() + " retrieved successfully.");
+    }
+    responseObserver.onNext(response.build());
+    responseObserver.onCompleted();
+  }
+
+  /**
+   * Fills one page of matching copies. The limit counts ISBNs, so a page
+   * always holds every matching copy of the ISBNs on it.
+   */
+  private void page(GetAllBooksRequest request,
+      GetAllBooksResponse.Builder response)
+  {
+    List<DTOBook> page = new ArrayList<>();
+    String cursor = request.getCursor();
+    String lastIsbn = null;
+    int isbns = 0;
+    for (DTOBook book : dataset.booksInIsbnOrder())
+    {
+      if (!cursor.isEmpty() && book.getIsbn().compareTo(cursor) <= 0
+          || !matches(request, book))
+      {
+        continue;
+      }
+      if (!book.getIsbn().equals(lastIsbn))
+      {
+        if (request.getLimit() > 0 && isbns == request.getLimit())
+        {
+          response.setNextCursor(lastIsbn);
+          break;
+        }
+        lastIsbn = book.getIsbn();
+        isbns++;
+      }
+      page.add(book);
+    }
+    response.addAllBooks(page);
+  }
+
+  private static boolean isFiltered(GetAllBooksRequest request)
+  {
+    return !request.getAuthor().isEmpty() || !request.getGenre().isEmpty()
+        || !request.getState().isEmpty();
+  }
+
+  private static boolean matches(GetAllBooksRequest request, DTOBook book)
+  {
+    if (!request.getAuthor().isEmpty() && !book.getAuthor()
+        .toLowerCase(Locale.ROOT)
+        .contains(request.getAuthor().toLowerCase(Locale.ROOT)))
+    {
+      return false;
+    }
+    if (!request.getState().isEmpty()
+        && !book.getState().equalsIgnoreCase(request.getState()))
+    {
+      return false;
+    }
+    if (request.getGenre().isEmpty())
+    {
+      return true;
+    }
+    for (DTOGenre genre : book.getGenresList())
+    {
+      if (genre.getName().equalsIgnoreCase(request.getGenre()))
+      {
+        return true;
+      }
+    }
+    return false;
+  }
+}
@@ -0,0 +1,412 @@
+package dk.via.sep3.fake;
+
+import dk.via.sep3.BorrowBookFailure;
+import dk.via.sep3.DTOBook;
+import dk.via.sep3.DTOGenre;
+import dk.via.sep3.DTOLoan;
+import dk.via.sep3.DTOReservation;
+import dk.via.sep3.DTOUser;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-memory data behind the fake services.
+ * <p>
+ * The catalog is generated from a seed, so two servers started with the same
+ * {@link FakeServerConfig} serve the same books, users, loans and
+ * reservations. Copies are never added or removed after startup; their state,
+ * loans, reservations and users change as the services are called. All
+ * methods are safe to call from concurrent gRPC calls.
+ */
+public class FakeDataset
+{
+  /** Password of every generated user. */
+  public static final String PASSWORD = "password123";
+  /** BCrypt hash of {@link #PASSWORD}, so logins still pay the real BCrypt cost. */
+  public static final String PASSWORD_HASH =
+      "$2a$10$ZR0K8nXNbAQczER1RwMY8u3BwPacQMyL0933WmAeM/Ys0MuvKXT7S";
+
+  public static final String AVAILABLE = "Available";
+  public static final String BORROWED = "Borrowed";
+  public static final String RESERVED = "Reserved";
+
+  private static final String[] GENRES = {"Fiction", "Fantasy", "Science",
+      "History", "Biography", "Mystery", "Romance", "Poetry"};
+  private static final int LOAN_DAYS = 30;
+
+  private final Map<Integer, DTOBook> books = new ConcurrentHashMap<>();
+  // Copy ids ordered by ISBN, then id, the order the real server uses
+  private final List<Integer> bookIdsInIsbnOrder = new ArrayList<>();
+  private final Map<String, List<Integer>> bookIdsByIsbn = new ConcurrentHashMap<>();
+
+  private final Map<String, DTOUser> users = new ConcurrentHashMap<>();
+
+  private final Map<Integer, DTOLoan> loans = new ConcurrentHashMap<>();
+  private final Map<String, Queue<Integer>> loanIdsByIsbn = new ConcurrentHashMap<>();
+  private final Map<String, Queue<Integer>> loanIdsByUsername = new ConcurrentHashMap<>();
+  private final AtomicInteger nextLoanId = new AtomicInteger(1);
+  // Serialises borrowBook, the way the real server's transaction does
+  private final Object borrowLock = new Object();
+
+  private final Map<String, Queue<DTOReservation>> reservationsByIsbn = new ConcurrentHashMap<>();
+  private final AtomicInteger nextReservationId = new AtomicInteger(1);
+
+  public FakeDataset(FakeServerConfig config)
+  {
+    Random random = new Random(config.getSeed());
+    LocalDate today = LocalDate.now();
+    for (int i = 0; i < config.getUsers(); i++)
+    {
+      String username = username(i);
+      users.put(username, DTOUser.newBuilder().setUsername(username)
+          .setName("User " + i).setPassword(PASSWORD_HASH).setRole("Reader")
+          .setEmail(username + "@example.com")
+          .setPhoneNumber(String.format("+45%08d", i)).build());
+    }
+
+    int authors = Math.max(1, config.getIsbns() / 5);
+    int bookId = 1;
+    for (int i = 0; i < config.getIsbns(); i++)
+    {
+      String isbn = String.format("978%010d", i);
+      DTOBook.Builder template = DTOBook.newBuilder().setIsbn(isbn)
+          .setTitle("Book " + i).setAuthor("Author " + (i % authors))
+          .addGenres(genre(random));
+      if (random.nextBoolean())
+      {
+        template.addGenres(genre(random));
+      }
+      List<Integer> ids = new ArrayList<>();
+      for (int c = 0; c < config.getCopiesPerIsbn(); c++)
+      {
+        double roll = random.nextDouble();
+        String state = roll < config.getBorrowedRatio() ? BORROWED
+            : roll < config.getBorrowedRatio() + config.getReservedRatio()
+                ? RESERVED : AVAILABLE;
+        DTOBook book = template.clone().setId(bookId).setState(state).build();
+        books.put(bookId, book);
+        ids.add(bookId);
+        if (!state.equals(AVAILABLE) && config.getUsers() > 0)
+        {
+          String username = username(random.nextInt(config.getUsers()));
+          LocalDate borrowed = today.minusDays(random.nextInt(LOAN_DAYS));
+          createLoan(borrowed.toString(),
+              borrowed.plusDays(LOAN_DAYS).toString(), username, bookId);
+          if (state.equals(RESERVED))
+          {
+            createReservation(today.toString(),
+                username(random.nextInt(config.getUsers())), bookId);
+          }
+        }
+        bookId++;
+      }
+      bookIdsInIsbnOrder.addAll(ids);
+      bookIdsByIsbn.put(isbn, List.copyOf(ids));
+    }
+  }
+
+  public static String username(int index)
+  {
+    return "user" + index;
+  }
+
+  private static DTOGenre genre(Random random)
+  {
+    return DTOGenre.newBuilder().setName(GENRES[random.nextInt(GENRES.length)])
+        .build();
+  }
+
+  // ---------------------------------------------------
+  // books
+  // ---------------------------------------------------
+
+  public List<DTOBook> booksInIsbnOrder()
+  {
+    List<DTOBook> result = new ArrayList<>(bookIdsInIsbnOrder.size());
+    for (Integer id : bookIdsInIsbnOrder)
+    {
+      result.add(books.get(id));
+    }
+    return result;
+  }
+
+  public List<DTOBook> booksByIsbn(String isbn)
+  {
+    List<DTOBook> result = new ArrayList<>();
+    for (Integer id : bookIdsByIsbn.getOrDefault(isbn, List.of()))
+    {
+      result.add(books.get(id));
+    }
+    return result;
+  }
+
+  public DTOBook book(int id)
+  {
+    return books.get(id);
+  }
+
+  /**
+   * @return the updated copy, or {@code null} if there is no such copy
+   */
+  public DTOBook updateBookState(int id, String state)
+  {
+    return books.computeIfPresent(id,
+        (key, book) -> book.toBuilder().setState(state).build());
+  }
+
+  /**
+   * Moves a copy to {@code state} only if it is in {@code expectedState}.
+   * The check and the change are one atomic map update, so of two callers
+   * expecting the same state only one wins.
+   *
+   * @return the outcome, or {@code null} if there is no such copy
+   */
+  public StateChange updateBookState(int id, String expectedState, String state)
+  {
+    boolean[] applied = new boolean[1];
+    DTOBook book = books.computeIfPresent(id, (key, current) -> {
+      if (!current.getState().equalsIgnoreCase(expectedState))
+      {
+        return current;
+      }
+      applied[0] = true;
+      return current.toBuilder().setState(state).build();
+    });
+    return book == null ? null : new StateChange(book, applied[0]);
+  }
+
+  /**
+   * The copy after a conditional state change, and whether the change was
+   * made.
+   */
+  public record StateChange(DTOBook book, boolean applied)
+  {
+  }
+
+  // ---------------------------------------------------
+  // loans
+  // ---------------------------------------------------
+
+  /**
+   * @return the new loan, or {@code null} if there is no such copy
+   */
+  public DTOLoan createLoan(String borrowDate, String dueDate, String username,
+      int bookId)
+  {
+    DTOBook book = books.get(bookId);
+    if (book == null)
+    {
+      return null;
+    }
+    DTOLoan loan = DTOLoan.newBuilder().setId(nextLoanId.getAndIncrement())
+        .setBorrowDate(borrowDate).setDueDate(dueDate).setUsername(username)
+        .setBookId(bookId).build();
+    loans.put(loan.getId(), loan);
+    loanIdsByIsbn.computeIfAbsent(book.getIsbn(),
+        key -> new ConcurrentLinkedQueue<>()).add(loan.getId());
+    loanIdsByUsername.computeIfAbsent(username,
+        key -> new ConcurrentLinkedQueue<>()).add(loan.getId());
+    return loan;
+  }
+
+  /**
+   * Lends the first available copy of the ISBN unless the user already has
+   * an active loan for it. The check and the state change happen under one
+   * lock, so concurrent borrowers never get the same copy.
+   */
+  public BorrowResult borrowBook(String isbn, String username,
+      String borrowDate, String dueDate)
+  {
+    synchronized (borrowLock)
+    {
+      for (DTOLoan loan : loansByIsbn(isbn))
+      {
+        if (loan.getUsername().equals(username) && !loan.getIsReturned())
+        {
+          return new BorrowResult(null, BorrowBookFailure.ALREADY_BORROWED);
+        }
+      }
+      List<Integer> copies = bookIdsByIsbn.get(isbn);
+      if (copies == null || copies.isEmpty())
+      {
+        return new BorrowResult(null, BorrowBookFailure.NO_COPIES);
+      }
+      for (Integer id : copies)
+      {
+        // Conditional, as conditional UpdateBookState calls bypass the lock
+        if (updateBookState(id, AVAILABLE, BORROWED).applied())
+        {
+          return new BorrowResult(
+              createLoan(borrowDate, dueDate, username, id), null);
+        }
+      }
+      return new BorrowResult(null, BorrowBookFailure.NO_AVAILABLE_COPY);
+    }
+  }
+
+  /**
+   * The loan made by {@link #borrowBook}, or the reason no copy was lent.
+   */
+  public record BorrowResult(DTOLoan loan, BorrowBookFailure failure)
+  {
+  }
+
+  /**
+   * Replaces a loan, keeping its id, borrower and copy.
+   *
+   * @return the stored loan, or {@code null} if there is no such loan
+   */
+  public DTOLoan updateLoan(DTOLoan update)
+  {
+    return loans.computeIfPresent(update.getId(),
+        (key, loan) -> loan.toBuilder().setBorrowDate(update.getBorrowDate())
+            .setDueDate(update.getDueDate()).setIsReturned(update.getIsReturned())
+            .setNumberOfExtensions(update.getNumberOfExtensions()).build());
+  }
+
+  /**
+   * {@link #updateLoan} for every loan, or for none if any id is unknown.
+   *
+   * @return the stored loans in order, or {@code null} if a loan is unknown
+   */
+  public List<DTOLoan> updateLoans(List<DTOLoan> updates)
+  {
+    for (DTOLoan update : updates)
+    {
+      if (!loans.containsKey(update.getId()))
+      {
+        return null;
+      }
+    }
+    List<DTOLoan> result = new ArrayList<>();
+    for (DTOLoan update : updates)
+    {
+      result.add(updateLoan(update));
+    }
+    return result;
+  }
+
+  public DTOLoan loan(int id)
+  {
+    return loans.get(id);
+  }
+
+  /**
+   * @return the loans among the ids, in order; unknown ids are left out
+   */
+  public List<DTOLoan> loans(List<Integer> ids)
+  {
+    List<DTOLoan> result = new ArrayList<>();
+    for (Integer id : ids)
+    {
+      DTOLoan loan = loans.get(id);
+      if (loan != null)
+      {
+        result.add(loan);
+      }
+    }
+    return result;
+  }
+
+  public List<DTOLoan> loansByIsbn(String isbn)
+  {
+    return collectLoans(loanIdsByIsbn.get(isbn), false);
+  }
+
+  public List<DTOLoan> activeLoansByUsername(String username)
+  {
+    return collectLoans(loanIdsByUsername.get(username), true);
+  }
+
+  /**
+   * @return every unreturned loan, earliest due date first like the real
+   * server; due dates are ISO dates, so they sort as strings
+   */
+  public List<DTOLoan> activeLoans()
+  {
+    return loans.values().stream().filter(loan -> !loan.getIsReturned())
+        .sorted(Comparator.comparing(DTOLoan::getDueDate)
+            .thenComparingInt(DTOLoan::getId))
+        .toList();
+  }
+
+  private List<DTOLoan> collectLoans(Queue<Integer> ids, boolean activeOnly)
+  {
+    List<DTOLoan> result = new ArrayList<>();
+    if (ids == null)
+    {
+      return result;
+    }
+    for (Integer id : ids)
+    {
+      DTOLoan loan = loans.get(id);
+      if (!activeOnly || !loan.getIsReturned())
+      {
+        result.add(loan);
+      }
+    }
+    return result;
+  }
+
+  // ---------------------------------------------------
+  // reservations
+  // ---------------------------------------------------
+
+  /**
+   * @return the new reservation, or {@code null} if there is no such copy
+   */
+  public DTOReservation createReservation(String reservationDate,
+      String username, int bookId)
+  {
+    DTOBook book = books.get(bookId);
+    if (book == null)
+    {
+      return null;
+    }
+    DTOReservation reservation = DTOReservation.newBuilder()
+        .setId(nextReservationId.getAndIncrement())
+        .setReservationDate(reservationDate).setUsername(username)
+        .setBookId(bookId).build();
+    reservationsByIsbn.computeIfAbsent(book.getIsbn(),
+        key -> new ConcurrentLinkedQueue<>()).add(reservation);
+    return reservation;
+  }
+
+  public List<DTOReservation> reservationsByIsbn(String isbn)
+  {
+    Queue<DTOReservation> reservations = reservationsByIsbn.get(isbn);
+    return reservations == null ? List.of() : List.copyOf(reservations);
+  }
+
+  // ---------------------------------------------------
+  // users
+  // ---------------------------------------------------
+
+  public DTOUser user(String username)
+  {
+    return users.get(username);
+  }
+
+  /**
+   * @return {@code false} if the username is taken
+   */
+  public boolean addUser(DTOUser user)
+  {
+    return users.putIfAbsent(user.getUsername(), user) == null;
+  }
+
+  public Collection<String> usernames()
+  {
+    return users.keySet();
+  }
+}
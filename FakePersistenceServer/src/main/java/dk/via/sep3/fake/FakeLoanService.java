@@ -0,0 +1,198 @@
+package dk.via.sep3.fake;
+
+import dk.via.sep3.BorrowBookRequest;
+import dk.via.sep3.BorrowBookResponse;
+import dk.via.sep3.BorrowBooksRequest;
+import dk.via.sep3.BorrowBooksResponse;
+import dk.via.sep3.CreateLoanRequest;
+import dk.via.sep3.CreateLoanResponse;
+import dk.via.sep3.DTOLoan;
+import dk.via.sep3.ExtendLoanRequest;
+import dk.via.sep3.ExtendLoanResponse;
+import dk.via.sep3.ExtendLoansRequest;
+import dk.via.sep3.ExtendLoansResponse;
+import dk.via.sep3.GetActiveLoansByUsernameRequest;
+import dk.via.sep3.GetActiveLoansByUsernameResponse;
+import dk.via.sep3.GetLoanByIdRequest;
+import dk.via.sep3.GetLoanByIdResponse;
+import dk.via.sep3.GetLoansByIdsRequest;
+import dk.via.sep3.GetLoansByIdsResponse;
+import dk.via.sep3.GetLoansByISBNRequest;
+import dk.via.sep3.GetLoansByISBNResponse;
+import dk.via.sep3.LoanServiceGrpc;
+import dk.via.sep3.StreamActiveLoansRequest;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+
+import java.util.List;
+
+/**
+ * Loan service with the messages of the real persistence server.
+ */
+public class FakeLoanService extends LoanServiceGrpc.LoanServiceImplBase
+{
+  private final FakeDataset dataset;
+
+  public FakeLoanService(FakeDataset dataset)
+  {
+    this.dataset = dataset;
+  }
+
+  @Override public void createLoan(CreateLoanRequest request,
+      StreamObserver<CreateLoanResponse> responseObserver)
+  {
+    DTOLoan loan = dataset.createLoan(request.getBorrowDate(),
+        request.getDueDate(), request.getUsername(), request.getBookId());
+    CreateLoanResponse.Builder response = CreateLoanResponse.newBuilder();
+    if (loan == null)
+    {
+      response.setSuccess(false)
+          .setMessage("Error creating loan: Book not found");
+    }
+    else
+    {
+      response.setLoan(loan).setSuccess(true)
+          .setMessage("Loan created successfully.");
+    }
+    responseObserver.onNext(response.build());
+    responseObserver.onCompleted();
+  }
+
+  @Override public void borrowBook(BorrowBookRequest request,
+      StreamObserver<BorrowBookResponse> responseObserver)
+  {
+    responseObserver.onNext(borrow(request));
+    responseObserver.onCompleted();
+  }
+
+  @Override public void borrowBooks(BorrowBooksRequest request,
+      StreamObserver<BorrowBooksResponse> responseObserver)
+  {
+    BorrowBooksResponse.Builder response = BorrowBooksResponse.newBuilder();
+    for (BorrowBookRequest item : request.getItemsList())
+    {
+      response.addResults(borrow(item));
+    }
+    responseObserver.onNext(response.build());
+    responseObserver.onCompleted();
+  }
+
+  private BorrowBookResponse borrow(BorrowBookRequest request)
+  {
+    FakeDataset.BorrowResult result = dataset.borrowBook(request.getIsbn(),
+        request.getUsername(), request.getBorrowDate(), request.getDueDate());
+    BorrowBookResponse.Builder response = BorrowBookResponse.newBuilder();
+    if (result.loan() == null)
+    {
+      response.setSuccess(false).setFailure(result.failure())
+          .setMessage("Could not borrow book: " + result.failure());
+    }
+    else
+    {
+      response.setLoan(result.loan()).setSuccess(true)
+          .setMessage("Book borrowed successfully.");
+    }
+    return response.build();
+  }
+
+  @Override public void getLoansByISBN(GetLoansByISBNRequest request,
+      StreamObserver<GetLoansByISBNResponse> responseObserver)
+  {
+    responseObserver.onNext(GetLoansByISBNResponse.newBuilder()
+        .addAllLoans(dataset.loansByIsbn(request.getIsbn())).setSuccess(true)
+        .setMessage("Loans retrieved successfully.").build());
+    responseObserver.onCompleted();
+  }
+
+  @Override public void extendLoan(ExtendLoanRequest request,
+      StreamObserver<ExtendLoanResponse> responseObserver)
+  {
+    DTOLoan loan = dataset.updateLoan(request.getLoan());
+    ExtendLoanResponse.Builder response = ExtendLoanResponse.newBuilder();
+    if (loan == null)
+    {
+      response.setSuccess(false)
+          .setMessage("Error extending loan: Loan not found");
+    }
+    else
+    {
+      response.setLoan(loan).setSuccess(true)
+          .setMessage("Loan extended successfully.");
+    }
+    responseObserver.onNext(response.build());
+    responseObserver.onCompleted();
+  }
+
+  @Override public void extendLoans(ExtendLoansRequest request,
+      StreamObserver<ExtendLoansResponse> responseObserver)
+  {
+    List<DTOLoan> loans = dataset.updateLoans(request.getLoansList());
+    ExtendLoansResponse.Builder response = ExtendLoansResponse.newBuilder();
+    if (loans == null)
+    {
+      response.setSuccess(false)
+          .setMessage("Error extending loans: Loan not found");
+    }
+    else
+    {
+      response.addAllLoans(loans).setSuccess(true)
+          .setMessage("Loans extended successfully.");
+    }
+    responseObserver.onNext(response.build());
+    responseObserver.onCompleted();
+  }
+
+  @Override public void getLoanById(GetLoanByIdRequest request,
+      StreamObserver<GetLoanByIdResponse> responseObserver)
+  {
+    DTOLoan loan = dataset.loan(request.getId());
+    GetLoanByIdResponse.Builder response = GetLoanByIdResponse.newBuilder();
+    if (loan == null)
+    {
+      response.setSuccess(false).setMessage("Loan not found.");
+    }
+    else
+    {
+      response.setLoan(loan).setSuccess(true)
+          .setMessage("Loan retrieved successfully.");
+    }
+    responseObserver.onNext(response.build());
+    responseObserver.onCompleted();
+  }
+
+  @Override public void getLoansByIds(GetLoansByIdsRequest request,
+      StreamObserver<GetLoansByIdsResponse> responseObserver)
+  {
+    responseObserver.onNext(GetLoansByIdsResponse.newBuilder()
+        .addAllLoans(dataset.loans(request.getIdsList())).setSuccess(true)
+        .setMessage("Loans retrieved successfully.").build());
+    responseObserver.onCompleted();
+  }
+
+  @Override public void getActiveLoansByUsername(
+      GetActiveLoansByUsernameRequest request,
+      StreamObserver<GetActiveLoansByUsernameResponse> responseObserver)
+  {
+    responseObserver.onNext(GetActiveLoansByUsernameResponse.newBuilder()
+        .addAllActiveLoans(dataset.activeLoansByUsername(request.getUsername()))
+        .setSuccess(true).setMessage("Active loans retrieved successfully.")
+        .build());
+    responseObserver.onCompleted();
+  }
+
+  @Override public void streamActiveLoans(StreamActiveLoansRequest request,
+      StreamObserver<DTOLoan> responseObserver)
+  {
+    ServerCallStreamObserver<DTOLoan> call =
+        (ServerCallStreamObserver<DTOLoan>) responseObserver;
+    for (DTOLoan loan : dataset.activeLoans())
+    {
+      if (call.isCancelled())
+      {
+        return;
+      }
+      responseObserver.onNext(loan);
+    }
+    responseObserver.onCompleted();
+  }
+}
@@ -0,0 +1,136 @@
+package dk.via.sep3.fake;
+
+import io.grpc.Server;
+import io.grpc.ServerBuilder;
+import io.grpc.ServerInterceptors;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.health.v1.HealthCheckResponse.ServingStatus;
+import io.grpc.netty.shaded.io.grpc.netty.NettyServerBuilder;
+import io.grpc.protobuf.services.HealthStatusManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stand-in for the .NET persistence server, serving the book, loan, user and
+ * reservation services from a synthetic in-memory {@link FakeDataset}, plus
+ * the standard health service so several instances can stand in for
+ * load-balanced replicas.
+ * <p>
+ * Run it as a separate process and point a logic server's
+ * {@code grpc.server.port} at it, or start it on the in-process transport
+ * from a test or load driver in the same JVM:
+ * <pre>
+ * java -jar fake-persistence-server.jar fake.isbns=10000 fake.latency=3ms fake.error-rate=0.01
+ * </pre>
+ */
+public class FakePersistenceServer implements AutoCloseable
+{
+  private static final Logger logger = LoggerFactory.getLogger(
+      FakePersistenceServer.class);
+
+  private final FakeServerConfig config;
+  private final FakeDataset dataset;
+  private final HealthStatusManager health = new HealthStatusManager();
+  private Server server;
+
+  public FakePersistenceServer(FakeServerConfig config)
+  {
+    this.config = config;
+    this.dataset = new FakeDataset(config);
+  }
+
+  public static void main(String[] args) throws IOException, InterruptedException
+  {
+    Properties properties = new Properties();
+    properties.putAll(System.getProperties());
+    for (String arg : args)
+    {
+      int separator = arg.indexOf('=');
+      if (separator < 0)
+      {
+        throw new IllegalArgumentException("Expected key=value but got: " + arg);
+      }
+      properties.setProperty(arg.substring(0, separator),
+          arg.substring(separator + 1));
+    }
+    FakePersistenceServer server = new FakePersistenceServer(
+        FakeServerConfig.fromProperties(properties));
+    Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+    server.start().awaitTermination();
+  }
+
+  public FakePersistenceServer start() throws IOException
+  {
+    ServerBuilder<?> builder = config.getInProcessName() != null
+        ? InProcessServerBuilder.forName(config.getInProcessName())
+        : NettyServerBuilder.forPort(config.getPort());
+    FaultInjectionInterceptor faults = FaultInjectionInterceptor.from(config);
+    server = builder
+        .addService(ServerInterceptors.intercept(new FakeBookService(dataset), faults))
+        .addService(ServerInterceptors.intercept(new FakeLoanService(dataset), faults))
+        .addService(ServerInterceptors.intercept(new FakeUserService(dataset), faults))
+        .addService(ServerInterceptors.intercept(new FakeReservationService(dataset), faults))
+        .addService(health.getHealthService())
+        .build()
+        .start();
+    logger.info("Fake persistence server listening on {} with {} ISBNs x {} copies and {} users",
+        config.getInProcessName() != null ? "in-process:" + config.getInProcessName()
+            : "port " + server.getPort(),
+        config.getIsbns(), config.getCopiesPerIsbn(), config.getUsers());
+    return this;
+  }
+
+  /**
+   * @return the bound Netty port, useful when started on port 0
+   */
+  public int getPort()
+  {
+    return server.getPort();
+  }
+
+  public FakeDataset getDataset()
+  {
+    return dataset;
+  }
+
+  /**
+   * Reports the whole server as serving or not to health-checking clients,
+   * e.g. to take a replica out of rotation in a load test.
+   */
+  public void setServing(boolean serving)
+  {
+    health.setStatus(HealthStatusManager.SERVICE_NAME_ALL_SERVICES,
+        serving ? ServingStatus.SERVING : ServingStatus.NOT_SERVING);
+  }
+
+  public void awaitTermination() throws InterruptedException
+  {
+    server.awaitTermination();
+  }
+
+  @Override public void close()
+  {
+    if (server == null || server.isShutdown())
+    {
+      return;
+    }
+    health.enterTerminalState();
+    server.shutdown();
+    try
+    {
+      if (!server.awaitTermination(5, TimeUnit.SECONDS))
+      {
+        server.shutdownNow();
+      }
+    }
+    catch (InterruptedException e)
+    {
+      server.shutdownNow();
+      Thread.currentThread().interrupt();
+    }
+  }
+}
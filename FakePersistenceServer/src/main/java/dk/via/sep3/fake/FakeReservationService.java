@@ -0,0 +1,70 @@
+package dk.via.sep3.fake;
+
+import dk.via.sep3.CreateReservationRequest;
+import dk.via.sep3.CreateReservationResponse;
+import dk.via.sep3.DTOReservation;
+import dk.via.sep3.GetReservationCountByIsbnRequest;
+import dk.via.sep3.GetReservationCountByIsbnResponse;
+import dk.via.sep3.GetReservationsByIsbnRequest;
+import dk.via.sep3.GetReservationsByIsbnResponse;
+import dk.via.sep3.ReservationServiceGrpc;
+import io.grpc.stub.StreamObserver;
+
+/**
+ * Reservation service with the messages of the real persistence server.
+ */
+public class FakeReservationService
+    extends ReservationServiceGrpc.ReservationServiceImplBase
+{
+  private final FakeDataset dataset;
+
+  public FakeReservationService(FakeDataset dataset)
+  {
+    this.dataset = dataset;
+  }
+
+  @Override public void createReservation(CreateReservationRequest request,
+      StreamObserver<CreateReservationResponse> responseObserver)
+  {
+    DTOReservation reservation = dataset.createReservation(
+        request.getReservationDate(), request.getUsername(),
+        request.getBookId());
+    CreateReservationResponse.Builder response =
+        CreateReservationResponse.newBuilder();
+    if (reservation == null)
+    {
+      response.setSuccess(false)
+          .setMessage("Error creating reservation: Book not found");
+    }
+    else
+    {
+      response.setReservation(reservation).setSuccess(true)
+          .setMessage("Reservation created successfully.");
+    }
+    responseObserver.onNext(response.build());
+    responseObserver.onCompleted();
+  }
+
+  @Override public void getReservationCountByIsbn(
+      GetReservationCountByIsbnRequest request,
+      StreamObserver<GetReservationCountByIsbnResponse> responseObserver)
+  {
+    responseObserver.onNext(GetReservationCountByIsbnResponse.newBuilder()
+        .setNumberOfReservations(
+            dataset.reservationsByIsbn(request.getIsbn()).size())
+        .setSuccess(true)
+        .setMessage("Reservation count retrieved successfully.").build());
+    responseObserver.onCompleted();
+  }
+
+  @Override public void getReservationsByIsbn(
+      GetReservationsByIsbnRequest request,
+      StreamObserver<GetReservationsByIsbnResponse> responseObserver)
+  {
+    responseObserver.onNext(GetReservationsByIsbnResponse.newBuilder()
+        .addAllReservations(dataset.reservationsByIsbn(request.getIsbn()))
+        .setSuccess(true).setMessage("Reservations retrieved successfully.")
+        .build());
+    responseObserver.onCompleted();
+  }
+}
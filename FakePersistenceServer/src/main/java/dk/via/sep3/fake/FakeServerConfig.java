@@ -0,0 +1,238 @@
+package dk.via.sep3.fake;
+
+import io.grpc.Status;
+
+import java.time.Duration;
+import java.util.Properties;
+
+/**
+ * Settings for {@link FakePersistenceServer}.
+ * <p>
+ * Every setting can be given as a {@code fake.*} system property or as a
+ * {@code key=value} argument to {@link FakePersistenceServer#main(String[])},
+ * e.g. {@code fake.latency=5ms}. Durations use the {@code ms}/{@code s} suffix
+ * or are read as milliseconds.
+ */
+public class FakeServerConfig
+{
+  /** Netty port, ignored when {@link #inProcessName} is set. */
+  private int port = 5020;
+  /** Serves on the in-process transport under this name instead of Netty. */
+  private String inProcessName;
+
+  /** Synthetic dataset. The same seed always produces the same data. */
+  private long seed = 42;
+  private int isbns = 1000;
+  private int copiesPerIsbn = 3;
+  private int users = 1000;
+  /** Share of copies that start out borrowed and reserved. */
+  private double borrowedRatio = 0.2;
+  private double reservedRatio = 0.05;
+
+  /** Faults injected before every call. */
+  private Duration latency = Duration.ZERO;
+  private Duration jitter = Duration.ZERO;
+  /** Share of calls delayed by {@code slowLatency} on top, for a long tail. */
+  private double slowRatio;
+  private Duration slowLatency = Duration.ZERO;
+  private double errorRate;
+  private Status.Code errorCode = Status.Code.UNAVAILABLE;
+
+  public static FakeServerConfig fromProperties(Properties properties)
+  {
+    FakeServerConfig config = new FakeServerConfig();
+    config.port = Integer.parseInt(
+        properties.getProperty("fake.port", String.valueOf(config.port)));
+    config.inProcessName = properties.getProperty("fake.in-process-name");
+    config.seed = Long.parseLong(
+        properties.getProperty("fake.seed", String.valueOf(config.seed)));
+    config.isbns = Integer.parseInt(
+        properties.getProperty("fake.isbns", String.valueOf(config.isbns)));
+    config.copiesPerIsbn = Integer.parseInt(
+        properties.getProperty("fake.copies-per-isbn",
+            String.valueOf(config.copiesPerIsbn)));
+    config.users = Integer.parseInt(
+        properties.getProperty("fake.users", String.valueOf(config.users)));
+    config.borrowedRatio = Double.parseDouble(
+        properties.getProperty("fake.borrowed-ratio",
+            String.valueOf(config.borrowedRatio)));
+    config.reservedRatio = Double.parseDouble(
+        properties.getProperty("fake.reserved-ratio",
+            String.valueOf(config.reservedRatio)));
+    config.latency = parseDuration(properties.getProperty("fake.latency"),
+        config.latency);
+    config.jitter = parseDuration(properties.getProperty("fake.jitter"),
+        config.jitter);
+    config.slowRatio = Double.parseDouble(
+        properties.getProperty("fake.slow-ratio",
+            String.valueOf(config.slowRatio)));
+    config.slowLatency = parseDuration(
+        properties.getProperty("fake.slow-latency"), config.slowLatency);
+    config.errorRate = Double.parseDouble(
+        properties.getProperty("fake.error-rate",
+            String.valueOf(config.errorRate)));
+    config.errorCode = Status.Code.valueOf(
+        properties.getProperty("fake.error-code", config.errorCode.name()));
+    return config;
+  }
+
+  static Duration parseDuration(String value, Duration fallback)
+  {
+    if (value == null || value.isBlank())
+    {
+      return fallback;
+    }
+    String trimmed = value.trim();
+    if (trimmed.endsWith("ms"))
+    {
+      return Duration.ofMillis(
+          Long.parseLong(trimmed.substring(0, trimmed.length() - 2)));
+    }
+    if (trimmed.endsWith("s"))
+    {
+      return Duration.ofSeconds(
+          Long.parseLong(trimmed.substring(0, trimmed.length() - 1)));
+    }
+    return Duration.ofMillis(Long.parseLong(trimmed));
+  }
+
+  public int getPort()
+  {
+    return port;
+  }
+
+  public void setPort(int port)
+  {
+    this.port = port;
+  }
+
+  public String getInProcessName()
+  {
+    return inProcessName;
+  }
+
+  public void setInProcessName(String inProcessName)
+  {
+    this.inProcessName = inProcessName;
+  }
+
+  public long getSeed()
+  {
+    return seed;
+  }
+
+  public void setSeed(long seed)
+  {
+    this.seed = seed;
+  }
+
+  public int getIsbns()
+  {
+    return isbns;
+  }
+
+  public void setIsbns(int isbns)
+  {
+    this.isbns = isbns;
+  }
+
+  public int getCopiesPerIsbn()
+  {
+    return copiesPerIsbn;
+  }
+
+  public void setCopiesPerIsbn(int copiesPerIsbn)
+  {
+    this.copiesPerIsbn = copiesPerIsbn;
+  }
+
+  public int getUsers()
+  {
+    return users;
+  }
+
+  public void setUsers(int users)
+  {
+    this.users = users;
+  }
+
+  public double getBorrowedRatio()
+  {
+    return borrowedRatio;
+  }
+
+  public void setBorrowedRatio(double borrowedRatio)
+  {
+    this.borrowedRatio = borrowedRatio;
+  }
+
+  public double getReservedRatio()
+  {
+    return reservedRatio;
+  }
+
+  public void setReservedRatio(double reservedRatio)
+  {
+    this.reservedRatio = reservedRatio;
+  }
+
+  public Duration getLatency()
+  {
+    return latency;
+  }
+
+  public void setLatency(Duration latency)
+  {
+    this.latency = latency;
+  }
+
+  public Duration getJitter()
+  {
+    return jitter;
+  }
+
+  public void setJitter(Duration jitter)
+  {
+    this.jitter = jitter;
+  }
+
+  public double getSlowRatio()
+  {
+    return slowRatio;
+  }
+
+  public void setSlowRatio(double slowRatio)
+  {
+    this.slowRatio = slowRatio;
+  }
+
+  public Duration getSlowLatency()
+  {
+    return slowLatency;
+  }
+
+  public void setSlowLatency(Duration slowLatency)
+  {
+    this.slowLatency = slowLatency;
+  }
+
+  public double getErrorRate()
+  {
+    return errorRate;
+  }
+
+  public void setErrorRate(double errorRate)
+  {
+    this.errorRate = errorRate;
+  }
+
+  public Status.Code getErrorCode()
+  {
+    return errorCode;
+  }
+
+  public void setErrorCode(Status.Code errorCode)
+  {
+    this.errorCode = errorCode;
+  }
+}
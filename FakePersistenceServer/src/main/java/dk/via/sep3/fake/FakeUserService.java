@@ -0,0 +1,81 @@
+package dk.via.sep3.fake;
+
+import dk.via.sep3.CreateUserRequest;
+import dk.via.sep3.CreateUserResponse;
+import dk.via.sep3.DTOUser;
+import dk.via.sep3.DTOUsername;
+import dk.via.sep3.GetUserByUsernameRequest;
+import dk.via.sep3.GetUserByUsernameResponse;
+import dk.via.sep3.ListUsernamesRequest;
+import dk.via.sep3.UserServiceGrpc;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+
+/**
+ * User service with the messages of the real persistence server. Generated
+ * users all log in with {@link FakeDataset#PASSWORD}.
+ */
+public class FakeUserService extends UserServiceGrpc.UserServiceImplBase
+{
+  private final FakeDataset dataset;
+
+  public FakeUserService(FakeDataset dataset)
+  {
+    this.dataset = dataset;
+  }
+
+  @Override public void getUserByUsername(GetUserByUsernameRequest request,
+      StreamObserver<GetUserByUsernameResponse> responseObserver)
+  {
+    DTOUser user = dataset.user(request.getUsername());
+    GetUserByUsernameResponse.Builder response =
+        GetUserByUsernameResponse.newBuilder();
+    if (user == null)
+    {
+      response.setSuccess(false).setMessage("User not found.");
+    }
+    else
+    {
+      response.setUser(user).setSuccess(true)
+          .setMessage("User retrieved successfully.");
+    }
+    responseObserver.onNext(response.build());
+    responseObserver.onCompleted();
+  }
+
+  @Override public void createUser(CreateUserRequest request,
+      StreamObserver<CreateUserResponse> responseObserver)
+  {
+    DTOUser user = request.getUser();
+    CreateUserResponse.Builder response = CreateUserResponse.newBuilder();
+    if (dataset.addUser(user))
+    {
+      response.setUser(DTOUser.newBuilder().setUsername(user.getUsername()))
+          .setSuccess(true).setMessage("User created successfully.");
+    }
+    else
+    {
+      response.setSuccess(false).setConflict(true)
+          .setMessage("Username already exists.");
+    }
+    responseObserver.onNext(response.build());
+    responseObserver.onCompleted();
+  }
+
+  @Override public void listUsernames(ListUsernamesRequest request,
+      StreamObserver<DTOUsername> responseObserver)
+  {
+    ServerCallStreamObserver<DTOUsername> call =
+        (ServerCallStreamObserver<DTOUsername>) responseObserver;
+    for (String username : dataset.usernames())
+    {
+      if (call.isCancelled())
+      {
+        return;
+      }
+      responseObserver.onNext(
+          DTOUsername.newBuilder().setUsername(username).build());
+    }
+    responseObserver.onCompleted();
+  }
+}
@@ -0,0 +1,98 @@
+package dk.via.sep3.fake;
+
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Delays every call by a fixed latency plus a random jitter, delays a share
+ * of the calls further to give the latency distribution a long tail, then
+ * fails a share of the calls with the configured status.
+ * <p>
+ * The delay blocks the call's executor thread, which is the default cached
+ * pool, so concurrent calls are delayed in parallel just as a slow database
+ * would delay them. Streaming calls are delayed once, before the first
+ * message.
+ */
+public class FaultInjectionInterceptor implements ServerInterceptor
+{
+  private final long latencyNanos;
+  private final long jitterNanos;
+  private final double slowRatio;
+  private final long slowLatencyNanos;
+  private final double errorRate;
+  private final Status errorStatus;
+
+  public FaultInjectionInterceptor(Duration latency, Duration jitter,
+      double errorRate, Status.Code errorCode)
+  {
+    this(latency, jitter, 0, Duration.ZERO, errorRate, errorCode);
+  }
+
+  public FaultInjectionInterceptor(Duration latency, Duration jitter,
+      double slowRatio, Duration slowLatency, double errorRate,
+      Status.Code errorCode)
+  {
+    if (errorRate < 0 || errorRate > 1)
+    {
+      throw new IllegalArgumentException("errorRate must be between 0 and 1");
+    }
+    if (slowRatio < 0 || slowRatio > 1)
+    {
+      throw new IllegalArgumentException("slowRatio must be between 0 and 1");
+    }
+    this.latencyNanos = latency.toNanos();
+    this.jitterNanos = jitter.toNanos();
+    this.slowRatio = slowRatio;
+    this.slowLatencyNanos = slowLatency.toNanos();
+    this.errorRate = errorRate;
+    this.errorStatus = Status.fromCode(errorCode)
+        .withDescription("Injected by the fake persistence server");
+  }
+
+  public static FaultInjectionInterceptor from(FakeServerConfig config)
+  {
+    return new FaultInjectionInterceptor(config.getLatency(),
+        config.getJitter(), config.getSlowRatio(), config.getSlowLatency(),
+        config.getErrorRate(), config.getErrorCode());
+  }
+
+  @Override public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(
+      ServerCall<ReqT, RespT> call, Metadata headers,
+      ServerCallHandler<ReqT, RespT> next)
+  {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    long delay = latencyNanos
+        + (jitterNanos > 0 ? random.nextLong(jitterNanos) : 0);
+    if (slowRatio > 0 && random.nextDouble() < slowRatio)
+    {
+      delay += slowLatencyNanos;
+    }
+    if (delay > 0)
+    {
+      try
+      {
+        TimeUnit.NANOSECONDS.sleep(delay);
+      }
+      catch (InterruptedException e)
+      {
+        Thread.currentThread().interrupt();
+        call.close(Status.CANCELLED.withDescription("Interrupted"),
+            new Metadata());
+        return new ServerCall.Listener<>() { };
+      }
+    }
+    if (errorRate > 0 && random.nextDouble() < errorRate)
+    {
+      call.close(errorStatus, new Metadata());
+      return new ServerCall.Listener<>() { };
+    }
+    return next.startCall(call, headers);
+  }
+}
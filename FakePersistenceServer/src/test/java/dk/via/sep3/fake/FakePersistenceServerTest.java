@@ -0,0 +1,499 @@
+package dk.via.sep3.fake;
+
+import dk.via.sep3.BookServiceGrpc;
+import dk.via.sep3.BorrowBookFailure;
+import dk.via.sep3.BorrowBookRequest;
+import dk.via.sep3.BorrowBookResponse;
+import dk.via.sep3.BorrowBooksRequest;
+import dk.via.sep3.BorrowBooksResponse;
+import dk.via.sep3.CreateLoanRequest;
+import dk.via.sep3.CreateReservationRequest;
+import dk.via.sep3.CreateUserRequest;
+import dk.via.sep3.DTOBook;
+import dk.via.sep3.DTOLoan;
+import dk.via.sep3.DTOUser;
+import dk.via.sep3.ExtendLoanRequest;
+import dk.via.sep3.ExtendLoansRequest;
+import dk.via.sep3.ExtendLoansResponse;
+import dk.via.sep3.GetActiveLoansByUsernameRequest;
+import dk.via.sep3.GetAllBooksRequest;
+import dk.via.sep3.GetAllBooksResponse;
+import dk.via.sep3.GetAvailabilitySummaryRequest;
+import dk.via.sep3.GetAvailabilitySummaryResponse;
+import dk.via.sep3.GetBookByIdRequest;
+import dk.via.sep3.GetLoanByIdRequest;
+import dk.via.sep3.GetLoansByIdsRequest;
+import dk.via.sep3.GetReservationCountByIsbnRequest;
+import dk.via.sep3.GetUserByUsernameRequest;
+import dk.via.sep3.GetUserByUsernameResponse;
+import dk.via.sep3.ListUsernamesRequest;
+import dk.via.sep3.LoanServiceGrpc;
+import dk.via.sep3.ReservationServiceGrpc;
+import dk.via.sep3.StreamActiveLoansRequest;
+import dk.via.sep3.UpdateBookStateRequest;
+import dk.via.sep3.UpdateBookStateResponse;
+import dk.via.sep3.UserServiceGrpc;
+import io.grpc.ManagedChannel;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.health.v1.HealthCheckRequest;
+import io.grpc.health.v1.HealthCheckResponse;
+import io.grpc.health.v1.HealthGrpc;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FakePersistenceServerTest {
+
+  private FakePersistenceServer server;
+  private ManagedChannel channel;
+
+  @AfterEach
+  void tearDown() {
+    if (channel != null) {
+      channel.shutdownNow();
+    }
+    if (server != null) {
+      server.close();
+    }
+  }
+
+  private FakeServerConfig config() {
+    FakeServerConfig config = new FakeServerConfig();
+    config.setInProcessName("fake-" + System.nanoTime());
+    config.setIsbns(20);
+    config.setCopiesPerIsbn(2);
+    config.setUsers(10);
+    return config;
+  }
+
+  private void start(FakeServerConfig config) throws Exception {
+    server = new FakePersistenceServer(config).start();
+    channel = InProcessChannelBuilder.forName(config.getInProcessName())
+        .directExecutor().build();
+  }
+
+  // ---------------------------------------------------
+  // dataset
+  // ---------------------------------------------------
+
+  @Test
+  void dataset_sameSeed_generatesSameCatalog() {
+    FakeServerConfig config = config();
+
+    List<DTOBook> first = new FakeDataset(config).booksInIsbnOrder();
+    List<DTOBook> second = new FakeDataset(config).booksInIsbnOrder();
+
+    assertEquals(40, first.size());
+    assertEquals(first, second);
+  }
+
+  // ---------------------------------------------------
+  // BookService
+  // ---------------------------------------------------
+
+  @Test
+  void getAllBooks_paged_countsIsbnsAndReturnsCursor() throws Exception {
+    start(config());
+    BookServiceGrpc.BookServiceBlockingStub books =
+        BookServiceGrpc.newBlockingStub(channel);
+
+    GetAllBooksResponse first = books.getAllBooks(
+        GetAllBooksRequest.newBuilder().setLimit(3).build());
+    GetAllBooksResponse second = books.getAllBooks(GetAllBooksRequest
+        .newBuilder().setLimit(3).setCursor(first.getNextCursor()).build());
+
+    assertTrue(first.getSuccess());
+    assertEquals(6, first.getBooksCount());
+    assertEquals(first.getBooks(5).getIsbn(), first.getNextCursor());
+    assertTrue(second.getBooks(0).getIsbn().compareTo(first.getNextCursor()) > 0);
+  }
+
+  @Test
+  void streamAllBooks_filteredByState_streamsOnlyMatchingCopies() throws Exception {
+    start(config());
+
+    List<DTOBook> streamed = new ArrayList<>();
+    BookServiceGrpc.newBlockingStub(channel).streamAllBooks(
+        GetAllBooksRequest.newBuilder().setState("available").build())
+        .forEachRemaining(streamed::add);
+
+    assertFalse(streamed.isEmpty());
+    assertTrue(streamed.stream()
+        .allMatch(book -> book.getState().equals(FakeDataset.AVAILABLE)));
+  }
+
+  @Test
+  void updateBookState_changesStateAndUnknownIdFails() throws Exception {
+    start(config());
+    BookServiceGrpc.BookServiceBlockingStub books =
+        BookServiceGrpc.newBlockingStub(channel);
+
+    books.updateBookState(UpdateBookStateRequest.newBuilder().setId(1)
+        .setState(FakeDataset.BORROWED).build());
+
+    assertEquals(FakeDataset.BORROWED, books.getBookById(
+        GetBookByIdRequest.newBuilder().setId(1).build()).getBook().getState());
+    assertFalse(books.updateBookState(UpdateBookStateRequest.newBuilder()
+        .setId(999).setState(FakeDataset.BORROWED).build()).getSuccess());
+  }
+
+  @Test
+  void updateBookState_withExpectedState_onlyOneOfTwoRacersWins() throws Exception {
+    FakeServerConfig config = config();
+    config.setBorrowedRatio(0);
+    config.setReservedRatio(0);
+    start(config);
+    BookServiceGrpc.BookServiceBlockingStub books =
+        BookServiceGrpc.newBlockingStub(channel);
+    UpdateBookStateRequest claim = UpdateBookStateRequest.newBuilder().setId(1)
+        .setExpectedState(FakeDataset.AVAILABLE).setState(FakeDataset.BORROWED)
+        .build();
+
+    UpdateBookStateResponse first = books.updateBookState(claim);
+    UpdateBookStateResponse second = books.updateBookState(claim);
+
+    assertTrue(first.getSuccess());
+    assertFalse(first.getConflict());
+    assertFalse(second.getSuccess());
+    assertTrue(second.getConflict());
+    assertEquals(FakeDataset.BORROWED, second.getBook().getState());
+    assertFalse(books.updateBookState(claim.toBuilder().setId(999).build())
+        .getConflict());
+  }
+
+  @Test
+  void getAvailabilitySummary_countsCopiesPerState() throws Exception {
+    FakeServerConfig config = config();
+    config.setBorrowedRatio(0);
+    config.setReservedRatio(0);
+    start(config);
+    BookServiceGrpc.BookServiceBlockingStub books =
+        BookServiceGrpc.newBlockingStub(channel);
+    String isbn = books.getBookById(GetBookByIdRequest.newBuilder().setId(1)
+        .build()).getBook().getIsbn();
+    GetAvailabilitySummaryRequest request = GetAvailabilitySummaryRequest
+        .newBuilder().setIsbn(isbn).build();
+
+    GetAvailabilitySummaryResponse before = books.getAvailabilitySummary(request);
+    books.updateBookState(UpdateBookStateRequest.newBuilder()
+        .setId(before.getAvailableBookId()).setState(FakeDataset.BORROWED)
+        .build());
+    GetAvailabilitySummaryResponse after = books.getAvailabilitySummary(request);
+
+    assertTrue(before.getSuccess());
+    assertEquals(2, before.getTotal());
+    assertEquals(2, before.getAvailable());
+    assertEquals(1, after.getAvailable());
+    assertEquals(1, after.getBorrowed());
+    assertNotEquals(before.getAvailableBookId(), after.getAvailableBookId());
+    assertFalse(books.getAvailabilitySummary(request.toBuilder()
+        .setIsbn("unknown").build()).getSuccess());
+  }
+
+  // ---------------------------------------------------
+  // LoanService and ReservationService
+  // ---------------------------------------------------
+
+  @Test
+  void createAndExtendLoan_showsUpAsActiveLoan() throws Exception {
+    start(config());
+    LoanServiceGrpc.LoanServiceBlockingStub loans =
+        LoanServiceGrpc.newBlockingStub(channel);
+
+    DTOLoan loan = loans.createLoan(CreateLoanRequest.newBuilder()
+        .setBorrowDate("2025-01-01").setDueDate("2025-01-31")
+        .setUsername("newcomer").setBookId(1).build()).getLoan();
+    loans.extendLoan(ExtendLoanRequest.newBuilder().setLoan(loan.toBuilder()
+        .setDueDate("2025-02-28").setNumberOfExtensions(1)).build());
+
+    DTOLoan stored = loans.getLoanById(
+        GetLoanByIdRequest.newBuilder().setId(loan.getId()).build()).getLoan();
+    assertEquals("2025-02-28", stored.getDueDate());
+    assertEquals(List.of(stored), loans.getActiveLoansByUsername(
+        GetActiveLoansByUsernameRequest.newBuilder().setUsername("newcomer")
+            .build()).getActiveLoansList());
+  }
+
+  @Test
+  void streamActiveLoans_leavesOutReturnedLoansAndSortsByDueDate() throws Exception {
+    start(config());
+    LoanServiceGrpc.LoanServiceBlockingStub loans =
+        LoanServiceGrpc.newBlockingStub(channel);
+    DTOLoan late = loans.createLoan(CreateLoanRequest.newBuilder()
+        .setBorrowDate("2025-01-01").setDueDate("2099-12-31")
+        .setUsername("newcomer").setBookId(1).build()).getLoan();
+    DTOLoan returned = loans.createLoan(CreateLoanRequest.newBuilder()
+        .setBorrowDate("2025-01-01").setDueDate("2025-01-31")
+        .setUsername("newcomer").setBookId(2).build()).getLoan();
+    loans.extendLoan(ExtendLoanRequest.newBuilder()
+        .setLoan(returned.toBuilder().setIsReturned(true)).build());
+
+    List<DTOLoan> streamed = new ArrayList<>();
+    loans.streamActiveLoans(StreamActiveLoansRequest.getDefaultInstance())
+        .forEachRemaining(streamed::add);
+
+    assertEquals(late, streamed.get(streamed.size() - 1));
+    assertTrue(streamed.stream().noneMatch(DTOLoan::getIsReturned));
+    assertTrue(streamed.stream().noneMatch(loan -> loan.getId() == returned.getId()));
+    for (int i = 1; i < streamed.size(); i++) {
+      assertTrue(streamed.get(i - 1).getDueDate()
+          .compareTo(streamed.get(i).getDueDate()) <= 0);
+    }
+  }
+
+  @Test
+  void borrowBook_lendsEachCopyOnceUnderContention() throws Exception {
+    FakeServerConfig config = config();
+    config.setBorrowedRatio(0);
+    config.setReservedRatio(0);
+    start(config);
+    LoanServiceGrpc.LoanServiceBlockingStub loans =
+        LoanServiceGrpc.newBlockingStub(channel);
+    String isbn = BookServiceGrpc.newBlockingStub(channel)
+        .getBookById(GetBookByIdRequest.newBuilder().setId(1).build())
+        .getBook().getIsbn();
+
+    ExecutorService borrowers = Executors.newFixedThreadPool(8);
+    Set<Integer> lentCopies = ConcurrentHashMap.newKeySet();
+    List<Future<BorrowBookResponse>> responses = new ArrayList<>();
+    try {
+      for (int i = 0; i < 8; i++) {
+        String username = "borrower" + i;
+        responses.add(borrowers.submit(() -> loans.borrowBook(
+            BorrowBookRequest.newBuilder().setIsbn(isbn).setUsername(username)
+                .setBorrowDate("2025-01-01").setDueDate("2025-01-31").build())));
+      }
+      int failures = 0;
+      for (Future<BorrowBookResponse> response : responses) {
+        BorrowBookResponse borrowed = response.get();
+        if (borrowed.getSuccess()) {
+          assertTrue(lentCopies.add(borrowed.getLoan().getBookId()));
+        } else {
+          assertEquals(BorrowBookFailure.NO_AVAILABLE_COPY, borrowed.getFailure());
+          failures++;
+        }
+      }
+      assertEquals(2, lentCopies.size());
+      assertEquals(6, failures);
+    } finally {
+      borrowers.shutdownNow();
+    }
+  }
+
+  @Test
+  void borrowBook_reportsDuplicateAndUnknownIsbn() throws Exception {
+    start(config());
+    LoanServiceGrpc.LoanServiceBlockingStub loans =
+        LoanServiceGrpc.newBlockingStub(channel);
+    DTOLoan loan = loans.createLoan(CreateLoanRequest.newBuilder()
+        .setBorrowDate("2025-01-01").setDueDate("2025-01-31")
+        .setUsername("newcomer").setBookId(1).build()).getLoan();
+    String isbn = BookServiceGrpc.newBlockingStub(channel)
+        .getBookById(GetBookByIdRequest.newBuilder().setId(loan.getBookId()).build())
+        .getBook().getIsbn();
+
+    BorrowBookResponse duplicate = loans.borrowBook(BorrowBookRequest.newBuilder()
+        .setIsbn(isbn).setUsername("newcomer").build());
+    BorrowBookResponse unknown = loans.borrowBook(BorrowBookRequest.newBuilder()
+        .setIsbn("no-such-isbn").setUsername("newcomer").build());
+
+    assertEquals(BorrowBookFailure.ALREADY_BORROWED, duplicate.getFailure());
+    assertEquals(BorrowBookFailure.NO_COPIES, unknown.getFailure());
+  }
+
+  @Test
+  void borrowBooks_answersEachItemInOrder() throws Exception {
+    FakeServerConfig config = config();
+    config.setBorrowedRatio(0);
+    config.setReservedRatio(0);
+    start(config);
+    LoanServiceGrpc.LoanServiceBlockingStub loans =
+        LoanServiceGrpc.newBlockingStub(channel);
+    String isbn = BookServiceGrpc.newBlockingStub(channel)
+        .getBookById(GetBookByIdRequest.newBuilder().setId(1).build())
+        .getBook().getIsbn();
+    BorrowBookRequest item = BorrowBookRequest.newBuilder().setIsbn(isbn)
+        .setUsername("newcomer").setBorrowDate("2025-01-01")
+        .setDueDate("2025-01-31").build();
+
+    BorrowBooksResponse response = loans.borrowBooks(BorrowBooksRequest
+        .newBuilder().addItems(item).addItems(item)
+        .addItems(item.toBuilder().setIsbn("no-such-isbn")).build());
+
+    assertEquals(3, response.getResultsCount());
+    assertTrue(response.getResults(0).getSuccess());
+    assertEquals(BorrowBookFailure.ALREADY_BORROWED,
+        response.getResults(1).getFailure());
+    assertEquals(BorrowBookFailure.NO_COPIES,
+        response.getResults(2).getFailure());
+  }
+
+  @Test
+  void getLoansByIdsAndExtendLoans_allOrNothing() throws Exception {
+    start(config());
+    LoanServiceGrpc.LoanServiceBlockingStub loans =
+        LoanServiceGrpc.newBlockingStub(channel);
+    CreateLoanRequest create = CreateLoanRequest.newBuilder()
+        .setBorrowDate("2025-01-01").setDueDate("2025-01-31")
+        .setUsername("newcomer").setBookId(1).build();
+    DTOLoan first = loans.createLoan(create).getLoan();
+    DTOLoan second = loans.createLoan(create.toBuilder().setBookId(2).build())
+        .getLoan();
+
+    List<DTOLoan> fetched = loans.getLoansByIds(GetLoansByIdsRequest
+        .newBuilder().addIds(first.getId()).addIds(-1).addIds(second.getId())
+        .build()).getLoansList();
+    ExtendLoansResponse rejected = loans.extendLoans(ExtendLoansRequest
+        .newBuilder().addLoans(first.toBuilder().setDueDate("2025-03-01"))
+        .addLoans(DTOLoan.newBuilder().setId(-1)).build());
+    ExtendLoansResponse extended = loans.extendLoans(ExtendLoansRequest
+        .newBuilder()
+        .addLoans(first.toBuilder().setDueDate("2025-03-01").setNumberOfExtensions(1))
+        .addLoans(second.toBuilder().setDueDate("2025-03-01").setNumberOfExtensions(1))
+        .build());
+
+    assertEquals(List.of(first, second), fetched);
+    assertFalse(rejected.getSuccess());
+    assertTrue(extended.getSuccess());
+    assertEquals(2, extended.getLoansCount());
+    assertEquals("2025-03-01", loans.getLoanById(GetLoanByIdRequest
+        .newBuilder().setId(second.getId()).build()).getLoan().getDueDate());
+  }
+
+  @Test
+  void createReservation_countsPerIsbn() throws Exception {
+    start(config());
+    String isbn = server.getDataset().book(1).getIsbn();
+    ReservationServiceGrpc.ReservationServiceBlockingStub reservations =
+        ReservationServiceGrpc.newBlockingStub(channel);
+    GetReservationCountByIsbnRequest count =
+        GetReservationCountByIsbnRequest.newBuilder().setIsbn(isbn).build();
+    int before = reservations.getReservationCountByIsbn(count)
+        .getNumberOfReservations();
+
+    reservations.createReservation(CreateReservationRequest.newBuilder()
+        .setReservationDate("2025-01-01").setUsername("user1").setBookId(1)
+        .build());
+
+    assertEquals(before + 1, reservations.getReservationCountByIsbn(count)
+        .getNumberOfReservations());
+  }
+
+  // ---------------------------------------------------
+  // UserService
+  // ---------------------------------------------------
+
+  @Test
+  void users_generatedWithSharedPasswordAndListed() throws Exception {
+    start(config());
+    UserServiceGrpc.UserServiceBlockingStub users =
+        UserServiceGrpc.newBlockingStub(channel);
+
+    GetUserByUsernameResponse found = users.getUserByUsername(
+        GetUserByUsernameRequest.newBuilder().setUsername("user3").build());
+    GetUserByUsernameResponse missing = users.getUserByUsername(
+        GetUserByUsernameRequest.newBuilder().setUsername("nobody").build());
+    List<String> usernames = new ArrayList<>();
+    users.listUsernames(ListUsernamesRequest.getDefaultInstance())
+        .forEachRemaining(name -> usernames.add(name.getUsername()));
+
+    assertEquals(FakeDataset.PASSWORD_HASH, found.getUser().getPassword());
+    assertFalse(missing.getSuccess());
+    assertEquals("User not found.", missing.getMessage());
+    assertEquals(10, usernames.size());
+  }
+
+  @Test
+  void createUser_duplicateUsername_fails() throws Exception {
+    start(config());
+    UserServiceGrpc.UserServiceBlockingStub users =
+        UserServiceGrpc.newBlockingStub(channel);
+    CreateUserRequest request = CreateUserRequest.newBuilder()
+        .setUser(DTOUser.newBuilder().setUsername("newcomer")).build();
+
+    assertTrue(users.createUser(request).getSuccess());
+    assertFalse(users.createUser(request).getSuccess());
+  }
+
+  // ---------------------------------------------------
+  // health
+  // ---------------------------------------------------
+
+  @Test
+  void health_reportsServingUntilTakenOutOfRotation() throws Exception {
+    start(config());
+    HealthGrpc.HealthBlockingStub health = HealthGrpc.newBlockingStub(channel);
+
+    assertEquals(HealthCheckResponse.ServingStatus.SERVING,
+        health.check(HealthCheckRequest.getDefaultInstance()).getStatus());
+
+    server.setServing(false);
+    assertEquals(HealthCheckResponse.ServingStatus.NOT_SERVING,
+        health.check(HealthCheckRequest.getDefaultInstance()).getStatus());
+  }
+
+  // ---------------------------------------------------
+  // fault injection
+  // ---------------------------------------------------
+
+  @Test
+  void errorRateOne_failsEveryCallWithConfiguredStatus() throws Exception {
+    FakeServerConfig config = config();
+    config.setErrorRate(1);
+    config.setErrorCode(Status.Code.RESOURCE_EXHAUSTED);
+    start(config);
+
+    StatusRuntimeException ex = assertThrows(StatusRuntimeException.class,
+        () -> BookServiceGrpc.newBlockingStub(channel)
+            .getBookById(GetBookByIdRequest.newBuilder().setId(1).build()));
+
+    assertEquals(Status.Code.RESOURCE_EXHAUSTED, ex.getStatus().getCode());
+  }
+
+  @Test
+  void latency_delaysEveryCall() throws Exception {
+    FakeServerConfig config = config();
+    config.setLatency(Duration.ofMillis(50));
+    start(config);
+
+    long started = System.nanoTime();
+    BookServiceGrpc.newBlockingStub(channel)
+        .getBookById(GetBookByIdRequest.newBuilder().setId(1).build());
+
+    assertTrue(System.nanoTime() - started >= Duration.ofMillis(50).toNanos());
+  }
+
+  @Test
+  void slowRatioOne_addsSlowLatencyToEveryCall() throws Exception {
+    FakeServerConfig config = config();
+    config.setSlowRatio(1);
+    config.setSlowLatency(Duration.ofMillis(50));
+    start(config);
+
+    long started = System.nanoTime();
+    BookServiceGrpc.newBlockingStub(channel)
+        .getBookById(GetBookByIdRequest.newBuilder().setId(1).build());
+
+    assertTrue(System.nanoTime() - started >= Duration.ofMillis(50).toNanos());
+  }
+
+  @Test
+  void parseDuration_acceptsMillisSecondsAndBareNumbers() {
+    assertEquals(Duration.ofMillis(5), FakeServerConfig.parseDuration("5ms", null));
+    assertEquals(Duration.ofSeconds(2), FakeServerConfig.parseDuration("2s", null));
+    assertEquals(Duration.ofMillis(7), FakeServerConfig.parseDuration("7", null));
+    assertEquals(Duration.ZERO, FakeServerConfig.parseDuration(" ", Duration.ZERO));
+  }
+}
@@ -50,6 +50,82 @@ public class EfcBookRepository(LibraryDbContext context) : IBookRepository
         });
     }
 
+    // Rows are read one at a time and ordered by ISBN, so callers can
+    // de-duplicate copies without holding the whole catalog in memory.
+    public async IAsyncEnumerable<BookDTO> StreamAllBooksAsync(string? author = null, string? genre = null, string? state = null)
+    {
+        var books = Filter(author, genre, state)
+            .Include(b => b.Genre)
+            .OrderBy(b => b.ISBN)
+            .ThenBy(b => b.Id)
+            .AsAsyncEnumerable();
+
+        await foreach (var b in books)
+        {
+            yield return new BookDTO
+            {
+                BookId = b.Id,
+                ISBN = b.ISBN,
+                Title = b.Title,
+                Author = b.Author,
+                State = b.State,
+                Genre = b.Genre.Select(g => new GenreDTO()
+                {
+                    Name = g.Name
+                }).ToList()
+            };
+        }
+    }
+
+    // A page holds every matching copy of up to `limit` ISBNs after the
+    // cursor, so the caller can still pick one representative copy per ISBN.
+    // A limit of zero or less returns every matching copy after the cursor.
+    public async Task<(IEnumerable<BookDTO> Books, string? NextCursor)> GetBooksPageAsync(int limit, string? cursor, string? author, string? genre, string? state)
+    {
+        var query = Filter(author, genre, state);
+        if (!string.IsNullOrEmpty(cursor))
+        {
+            query = query.Where(b => string.Compare(b.ISBN, cursor) > 0);
+        }
+
+        string? nextCursor = null;
+        if (limit > 0)
+        {
+            var isbns = await query
+                .Select(b => b.ISBN)
+                .Distinct()
+                .OrderBy(isbn => isbn)
+                .Take(limit + 1)
+                .ToListAsync();
+            var pageIsbns = isbns.Take(limit).ToList();
+            if (isbns.Count > limit)
+            {
+                nextCursor = pageIsbns.Last();
+            }
+            query = query.Where(b => pageIsbns.Contains(b.ISBN));
+        }
+
+        var books = await query
+            .Include(b => b.Genre)
+            .OrderBy(b => b.ISBN)
+            .ThenBy(b => b.Id)
+            .ToListAsync();
+
+        var page = books.Select(b => new BookDTO
+        {
+            BookId = b.Id,
+            ISBN = b.ISBN,
+            Title = b.Title,
+            Author = b.Author,
+            State = b.State,
+            Genre = b.Genre.Select(g => new GenreDTO()
+            {
+                Name = g.Name
+            }).ToList()
+        });
+        return (page, nextCursor);
+    }
+
     public async Task<IEnumerable<BookDTO>> GetBooksByIsbnAsync(string isbn)
     {
         var books = await context.Book
@@ -94,4 +170,67 @@ public class EfcBookRepository(LibraryDbContext context) : IBookRepository
             }).ToList()
         };
     }
+
+    // A conditional UPDATE rather than read-then-write, so when two logic
+    // servers race for the same copy only one update matches.
+    public async Task<(BookDTO Book, bool Applied)> UpdateBookStateAsync(int id, string expectedState, string newState)
+    {
+        var expected = expectedState.ToLower();
+        var applied = await context.Book
+            .Where(b => b.Id == id && b.State.ToLower() == expected)
+            .ExecuteUpdateAsync(s => s.SetProperty(b => b.State, newState));
+
+        var book = await GetBookAsync(id);
+        if (book == null) throw new ArgumentException("Book not found");
+
+        return (book, applied > 0);
+    }
+
+    // Counts per state in one grouped query, plus the lowest available id,
+    // so the caller learns whether a copy is on the shelf without loading
+    // every copy and its genres.
+    public async Task<(int Total, int Available, int Borrowed, int Reserved, int? AvailableBookId)> GetAvailabilitySummaryAsync(string isbn)
+    {
+        var counts = await context.Book.AsNoTracking()
+            .Where(b => b.ISBN == isbn)
+            .GroupBy(b => b.State.ToLower())
+            .Select(g => new { State = g.Key, Count = g.Count() })
+            .ToListAsync();
+
+        int CountOf(string state) => counts.Where(c => c.State == state).Sum(c => c.Count);
+
+        var available = CountOf("available");
+        int? availableBookId = null;
+        if (available > 0)
+        {
+            availableBookId = await context.Book.AsNoTracking()
+                .Where(b => b.ISBN == isbn && b.State.ToLower() == "available")
+                .OrderBy(b => b.Id)
+                .Select(b => (int?)b.Id)
+                .FirstOrDefaultAsync();
+        }
+
+        return (counts.Sum(c => c.Count), available, CountOf("borrowed"), CountOf("reserved"), availableBookId);
+    }
+
+    private IQueryable<Book> Filter(string? author, string? genre, string? state)
+    {
+        var query = context.Book.AsNoTracking();
+        if (!string.IsNullOrWhiteSpace(author))
+        {
+            var pattern = $"%{author.Trim().ToLower()}%";
+            query = query.Where(b => EF.Functions.Like(b.Author.ToLower(), pattern));
+        }
+        if (!string.IsNullOrWhiteSpace(genre))
+        {
+            var name = genre.Trim().ToLower();
+            query = query.Where(b => b.Genre.Any(g => g.Name.ToLower() == name));
+        }
+        if (!string.IsNullOrWhiteSpace(state))
+        {
+            var value = state.Trim().ToLower();
+            query = query.Where(b => b.State.ToLower() == value);
+        }
+        return query;
+    }
 }
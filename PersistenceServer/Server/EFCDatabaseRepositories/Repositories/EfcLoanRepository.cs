@@ -1,3 +1,4 @@
+using System.Data;
 using DTOs.Loan;
 using EFCDatabaseRepositories.DBContext;
 using Entities;
@@ -64,6 +65,37 @@ public class EfcLoanRepository(LibraryDbContext context) : ILoanRepository
         };
     }
 
+    // A single SaveChangesAsync writes every loan in one transaction
+    public async Task<IEnumerable<LoanDTO>> UpdateLoansAsync(IEnumerable<Loan> loans)
+    {
+        var updates = loans.ToList();
+        var ids = updates.Select(l => l.Id).ToList();
+        var existing = await context.Loan
+            .Where(l => ids.Contains(l.Id))
+            .ToDictionaryAsync(l => l.Id);
+        if (ids.Any(id => !existing.ContainsKey(id)))
+            throw new ArgumentException("Loan not found");
+
+        foreach (var loan in updates)
+        {
+            existing[loan.Id].DueDate = loan.DueDate;
+            existing[loan.Id].NumberOfExtensions = loan.NumberOfExtensions;
+        }
+
+        await context.SaveChangesAsync();
+
+        return updates.Select(l => existing[l.Id]).Select(loan => new LoanDTO
+        {
+            LoanId = loan.Id,
+            BookId = loan.BookId,
+            Username = loan.Username,
+            BorrowDate = loan.BorrowDate,
+            DueDate = loan.DueDate,
+            NumberOfExtensions = loan.NumberOfExtensions,
+            IsReturned = loan.IsReturned
+        }).ToList();
+    }
+
     public async Task<IEnumerable<LoanDTO>> GetLoansByIsbnAsync(string isbn)
     {
         return await context.Loan
@@ -99,6 +131,24 @@ public class EfcLoanRepository(LibraryDbContext context) : ILoanRepository
     };
 }
    
+    public async Task<IEnumerable<LoanDTO>> GetLoansByIdsAsync(IEnumerable<int> loanIds)
+    {
+        var ids = loanIds.ToList();
+        return await context.Loan
+            .Where(l => ids.Contains(l.Id))
+            .Select(l => new LoanDTO
+            {
+                LoanId = l.Id,
+                BookId = l.BookId,
+                Username = l.Username,
+                BorrowDate = l.BorrowDate,
+                DueDate = l.DueDate,
+                NumberOfExtensions = l.NumberOfExtensions,
+                IsReturned = l.IsReturned
+            })
+            .ToListAsync();
+    }
+
     public Task UpdateLoanAsync(LoanDTO loan)
     {
         throw new NotImplementedException();
@@ -106,6 +156,91 @@ public class EfcLoanRepository(LibraryDbContext context) : ILoanRepository
 
 
     
+    // The copy is taken with a conditional UPDATE, so when two borrowers race
+    // for it only one update matches and the other moves on to the next copy.
+    // Touching the user's row first locks it until commit, so two borrows by
+    // the same user queue up and the second one sees the first one's loan.
+    // Nothing is left tracked afterwards: a loan from a rolled-back borrow
+    // would otherwise be inserted by the next save on this context.
+    public async Task<BorrowResultDTO> BorrowBookAsync(string isbn, string username, DateTime borrowDate, DateTime dueDate)
+    {
+        try
+        {
+            return await BorrowInTransactionAsync(isbn, username, borrowDate, dueDate);
+        }
+        finally
+        {
+            context.ChangeTracker.Clear();
+        }
+    }
+
+    private async Task<BorrowResultDTO> BorrowInTransactionAsync(string isbn, string username, DateTime borrowDate, DateTime dueDate)
+    {
+        await using var transaction = await context.Database.BeginTransactionAsync(IsolationLevel.ReadCommitted);
+
+        await context.User
+            .Where(u => u.Username == username)
+            .ExecuteUpdateAsync(s => s.SetProperty(u => u.Role, u => u.Role));
+
+        var alreadyBorrowed = await context.Loan
+            .AnyAsync(l => l.Username == username && l.Book!.ISBN == isbn && !l.IsReturned);
+        if (alreadyBorrowed)
+        {
+            return new BorrowResultDTO { Failure = BorrowFailure.AlreadyBorrowed };
+        }
+
+        var availableIds = await context.Book
+            .Where(b => b.ISBN == isbn && b.State.ToLower() == "available")
+            .OrderBy(b => b.Id)
+            .Select(b => b.Id)
+            .ToListAsync();
+        if (availableIds.Count == 0)
+        {
+            var anyCopies = await context.Book.AnyAsync(b => b.ISBN == isbn);
+            return new BorrowResultDTO
+            {
+                Failure = anyCopies ? BorrowFailure.NoAvailableCopy : BorrowFailure.NoCopies
+            };
+        }
+
+        foreach (var bookId in availableIds)
+        {
+            var taken = await context.Book
+                .Where(b => b.Id == bookId && b.State.ToLower() == "available")
+                .ExecuteUpdateAsync(s => s.SetProperty(b => b.State, "Borrowed"));
+            if (taken == 0)
+            {
+                continue;
+            }
+
+            var loan = new Loan
+            {
+                BorrowDate = borrowDate,
+                DueDate = dueDate,
+                Username = username,
+                BookId = bookId
+            };
+            await context.Loan.AddAsync(loan);
+            await context.SaveChangesAsync();
+            await transaction.CommitAsync();
+
+            return new BorrowResultDTO
+            {
+                Loan = new LoanDTO
+                {
+                    LoanId = loan.Id,
+                    BookId = loan.BookId,
+                    Username = loan.Username,
+                    BorrowDate = loan.BorrowDate,
+                    DueDate = loan.DueDate,
+                    NumberOfExtensions = loan.NumberOfExtensions
+                }
+            };
+        }
+
+        return new BorrowResultDTO { Failure = BorrowFailure.NoAvailableCopy };
+    }
+
     public async Task<IEnumerable<LoanDTO>> GetActiveLoansByUsername(string username)
     {
         var loans = await context.Loan
@@ -123,4 +258,24 @@ public class EfcLoanRepository(LibraryDbContext context) : ILoanRepository
             IsReturned = loan.IsReturned
         });
     }
+
+    public IAsyncEnumerable<LoanDTO> StreamActiveLoansAsync()
+    {
+        return context.Loan
+            .AsNoTracking()
+            .Where(l => !l.IsReturned)
+            .OrderBy(l => l.DueDate)
+            .ThenBy(l => l.Id)
+            .Select(loan => new LoanDTO
+            {
+                LoanId = loan.Id,
+                BookId = loan.BookId,
+                Username = loan.Username,
+                BorrowDate = loan.BorrowDate,
+                DueDate = loan.DueDate,
+                NumberOfExtensions = loan.NumberOfExtensions,
+                IsReturned = loan.IsReturned
+            })
+            .AsAsyncEnumerable();
+    }
 }
@@ -1,6 +1,7 @@
 ﻿using DTOs.User;
 using EFCDatabaseRepositories.DBContext;
 using Entities;
+using Microsoft.EntityFrameworkCore;
 using RepositoryContracts;
 
 namespace EFCDatabaseRepositories.Repositories;
@@ -26,10 +27,24 @@ public class EfcUserRepository(LibraryDbContext context) : IUserRepository
         };
     }
 
-    public async Task<UserDTO> CreateUserAsync(User user)
+    public async Task<UserDTO?> CreateUserAsync(User user)
     {
         context.User.Add(user);
-        await context.SaveChangesAsync();
+        try
+        {
+            await context.SaveChangesAsync();
+        }
+        catch (DbUpdateException)
+        {
+            // Another logic server may have registered the name since it was
+            // validated; the key violation is then reported as taken
+            context.ChangeTracker.Clear();
+            if (await context.User.AsNoTracking().AnyAsync(u => u.Username == user.Username))
+            {
+                return null;
+            }
+            throw;
+        }
         
         return new UserDTO()
         {
@@ -41,4 +56,13 @@ public class EfcUserRepository(LibraryDbContext context) : IUserRepository
             Email = user.Email
         };
     }
+
+    // Only the key column is read, one row at a time.
+    public IAsyncEnumerable<string> StreamUsernamesAsync()
+    {
+        return context.User
+            .AsNoTracking()
+            .Select(u => u.Username)
+            .AsAsyncEnumerable();
+    }
 }
\ No newline at end of file
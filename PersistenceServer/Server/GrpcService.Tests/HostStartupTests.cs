@@ -0,0 +1,31 @@
+using Grpc.Health.V1;
+using Grpc.Net.Client;
+using Microsoft.AspNetCore.Mvc.Testing;
+
+namespace GrpcService.Tests;
+
+// Starts the real host with the shipped appsettings.json, so every global
+// interceptor is built the way it is in production.
+public class HostStartupTests : IClassFixture<WebApplicationFactory<Program>>
+{
+    private readonly WebApplicationFactory<Program> factory;
+
+    public HostStartupTests(WebApplicationFactory<Program> factory)
+    {
+        this.factory = factory;
+    }
+
+    [Fact]
+    public async Task HealthCheck_ShippedConfiguration_CallPassesInterceptors()
+    {
+        using var channel = GrpcChannel.ForAddress(factory.Server.BaseAddress, new GrpcChannelOptions
+        {
+            HttpHandler = factory.Server.CreateHandler()
+        });
+        var client = new Health.HealthClient(channel);
+
+        var response = await client.CheckAsync(new HealthCheckRequest());
+
+        Assert.Equal(HealthCheckResponse.Types.ServingStatus.Serving, response.Status);
+    }
+}
@@ -0,0 +1,110 @@
+using EFCDatabaseRepositories.DBContext;
+using EFCDatabaseRepositories.Repositories;
+using Entities;
+using GrpcService.Protos;
+using GrpcService.Services;
+using Microsoft.Data.Sqlite;
+using Microsoft.EntityFrameworkCore;
+
+namespace GrpcService.Tests;
+
+public class LoanServiceImplTests : IDisposable
+{
+    private readonly SqliteConnection connection;
+    private readonly LibraryDbContext context;
+    private readonly LoanServiceImpl service;
+
+    public LoanServiceImplTests()
+    {
+        connection = new SqliteConnection("Data Source=:memory:");
+        connection.Open();
+        context = new LibraryDbContext(new DbContextOptionsBuilder<LibraryDbContext>()
+            .UseSqlite(connection)
+            .Options);
+        context.Database.EnsureCreated();
+
+        context.User.Add(new User
+        {
+            Username = "alice",
+            PasswordHash = "hash",
+            Role = "Reader",
+            Name = "Alice",
+            PhoneNumber = "12345678",
+            Email = "alice@example.com"
+        });
+        context.Book.AddRange(NewBook("111"), NewBook("222"), NewBook("333"));
+        context.SaveChanges();
+        context.ChangeTracker.Clear();
+
+        service = new LoanServiceImpl(new EfcLoanRepository(context));
+    }
+
+    public void Dispose()
+    {
+        context.Dispose();
+        connection.Dispose();
+    }
+
+    [Fact]
+    public async Task BorrowBooks_MiddleItemFails_LaterItemsDoNotInsertItsLoan()
+    {
+        var request = new BorrowBooksRequest();
+        request.Items.Add(Item("111", "alice"));
+        // No such user, so the loan insert breaks the foreign key after the copy was claimed
+        request.Items.Add(Item("222", "ghost"));
+        request.Items.Add(Item("333", "alice"));
+
+        var response = await service.BorrowBooks(request, null!);
+
+        Assert.True(response.Results[0].Success);
+        Assert.False(response.Results[1].Success);
+        Assert.True(response.Results[2].Success);
+
+        var loans = await context.Loan.AsNoTracking().ToListAsync();
+        Assert.Equal(2, loans.Count);
+        Assert.DoesNotContain(loans, l => l.Username == "ghost");
+
+        var failedCopy = await context.Book.AsNoTracking().SingleAsync(b => b.ISBN == "222");
+        Assert.Equal("Available", failedCopy.State);
+    }
+
+    [Fact]
+    public async Task BorrowBook_SameIsbnTwice_SecondIsAlreadyBorrowed()
+    {
+        context.Book.Add(NewBook("111"));
+        await context.SaveChangesAsync();
+        context.ChangeTracker.Clear();
+
+        var first = await service.BorrowBook(Item("111", "alice"), null!);
+        var second = await service.BorrowBook(Item("111", "alice"), null!);
+
+        Assert.True(first.Success);
+        Assert.False(second.Success);
+        Assert.Equal(BorrowBookFailure.AlreadyBorrowed, second.Failure);
+        Assert.Equal(1, await context.Book.CountAsync(b => b.ISBN == "111" && b.State == "Available"));
+    }
+
+    private static BorrowBookRequest Item(string isbn, string username)
+    {
+        return new BorrowBookRequest
+        {
+            Isbn = isbn,
+            Username = username,
+            BorrowDate = "2026-01-01",
+            DueDate = "2026-01-31"
+        };
+    }
+
+    private static Book NewBook(string isbn)
+    {
+        return new Book
+        {
+            ISBN = isbn,
+            Author = "Author",
+            Title = "Title " + isbn,
+            State = "Available",
+            Genre = [],
+            Loans = []
+        };
+    }
+}
@@ -0,0 +1,86 @@
+using EFCDatabaseRepositories.DBContext;
+using EFCDatabaseRepositories.Repositories;
+using Entities;
+using GrpcService.Protos;
+using GrpcService.Services;
+using Microsoft.Data.Sqlite;
+using Microsoft.EntityFrameworkCore;
+
+namespace GrpcService.Tests;
+
+public class UserServiceImplTests : IDisposable
+{
+    private readonly SqliteConnection connection;
+    private readonly LibraryDbContext context;
+    private readonly UserServiceImpl service;
+
+    public UserServiceImplTests()
+    {
+        connection = new SqliteConnection("Data Source=:memory:");
+        connection.Open();
+        context = new LibraryDbContext(new DbContextOptionsBuilder<LibraryDbContext>()
+            .UseSqlite(connection)
+            .Options);
+        context.Database.EnsureCreated();
+
+        service = new UserServiceImpl(new EfcUserRepository(context));
+    }
+
+    public void Dispose()
+    {
+        context.Dispose();
+        connection.Dispose();
+    }
+
+    [Fact]
+    public async Task CreateUser_UsernameAlreadyRegistered_ReportsConflict()
+    {
+        // Registered through another logic server after this one validated the name
+        await using (var other = new LibraryDbContext(new DbContextOptionsBuilder<LibraryDbContext>()
+                         .UseSqlite(connection)
+                         .Options))
+        {
+            other.User.Add(new User
+            {
+                Username = "alice",
+                PasswordHash = "hash",
+                Role = "Reader",
+                Name = "Alice",
+                PhoneNumber = "12345678",
+                Email = "alice@example.com"
+            });
+            await other.SaveChangesAsync();
+        }
+
+        var response = await service.CreateUser(Request("alice"), null!);
+
+        Assert.False(response.Success);
+        Assert.True(response.Conflict);
+    }
+
+    [Fact]
+    public async Task CreateUser_NewUsername_Succeeds()
+    {
+        var response = await service.CreateUser(Request("bob"), null!);
+
+        Assert.True(response.Success);
+        Assert.False(response.Conflict);
+        Assert.Equal("bob", response.User.Username);
+    }
+
+    private static CreateUserRequest Request(string username)
+    {
+        return new CreateUserRequest
+        {
+            User = new DTOUser
+            {
+                Username = username,
+                Password = "hash",
+                Role = "Reader",
+                Name = "Someone",
+                PhoneNumber = "12345678",
+                Email = username + "@example.com"
+            }
+        };
+    }
+}
@@ -0,0 +1,34 @@
+using Grpc.Core;
+using Grpc.Core.Interceptors;
+
+namespace GrpcService.Interceptors;
+
+// Keeps gzip for the configured methods (large list responses) and turns it
+// off for every other call, so small responses skip the compression cost.
+public class ResponseCompressionInterceptor(string[] compressedMethods) : Interceptor
+{
+    private readonly HashSet<string> compressed = new(compressedMethods, StringComparer.Ordinal);
+
+    public override Task<TResponse> UnaryServerHandler<TRequest, TResponse>(TRequest request,
+        ServerCallContext context, UnaryServerMethod<TRequest, TResponse> continuation)
+    {
+        Apply(context);
+        return continuation(request, context);
+    }
+
+    public override Task ServerStreamingServerHandler<TRequest, TResponse>(TRequest request,
+        IServerStreamWriter<TResponse> responseStream, ServerCallContext context,
+        ServerStreamingServerMethod<TRequest, TResponse> continuation)
+    {
+        Apply(context);
+        return continuation(request, responseStream, context);
+    }
+
+    private void Apply(ServerCallContext context)
+    {
+        if (!compressed.Contains(context.Method))
+        {
+            context.WriteOptions = new WriteOptions(WriteFlags.NoCompress);
+        }
+    }
+}
@@ -1,16 +1,31 @@
+using System.IO.Compression;
 using EFCDatabaseRepositories.Repositories;
+using GrpcService.Interceptors;
 using GrpcService.Services;
 using Microsoft.EntityFrameworkCore;
 using RepositoryContracts;
 
 var builder = WebApplication.CreateBuilder(args);
 
+// Methods whose responses are gzip-compressed for clients that accept it
+var compressedMethods = builder.Configuration.GetSection("Grpc:CompressedMethods").Get<string[]>() ?? [];
+
 // Add gRPC support with detailed logging
 builder.Services.AddGrpc(options =>
 {
     options.EnableDetailedErrors = true;
+    if (compressedMethods.Length > 0)
+    {
+        options.ResponseCompressionAlgorithm = "gzip";
+        options.ResponseCompressionLevel = CompressionLevel.Fastest;
+        // Cast so the array is one constructor argument, not spread over params object[]
+        options.Interceptors.Add<ResponseCompressionInterceptor>((object)compressedMethods);
+    }
 });
 
+// Standard grpc.health.v1 service, polled by the logic servers' load balancer
+builder.Services.AddGrpcHealthChecks();
+
 // Read app settings.json connection string
 var connectionString = builder.Configuration.GetConnectionString("LibraryDb");
 Console.WriteLine($"Connected to database: {connectionString}");
@@ -33,6 +48,7 @@ app.MapGrpcService<BookServiceImpl>();
 app.MapGrpcService<LoanServiceImpl>();
 app.MapGrpcService<UserServiceImpl>();
 app.MapGrpcService<ReservationServiceImpl>();
+app.MapGrpcHealthChecksService();
 
 // Add gRPC reflection for testing with tools like BloomRPC
 app.MapGet("/", () => "Communication with gRPC endpoints must be made through a gRPC client. To learn how to create a client, visit: https://go.microsoft.com/fwlink/?linkid=2086909");
@@ -44,3 +60,6 @@ Console.WriteLine("- UserService available at /UserService");
 Console.WriteLine("- ReservationService available at /ReservationService");
 
 app.Run();
+
+// Lets the tests start the host with WebApplicationFactory<Program>
+public partial class Program;
@@ -8,8 +8,18 @@ public class BookServiceImpl(IBookRepository bookRepository) : BookService.BookS
 {
     public override async Task<GetAllBooksResponse> GetAllBooks(GetAllBooksRequest request, ServerCallContext context)
     {
-        var booksFromDb = (await bookRepository.GetAllBooksAsync()).ToList();
         var response = new GetAllBooksResponse();
+        List<DTOs.Book.BookDTO> booksFromDb;
+        if (request.Limit > 0 || request.Cursor != "" || request.Author != "" || request.Genre != "" || request.State != "")
+        {
+            var (page, nextCursor) = await bookRepository.GetBooksPageAsync(request.Limit, request.Cursor, request.Author, request.Genre, request.State);
+            booksFromDb = page.ToList();
+            response.NextCursor = nextCursor ?? "";
+        }
+        else
+        {
+            booksFromDb = (await bookRepository.GetAllBooksAsync()).ToList();
+        }
 
         response.Books.AddRange(booksFromDb.Select(b =>
         {
@@ -32,6 +42,26 @@ public class BookServiceImpl(IBookRepository bookRepository) : BookService.BookS
         return response;
     }
 
+    public override async Task StreamAllBooks(GetAllBooksRequest request, IServerStreamWriter<DTOBook> responseStream, ServerCallContext context)
+    {
+        await foreach (var b in bookRepository.StreamAllBooksAsync(request.Author, request.Genre, request.State).WithCancellation(context.CancellationToken))
+        {
+            var dto = new DTOBook
+            {
+                Id = b.BookId,
+                Title = b.Title,
+                Author = b.Author,
+                Isbn = b.ISBN,
+                State = b.State,
+            };
+            dto.Genres.AddRange(b.Genre.Select(g => new DTOGenre
+            {
+                Name = g.Name
+            }));
+            await responseStream.WriteAsync(dto);
+        }
+    }
+
     public override async Task<GetBooksByIsbnResponse> GetBooksByIsbn(GetBooksByIsbnRequest request, ServerCallContext context)
     {
         var booksFromDb = (await bookRepository.GetBooksByIsbnAsync(request.Isbn)).ToList();
@@ -93,7 +123,16 @@ public class BookServiceImpl(IBookRepository bookRepository) : BookService.BookS
         var response = new UpdateBookStateResponse();
         try
         {
-            var updatedBook = await bookRepository.UpdateBookStateAsync(request.Id, request.State);
+            DTOs.Book.BookDTO updatedBook;
+            var applied = true;
+            if (string.IsNullOrEmpty(request.ExpectedState))
+            {
+                updatedBook = await bookRepository.UpdateBookStateAsync(request.Id, request.State);
+            }
+            else
+            {
+                (updatedBook, applied) = await bookRepository.UpdateBookStateAsync(request.Id, request.ExpectedState, request.State);
+            }
 
             var dto = new DTOBook
             {
@@ -106,8 +145,11 @@ public class BookServiceImpl(IBookRepository bookRepository) : BookService.BookS
                 dto.Genres.AddRange(updatedBook.Genre.Select(g => new DTOGenre { Name = g.Name }));
 
             response.Book = dto;
-            response.Success = true;
-            response.Message = $"Book state updated successfully for ID {request.Id}.";
+            response.Success = applied;
+            response.Conflict = !applied;
+            response.Message = applied
+                ? $"Book state updated successfully for ID {request.Id}."
+                : $"Book with ID {request.Id} is {updatedBook.State}, not {request.ExpectedState}.";
         }
         catch (Exception ex)
         {
@@ -117,4 +159,19 @@ public class BookServiceImpl(IBookRepository bookRepository) : BookService.BookS
         }
         return response;
     }
+
+    public override async Task<GetAvailabilitySummaryResponse> GetAvailabilitySummary(GetAvailabilitySummaryRequest request, ServerCallContext context)
+    {
+        var (total, available, borrowed, reserved, availableBookId) = await bookRepository.GetAvailabilitySummaryAsync(request.Isbn);
+        return new GetAvailabilitySummaryResponse
+        {
+            Total = total,
+            Available = available,
+            Borrowed = borrowed,
+            Reserved = reserved,
+            AvailableBookId = availableBookId ?? 0,
+            Success = total > 0,
+            Message = total > 0 ? $"Availability of ISBN {request.Isbn} retrieved successfully." : $"No books found with ISBN {request.Isbn}."
+        };
+    }
 }
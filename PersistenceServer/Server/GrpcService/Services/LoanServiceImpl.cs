@@ -1,3 +1,4 @@
+using DTOs.Loan;
 using GrpcService.Protos;
 using Grpc.Core;
 using RepositoryContracts;
@@ -160,6 +161,138 @@ public override async Task<GetLoanByIdResponse> GetLoanById(GetLoanByIdRequest r
     return response;
     }
 
+ public override Task<BorrowBookResponse> BorrowBook(BorrowBookRequest request, ServerCallContext context)
+    {
+        return BorrowOneAsync(request);
+    }
+
+ // Items run one after another: they share the request's DbContext, and each
+ // takes its copy in its own transaction, so one failure leaves the others.
+ // The repository clears the change tracker after every item, so a failed
+ // item's loan is not saved along with the next one.
+ public override async Task<BorrowBooksResponse> BorrowBooks(BorrowBooksRequest request, ServerCallContext context)
+    {
+        var response = new BorrowBooksResponse();
+        foreach (var item in request.Items)
+        {
+            response.Results.Add(await BorrowOneAsync(item));
+        }
+        return response;
+    }
+
+ private async Task<BorrowBookResponse> BorrowOneAsync(BorrowBookRequest request)
+    {
+        var response = new BorrowBookResponse();
+
+        try
+        {
+            var result = await loanRepository.BorrowBookAsync(request.Isbn, request.Username,
+                DateTime.Parse(request.BorrowDate), DateTime.Parse(request.DueDate));
+
+            if (result.Loan == null)
+            {
+                response.Success = false;
+                response.Failure = result.Failure switch
+                {
+                    BorrowFailure.AlreadyBorrowed => BorrowBookFailure.AlreadyBorrowed,
+                    BorrowFailure.NoCopies => BorrowBookFailure.NoCopies,
+                    BorrowFailure.NoAvailableCopy => BorrowBookFailure.NoAvailableCopy,
+                    _ => BorrowBookFailure.Unspecified
+                };
+                response.Message = $"Could not borrow book: {result.Failure}";
+                return response;
+            }
+
+            response.Loan = new DTOLoan
+            {
+                Id = result.Loan.LoanId,
+                BorrowDate = result.Loan.BorrowDate.ToString("yyyy-MM-dd"),
+                DueDate = result.Loan.DueDate.ToString("yyyy-MM-dd"),
+                Username = result.Loan.Username,
+                BookId = result.Loan.BookId,
+                NumberOfExtensions = result.Loan.NumberOfExtensions
+            };
+            response.Success = true;
+            response.Message = "Book borrowed successfully.";
+        }
+        catch (Exception ex)
+        {
+            response.Success = false;
+            response.Message = $"Error borrowing book: {ex.Message}";
+        }
+
+        return response;
+    }
+
+ public override async Task<GetLoansByIdsResponse> GetLoansByIds(GetLoansByIdsRequest request, ServerCallContext context)
+    {
+        var response = new GetLoansByIdsResponse();
+
+        try
+        {
+            var loans = await loanRepository.GetLoansByIdsAsync(request.Ids);
+
+            response.Loans.AddRange(loans.Select(ToDtoLoan));
+            response.Success = true;
+            response.Message = "Loans retrieved successfully.";
+        }
+        catch (Exception ex)
+        {
+            response.Loans.Clear();
+            response.Success = false;
+            response.Message = $"Error retrieving loans: {ex.Message}";
+        }
+
+        return response;
+    }
+
+ public override async Task<ExtendLoansResponse> ExtendLoans(ExtendLoansRequest request, ServerCallContext context)
+    {
+        var response = new ExtendLoansResponse();
+
+        try
+        {
+            var loans = request.Loans.Select(l => new Loan
+            {
+                Id = l.Id,
+                BorrowDate = DateTime.Parse(l.BorrowDate),
+                DueDate = DateTime.Parse(l.DueDate),
+                Username = l.Username,
+                BookId = l.BookId,
+                NumberOfExtensions = l.NumberOfExtensions,
+                IsReturned = l.IsReturned
+            }).ToList();
+
+            var updated = await loanRepository.UpdateLoansAsync(loans);
+
+            response.Loans.AddRange(updated.Select(ToDtoLoan));
+            response.Success = true;
+            response.Message = "Loans extended successfully.";
+        }
+        catch (Exception ex)
+        {
+            response.Loans.Clear();
+            response.Success = false;
+            response.Message = $"Error extending loans: {ex.Message}";
+        }
+
+        return response;
+    }
+
+ private static DTOLoan ToDtoLoan(LoanDTO loan)
+    {
+        return new DTOLoan
+        {
+            Id = loan.LoanId,
+            BorrowDate = loan.BorrowDate.ToString("yyyy-MM-dd"),
+            DueDate = loan.DueDate.ToString("yyyy-MM-dd"),
+            Username = loan.Username,
+            BookId = loan.BookId,
+            NumberOfExtensions = loan.NumberOfExtensions,
+            IsReturned = loan.IsReturned
+        };
+    }
+
  public override async Task<GetActiveLoansByUsernameResponse> GetActiveLoansByUsername(GetActiveLoansByUsernameRequest request, ServerCallContext context)
     {
         var response = new GetActiveLoansByUsernameResponse();
@@ -190,4 +323,12 @@ public override async Task<GetLoanByIdResponse> GetLoanById(GetLoanByIdRequest r
 
         return response;
     }
+
+    public override async Task StreamActiveLoans(StreamActiveLoansRequest request, IServerStreamWriter<DTOLoan> responseStream, ServerCallContext context)
+    {
+        await foreach (var loan in loanRepository.StreamActiveLoansAsync().WithCancellation(context.CancellationToken))
+        {
+            await responseStream.WriteAsync(ToDtoLoan(loan));
+        }
+    }
 }
\ No newline at end of file
@@ -47,6 +47,14 @@ public class UserServiceImpl(IUserRepository userRepository) : UserService.UserS
         }
     }
 
+    public override async Task ListUsernames(ListUsernamesRequest request, IServerStreamWriter<DTOUsername> responseStream, ServerCallContext context)
+    {
+        await foreach (var username in userRepository.StreamUsernamesAsync().WithCancellation(context.CancellationToken))
+        {
+            await responseStream.WriteAsync(new DTOUsername { Username = username });
+        }
+    }
+
     public override async Task<CreateUserResponse> CreateUser(CreateUserRequest request, ServerCallContext context)
     {
         try
@@ -61,6 +69,15 @@ public class UserServiceImpl(IUserRepository userRepository) : UserService.UserS
                 Role = request.User.Role
             };
             var user = await userRepository.CreateUserAsync(userEntity);
+            if (user == null)
+            {
+                return new CreateUserResponse
+                {
+                    Success = false,
+                    Conflict = true,
+                    Message = "Username already exists."
+                };
+            }
             var response = new CreateUserResponse
             {
                 User = new DTOUser { Username = user.Username },
@@ -8,6 +8,10 @@ public interface IBookRepository
 {
     Task<BookDTO?> GetBookAsync(int id);
     Task<IEnumerable<BookDTO>> GetAllBooksAsync();
+    IAsyncEnumerable<BookDTO> StreamAllBooksAsync(string? author = null, string? genre = null, string? state = null);
+    Task<(IEnumerable<BookDTO> Books, string? NextCursor)> GetBooksPageAsync(int limit, string? cursor, string? author, string? genre, string? state);
     Task<IEnumerable<BookDTO>> GetBooksByIsbnAsync(string isbn);
     Task<BookDTO> UpdateBookStateAsync(int id, string newState);
+    Task<(BookDTO Book, bool Applied)> UpdateBookStateAsync(int id, string expectedState, string newState);
+    Task<(int Total, int Available, int Borrowed, int Reserved, int? AvailableBookId)> GetAvailabilitySummaryAsync(string isbn);
 }
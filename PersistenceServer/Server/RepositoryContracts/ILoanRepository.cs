@@ -11,9 +11,18 @@ public interface ILoanRepository
     // Get a loan by username and loan id (returns null if not found)
     Task<LoanDTO?> GetLoanByUsernameAsync(string username, int loanId);
     Task<LoanDTO?> GetLoanByIdAsync(int loanId);
+    // The loans among the ids; unknown ids are left out
+    Task<IEnumerable<LoanDTO>> GetLoansByIdsAsync(IEnumerable<int> loanIds);
     // Update an existing loan (used for extending)
     Task<LoanDTO> UpdateLoanAsync(Loan loan);
+    // Updates all loans in one save, or none if any of them is unknown
+    Task<IEnumerable<LoanDTO>> UpdateLoansAsync(IEnumerable<Loan> loans);
     Task<IEnumerable<LoanDTO>> GetLoansByIsbnAsync(string isbn);
     Task<IEnumerable<LoanDTO>> GetActiveLoansByUsername(string username);
+    // Every unreturned loan, earliest due date first
+    IAsyncEnumerable<LoanDTO> StreamActiveLoansAsync();
+    // Lends an available copy of the ISBN unless the user already has one,
+    // checking and taking the copy in one transaction
+    Task<BorrowResultDTO> BorrowBookAsync(string isbn, string username, DateTime borrowDate, DateTime dueDate);
 
 }
@@ -6,5 +6,7 @@ namespace RepositoryContracts;
 public interface IUserRepository
 {
     Task<UserDTO?> GetUserAsync(string username);
-    Task<UserDTO> CreateUserAsync(User user);
+    // Null when the username is already registered
+    Task<UserDTO?> CreateUserAsync(User user);
+    IAsyncEnumerable<string> StreamUsernamesAsync();
 }
\ No newline at end of file
@@ -0,0 +1,16 @@
+namespace DTOs.Loan;
+
+public enum BorrowFailure
+{
+    None,
+    AlreadyBorrowed,
+    NoCopies,
+    NoAvailableCopy
+}
+
+// Outcome of borrowing a copy by ISBN: the new loan, or why none was made
+public class BorrowResultDTO
+{
+    public LoanDTO? Loan { get; set; }
+    public BorrowFailure Failure { get; set; }
+}
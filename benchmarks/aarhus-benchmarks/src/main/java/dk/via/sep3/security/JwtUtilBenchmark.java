@@ -0,0 +1,75 @@
+package dk.via.sep3.security;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Field;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tokens per second signed and verified by {@link JwtUtil}. {@code filterLegacy}
+ * is what the authentication filter used to do per request (validate, then
+ * verify again for each claim); {@code verifyCached} is the same token going
+ * through {@link CachingJwtTokenProvider} once it is warm.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtUtilBenchmark {
+
+    private static final String SECRET =
+            "benchmark-secret-benchmark-secret-benchmark-secret-benchmark-secret";
+
+    private JwtUtil jwtUtil;
+    private CachingJwtTokenProvider cachingProvider;
+    private String token;
+
+    @Setup
+    public void setUp() throws Exception {
+        jwtUtil = new JwtUtil();
+        set("secret", SECRET);
+        set("expirationMs", 3600000L);
+        jwtUtil.init();
+        cachingProvider = new CachingJwtTokenProvider(jwtUtil, 10000, Duration.ofMinutes(5));
+        token = jwtUtil.generateToken("john", "READER");
+    }
+
+    private void set(String fieldName, Object value) throws Exception {
+        Field field = JwtUtil.class.getDeclaredField(fieldName);
+        field.setAccessible(true);
+        field.set(jwtUtil, value);
+    }
+
+    @Benchmark
+    public String sign() {
+        return jwtUtil.generateToken("john", "READER");
+    }
+
+    @Benchmark
+    public JwtClaims verify() {
+        return jwtUtil.verifyAndExtract(token);
+    }
+
+    @Benchmark
+    public JwtClaims verifyCached() {
+        return cachingProvider.verifyAndExtract(token);
+    }
+
+    @Benchmark
+    public String filterLegacy() {
+        jwtUtil.validateToken(token);
+        return jwtUtil.getUsernameFromToken(token) + jwtUtil.getRoleFromToken(token);
+    }
+}
@@ -0,0 +1,113 @@
+package dk.via.sep3.application.services.books;
+
+import dk.via.sep3.application.domain.AvailabilitySummary;
+import dk.via.sep3.application.domain.Book;
+import dk.via.sep3.application.domain.BookPage;
+import dk.via.sep3.application.domain.BookQuery;
+import dk.via.sep3.application.domain.Genre;
+import dk.via.sep3.application.domain.State;
+import dk.via.sep3.grpcConnection.bookGrpcService.BookGrpcService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * De-duplication of a catalog snapshot into one book per ISBN
+ * ({@code createUniqueBooks}), reached through {@link BookServiceImpl#getAllBooks()}
+ * with the gRPC layer replaced by a fixed in-memory catalog.
+ * <p>
+ * JMH's {@code @State} is written out in full, since the domain has its own
+ * {@code State}.
+ */
+@org.openjdk.jmh.annotations.State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookServiceImplBenchmark {
+
+  @Param({"1000", "10000"})
+  public int copies;
+
+  @Param({"1", "4"})
+  public int copiesPerIsbn;
+
+  private BookServiceImpl bookService;
+
+  @Setup
+  public void setUp() {
+    List<Book> catalog = new ArrayList<>(copies);
+    for (int i = 0; i < copies; i++) {
+      String isbn = String.format("978%010d", i / copiesPerIsbn);
+      catalog.add(new Book(i, isbn, "Title " + i, "Author " + (i % 50),
+          i % 3 == 0 ? State.BORROWED : State.AVAILABLE,
+          List.of(new Genre("Fiction"))));
+    }
+    bookService = new BookServiceImpl(new FixedCatalog(catalog));
+  }
+
+  @Benchmark
+  public List<Book> getAllBooks() {
+    return bookService.getAllBooks();
+  }
+
+  private static final class FixedCatalog implements BookGrpcService {
+    private final List<Book> catalog;
+
+    FixedCatalog(List<Book> catalog) {
+      this.catalog = catalog;
+    }
+
+    @Override
+    public List<Book> getAllBooks() {
+      return catalog;
+    }
+
+    @Override
+    public BookPage getBooks(BookQuery query) {
+      return new BookPage(catalog, null);
+    }
+
+    @Override
+    public void streamAllBooks(Consumer<Book> consumer) {
+      catalog.forEach(consumer);
+    }
+
+    @Override
+    public List<Book> getBooksByIsbn(String isbn) {
+      return catalog.stream().filter(book -> book.getIsbn().equals(isbn)).toList();
+    }
+
+    @Override
+    public AvailabilitySummary getAvailabilitySummary(String isbn) {
+      return AvailabilitySummary.fromCopies(getBooksByIsbn(isbn));
+    }
+
+    @Override
+    public Book getBookById(int bookId) {
+      return catalog.get(bookId);
+    }
+
+    @Override
+    public void updateBookStatus(int bookId, String status) {
+    }
+
+    @Override
+    public boolean updateBookStatus(int bookId, String expectedStatus, String status) {
+      return true;
+    }
+  }
+}
@@ -0,0 +1,56 @@
+package dk.via.sep3.application.services.validation;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The regex checks in {@link ValidatorImpl} that run on every registration.
+ * Only the checks that stay in process are measured; the username check goes
+ * to persistence.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ValidatorImplBenchmark {
+
+  private ValidatorImpl validator;
+
+  @Setup
+  public void setUp() {
+    // The gRPC service and username filter are only used by the lookups
+    validator = new ValidatorImpl(null, null);
+  }
+
+  @Benchmark
+  public void validateEmail() {
+    validator.validateEmail("john.doe+library@example.com");
+  }
+
+  @Benchmark
+  public void validatePhoneNumber() {
+    validator.validatePhoneNumber("4512345678");
+  }
+
+  @Benchmark
+  public void validateFullName() {
+    validator.validateFullName("John Doe");
+  }
+
+  @Benchmark
+  public void validatePassword() {
+    validator.validatePassword("correct horse battery");
+  }
+}
@@ -0,0 +1,65 @@
+package dk.via.sep3.exceptionHandler;
+
+import dk.via.sep3.DTOs.error.ErrorResponseDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.ResponseEntity;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building the error response for the exceptions the API throws most. The
+ * exceptions are created once, so only the handler itself is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GlobalExceptionHandlerBenchmark {
+
+  private GlobalExceptionHandler handler;
+  private ResourceNotFoundException notFound;
+  private BusinessRuleViolationException ruleViolation;
+  private GrpcCommunicationException grpcFailure;
+  private ServiceOverloadedException overloaded;
+
+  @Setup
+  public void setUp() {
+    handler = new GlobalExceptionHandler();
+    notFound = new ResourceNotFoundException("Book with ISBN 9780000000042 not found");
+    ruleViolation = new BusinessRuleViolationException("Loan cannot be extended more than twice");
+    grpcFailure = new GrpcCommunicationException("UNAVAILABLE: io exception");
+    overloaded = new ServiceOverloadedException("Too many sign-in requests", Duration.ofSeconds(1));
+  }
+
+  @Benchmark
+  public ResponseEntity<ErrorResponseDTO> resourceNotFound() {
+    return handler.handleResourceNotFound(notFound);
+  }
+
+  @Benchmark
+  public ResponseEntity<ErrorResponseDTO> businessRuleViolation() {
+    return handler.handleBusinessRuleViolation(ruleViolation);
+  }
+
+  @Benchmark
+  public ResponseEntity<ErrorResponseDTO> grpcCommunication() {
+    return handler.handleGrpcCommunication(grpcFailure);
+  }
+
+  @Benchmark
+  public ResponseEntity<ErrorResponseDTO> serviceOverloaded() {
+    return handler.handleServiceOverloaded(overloaded);
+  }
+}
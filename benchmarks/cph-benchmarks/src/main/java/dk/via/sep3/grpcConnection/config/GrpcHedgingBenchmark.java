@@ -0,0 +1,128 @@
+package dk.via.sep3.grpcConnection.config;
+
+import dk.via.sep3.BookServiceGrpc;
+import dk.via.sep3.DTOBook;
+import dk.via.sep3.GetBookByIdRequest;
+import dk.via.sep3.GetBookByIdResponse;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.netty.shaded.io.grpc.netty.NettyChannelBuilder;
+import io.grpc.netty.shaded.io.grpc.netty.NettyServerBuilder;
+import io.grpc.stub.StreamObserver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tail latency of {@code GetBookById} against a fake book service that
+ * answers in 1 ms but takes 50 ms more on one call in twenty, with and
+ * without the hedging policy of {@link GrpcServiceConfig}.
+ * <p>
+ * Compare the {@code p0.99} rows: unhedged, one call in twenty is slow, so
+ * p99 sits at the slow latency; hedged after 10 ms, a call is only slow when
+ * both attempts are, one in four hundred. The fake answers from a scheduler
+ * rather than a sleeping thread, so hedges do not queue behind slow calls.
+ * <p>
+ * The fake is built on the logic server's own generated stubs rather than the
+ * {@code FakePersistenceServer} module, whose copy of the proto classes would
+ * clash with them on one classpath; its {@code fake.slow-ratio} and
+ * {@code fake.slow-latency} settings reproduce the same tail end to end.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class GrpcHedgingBenchmark {
+
+  private static final long BASE_LATENCY_MICROS = 1_000;
+  private static final long SLOW_LATENCY_MICROS = 50_000;
+  private static final double SLOW_RATIO = 0.05;
+
+  @Param({"false", "true"})
+  public boolean hedged;
+
+  private ScheduledExecutorService scheduler;
+  private Server server;
+  private ManagedChannel channel;
+  private BookServiceGrpc.BookServiceBlockingStub stub;
+  private GetBookByIdRequest request;
+
+  @Setup
+  public void setUp() throws Exception {
+    scheduler = Executors.newScheduledThreadPool(4);
+    server = NettyServerBuilder.forPort(0)
+        .addService(new SlowTailBookService(scheduler))
+        .build().start();
+
+    GrpcChannelProperties properties = new GrpcChannelProperties();
+    properties.getLoadBalancing().setHealthCheck(false);
+    properties.getHedging().setEnabled(hedged);
+    properties.getHedging().setDelay(Duration.ofMillis(10));
+    channel = NettyChannelBuilder.forTarget("127.0.0.1:" + server.getPort())
+        .defaultServiceConfig(GrpcServiceConfig.build(properties))
+        .enableRetry()
+        .usePlaintext()
+        .build();
+    stub = BookServiceGrpc.newBlockingStub(channel);
+    request = GetBookByIdRequest.newBuilder().setId(1).build();
+  }
+
+  @TearDown
+  public void tearDown() throws InterruptedException {
+    channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+    server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+    scheduler.shutdownNow();
+  }
+
+  @Benchmark
+  public GetBookByIdResponse getBookById() {
+    return stub.withDeadlineAfter(5, TimeUnit.SECONDS).getBookById(request);
+  }
+
+  private static final class SlowTailBookService extends BookServiceGrpc.BookServiceImplBase {
+    private final ScheduledExecutorService scheduler;
+    private final GetBookByIdResponse response = GetBookByIdResponse.newBuilder()
+        .setBook(DTOBook.newBuilder().setId(1).setIsbn("9780000000001").setTitle("Title"))
+        .setSuccess(true)
+        .build();
+
+    SlowTailBookService(ScheduledExecutorService scheduler) {
+      this.scheduler = scheduler;
+    }
+
+    @Override
+    public void getBookById(GetBookByIdRequest request,
+        StreamObserver<GetBookByIdResponse> responseObserver) {
+      long delay = BASE_LATENCY_MICROS;
+      if (ThreadLocalRandom.current().nextDouble() < SLOW_RATIO) {
+        delay += SLOW_LATENCY_MICROS;
+      }
+      scheduler.schedule(() -> {
+        // The losing attempt of a hedge has been cancelled by then
+        try {
+          responseObserver.onNext(response);
+          responseObserver.onCompleted();
+        } catch (RuntimeException cancelled) {
+          // nothing to answer
+        }
+      }, delay, TimeUnit.MICROSECONDS);
+    }
+  }
+}
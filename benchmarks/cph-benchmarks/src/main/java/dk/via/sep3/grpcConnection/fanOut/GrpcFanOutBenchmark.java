@@ -0,0 +1,108 @@
+package dk.via.sep3.grpcConnection.fanOut;
+
+import dk.via.sep3.application.domain.AvailabilitySummary;
+import dk.via.sep3.application.domain.Loan;
+import dk.via.sep3.grpcConnection.bookGrpcService.BookGrpcService;
+import dk.via.sep3.grpcConnection.bookGrpcService.BookGrpcServiceImpl;
+import dk.via.sep3.grpcConnection.config.GrpcThreads;
+import dk.via.sep3.grpcConnection.loanGrpcService.LoanGrpcService;
+import dk.via.sep3.grpcConnection.loanGrpcService.LoanGrpcServiceImpl;
+import dk.via.sep3.mapper.bookMapper.BookMapperImpl;
+import dk.via.sep3.mapper.loanMapper.LoanMapperImpl;
+import io.grpc.ManagedChannel;
+import io.grpc.netty.shaded.io.grpc.netty.NettyChannelBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of the two lookups that validate a stepwise {@code createLoan}
+ * (the ISBN's loans and its availability summary), run one after another on
+ * the request thread and fanned out through {@link GrpcFanOut}, with several
+ * requests in flight at once.
+ * <p>
+ * Runs against a {@code FakePersistenceServer} started separately, so the
+ * calls pay real serialization and network costs, e.g.:
+ * <pre>
+ * java -jar FakePersistenceServer/target/fake-persistence-server.jar fake.latency=5ms
+ * java -jar benchmarks/cph-benchmarks/target/benchmarks.jar GrpcFanOutBenchmark -t 32
+ * </pre>
+ * Compare the {@code p0.99} rows: fanned out, a request should take about
+ * one lookup rather than two, and should keep that as {@code -t} grows past
+ * {@code poolThreads}, when the extra lookups run on the request thread.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Threads(16)
+@Fork(1)
+public class GrpcFanOutBenchmark {
+
+  @Param({"127.0.0.1:5020"})
+  public String target;
+
+  /** Must match the fake's {@code fake.isbns}. */
+  @Param({"1000"})
+  public int isbns;
+
+  @Param({"sequential", "fannedOut"})
+  public String mode;
+
+  @Param({"16"})
+  public int poolThreads;
+
+  private ManagedChannel channel;
+  private BookGrpcService bookGrpcService;
+  private LoanGrpcService loanGrpcService;
+  private GrpcFanOut grpcFanOut;
+
+  @Setup
+  public void setUp() {
+    channel = NettyChannelBuilder.forTarget(target)
+        .usePlaintext()
+        .build();
+    bookGrpcService = new BookGrpcServiceImpl(channel, new BookMapperImpl());
+    loanGrpcService = new LoanGrpcServiceImpl(channel, new LoanMapperImpl());
+    grpcFanOut = "sequential".equals(mode)
+        ? new GrpcFanOut(Runnable::run)
+        : new GrpcFanOut(new GrpcThreads(false), poolThreads);
+  }
+
+  @TearDown
+  public void tearDown() throws InterruptedException {
+    grpcFanOut.shutdown();
+    channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+  }
+
+  @Benchmark
+  public AvailabilitySummary validateLoan() {
+    String isbn = String.format("978%010d",
+        ThreadLocalRandom.current().nextInt(isbns));
+    try (GrpcFanOut.Scope scope = grpcFanOut.open()) {
+      CompletableFuture<List<Loan>> loans = scope.fork(
+          () -> loanGrpcService.getLoansByISBN(isbn));
+      CompletableFuture<AvailabilitySummary> summary = scope.fork(
+          () -> bookGrpcService.getAvailabilitySummary(isbn));
+      scope.join();
+      loans.join();
+      return summary.join();
+    }
+  }
+}
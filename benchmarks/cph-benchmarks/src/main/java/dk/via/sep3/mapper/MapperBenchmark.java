@@ -0,0 +1,105 @@
+package dk.via.sep3.mapper;
+
+import dk.via.sep3.DTOBook;
+import dk.via.sep3.DTOGenre;
+import dk.via.sep3.DTOLoan;
+import dk.via.sep3.DTOReservation;
+import dk.via.sep3.application.domain.Book;
+import dk.via.sep3.application.domain.Loan;
+import dk.via.sep3.application.domain.Reservation;
+import dk.via.sep3.mapper.ReservationMapper.ReservationMapper;
+import dk.via.sep3.mapper.ReservationMapper.ReservationMapperImpl;
+import dk.via.sep3.mapper.bookMapper.BookMapper;
+import dk.via.sep3.mapper.bookMapper.BookMapperImpl;
+import dk.via.sep3.mapper.loanMapper.LoanMapper;
+import dk.via.sep3.mapper.loanMapper.LoanMapperImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Proto to domain conversions and back for the mappers on the gRPC path:
+ * one book, loan or reservation per operation.
+ */
+@org.openjdk.jmh.annotations.State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MapperBenchmark {
+
+  private BookMapper bookMapper;
+  private LoanMapper loanMapper;
+  private ReservationMapper reservationMapper;
+
+  private DTOBook dtoBook;
+  private Book book;
+  private DTOLoan dtoLoan;
+  private Loan loan;
+  private DTOReservation dtoReservation;
+  private Reservation reservation;
+
+  @Setup
+  public void setUp() {
+    bookMapper = new BookMapperImpl();
+    loanMapper = new LoanMapperImpl();
+    reservationMapper = new ReservationMapperImpl();
+
+    dtoBook = DTOBook.newBuilder().setId(42).setIsbn("9780000000042")
+        .setTitle("Benchmark Title").setAuthor("Benchmark Author").setState("Available")
+        .addGenres(DTOGenre.newBuilder().setName("Fiction"))
+        .addGenres(DTOGenre.newBuilder().setName("Mystery"))
+        .build();
+    book = bookMapper.toDomain(dtoBook);
+
+    dtoLoan = DTOLoan.newBuilder().setId(7).setBorrowDate("2025-01-10")
+        .setDueDate("2025-02-10").setUsername("john").setIsReturned(false)
+        .setBookId(42).setNumberOfExtensions(1)
+        .build();
+    loan = loanMapper.mapDTOLoanToDomain(dtoLoan);
+
+    dtoReservation = DTOReservation.newBuilder().setId(3)
+        .setReservationDate("2025-01-12").setUsername("john").setBookId(42)
+        .build();
+    reservation = reservationMapper.mapDTOReservationToDomain(dtoReservation);
+  }
+
+  @Benchmark
+  public Book bookToDomain() {
+    return bookMapper.toDomain(dtoBook);
+  }
+
+  @Benchmark
+  public DTOBook bookToProto() {
+    return bookMapper.toProto(book);
+  }
+
+  @Benchmark
+  public Loan loanToDomain() {
+    return loanMapper.mapDTOLoanToDomain(dtoLoan);
+  }
+
+  @Benchmark
+  public DTOLoan loanToProto() {
+    return loanMapper.mapDomainToDTOLoan(loan);
+  }
+
+  @Benchmark
+  public Reservation reservationToDomain() {
+    return reservationMapper.mapDTOReservationToDomain(dtoReservation);
+  }
+
+  @Benchmark
+  public DTOReservation reservationToProto() {
+    return reservationMapper.mapDomainToDTOReservation(reservation);
+  }
+}
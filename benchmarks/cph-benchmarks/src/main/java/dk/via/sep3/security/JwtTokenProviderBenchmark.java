@@ -0,0 +1,94 @@
+package dk.via.sep3.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Field;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tokens per second signed and verified by {@link JwtTokenProvider}, against
+ * the previous implementation that derived the key and built a parser on
+ * every call ({@code legacy*}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtTokenProviderBenchmark {
+
+  private static final String SECRET =
+      "benchmark-secret-benchmark-secret-benchmark-secret-benchmark-secret";
+  private static final long EXPIRATION_MS = 3600000L;
+
+  private JwtTokenProvider provider;
+  private String token;
+
+  @Setup
+  public void setUp() throws Exception {
+    provider = new JwtTokenProvider();
+    set("jwtSecret", SECRET);
+    set("jwtExpirationMs", EXPIRATION_MS);
+    set("keyId", "primary");
+    set("previousKeyId", "");
+    set("previousSecret", "");
+    set("previousValidUntil", "");
+    provider.init();
+    token = provider.generateToken("john", "READER");
+  }
+
+  private void set(String fieldName, Object value) throws Exception {
+    Field field = JwtTokenProvider.class.getDeclaredField(fieldName);
+    field.setAccessible(true);
+    field.set(provider, value);
+  }
+
+  @Benchmark
+  public String sign() {
+    return provider.generateToken("john", "READER");
+  }
+
+  @Benchmark
+  public JwtClaims verify() {
+    return provider.verifyAndExtract(token);
+  }
+
+  @Benchmark
+  public String legacySign() {
+    Date now = new Date();
+    return Jwts.builder()
+        .setSubject("john")
+        .claim("role", "READER")
+        .setIssuedAt(now)
+        .setExpiration(new Date(now.getTime() + EXPIRATION_MS))
+        .signWith(Keys.hmacShaKeyFor(SECRET.getBytes()), SignatureAlgorithm.HS512)
+        .compact();
+  }
+
+  @Benchmark
+  public String legacyVerify() {
+    // What the filter used to do: validate, then parse once per claim
+    Jwts.parser().setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes())).build()
+        .parseClaimsJws(token);
+    Claims claims = Jwts.parser().setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes())).build()
+        .parseClaimsJws(token).getBody();
+    Claims again = Jwts.parser().setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes())).build()
+        .parseClaimsJws(token).getBody();
+    return claims.getSubject() + again.get("role", String.class);
+  }
+}